@@ -358,6 +358,12 @@ public final class D8 {
       if (options.printTimes) {
         timing.report();
       }
+      if (options.getCfCodeParsingOptions().hasStatistics()) {
+        options.getCfCodeParsingOptions().getStatistics().print(System.out);
+      }
+      if (options.getMethodProcessingProfilingOptions().hasProfile()) {
+        options.getMethodProcessingProfilingOptions().report(options.reporter);
+      }
     }
   }
 
@@ -21,6 +21,7 @@ import com.android.tools.r8.shaking.ProguardConfigurationSourceStrings;
 import com.android.tools.r8.utils.AndroidApiLevel;
 import com.android.tools.r8.utils.AndroidApp;
 import com.android.tools.r8.utils.AssertionConfigurationWithDefault;
+import com.android.tools.r8.utils.DeduplicatingDesugarGraphConsumer;
 import com.android.tools.r8.utils.DumpInputFlags;
 import com.android.tools.r8.utils.InternalGlobalSyntheticsProgramProvider;
 import com.android.tools.r8.utils.InternalOptions;
@@ -588,7 +589,7 @@ public final class D8Command extends BaseCompilerCommand {
     internal.intermediate = intermediate;
     internal.retainCompileTimeAnnotations = intermediate;
     internal.setGlobalSyntheticsConsumer(globalSyntheticsConsumer);
-    internal.desugarGraphConsumer = desugarGraphConsumer;
+    internal.desugarGraphConsumer = DeduplicatingDesugarGraphConsumer.wrap(desugarGraphConsumer);
     internal.mainDexKeepRules = mainDexKeepRules;
     internal.proguardMapConsumer = proguardMapConsumer;
     internal.lineNumberOptimization =
@@ -57,6 +57,7 @@ import com.android.tools.r8.ir.optimize.NestReducer;
 import com.android.tools.r8.ir.optimize.SwitchMapCollector;
 import com.android.tools.r8.ir.optimize.enums.EnumUnboxingCfMethods;
 import com.android.tools.r8.ir.optimize.info.OptimizationFeedbackSimple;
+import com.android.tools.r8.ir.optimize.info.cache.OptimizationInfoCacheExporter;
 import com.android.tools.r8.ir.optimize.templates.CfUtilityMethodsForCodeOptimizations;
 import com.android.tools.r8.jar.CfApplicationWriter;
 import com.android.tools.r8.kotlin.KotlinMetadataRewriter;
@@ -292,6 +293,10 @@ public class R8 {
         SyntheticItems.collectSyntheticInputs(appView);
       }
 
+      // Analyze the input code of the classes to export optimization info for before it is modified.
+      OptimizationInfoCacheExporter optimizationInfoCacheExporter =
+          OptimizationInfoCacheExporter.createIfEnabled(appView);
+
       // Check for potentially having pass-through of Cf-code for kotlin libraries.
       options.enableCfByteCodePassThrough =
           options.isGeneratingClassFiles() && KotlinMetadataUtils.mayProcessKotlinMetadata(appView);
@@ -340,7 +345,7 @@ public class R8 {
           }
         }
         AssumeInfoCollection.Builder assumeInfoCollectionBuilder = AssumeInfoCollection.builder();
-        SubtypingInfo subtypingInfo = SubtypingInfo.create(appView);
+        SubtypingInfo subtypingInfo = SubtypingInfo.create(appView, executorService);
         appView.setRootSet(
             RootSet.builder(
                     appView,
@@ -541,6 +546,12 @@ public class R8 {
         timing.end();
       }
 
+      if (optimizationInfoCacheExporter != null) {
+        timing.begin("Export optimization info");
+        optimizationInfoCacheExporter.run(appView);
+        timing.end();
+      }
+
       // Clear the reference type lattice element cache to reduce memory pressure.
       appView.dexItemFactory().clearTypeElementsCache();
 
@@ -580,7 +591,7 @@ public class R8 {
               EnqueuerFactory.createForFinalTreeShaking(
                   appView,
                   executorService,
-                  SubtypingInfo.create(appView),
+                  SubtypingInfo.create(appView, executorService),
                   keptGraphConsumer,
                   prunedTypes);
           if (options.isClassMergingExtensionRequired(enqueuer.getMode())) {
@@ -831,7 +842,7 @@ public class R8 {
                           .isValid())
           : "Could not validate generic signatures";
 
-      new DesugaredLibraryKeepRuleGenerator(appView).runIfNecessary(timing);
+      new DesugaredLibraryKeepRuleGenerator(appView).runIfNecessary(executorService, timing);
 
       // Generate the resulting application resources.
       writeApplication(appView, inputApp, executorService);
@@ -848,6 +859,12 @@ public class R8 {
       if (options.printTimes) {
         timing.report();
       }
+      if (options.getCfCodeParsingOptions().hasStatistics()) {
+        options.getCfCodeParsingOptions().getStatistics().print(System.out);
+      }
+      if (options.getMethodProcessingProfilingOptions().hasProfile()) {
+        options.getMethodProcessingProfilingOptions().report(options.reporter);
+      }
     }
   }
 
@@ -883,7 +900,7 @@ public class R8 {
     // computing from the initially computed main dex root set.
     MainDexInfo mainDexInfo =
         EnqueuerFactory.createForInitialMainDexTracing(
-                appView, executorService, SubtypingInfo.create(appView))
+                appView, executorService, SubtypingInfo.create(appView, executorService))
             .traceMainDex(executorService, timing);
     appView.setAppInfo(appView.appInfo().rebuildWithMainDexInfo(mainDexInfo));
   }
@@ -905,7 +922,10 @@ public class R8 {
 
     Enqueuer enqueuer =
         EnqueuerFactory.createForFinalMainDexTracing(
-            appView, executorService, SubtypingInfo.create(appView), mainDexKeptGraphConsumer);
+            appView,
+            executorService,
+            SubtypingInfo.create(appView, executorService),
+            mainDexKeptGraphConsumer);
     // Find classes which may have code executed before secondary dex files installation.
     MainDexInfo mainDexInfo = enqueuer.traceMainDex(executorService, timing);
     appView.setAppInfo(appView.appInfo().rebuildWithMainDexInfo(mainDexInfo));
@@ -1055,7 +1075,7 @@ public class R8 {
     // If there is no kept-graph info, re-run the enqueueing to compute it.
     if (whyAreYouKeepingConsumer == null) {
       whyAreYouKeepingConsumer = new WhyAreYouKeepingConsumer(null);
-      SubtypingInfo subtypingInfo = SubtypingInfo.create(appView);
+      SubtypingInfo subtypingInfo = SubtypingInfo.create(appView, executorService);
       if (forMainDex) {
         enqueuer =
             EnqueuerFactory.createForFinalMainDexTracing(
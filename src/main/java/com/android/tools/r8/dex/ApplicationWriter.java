@@ -238,20 +238,24 @@ public class ApplicationWriter {
    *
    * This needs to be done after distribute but before dex string sorting.
    */
-  private void encodeChecksums(Iterable<VirtualFile> files) {
+  private void encodeChecksums(Iterable<VirtualFile> files, ExecutorService executorService)
+      throws ExecutionException {
     Collection<DexProgramClass> classes = appView.appInfo().classes();
     Reference2LongMap<DexString> inputChecksums = new Reference2LongOpenHashMap<>(classes.size());
     for (DexProgramClass clazz : classes) {
       inputChecksums.put(getNamingLens().lookupDescriptor(clazz.getType()), clazz.getChecksum());
     }
-    for (VirtualFile file : files) {
-      ClassesChecksum toWrite = new ClassesChecksum();
-      for (DexProgramClass clazz : file.classes()) {
-        DexString desc = getNamingLens().lookupDescriptor(clazz.type);
-        toWrite.addChecksum(desc.toString(), inputChecksums.getLong(desc));
-      }
-      file.injectString(appView.dexItemFactory().createString(toWrite.toJsonString()));
-    }
+    ThreadUtils.processItems(
+        files,
+        file -> {
+          ClassesChecksum toWrite = new ClassesChecksum();
+          for (DexProgramClass clazz : file.classes()) {
+            DexString desc = getNamingLens().lookupDescriptor(clazz.type);
+            toWrite.addChecksum(desc.toString(), inputChecksums.getLong(desc));
+          }
+          file.injectString(appView.dexItemFactory().createString(toWrite.toJsonString()));
+        },
+        executorService);
   }
 
   private boolean willComputeProguardMap() {
@@ -278,8 +282,7 @@ public class ApplicationWriter {
 
     try {
       timing.begin("Insert Attribute Annotations");
-      // TODO(b/151313715): Move this to the writer threads.
-      insertAttributeAnnotations();
+      insertAttributeAnnotations(executorService);
       timing.end();
 
       // Each DexCallSite must have its instruction offset set for sorting.
@@ -295,7 +298,7 @@ public class ApplicationWriter {
       timing.end();
       if (options.encodeChecksums) {
         timing.begin("Encode checksums");
-        encodeChecksums(virtualFiles);
+        encodeChecksums(virtualFiles, executorService);
         timing.end();
       }
       assert markers == null
@@ -305,10 +308,14 @@ public class ApplicationWriter {
           shrinker -> virtualFiles.stream().allMatch(shrinker::verifyDeadProtoTypesNotReferenced),
           true);
 
-      // TODO(b/151313617): Sorting annotations mutates elements so run single threaded on main.
+      // Sorting annotations mutates the annotation sets and annotations in place. These may be
+      // shared between classes, so their sort methods are synchronized.
       timing.begin("Sort Annotations");
       SortAnnotations sortAnnotations = new SortAnnotations(getNamingLens());
-      appView.appInfo().classes().forEach((clazz) -> clazz.addDependencies(sortAnnotations));
+      ThreadUtils.processItems(
+          appView.appInfo().classes(),
+          clazz -> clazz.addDependencies(sortAnnotations),
+          executorService);
       timing.end();
 
       {
@@ -322,8 +329,10 @@ public class ApplicationWriter {
                   Timing fileTiming = Timing.create("VirtualFile " + virtualFile.getId(), options);
                   computeOffsetMappingAndRewriteJumboStrings(
                       virtualFile, lazyDexStrings, fileTiming);
+                  fileTiming.begin("Compute debug representation");
                   DebugRepresentation.computeForFile(appView, virtualFile);
                   fileTiming.end();
+                  fileTiming.end();
                   return fileTiming;
                 },
                 executorService);
@@ -650,13 +659,17 @@ public class ApplicationWriter {
     }
   }
 
-  private void insertAttributeAnnotations() {
+  private void insertAttributeAnnotations(ExecutorService executorService)
+      throws ExecutionException {
     // Convert inner-class attributes to DEX annotations
-    for (DexProgramClass clazz : appView.appInfo().classes()) {
-      insertAttributeAnnotationsForClass(clazz);
-      clazz.fields().forEach(this::insertAttributeAnnotationsForField);
-      clazz.methods().forEach(this::insertAttributeAnnotationsForMethod);
-    }
+    ThreadUtils.processItems(
+        appView.appInfo().classes(),
+        clazz -> {
+          insertAttributeAnnotationsForClass(clazz);
+          clazz.fields().forEach(this::insertAttributeAnnotationsForField);
+          clazz.methods().forEach(this::insertAttributeAnnotationsForMethod);
+        },
+        executorService);
   }
 
   private void insertAttributeAnnotationsForClass(DexProgramClass clazz) {
@@ -0,0 +1,157 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.dex;
+
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.DexCallSite;
+import com.android.tools.r8.graph.DexField;
+import com.android.tools.r8.graph.DexMethod;
+import com.android.tools.r8.graph.DexMethodHandle;
+import com.android.tools.r8.graph.DexProgramClass;
+import com.android.tools.r8.graph.DexProto;
+import com.android.tools.r8.graph.DexReference;
+import com.android.tools.r8.graph.DexString;
+import com.android.tools.r8.graph.DexType;
+import com.android.tools.r8.ir.conversion.LensCodeRewriterUtils;
+import com.android.tools.r8.utils.ThreadUtils;
+import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * The methods and fields referenced by each class, represented by integer ids.
+ *
+ * <p>The number of method and field ids in a dex file is the cardinality of the union of the ids of
+ * its classes. This allows the distribution of classes into dex files to determine if a file is
+ * full without collecting all indexed items of each class that is tried placed in the file.
+ */
+class ClassReferenceIds {
+
+  private static final int[] EMPTY_IDS = new int[0];
+
+  private final Map<DexProgramClass, int[]> methodIds;
+  private final Map<DexProgramClass, int[]> fieldIds;
+
+  private ClassReferenceIds(
+      Map<DexProgramClass, int[]> methodIds, Map<DexProgramClass, int[]> fieldIds) {
+    this.methodIds = methodIds;
+    this.fieldIds = fieldIds;
+  }
+
+  static ClassReferenceIds create(
+      AppView<?> appView, Collection<DexProgramClass> classes, ExecutorService executorService)
+      throws ExecutionException {
+    LensCodeRewriterUtils rewriter = new LensCodeRewriterUtils(appView, true);
+    Collection<ReferenceCollector> collectors =
+        ThreadUtils.processItemsWithResults(
+            classes,
+            clazz -> {
+              ReferenceCollector collector = new ReferenceCollector(clazz);
+              clazz.collectIndexedItems(appView, collector, rewriter);
+              return collector;
+            },
+            executorService);
+    Reference2IntMap<DexReference> ids = new Reference2IntOpenHashMap<>();
+    ids.defaultReturnValue(-1);
+    Map<DexProgramClass, int[]> methodIds = new IdentityHashMap<>(classes.size());
+    Map<DexProgramClass, int[]> fieldIds = new IdentityHashMap<>(classes.size());
+    for (ReferenceCollector collector : collectors) {
+      methodIds.put(collector.clazz, toIds(collector.methods, ids));
+      fieldIds.put(collector.clazz, toIds(collector.fields, ids));
+    }
+    return new ClassReferenceIds(methodIds, fieldIds);
+  }
+
+  private static int[] toIds(
+      Set<? extends DexReference> references, Reference2IntMap<DexReference> ids) {
+    if (references.isEmpty()) {
+      return EMPTY_IDS;
+    }
+    int[] result = new int[references.size()];
+    int index = 0;
+    for (DexReference reference : references) {
+      int id = ids.getInt(reference);
+      if (id < 0) {
+        id = ids.size();
+        ids.put(reference, id);
+      }
+      result[index++] = id;
+    }
+    return result;
+  }
+
+  boolean contains(DexProgramClass clazz) {
+    return methodIds.containsKey(clazz);
+  }
+
+  int[] getMethodIds(DexProgramClass clazz) {
+    return methodIds.get(clazz);
+  }
+
+  int[] getFieldIds(DexProgramClass clazz) {
+    return fieldIds.get(clazz);
+  }
+
+  private static class ReferenceCollector implements IndexedItemCollection {
+
+    private final DexProgramClass clazz;
+    private final Set<DexMethod> methods = Sets.newIdentityHashSet();
+    private final Set<DexField> fields = Sets.newIdentityHashSet();
+    private final Set<DexType> types = Sets.newIdentityHashSet();
+    private final Set<DexProto> protos = Sets.newIdentityHashSet();
+    private final Set<DexCallSite> callSites = Sets.newIdentityHashSet();
+    private final Set<DexMethodHandle> methodHandles = Sets.newIdentityHashSet();
+
+    ReferenceCollector(DexProgramClass clazz) {
+      this.clazz = clazz;
+    }
+
+    @Override
+    public boolean addClass(DexProgramClass dexProgramClass) {
+      return dexProgramClass == clazz;
+    }
+
+    @Override
+    public boolean addField(DexField field) {
+      return fields.add(field);
+    }
+
+    @Override
+    public boolean addMethod(DexMethod method) {
+      return methods.add(method);
+    }
+
+    @Override
+    public boolean addString(DexString string) {
+      // Strings do not refer to other items.
+      return false;
+    }
+
+    @Override
+    public boolean addProto(DexProto proto) {
+      return protos.add(proto);
+    }
+
+    @Override
+    public boolean addType(DexType type) {
+      return types.add(type);
+    }
+
+    @Override
+    public boolean addCallSite(DexCallSite callSite) {
+      return callSites.add(callSite);
+    }
+
+    @Override
+    public boolean addMethodHandle(DexMethodHandle methodHandle) {
+      return methodHandles.add(methodHandle);
+    }
+  }
+}
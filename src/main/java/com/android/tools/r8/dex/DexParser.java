@@ -1043,7 +1043,12 @@ public class DexParser<T extends DexClass> {
     DexDebugInfo debugInfo = debugInfoAt(debugInfoOff, instructions);
     dexReader.position(saved);
 
-    return new DexCode(registerSize, insSize, outsSize, instructions, tries, handlers, debugInfo);
+    DexCode dexCode =
+        new DexCode(registerSize, insSize, outsSize, instructions, tries, handlers, debugInfo);
+    if (options.passthroughDexCode && options.enableRawDexCodePassthrough) {
+      dexCode.setRawInstructions(RawDexInstructions.create(code, instructions, indexedItems));
+    }
+    return dexCode;
   }
 
   void populateIndexTables() {
@@ -0,0 +1,169 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.dex;
+
+import com.android.tools.r8.dex.code.DexInstruction;
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.DexReference;
+import com.android.tools.r8.graph.DexString;
+import com.android.tools.r8.graph.ObjectToOffsetMapping;
+import com.android.tools.r8.graph.OffsetToObjectMapping;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The instructions of a code item as they were read from a dex input, together with the positions
+ * and values of the string, type, field and method indices in the instructions.
+ *
+ * <p>This allows writing the code item to a dex output by copying the instructions and patching
+ * the indices, instead of writing each of the parsed instructions. Code items that refer to call
+ * sites, method handles or protos are not represented, since writing these requires rewriting the
+ * referenced items.
+ */
+public class RawDexInstructions {
+
+  private static final int CONST_STRING = 0x1a;
+  private static final int CONST_STRING_JUMBO = 0x1b;
+
+  private final short[] code;
+
+  // The position of the index of each const-string and const-string/jumbo instruction.
+  private final int[] stringPositions;
+  private final DexString[] strings;
+
+  // The position of the index of each instruction that refers to a type, field or method.
+  private final int[] referencePositions;
+  private final DexReference[] references;
+
+  private final DexString highestSortingString;
+
+  private RawDexInstructions(
+      short[] code,
+      int[] stringPositions,
+      DexString[] strings,
+      int[] referencePositions,
+      DexReference[] references,
+      DexString highestSortingString) {
+    this.code = code;
+    this.stringPositions = stringPositions;
+    this.strings = strings;
+    this.referencePositions = referencePositions;
+    this.references = references;
+    this.highestSortingString = highestSortingString;
+  }
+
+  /**
+   * Returns the raw instructions of the given code, or null if the code refers to items that cannot
+   * be written by patching the indices.
+   */
+  public static RawDexInstructions create(
+      short[] code, DexInstruction[] instructions, OffsetToObjectMapping indexedItems) {
+    IntList stringPositions = new IntArrayList();
+    List<DexString> strings = new ArrayList<>();
+    IntList referencePositions = new IntArrayList();
+    List<DexReference> references = new ArrayList<>();
+    DexString highestSortingString = null;
+    for (DexInstruction instruction : instructions) {
+      int position = instruction.getOffset();
+      int opcode = code[position] & 0xff;
+      int indexPosition = position + 1;
+      switch (opcode) {
+        case CONST_STRING:
+        case CONST_STRING_JUMBO:
+          int stringIndex = code[indexPosition] & 0xffff;
+          if (opcode == CONST_STRING_JUMBO) {
+            stringIndex |= (code[indexPosition + 1] & 0xffff) << 16;
+          }
+          DexString string = indexedItems.getString(stringIndex);
+          stringPositions.add(indexPosition);
+          strings.add(string);
+          if (highestSortingString == null || highestSortingString.compareTo(string) < 0) {
+            highestSortingString = string;
+          }
+          break;
+        case 0x1c: // const-class
+        case 0x1f: // check-cast
+        case 0x20: // instance-of
+        case 0x22: // new-instance
+        case 0x23: // new-array
+        case 0x24: // filled-new-array
+        case 0x25: // filled-new-array/range
+          referencePositions.add(indexPosition);
+          references.add(indexedItems.getType(code[indexPosition] & 0xffff));
+          break;
+        case 0xfa: // invoke-polymorphic
+        case 0xfb: // invoke-polymorphic/range
+        case 0xfc: // invoke-custom
+        case 0xfd: // invoke-custom/range
+        case 0xfe: // const-method-handle
+        case 0xff: // const-method-type
+          return null;
+        default:
+          if (0x52 <= opcode && opcode <= 0x6d) {
+            // iget, iput, sget and sput.
+            referencePositions.add(indexPosition);
+            references.add(indexedItems.getField(code[indexPosition] & 0xffff));
+          } else if ((0x6e <= opcode && opcode <= 0x72) || (0x74 <= opcode && opcode <= 0x78)) {
+            // invoke-kind and invoke-kind/range.
+            referencePositions.add(indexPosition);
+            references.add(indexedItems.getMethod(code[indexPosition] & 0xffff));
+          }
+          break;
+      }
+    }
+    return new RawDexInstructions(
+        code,
+        stringPositions.toIntArray(),
+        strings.toArray(DexString.EMPTY_ARRAY),
+        referencePositions.toIntArray(),
+        references.toArray(new DexReference[0]),
+        highestSortingString);
+  }
+
+  /** Returns the number of 16-bit code units. */
+  public int size() {
+    return code.length;
+  }
+
+  public DexString getHighestSortingString() {
+    return highestSortingString;
+  }
+
+  public void collectIndexedItems(AppView<?> appView, IndexedItemCollection indexedItems) {
+    for (DexString string : strings) {
+      string.collectIndexedItems(indexedItems);
+    }
+    for (DexReference reference : references) {
+      reference.collectIndexedItems(appView, indexedItems);
+    }
+  }
+
+  /**
+   * Writes the instructions with the indices of the given mapping. The caller must ensure that no
+   * const-string instruction needs to be rewritten to const-string/jumbo.
+   */
+  public void write(ShortBuffer dest, ObjectToOffsetMapping mapping) {
+    int start = dest.position();
+    dest.put(code);
+    for (int i = 0; i < strings.length; i++) {
+      int indexPosition = start + stringPositions[i];
+      int index = strings[i].getOffset(mapping);
+      if ((code[stringPositions[i] - 1] & 0xff) == CONST_STRING_JUMBO) {
+        dest.put(indexPosition, (short) (index & 0xffff));
+        dest.put(indexPosition + 1, (short) (index >>> 16));
+      } else {
+        assert index == (index & 0xffff);
+        dest.put(indexPosition, (short) index);
+      }
+    }
+    for (int i = 0; i < references.length; i++) {
+      int index = references[i].getOffset(mapping);
+      assert index == (index & 0xffff);
+      dest.put(start + referencePositions[i], (short) index);
+    }
+  }
+}
@@ -43,16 +43,20 @@ import com.android.tools.r8.utils.IntBox;
 import com.android.tools.r8.utils.InternalOptions;
 import com.android.tools.r8.utils.Reporter;
 import com.android.tools.r8.utils.SetUtils;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.Timing;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Sets;
 import it.unimi.dsi.fastutil.ints.Int2ReferenceMaps;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -78,6 +82,10 @@ public class VirtualFile {
   private final IndexedItemTransaction transaction;
   private final FeatureSplit featureSplit;
 
+  // When present, the methods and fields of the classes added to this file are only accounted for
+  // by their ids, until the indexed items of the classes are collected at the end of distribution.
+  private ClassReferenceIdTransaction referenceIdTransaction;
+
   private final DexString primaryClassDescriptor;
   private DebugRepresentation debugRepresentation;
 
@@ -219,12 +227,49 @@ public class VirtualFile {
   }
 
   void addClass(DexProgramClass clazz) {
-    transaction.addClassAndDependencies(clazz);
+    if (referenceIdTransaction != null && referenceIdTransaction.contains(clazz)) {
+      if (transaction.addClass(clazz)) {
+        referenceIdTransaction.addClass(clazz);
+      }
+    } else {
+      transaction.addClassAndDependencies(clazz);
+    }
+  }
+
+  private void useClassReferenceIds(ClassReferenceIds classReferenceIds) {
+    assert isEmpty();
+    assert indexedItems.getNumberOfMethods() == 0;
+    assert indexedItems.getNumberOfFields() == 0;
+    if (classReferenceIds != null) {
+      referenceIdTransaction = new ClassReferenceIdTransaction(classReferenceIds);
+    }
+  }
+
+  /**
+   * Collects the indexed items of the classes that have been added to this file using their
+   * reference ids.
+   */
+  private void collectDeferredIndexedItems() {
+    if (referenceIdTransaction == null) {
+      return;
+    }
+    assert transaction.isEmpty();
+    assert referenceIdTransaction.isEmpty();
+    int numberOfMethods = getNumberOfMethods();
+    int numberOfFields = getNumberOfFields();
+    List<DexProgramClass> deferredClasses = new ArrayList<>(indexedItems.classes);
+    indexedItems.classes.clear();
+    referenceIdTransaction = null;
+    for (DexProgramClass clazz : deferredClasses) {
+      transaction.addClassAndDependencies(clazz);
+    }
+    transaction.commit();
+    assert numberOfMethods == getNumberOfMethods();
+    assert numberOfFields == getNumberOfFields();
   }
 
   public boolean isFull(int maxEntries) {
-    return (transaction.getNumberOfMethods() > maxEntries)
-        || (transaction.getNumberOfFields() > maxEntries);
+    return (getNumberOfMethods() > maxEntries) || (getNumberOfFields() > maxEntries);
   }
 
   boolean isFull() {
@@ -232,11 +277,15 @@ public class VirtualFile {
   }
 
   public int getNumberOfMethods() {
-    return transaction.getNumberOfMethods();
+    return referenceIdTransaction == null
+        ? transaction.getNumberOfMethods()
+        : transaction.getNumberOfMethods() + referenceIdTransaction.getNumberOfMethods();
   }
 
   public int getNumberOfFields() {
-    return transaction.getNumberOfFields();
+    return referenceIdTransaction == null
+        ? transaction.getNumberOfFields()
+        : transaction.getNumberOfFields() + referenceIdTransaction.getNumberOfFields();
   }
 
   public int getNumberOfClasses() {
@@ -249,7 +298,7 @@ public class VirtualFile {
     }
     throw reporter.fatalError(
         new DexFileOverflowDiagnostic(
-            hasMainDexList, transaction.getNumberOfMethods(), transaction.getNumberOfFields()));
+            hasMainDexList, getNumberOfMethods(), getNumberOfFields()));
   }
 
   private boolean isFilledEnough() {
@@ -258,10 +307,16 @@ public class VirtualFile {
 
   public void abortTransaction() {
     transaction.abort();
+    if (referenceIdTransaction != null) {
+      referenceIdTransaction.abort();
+    }
   }
 
   public void commitTransaction() {
     transaction.commit();
+    if (referenceIdTransaction != null) {
+      referenceIdTransaction.commit();
+    }
   }
 
   public boolean containsString(DexString string) {
@@ -354,6 +409,10 @@ public class VirtualFile {
     protected final VirtualFile mainDexFile;
     protected final InternalOptions options;
 
+    // The reference ids of the classes, if the files created by this distributor account for the
+    // methods and fields of their classes using reference ids.
+    protected ClassReferenceIds classReferenceIds;
+
     DistributorBase(
         ApplicationWriter writer, Collection<DexProgramClass> classes, InternalOptions options) {
       super(writer);
@@ -399,9 +458,9 @@ public class VirtualFile {
         Log.info(
             VirtualFile.class, "Main dex classes: " + mainDexFile.transaction.getNumberOfClasses());
         Log.info(
-            VirtualFile.class, "Main dex methods: " + mainDexFile.transaction.getNumberOfMethods());
+            VirtualFile.class, "Main dex methods: " + mainDexFile.getNumberOfMethods());
         Log.info(
-            VirtualFile.class, "Main dex fields: " + mainDexFile.transaction.getNumberOfFields());
+            VirtualFile.class, "Main dex fields: " + mainDexFile.getNumberOfFields());
       }
       mainDexFile.throwIfFull(true, options.reporter);
     }
@@ -445,6 +504,7 @@ public class VirtualFile {
                 nextFileId.getAndIncrement(),
                 appView,
                 featureSplitSetEntry.getKey());
+        featureFile.useClassReferenceIds(classReferenceIds);
         virtualFiles.add(featureFile);
         addMarkers(featureFile);
         List<VirtualFile> files = virtualFiles;
@@ -455,7 +515,8 @@ public class VirtualFile {
                 appView,
                 featureSplitSetEntry.getValue(),
                 originalNames,
-                nextFileId)
+                nextFileId,
+                classReferenceIds)
             .run();
       }
     }
@@ -474,16 +535,21 @@ public class VirtualFile {
     }
 
     @Override
-    public List<VirtualFile> run() throws IOException {
+    public List<VirtualFile> run() throws ExecutionException, IOException {
       assert virtualFiles.size() == 1;
       assert virtualFiles.get(0).isEmpty();
 
+      if (canUseClassReferenceIds()) {
+        classReferenceIds = ClassReferenceIds.create(appView, classes, executorService);
+        mainDexFile.useClassReferenceIds(classReferenceIds);
+      }
+
       int totalClassNumber = classes.size();
       // First fill required classes into the main dex file.
       fillForMainDexList(classes);
       if (classes.isEmpty()) {
         // All classes ended up in the main dex file, no more to do.
-        return virtualFiles;
+        return collectDeferredIndexedItems();
       }
 
       List<VirtualFile> filesForDistribution = virtualFiles;
@@ -511,12 +577,37 @@ public class VirtualFile {
             .distribute();
       } else {
         new PackageSplitPopulator(
-                virtualFiles, filesForDistribution, appView, classes, originalNames, nextFileId)
+                virtualFiles,
+                filesForDistribution,
+                appView,
+                classes,
+                originalNames,
+                nextFileId,
+                classReferenceIds)
             .run();
       }
       addFeatureSplitFiles(featureSplitClasses);
 
       assert totalClassNumber == virtualFiles.stream().mapToInt(dex -> dex.classes().size()).sum();
+      return collectDeferredIndexedItems();
+    }
+
+    private boolean canUseClassReferenceIds() {
+      // The inheritance based distribution of legacy multidex applications adds and removes
+      // classes outside transactions, and the startup completeness check changes the code of the
+      // classes after the reference ids would have been computed.
+      return options.enableClassReferenceIdsInDexDistribution
+          && !(options.enableInheritanceClassInDexDistributor
+              && !appView.appInfo().getMainDexInfo().isEmpty())
+          && !options.getStartupOptions().isStartupCompletenessCheckForTesting();
+    }
+
+    private List<VirtualFile> collectDeferredIndexedItems() throws ExecutionException {
+      if (classReferenceIds != null) {
+        ThreadUtils.processItems(
+            virtualFiles, VirtualFile::collectDeferredIndexedItems, executorService);
+        classReferenceIds = null;
+      }
       return virtualFiles;
     }
   }
@@ -743,6 +834,79 @@ public class VirtualFile {
 
   }
 
+  /**
+   * Accounts for the methods and fields of the classes added to a file using their reference ids.
+   * The ids of the current transaction are set in the same bitset as the committed ids, and are
+   * cleared again if the transaction is aborted.
+   */
+  private static class ClassReferenceIdTransaction {
+
+    private final ClassReferenceIds classReferenceIds;
+    private final BitSet ids = new BitSet();
+    private final IntList pendingIds = new IntArrayList();
+
+    private int numberOfMethods = 0;
+    private int numberOfFields = 0;
+    private int numberOfPendingMethods = 0;
+    private int numberOfPendingFields = 0;
+
+    private ClassReferenceIdTransaction(ClassReferenceIds classReferenceIds) {
+      this.classReferenceIds = classReferenceIds;
+    }
+
+    boolean contains(DexProgramClass clazz) {
+      return classReferenceIds.contains(clazz);
+    }
+
+    void addClass(DexProgramClass clazz) {
+      numberOfPendingMethods += addIds(classReferenceIds.getMethodIds(clazz));
+      numberOfPendingFields += addIds(classReferenceIds.getFieldIds(clazz));
+    }
+
+    private int addIds(int[] classIds) {
+      int numberOfNewIds = 0;
+      for (int id : classIds) {
+        if (!ids.get(id)) {
+          ids.set(id);
+          pendingIds.add(id);
+          numberOfNewIds++;
+        }
+      }
+      return numberOfNewIds;
+    }
+
+    int getNumberOfMethods() {
+      return numberOfMethods + numberOfPendingMethods;
+    }
+
+    int getNumberOfFields() {
+      return numberOfFields + numberOfPendingFields;
+    }
+
+    void commit() {
+      numberOfMethods += numberOfPendingMethods;
+      numberOfFields += numberOfPendingFields;
+      clearPending();
+    }
+
+    void abort() {
+      for (int i = 0; i < pendingIds.size(); i++) {
+        ids.clear(pendingIds.getInt(i));
+      }
+      clearPending();
+    }
+
+    private void clearPending() {
+      pendingIds.clear();
+      numberOfPendingMethods = 0;
+      numberOfPendingFields = 0;
+    }
+
+    boolean isEmpty() {
+      return pendingIds.isEmpty();
+    }
+  }
+
   /**
    * Helper class to cycle through the set of virtual files.
    *
@@ -761,6 +925,7 @@ public class VirtualFile {
     private final AppView<?> appView;
 
     private final IntBox nextFileId;
+    private final ClassReferenceIds classReferenceIds;
     private Iterator<VirtualFile> allFilesCyclic;
     private Iterator<VirtualFile> activeFiles;
     private FeatureSplit featureSplit;
@@ -770,10 +935,20 @@ public class VirtualFile {
         List<VirtualFile> filesForDistribution,
         AppView<?> appView,
         IntBox nextFileId) {
+      this(files, filesForDistribution, appView, nextFileId, null);
+    }
+
+    VirtualFileCycler(
+        List<VirtualFile> files,
+        List<VirtualFile> filesForDistribution,
+        AppView<?> appView,
+        IntBox nextFileId,
+        ClassReferenceIds classReferenceIds) {
       this.files = files;
       this.filesForDistribution = new ArrayList<>(filesForDistribution);
       this.appView = appView;
       this.nextFileId = nextFileId;
+      this.classReferenceIds = classReferenceIds;
 
       if (filesForDistribution.size() > 0) {
         featureSplit = filesForDistribution.get(0).getFeatureSplit();
@@ -844,6 +1019,7 @@ public class VirtualFile {
 
     private VirtualFile internalAddFile() {
       VirtualFile newFile = new VirtualFile(nextFileId.getAndIncrement(), appView, featureSplit);
+      newFile.useClassReferenceIds(classReferenceIds);
       files.add(newFile);
       filesForDistribution.add(newFile);
       return newFile;
@@ -984,12 +1160,15 @@ public class VirtualFile {
         AppView<?> appView,
         Collection<DexProgramClass> classes,
         Map<DexProgramClass, String> originalNames,
-        IntBox nextFileId) {
+        IntBox nextFileId,
+        ClassReferenceIds classReferenceIds) {
       this.classPartioning = PackageSplitClassPartioning.create(classes, appView, originalNames);
       this.originalNames = originalNames;
       this.dexItemFactory = appView.dexItemFactory();
       this.options = appView.options();
-      this.cycler = new VirtualFileCycler(files, filesForDistribution, appView, nextFileId);
+      this.cycler =
+          new VirtualFileCycler(
+              files, filesForDistribution, appView, nextFileId, classReferenceIds);
     }
 
     static boolean coveredByPrefix(String originalName, String currentPrefix) {
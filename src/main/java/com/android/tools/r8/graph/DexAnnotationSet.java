@@ -136,7 +136,8 @@ public class DexAnnotationSet extends CachedHashValueDexItem
     return annotations.length == 0;
   }
 
-  public void sort(NamingLens namingLens) {
+  // Synchronized since annotation sets may be shared between items that are sorted concurrently.
+  public synchronized void sort(NamingLens namingLens) {
     if (sorted != UNSORTED) {
       assert sorted == sortedHashCode();
       return;
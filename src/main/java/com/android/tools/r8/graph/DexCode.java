@@ -7,6 +7,7 @@ import com.android.tools.r8.dex.CodeToKeep;
 import com.android.tools.r8.dex.IndexedItemCollection;
 import com.android.tools.r8.dex.JumboStringRewriter;
 import com.android.tools.r8.dex.MixedSectionCollection;
+import com.android.tools.r8.dex.RawDexInstructions;
 import com.android.tools.r8.dex.code.CfOrDexInstruction;
 import com.android.tools.r8.dex.code.DexInstruction;
 import com.android.tools.r8.dex.code.DexReturnVoid;
@@ -66,6 +67,9 @@ public class DexCode extends Code implements DexWritableCode, StructuralItem<Dex
   private DexDebugInfo debugInfo;
   private DexDebugInfoForWriting debugInfoForWriting;
 
+  // The instructions as read from the dex input, if the code can be written by patching indices.
+  private RawDexInstructions rawInstructions;
+
   private final BytecodeMetadata<DexInstruction> metadata;
 
   private static void specify(StructuralSpecification<DexCode, ?> spec) {
@@ -160,6 +164,16 @@ public class DexCode extends Code implements DexWritableCode, StructuralItem<Dex
     return DexCode::specify;
   }
 
+  public void setRawInstructions(RawDexInstructions rawInstructions) {
+    assert rawInstructions == null || rawInstructions.size() == codeSizeInBytes();
+    this.rawInstructions = rawInstructions;
+  }
+
+  private boolean hasRawInstructions(GraphLens graphLens) {
+    // The raw instructions are only valid if no references are rewritten.
+    return rawInstructions != null && graphLens.isIdentityLens();
+  }
+
   @Override
   public DexWritableCode rewriteCodeWithJumboStrings(
       ProgramMethod method, ObjectToOffsetMapping mapping, DexItemFactory factory, boolean force) {
@@ -605,6 +619,25 @@ public class DexCode extends Code implements DexWritableCode, StructuralItem<Dex
       ProgramMethod context,
       LensCodeRewriterUtils rewriter) {
     highestSortingString = null;
+    if (hasRawInstructions(appView.graphLens())) {
+      rawInstructions.collectIndexedItems(appView, indexedItems);
+      highestSortingString = rawInstructions.getHighestSortingString();
+    } else {
+      collectIndexedItemsFromInstructions(appView, indexedItems, context, rewriter);
+    }
+    if (debugInfo != null) {
+      getDebugInfoForWriting().collectIndexedItems(appView, indexedItems);
+    }
+    for (TryHandler handler : handlers) {
+      handler.collectIndexedItems(appView, indexedItems);
+    }
+  }
+
+  private void collectIndexedItemsFromInstructions(
+      AppView<?> appView,
+      IndexedItemCollection indexedItems,
+      ProgramMethod context,
+      LensCodeRewriterUtils rewriter) {
     for (DexInstruction insn : instructions) {
       assert !insn.isDexItemBasedConstString();
       insn.collectIndexedItems(appView, indexedItems, context, rewriter);
@@ -614,12 +647,6 @@ public class DexCode extends Code implements DexWritableCode, StructuralItem<Dex
         updateHighestSortingString(insn.asConstStringJumbo().getString());
       }
     }
-    if (debugInfo != null) {
-      getDebugInfoForWriting().collectIndexedItems(appView, indexedItems);
-    }
-    for (TryHandler handler : handlers) {
-      handler.collectIndexedItems(appView, indexedItems);
-    }
   }
 
   @Override
@@ -718,6 +745,10 @@ public class DexCode extends Code implements DexWritableCode, StructuralItem<Dex
       GraphLens graphLens,
       LensCodeRewriterUtils lensCodeRewriter,
       ObjectToOffsetMapping mapping) {
+    if (hasRawInstructions(graphLens)) {
+      rawInstructions.write(shortBuffer, mapping);
+      return;
+    }
     for (DexInstruction instruction : instructions) {
       instruction.write(shortBuffer, context, graphLens, mapping, lensCodeRewriter);
     }
@@ -280,7 +280,7 @@ public class DexDebugEventBuilder {
     events.add(factory.createDefault(specialOpcode));
   }
 
-  private static void emitLocalChangeEvents(
+  public static void emitLocalChangeEvents(
       Int2ReferenceMap<DebugLocalInfo> previousLocals,
       Int2ReferenceMap<DebugLocalInfo> nextLocals,
       Int2ReferenceMap<DebugLocalInfo> lastKnownLocals,
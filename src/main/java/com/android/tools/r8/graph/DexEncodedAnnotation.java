@@ -90,7 +90,8 @@ public class DexEncodedAnnotation extends DexItem implements StructuralItem<DexE
     return false;
   }
 
-  public void sort() {
+  // Synchronized since annotations may be shared between items that are sorted concurrently.
+  public synchronized void sort() {
     if (sorted != UNSORTED) {
       assert sorted == sortedHashCode();
       return;
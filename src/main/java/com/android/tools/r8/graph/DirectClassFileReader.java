@@ -0,0 +1,1059 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.graph;
+
+import static org.objectweb.asm.ClassReader.SKIP_DEBUG;
+import static org.objectweb.asm.Opcodes.ACC_DEPRECATED;
+import static org.objectweb.asm.Opcodes.ACC_MODULE;
+import static org.objectweb.asm.Opcodes.ACC_RECORD;
+import static org.objectweb.asm.Opcodes.ACC_SYNTHETIC;
+
+import com.android.tools.r8.cf.CfVersion;
+import com.android.tools.r8.dex.Constants;
+import com.android.tools.r8.errors.CompilationError;
+import com.android.tools.r8.graph.DexValue.DexValueAnnotation;
+import com.android.tools.r8.graph.DexValue.DexValueArray;
+import com.android.tools.r8.graph.DexValue.DexValueBoolean;
+import com.android.tools.r8.graph.DexValue.DexValueByte;
+import com.android.tools.r8.graph.DexValue.DexValueChar;
+import com.android.tools.r8.graph.DexValue.DexValueDouble;
+import com.android.tools.r8.graph.DexValue.DexValueEnum;
+import com.android.tools.r8.graph.DexValue.DexValueFloat;
+import com.android.tools.r8.graph.DexValue.DexValueInt;
+import com.android.tools.r8.graph.DexValue.DexValueLong;
+import com.android.tools.r8.graph.DexValue.DexValueShort;
+import com.android.tools.r8.graph.DexValue.DexValueString;
+import com.android.tools.r8.graph.DexValue.DexValueType;
+import com.android.tools.r8.graph.JarClassFileReader.CreateDexClassVisitor;
+import com.android.tools.r8.graph.JarClassFileReader.CreateFieldVisitor;
+import com.android.tools.r8.graph.JarClassFileReader.CreateMethodVisitor;
+import com.android.tools.r8.jar.CfApplicationWriter;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.synthesis.SyntheticMarker;
+import com.android.tools.r8.utils.DescriptorUtils;
+import com.android.tools.r8.utils.InternalOptions;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Reads the class structure of a class file directly from the class file bytes.
+ *
+ * <p>Strings in the constant pool use the same modified UTF-8 encoding as {@link DexString}, so
+ * names are read directly into {@link DexString}s, and types and protos are looked up by their
+ * descriptor bytes without creating intermediate {@link String}s. The class is built by the same
+ * {@link CreateDexClassVisitor} as when reading the class file with ASM, and the code of methods is
+ * parsed lazily with ASM by {@link LazyCfCode}.
+ *
+ * <p>Class files that use features that are not supported by this reader, such as modules and
+ * synthetic marker attributes, or that are malformed, are rejected by {@link #read()} before any
+ * part of the class is built, such that they can be read with ASM instead.
+ */
+class DirectClassFileReader<T extends DexClass> {
+
+  // Constant pool tags.
+  private static final int CONSTANT_UTF8 = 1;
+  private static final int CONSTANT_INTEGER = 3;
+  private static final int CONSTANT_FLOAT = 4;
+  private static final int CONSTANT_LONG = 5;
+  private static final int CONSTANT_DOUBLE = 6;
+  private static final int CONSTANT_CLASS = 7;
+  private static final int CONSTANT_STRING = 8;
+  private static final int CONSTANT_FIELDREF = 9;
+  private static final int CONSTANT_METHODREF = 10;
+  private static final int CONSTANT_INTERFACE_METHODREF = 11;
+  private static final int CONSTANT_NAME_AND_TYPE = 12;
+  private static final int CONSTANT_METHOD_HANDLE = 15;
+  private static final int CONSTANT_METHOD_TYPE = 16;
+  private static final int CONSTANT_DYNAMIC = 17;
+  private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+  private static final int CONSTANT_MODULE = 19;
+  private static final int CONSTANT_PACKAGE = 20;
+
+  private static final byte[] INSTANCE_INITIALIZER_NAME =
+      Constants.INSTANCE_INITIALIZER_NAME.getBytes(StandardCharsets.UTF_8);
+  private static final byte[] CLASS_INITIALIZER_NAME =
+      Constants.CLASS_INITIALIZER_NAME.getBytes(StandardCharsets.UTF_8);
+
+  private enum AttributeKind {
+    ANNOTATION_DEFAULT("AnnotationDefault"),
+    CONSTANT_VALUE("ConstantValue"),
+    DEPRECATED("Deprecated"),
+    ENCLOSING_METHOD("EnclosingMethod"),
+    EXCEPTIONS("Exceptions"),
+    INNER_CLASSES("InnerClasses"),
+    METHOD_PARAMETERS("MethodParameters"),
+    MODULE("Module"),
+    MODULE_MAIN_CLASS("ModuleMainClass"),
+    MODULE_PACKAGES("ModulePackages"),
+    NEST_HOST("NestHost"),
+    NEST_MEMBERS("NestMembers"),
+    PERMITTED_SUBCLASSES("PermittedSubclasses"),
+    RECORD("Record"),
+    RUNTIME_INVISIBLE_ANNOTATIONS("RuntimeInvisibleAnnotations"),
+    RUNTIME_INVISIBLE_PARAMETER_ANNOTATIONS("RuntimeInvisibleParameterAnnotations"),
+    RUNTIME_VISIBLE_ANNOTATIONS("RuntimeVisibleAnnotations"),
+    RUNTIME_VISIBLE_PARAMETER_ANNOTATIONS("RuntimeVisibleParameterAnnotations"),
+    SIGNATURE("Signature"),
+    SOURCE_DEBUG_EXTENSION("SourceDebugExtension"),
+    SOURCE_FILE("SourceFile"),
+    SYNTHETIC("Synthetic"),
+    // Attributes that are not read, such as Code, BootstrapMethods and type annotations.
+    OTHER(null);
+
+    private static final AttributeKind[] VALUES = values();
+
+    private final byte[] name;
+
+    AttributeKind(String name) {
+      this.name = name == null ? null : name.getBytes(StandardCharsets.UTF_8);
+    }
+  }
+
+  private final Origin origin;
+  private final ClassKind<T> classKind;
+  private final byte[] bytes;
+  private final JarApplicationReader application;
+  private final DexItemFactory factory;
+  private final Consumer<T> classConsumer;
+  private final boolean skipDebug;
+
+  // The offset of the content of each constant pool entry, following the tag, or 0 for the unused
+  // entries following long and double constants.
+  private int[] constantPoolOffsets;
+  // Caches of the items created for each constant pool entry.
+  private DexString[] strings;
+  private DexType[] types;
+  private AttributeKind[] attributeKinds;
+
+  // The offset of the access_flags item following the constant pool.
+  private int header;
+  private int fieldsOffset;
+  private int methodsOffset;
+
+  // Class attributes found while scanning the class file.
+  private int classAttributeAccessFlags = 0;
+  private int signatureIndex = 0;
+  private int sourceFileIndex = 0;
+  private int sourceDebugExtensionOffset = 0;
+  private int sourceDebugExtensionLength = -1;
+  private int nestHostIndex = 0;
+  private int enclosingMethodOffset = 0;
+  private int runtimeVisibleAnnotationsOffset = 0;
+  private int runtimeInvisibleAnnotationsOffset = 0;
+  private int nestMembersOffset = 0;
+  private int permittedSubclassesOffset = 0;
+  private int innerClassesOffset = 0;
+  private int recordOffset = 0;
+
+  // Cursor used when reading annotations.
+  private int position;
+
+  DirectClassFileReader(
+      Origin origin,
+      ClassKind<T> classKind,
+      byte[] bytes,
+      JarApplicationReader application,
+      Consumer<T> classConsumer,
+      int parsingOptions) {
+    this.origin = origin;
+    this.classKind = classKind;
+    this.bytes = bytes;
+    this.application = application;
+    this.factory = application.getFactory();
+    this.classConsumer = classConsumer;
+    this.skipDebug = (parsingOptions & SKIP_DEBUG) != 0;
+  }
+
+  /**
+   * Reads the class and passes it to the class consumer.
+   *
+   * @return false if the class file is not supported by this reader, in which case nothing has
+   *     been read.
+   */
+  boolean read() {
+    try {
+      if (!scan()) {
+        return false;
+      }
+    } catch (ArrayIndexOutOfBoundsException e) {
+      // Leave it to ASM to report malformed class files.
+      return false;
+    }
+    readClass();
+    readMarker();
+    return true;
+  }
+
+  // Computes the offsets of the constant pool entries, fields, methods and class attributes, and
+  // checks that the class file only uses features supported by this reader.
+  private boolean scan() {
+    if (readUnsignedShort(6) > InternalOptions.SUPPORTED_CF_VERSION.major()) {
+      return false;
+    }
+    int constantPoolCount = readUnsignedShort(8);
+    constantPoolOffsets = new int[constantPoolCount];
+    strings = new DexString[constantPoolCount];
+    types = new DexType[constantPoolCount];
+    attributeKinds = new AttributeKind[constantPoolCount];
+    int offset = 10;
+    for (int i = 1; i < constantPoolCount; i++) {
+      constantPoolOffsets[i] = offset + 1;
+      switch (bytes[offset]) {
+        case CONSTANT_UTF8:
+          offset += 3 + readUnsignedShort(offset + 1);
+          break;
+        case CONSTANT_INTEGER:
+        case CONSTANT_FLOAT:
+        case CONSTANT_FIELDREF:
+        case CONSTANT_METHODREF:
+        case CONSTANT_INTERFACE_METHODREF:
+        case CONSTANT_NAME_AND_TYPE:
+        case CONSTANT_DYNAMIC:
+        case CONSTANT_INVOKE_DYNAMIC:
+          offset += 5;
+          break;
+        case CONSTANT_LONG:
+        case CONSTANT_DOUBLE:
+          offset += 9;
+          i++;
+          break;
+        case CONSTANT_CLASS:
+        case CONSTANT_STRING:
+        case CONSTANT_METHOD_TYPE:
+        case CONSTANT_MODULE:
+        case CONSTANT_PACKAGE:
+          offset += 3;
+          break;
+        case CONSTANT_METHOD_HANDLE:
+          offset += 4;
+          break;
+        default:
+          return false;
+      }
+    }
+    header = offset;
+    if ((readUnsignedShort(header) & ACC_MODULE) != 0) {
+      return false;
+    }
+    offset = header + 8 + 2 * readUnsignedShort(header + 6);
+    fieldsOffset = offset;
+    int fieldsCount = readUnsignedShort(offset);
+    offset += 2;
+    for (; fieldsCount > 0; fieldsCount--) {
+      offset = scanMember(offset, true);
+      if (offset < 0) {
+        return false;
+      }
+    }
+    methodsOffset = offset;
+    int methodsCount = readUnsignedShort(offset);
+    offset += 2;
+    for (; methodsCount > 0; methodsCount--) {
+      offset = scanMember(offset, false);
+      if (offset < 0) {
+        return false;
+      }
+    }
+    int attributesCount = readUnsignedShort(offset);
+    offset += 2;
+    for (; attributesCount > 0; attributesCount--) {
+      int attributeNameIndex = readUnsignedShort(offset);
+      int attributeLength = readInt(offset + 2);
+      offset += 6;
+      switch (getAttributeKind(attributeNameIndex)) {
+        case SOURCE_FILE:
+          sourceFileIndex = readUnsignedShort(offset);
+          break;
+        case SOURCE_DEBUG_EXTENSION:
+          sourceDebugExtensionOffset = offset;
+          sourceDebugExtensionLength = attributeLength;
+          break;
+        case INNER_CLASSES:
+          innerClassesOffset = offset;
+          break;
+        case ENCLOSING_METHOD:
+          enclosingMethodOffset = offset;
+          break;
+        case NEST_HOST:
+          nestHostIndex = readUnsignedShort(offset);
+          break;
+        case NEST_MEMBERS:
+          nestMembersOffset = offset;
+          break;
+        case PERMITTED_SUBCLASSES:
+          permittedSubclassesOffset = offset;
+          break;
+        case SIGNATURE:
+          signatureIndex = readUnsignedShort(offset);
+          break;
+        case RUNTIME_VISIBLE_ANNOTATIONS:
+          runtimeVisibleAnnotationsOffset = offset;
+          break;
+        case RUNTIME_INVISIBLE_ANNOTATIONS:
+          runtimeInvisibleAnnotationsOffset = offset;
+          break;
+        case DEPRECATED:
+          classAttributeAccessFlags |= ACC_DEPRECATED;
+          break;
+        case SYNTHETIC:
+          classAttributeAccessFlags |= ACC_SYNTHETIC;
+          break;
+        case RECORD:
+          recordOffset = offset;
+          classAttributeAccessFlags |= ACC_RECORD;
+          break;
+        case MODULE:
+        case MODULE_MAIN_CLASS:
+        case MODULE_PACKAGES:
+          return false;
+        case OTHER:
+          // Synthetic marker attributes of program classes are read with ASM.
+          if (classKind == ClassKind.PROGRAM
+              && SyntheticMarker.isMarkerAttributeName(readUtf8String(attributeNameIndex))) {
+            return false;
+          }
+          break;
+        default:
+          break;
+      }
+      offset += attributeLength;
+    }
+    return offset == bytes.length;
+  }
+
+  // Returns the offset following the field_info or method_info at the given offset, or -1 if it
+  // uses features not supported by this reader.
+  private int scanMember(int offset, boolean isField) {
+    int attributesCount = readUnsignedShort(offset + 6);
+    offset += 8;
+    for (; attributesCount > 0; attributesCount--) {
+      AttributeKind kind = getAttributeKind(readUnsignedShort(offset));
+      int attributeLength = readInt(offset + 2);
+      offset += 6;
+      if (isField && kind == AttributeKind.CONSTANT_VALUE) {
+        int constantValueIndex = readUnsignedShort(offset);
+        if (constantValueIndex != 0 && !isFieldConstant(constantValueIndex)) {
+          return -1;
+        }
+      } else if (!isField && kind == AttributeKind.METHOD_PARAMETERS && !skipDebug) {
+        // Leave it to ASM to report parameters without a name.
+        int parametersCount = bytes[offset] & 0xff;
+        for (int i = 0; i < parametersCount; i++) {
+          if (readUnsignedShort(offset + 1 + 4 * i) == 0) {
+            return -1;
+          }
+        }
+      }
+      offset += attributeLength;
+    }
+    return offset;
+  }
+
+  private boolean isFieldConstant(int index) {
+    switch (getConstantTag(index)) {
+      case CONSTANT_INTEGER:
+      case CONSTANT_FLOAT:
+      case CONSTANT_LONG:
+      case CONSTANT_DOUBLE:
+      case CONSTANT_STRING:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private void readClass() {
+    CreateDexClassVisitor<T> visitor =
+        new CreateDexClassVisitor<>(origin, classKind, bytes, application, classConsumer);
+    int rawVersion = readInt(4);
+    int accessFlags = readUnsignedShort(header) | classAttributeAccessFlags;
+    int thisClassIndex = readUnsignedShort(header + 2);
+    int superClassIndex = readUnsignedShort(header + 4);
+    int interfacesCount = readUnsignedShort(header + 6);
+    DexTypeList interfaces = DexTypeList.empty();
+    if (interfacesCount > 0) {
+      DexType[] interfaceTypes = new DexType[interfacesCount];
+      for (int i = 0; i < interfacesCount; i++) {
+        interfaceTypes[i] = getClassType(readUnsignedShort(header + 8 + 2 * i));
+      }
+      interfaces = new DexTypeList(interfaceTypes);
+    }
+    visitor.visit(
+        rawVersion,
+        accessFlags,
+        readUtf8String(readUnsignedShort(constantPoolOffsets[thisClassIndex])),
+        getClassType(thisClassIndex),
+        readSignature(signatureIndex),
+        getClassType(superClassIndex),
+        interfaces);
+
+    if (!skipDebug && (sourceFileIndex != 0 || sourceDebugExtensionLength >= 0)) {
+      visitor.visitSource(
+          getString(sourceFileIndex),
+          sourceDebugExtensionLength >= 0
+              ? createString(sourceDebugExtensionOffset, sourceDebugExtensionLength)
+              : null);
+    }
+
+    if (nestHostIndex != 0) {
+      visitor.visitNestHost(getClassType(nestHostIndex));
+    }
+
+    if (enclosingMethodOffset != 0) {
+      DexType owner = getClassType(readUnsignedShort(enclosingMethodOffset));
+      int methodIndex = readUnsignedShort(enclosingMethodOffset + 2);
+      DexString name = null;
+      DexProto proto = null;
+      if (methodIndex != 0) {
+        int nameAndTypeOffset = constantPoolOffsets[methodIndex];
+        name = getString(readUnsignedShort(nameAndTypeOffset));
+        if (name != factory.classConstructorMethodName) {
+          proto = getProto(readUnsignedShort(nameAndTypeOffset + 2));
+        }
+      }
+      visitor.visitOuterClass(owner, name, proto);
+    }
+
+    if (runtimeVisibleAnnotationsOffset != 0) {
+      readAnnotations(runtimeVisibleAnnotationsOffset, true, visitor::addAnnotation);
+    }
+    if (runtimeInvisibleAnnotationsOffset != 0) {
+      readAnnotations(runtimeInvisibleAnnotationsOffset, false, visitor::addAnnotation);
+    }
+
+    if (nestMembersOffset != 0) {
+      int numberOfNestMembers = readUnsignedShort(nestMembersOffset);
+      for (int i = 0; i < numberOfNestMembers; i++) {
+        visitor.visitNestMember(getClassType(readUnsignedShort(nestMembersOffset + 2 + 2 * i)));
+      }
+    }
+
+    if (permittedSubclassesOffset != 0) {
+      int numberOfPermittedSubclasses = readUnsignedShort(permittedSubclassesOffset);
+      for (int i = 0; i < numberOfPermittedSubclasses; i++) {
+        visitor.visitPermittedSubclass(
+            getClassType(readUnsignedShort(permittedSubclassesOffset + 2 + 2 * i)));
+      }
+    }
+
+    if (innerClassesOffset != 0) {
+      boolean checkInnerClassSeparator = CfVersion.fromRaw(rawVersion).isLessThan(CfVersion.V9);
+      int numberOfClasses = readUnsignedShort(innerClassesOffset);
+      for (int offset = innerClassesOffset + 2;
+          numberOfClasses > 0;
+          numberOfClasses--, offset += 8) {
+        int innerIndex = readUnsignedShort(offset);
+        int outerIndex = readUnsignedShort(offset + 2);
+        int innerNameIndex = readUnsignedShort(offset + 4);
+        if (checkInnerClassSeparator && outerIndex != 0 && innerNameIndex != 0) {
+          String name = readUtf8String(readUnsignedShort(constantPoolOffsets[innerIndex]));
+          String outerName = readUtf8String(readUnsignedShort(constantPoolOffsets[outerIndex]));
+          String innerName = readUtf8String(innerNameIndex);
+          if (DescriptorUtils.computeInnerClassSeparator(outerName, name, innerName) == null) {
+            visitor.reportMalformedInnerClass(outerName, name, innerName);
+          }
+        }
+        visitor.visitInnerClass(
+            readUnsignedShort(offset + 6),
+            getClassType(innerIndex),
+            getClassType(outerIndex),
+            getString(innerNameIndex));
+      }
+    }
+
+    if (recordOffset != 0) {
+      int offset = recordOffset + 2;
+      for (int componentsCount = readUnsignedShort(recordOffset);
+          componentsCount > 0;
+          componentsCount--) {
+        visitor.visitRecordComponent(
+            getString(readUnsignedShort(offset)),
+            getTypeFromDescriptor(readUnsignedShort(offset + 2)));
+        offset = skipAttributes(offset + 4);
+      }
+    }
+
+    int offset = fieldsOffset + 2;
+    for (int fieldsCount = readUnsignedShort(fieldsOffset); fieldsCount > 0; fieldsCount--) {
+      offset = readField(visitor, offset);
+    }
+    offset = methodsOffset + 2;
+    for (int methodsCount = readUnsignedShort(methodsOffset); methodsCount > 0; methodsCount--) {
+      offset = readMethod(visitor, offset);
+    }
+
+    visitor.visitEnd();
+  }
+
+  private int readField(CreateDexClassVisitor<T> visitor, int fieldInfoOffset) {
+    int accessFlags = readUnsignedShort(fieldInfoOffset);
+    int nameIndex = readUnsignedShort(fieldInfoOffset + 2);
+    int descriptorIndex = readUnsignedShort(fieldInfoOffset + 4);
+    Object constantValue = null;
+    int signatureIndex = 0;
+    int runtimeVisibleAnnotationsOffset = 0;
+    int runtimeInvisibleAnnotationsOffset = 0;
+    int attributesCount = readUnsignedShort(fieldInfoOffset + 6);
+    int offset = fieldInfoOffset + 8;
+    for (; attributesCount > 0; attributesCount--) {
+      AttributeKind kind = getAttributeKind(readUnsignedShort(offset));
+      int attributeLength = readInt(offset + 2);
+      offset += 6;
+      switch (kind) {
+        case CONSTANT_VALUE:
+          constantValue = readFieldConstant(readUnsignedShort(offset));
+          break;
+        case SIGNATURE:
+          signatureIndex = readUnsignedShort(offset);
+          break;
+        case DEPRECATED:
+          accessFlags |= ACC_DEPRECATED;
+          break;
+        case SYNTHETIC:
+          accessFlags |= ACC_SYNTHETIC;
+          break;
+        case RUNTIME_VISIBLE_ANNOTATIONS:
+          runtimeVisibleAnnotationsOffset = offset;
+          break;
+        case RUNTIME_INVISIBLE_ANNOTATIONS:
+          runtimeInvisibleAnnotationsOffset = offset;
+          break;
+        default:
+          break;
+      }
+      offset += attributeLength;
+    }
+    if (visitor.isIgnoredField(accessFlags)) {
+      return offset;
+    }
+    CreateFieldVisitor fieldVisitor =
+        visitor.visitField(
+            accessFlags,
+            getString(nameIndex),
+            getTypeFromDescriptor(descriptorIndex),
+            readSignature(signatureIndex),
+            constantValue);
+    if (runtimeVisibleAnnotationsOffset != 0) {
+      readAnnotations(runtimeVisibleAnnotationsOffset, true, fieldVisitor::addAnnotation);
+    }
+    if (runtimeInvisibleAnnotationsOffset != 0) {
+      readAnnotations(runtimeInvisibleAnnotationsOffset, false, fieldVisitor::addAnnotation);
+    }
+    fieldVisitor.visitEnd();
+    return offset;
+  }
+
+  private Object readFieldConstant(int index) {
+    if (index == 0) {
+      return null;
+    }
+    int offset = constantPoolOffsets[index];
+    switch (getConstantTag(index)) {
+      case CONSTANT_INTEGER:
+        return readInt(offset);
+      case CONSTANT_FLOAT:
+        return Float.intBitsToFloat(readInt(offset));
+      case CONSTANT_LONG:
+        return readLong(offset);
+      case CONSTANT_DOUBLE:
+        return Double.longBitsToDouble(readLong(offset));
+      default:
+        assert getConstantTag(index) == CONSTANT_STRING;
+        return getString(readUnsignedShort(offset));
+    }
+  }
+
+  private int readMethod(CreateDexClassVisitor<T> visitor, int methodInfoOffset) {
+    int accessFlags = readUnsignedShort(methodInfoOffset);
+    int nameIndex = readUnsignedShort(methodInfoOffset + 2);
+    int descriptorIndex = readUnsignedShort(methodInfoOffset + 4);
+    int exceptionsOffset = 0;
+    int signatureIndex = 0;
+    int runtimeVisibleAnnotationsOffset = 0;
+    int runtimeInvisibleAnnotationsOffset = 0;
+    int runtimeVisibleParameterAnnotationsOffset = 0;
+    int runtimeInvisibleParameterAnnotationsOffset = 0;
+    int annotationDefaultOffset = 0;
+    int methodParametersOffset = 0;
+    int attributesCount = readUnsignedShort(methodInfoOffset + 6);
+    int offset = methodInfoOffset + 8;
+    for (; attributesCount > 0; attributesCount--) {
+      AttributeKind kind = getAttributeKind(readUnsignedShort(offset));
+      int attributeLength = readInt(offset + 2);
+      offset += 6;
+      switch (kind) {
+        case EXCEPTIONS:
+          exceptionsOffset = offset;
+          break;
+        case SIGNATURE:
+          signatureIndex = readUnsignedShort(offset);
+          break;
+        case DEPRECATED:
+          accessFlags |= ACC_DEPRECATED;
+          break;
+        case SYNTHETIC:
+          accessFlags |= ACC_SYNTHETIC;
+          break;
+        case RUNTIME_VISIBLE_ANNOTATIONS:
+          runtimeVisibleAnnotationsOffset = offset;
+          break;
+        case RUNTIME_INVISIBLE_ANNOTATIONS:
+          runtimeInvisibleAnnotationsOffset = offset;
+          break;
+        case RUNTIME_VISIBLE_PARAMETER_ANNOTATIONS:
+          runtimeVisibleParameterAnnotationsOffset = offset;
+          break;
+        case RUNTIME_INVISIBLE_PARAMETER_ANNOTATIONS:
+          runtimeInvisibleParameterAnnotationsOffset = offset;
+          break;
+        case ANNOTATION_DEFAULT:
+          annotationDefaultOffset = offset;
+          break;
+        case METHOD_PARAMETERS:
+          methodParametersOffset = offset;
+          break;
+        default:
+          break;
+      }
+      offset += attributeLength;
+    }
+    boolean isConstructor =
+        utf8Equals(nameIndex, INSTANCE_INITIALIZER_NAME)
+            || utf8Equals(nameIndex, CLASS_INITIALIZER_NAME);
+    MethodAccessFlags flags =
+        JarClassFileReader.createMethodAccessFlags(accessFlags, isConstructor);
+    if (visitor.isIgnoredMethod(flags)) {
+      return offset;
+    }
+    DexType[] exceptions = null;
+    if (exceptionsOffset != 0) {
+      int exceptionsCount = readUnsignedShort(exceptionsOffset);
+      if (exceptionsCount > 0) {
+        exceptions = new DexType[exceptionsCount];
+        for (int i = 0; i < exceptionsCount; i++) {
+          exceptions[i] = getClassType(readUnsignedShort(exceptionsOffset + 2 + 2 * i));
+        }
+      }
+    }
+    CreateMethodVisitor methodVisitor =
+        visitor.visitMethod(
+            accessFlags,
+            flags,
+            getString(nameIndex),
+            getProto(descriptorIndex),
+            readSignature(signatureIndex),
+            exceptions);
+    if (methodParametersOffset != 0 && !skipDebug) {
+      int parametersCount = bytes[methodParametersOffset] & 0xff;
+      for (int i = 0; i < parametersCount; i++) {
+        int parameterOffset = methodParametersOffset + 1 + 4 * i;
+        methodVisitor.visitParameter(
+            getString(readUnsignedShort(parameterOffset)),
+            readUnsignedShort(parameterOffset + 2));
+      }
+    }
+    if (annotationDefaultOffset != 0) {
+      position = annotationDefaultOffset;
+      methodVisitor.setDefaultAnnotation(readElementValue());
+    }
+    if (runtimeVisibleAnnotationsOffset != 0) {
+      readAnnotations(runtimeVisibleAnnotationsOffset, true, methodVisitor::addAnnotation);
+    }
+    if (runtimeInvisibleAnnotationsOffset != 0) {
+      readAnnotations(runtimeInvisibleAnnotationsOffset, false, methodVisitor::addAnnotation);
+    }
+    if (runtimeVisibleParameterAnnotationsOffset != 0) {
+      readParameterAnnotations(methodVisitor, runtimeVisibleParameterAnnotationsOffset, true);
+    }
+    if (runtimeInvisibleParameterAnnotationsOffset != 0) {
+      readParameterAnnotations(methodVisitor, runtimeInvisibleParameterAnnotationsOffset, false);
+    }
+    methodVisitor.visitEnd();
+    return offset;
+  }
+
+  private void readParameterAnnotations(
+      CreateMethodVisitor methodVisitor, int offset, boolean visible) {
+    int parametersCount = bytes[offset] & 0xff;
+    methodVisitor.visitAnnotableParameterCount(parametersCount, visible);
+    position = offset + 1;
+    for (int i = 0; i < parametersCount; i++) {
+      int annotationsCount = readUnsignedShort(position);
+      position += 2;
+      for (; annotationsCount > 0; annotationsCount--) {
+        readAnnotation(visible, methodVisitor.getParameterAnnotations(i)::add);
+      }
+    }
+  }
+
+  private void readAnnotations(int offset, boolean visible, Consumer<DexAnnotation> consumer) {
+    int annotationsCount = readUnsignedShort(offset);
+    position = offset + 2;
+    for (; annotationsCount > 0; annotationsCount--) {
+      readAnnotation(visible, consumer);
+    }
+  }
+
+  // Reads the annotation at the current position, and passes it to the consumer if it is retained.
+  private void readAnnotation(boolean visible, Consumer<DexAnnotation> consumer) {
+    DexType type = getTypeFromDescriptor(readUnsignedShort(position));
+    position += 2;
+    if (visible || JarClassFileReader.retainCompileTimeAnnotation(type, application)) {
+      consumer.accept(
+          new DexAnnotation(
+              visible ? DexAnnotation.VISIBILITY_RUNTIME : DexAnnotation.VISIBILITY_BUILD,
+              readEncodedAnnotation(type)));
+    } else {
+      skipElementValuePairs();
+    }
+  }
+
+  private DexEncodedAnnotation readEncodedAnnotation(DexType type) {
+    int elementsCount = readUnsignedShort(position);
+    position += 2;
+    DexAnnotationElement[] elements =
+        elementsCount == 0
+            ? DexAnnotationElement.EMPTY_ARRAY
+            : new DexAnnotationElement[elementsCount];
+    for (int i = 0; i < elementsCount; i++) {
+      DexString name = getString(readUnsignedShort(position));
+      position += 2;
+      elements[i] = new DexAnnotationElement(name, readElementValue());
+    }
+    return new DexEncodedAnnotation(type, elements);
+  }
+
+  private DexValue readElementValue() {
+    int tag = bytes[position] & 0xff;
+    int index = readUnsignedShort(position + 1);
+    position += 3;
+    switch (tag) {
+      case 'B':
+        return DexValueByte.create((byte) readInt(constantPoolOffsets[index]));
+      case 'C':
+        return DexValueChar.create((char) readInt(constantPoolOffsets[index]));
+      case 'S':
+        return DexValueShort.create((short) readInt(constantPoolOffsets[index]));
+      case 'Z':
+        return DexValueBoolean.create(readInt(constantPoolOffsets[index]) != 0);
+      case 'D':
+      case 'F':
+      case 'I':
+      case 'J':
+        return readConstant(index);
+      case 's':
+        return new DexValueString(getString(index));
+      case 'e':
+        {
+          DexType owner = getTypeFromDescriptor(index);
+          DexString name = getString(readUnsignedShort(position));
+          position += 2;
+          return new DexValueEnum(factory.createField(owner, owner, name));
+        }
+      case 'c':
+        return new DexValueType(getTypeFromDescriptor(index));
+      case '@':
+        return new DexValueAnnotation(readEncodedAnnotation(getTypeFromDescriptor(index)));
+      case '[':
+        {
+          DexValue[] values = new DexValue[index];
+          for (int i = 0; i < values.length; i++) {
+            values[i] = readElementValue();
+          }
+          return new DexValueArray(values);
+        }
+      default:
+        throw new CompilationError("Invalid annotation element value tag: " + tag, origin);
+    }
+  }
+
+  private DexValue readConstant(int index) {
+    int offset = constantPoolOffsets[index];
+    switch (getConstantTag(index)) {
+      case CONSTANT_INTEGER:
+        return DexValueInt.create(readInt(offset));
+      case CONSTANT_FLOAT:
+        return DexValueFloat.create(Float.intBitsToFloat(readInt(offset)));
+      case CONSTANT_LONG:
+        return DexValueLong.create(readLong(offset));
+      case CONSTANT_DOUBLE:
+        return DexValueDouble.create(Double.longBitsToDouble(readLong(offset)));
+      case CONSTANT_STRING:
+        return new DexValueString(getString(readUnsignedShort(offset)));
+      case CONSTANT_CLASS:
+        return new DexValueType(getClassType(index));
+      default:
+        throw new CompilationError("Invalid annotation element value constant", origin);
+    }
+  }
+
+  private void skipElementValuePairs() {
+    int elementsCount = readUnsignedShort(position);
+    position += 2;
+    for (; elementsCount > 0; elementsCount--) {
+      position += 2;
+      skipElementValue();
+    }
+  }
+
+  private void skipElementValue() {
+    int tag = bytes[position] & 0xff;
+    position++;
+    switch (tag) {
+      case 'e':
+        position += 4;
+        break;
+      case '@':
+        position += 2;
+        skipElementValuePairs();
+        break;
+      case '[':
+        {
+          int valuesCount = readUnsignedShort(position);
+          position += 2;
+          for (; valuesCount > 0; valuesCount--) {
+            skipElementValue();
+          }
+          break;
+        }
+      default:
+        position += 2;
+        break;
+    }
+  }
+
+  private int skipAttributes(int offset) {
+    int attributesCount = readUnsignedShort(offset);
+    offset += 2;
+    for (; attributesCount > 0; attributesCount--) {
+      offset += 6 + readInt(offset + 2);
+    }
+    return offset;
+  }
+
+  private void readMarker() {
+    int index = CfApplicationWriter.MARKER_STRING_CONSTANT_POOL_INDEX;
+    if (index < constantPoolOffsets.length
+        && constantPoolOffsets[index] > 0
+        && getConstantTag(index) == CONSTANT_STRING) {
+      getString(readUnsignedShort(constantPoolOffsets[index]));
+    }
+  }
+
+  private String readSignature(int index) {
+    return index != 0 && application.options.parseSignatureAttribute()
+        ? readUtf8String(index)
+        : null;
+  }
+
+  private AttributeKind getAttributeKind(int index) {
+    AttributeKind kind = attributeKinds[index];
+    if (kind == null) {
+      kind = AttributeKind.OTHER;
+      if (getConstantTag(index) == CONSTANT_UTF8) {
+        for (AttributeKind candidate : AttributeKind.VALUES) {
+          if (candidate.name != null && utf8Equals(index, candidate.name)) {
+            kind = candidate;
+            break;
+          }
+        }
+      }
+      attributeKinds[index] = kind;
+    }
+    return kind;
+  }
+
+  private int getConstantTag(int index) {
+    return bytes[constantPoolOffsets[index] - 1];
+  }
+
+  private boolean utf8Equals(int index, byte[] expected) {
+    int offset = constantPoolOffsets[index];
+    int length = readUnsignedShort(offset);
+    if (length != expected.length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (bytes[offset + 2 + i] != expected[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Returns the canonical string for the CONSTANT_Utf8 entry at the given index, or null for index
+  // 0.
+  private DexString getString(int index) {
+    if (index == 0) {
+      return null;
+    }
+    DexString string = strings[index];
+    if (string == null) {
+      int offset = constantPoolOffsets[index];
+      string = createString(offset + 2, readUnsignedShort(offset));
+      strings[index] = string;
+    }
+    return string;
+  }
+
+  private DexString createString(int offset, int length) {
+    int size = getUtf16Size(offset, length);
+    if (size < 0) {
+      return factory.createString(readUtf8String(offset, length));
+    }
+    return factory.createString(size, copyUtf8(offset, length, false));
+  }
+
+  // Returns the type for the CONSTANT_Class entry at the given index, or null for index 0.
+  private DexType getClassType(int index) {
+    if (index == 0) {
+      return null;
+    }
+    DexType type = types[index];
+    if (type == null) {
+      int offset = constantPoolOffsets[readUnsignedShort(constantPoolOffsets[index])];
+      int length = readUnsignedShort(offset);
+      offset += 2;
+      int size = getUtf16Size(offset, length);
+      if (size < 0) {
+        type = application.getTypeFromName(readUtf8String(offset, length));
+      } else {
+        // Array types are referenced by their descriptor and other types by their internal name.
+        boolean isArrayType = length > 0 && bytes[offset] == '[';
+        DexString descriptor =
+            isArrayType
+                ? new DexString(size, copyUtf8(offset, length, false))
+                : new DexString(size + 2, copyUtf8(offset, length, true));
+        type = application.getTypeFromDescriptor(descriptor);
+      }
+      types[index] = type;
+    }
+    return type;
+  }
+
+  // Returns the type for the descriptor in the CONSTANT_Utf8 entry at the given index.
+  private DexType getTypeFromDescriptor(int index) {
+    DexType type = types[index];
+    if (type == null) {
+      int offset = constantPoolOffsets[index];
+      int length = readUnsignedShort(offset);
+      offset += 2;
+      int size = getUtf16Size(offset, length);
+      type =
+          size < 0
+              ? application.getTypeFromDescriptor(readUtf8String(offset, length))
+              : application.getTypeFromDescriptor(
+                  new DexString(size, copyUtf8(offset, length, false)));
+      types[index] = type;
+    }
+    return type;
+  }
+
+  // Returns the proto for the method descriptor in the CONSTANT_Utf8 entry at the given index.
+  private DexProto getProto(int index) {
+    int offset = constantPoolOffsets[index];
+    int length = readUnsignedShort(offset);
+    offset += 2;
+    int size = getUtf16Size(offset, length);
+    return size < 0
+        ? application.getProto(readUtf8String(offset, length))
+        : application.getProto(new DexString(size, copyUtf8(offset, length, false)));
+  }
+
+  // Returns the number of UTF-16 code units of the modified UTF-8 encoded string at the given
+  // offset, or -1 if the encoding is not the canonical encoding produced by DexString.
+  private int getUtf16Size(int offset, int length) {
+    int end = offset + length;
+    int size = 0;
+    while (offset < end) {
+      int b = bytes[offset] & 0xff;
+      if (b < 0x80) {
+        if (b == 0) {
+          return -1;
+        }
+        offset++;
+      } else if ((b & 0xe0) == 0xc0) {
+        if (offset + 1 >= end || (bytes[offset + 1] & 0xc0) != 0x80) {
+          return -1;
+        }
+        int ch = ((b & 0x1f) << 6) | (bytes[offset + 1] & 0x3f);
+        if (ch != 0 && ch < 0x80) {
+          return -1;
+        }
+        offset += 2;
+      } else if ((b & 0xf0) == 0xe0) {
+        if (offset + 2 >= end
+            || (bytes[offset + 1] & 0xc0) != 0x80
+            || (bytes[offset + 2] & 0xc0) != 0x80) {
+          return -1;
+        }
+        int ch =
+            ((b & 0x0f) << 12) | ((bytes[offset + 1] & 0x3f) << 6) | (bytes[offset + 2] & 0x3f);
+        if (ch < 0x800) {
+          return -1;
+        }
+        offset += 3;
+      } else {
+        return -1;
+      }
+      size++;
+    }
+    return size;
+  }
+
+  // Returns a zero terminated copy of the given modified UTF-8 bytes, optionally turned into a
+  // class descriptor by adding 'L' and ';'.
+  private byte[] copyUtf8(int offset, int length, boolean asClassDescriptor) {
+    byte[] content;
+    if (asClassDescriptor) {
+      content = new byte[length + 3];
+      content[0] = 'L';
+      System.arraycopy(bytes, offset, content, 1, length);
+      content[length + 1] = ';';
+    } else {
+      content = new byte[length + 1];
+      System.arraycopy(bytes, offset, content, 0, length);
+    }
+    return content;
+  }
+
+  private String readUtf8String(int index) {
+    int offset = constantPoolOffsets[index];
+    return readUtf8String(offset + 2, readUnsignedShort(offset));
+  }
+
+  // Decodes modified UTF-8 the same way as ASM, which accepts non-canonical encodings.
+  private String readUtf8String(int offset, int length) {
+    int end = offset + length;
+    char[] chars = new char[length];
+    int size = 0;
+    while (offset < end) {
+      int b = bytes[offset++];
+      if ((b & 0x80) == 0) {
+        chars[size++] = (char) (b & 0x7f);
+      } else if ((b & 0xe0) == 0xc0) {
+        chars[size++] = (char) (((b & 0x1f) << 6) + (bytes[offset++] & 0x3f));
+      } else {
+        chars[size++] =
+            (char) (((b & 0xf) << 12) + ((bytes[offset++] & 0x3f) << 6) + (bytes[offset++] & 0x3f));
+      }
+    }
+    return new String(chars, 0, size);
+  }
+
+  private int readUnsignedShort(int offset) {
+    return ((bytes[offset] & 0xff) << 8) | (bytes[offset + 1] & 0xff);
+  }
+
+  private int readInt(int offset) {
+    return ((bytes[offset] & 0xff) << 24)
+        | ((bytes[offset + 1] & 0xff) << 16)
+        | ((bytes[offset + 2] & 0xff) << 8)
+        | (bytes[offset + 3] & 0xff);
+  }
+
+  private long readLong(int offset) {
+    return ((long) readInt(offset) << 32) | (readInt(offset + 4) & 0xffffffffL);
+  }
+}
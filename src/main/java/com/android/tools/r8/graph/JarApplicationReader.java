@@ -8,6 +8,7 @@ import com.android.tools.r8.ir.desugar.records.RecordDesugaring;
 import com.android.tools.r8.utils.DescriptorUtils;
 import com.android.tools.r8.utils.InternalOptions;
 import com.google.common.collect.Sets;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -26,6 +27,8 @@ public class JarApplicationReader {
   private final ConcurrentHashMap<String, Type> asmObjectTypeCache = new ConcurrentHashMap<>();
   private final ConcurrentHashMap<String, Type> asmTypeCache = new ConcurrentHashMap<>();
   private final ConcurrentHashMap<String, DexString> stringCache = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<DexString, DexType> typeCache = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<DexString, DexProto> protoCache = new ConcurrentHashMap<>();
   private final ApplicationReaderMap applicationReaderMap;
   private final Set<DexType> recordWitnesses = Sets.newConcurrentHashSet();
 
@@ -67,6 +70,22 @@ public class JarApplicationReader {
     return options.itemFactory.createType(getString(actualDesc));
   }
 
+  /**
+   * Returns the type for the given descriptor, which does not need to be canonicalized.
+   *
+   * <p>The lookup is cached such that repeated lookups do not need to synchronize on the factory.
+   */
+  public DexType getTypeFromDescriptor(DexString descriptor) {
+    DexType type = typeCache.get(descriptor);
+    if (type == null) {
+      DexString canonicalDescriptor =
+          options.itemFactory.createString(descriptor.size, descriptor.content);
+      type = applicationReaderMap.getType(options.itemFactory.createType(canonicalDescriptor));
+      typeCache.put(canonicalDescriptor, type);
+    }
+    return type;
+  }
+
   public DexTypeList getTypeListFromNames(String[] names) {
     if (names.length == 0) {
       return DexTypeList.empty();
@@ -135,6 +154,78 @@ public class JarApplicationReader {
     return proto;
   }
 
+  /**
+   * Returns the proto for the given method descriptor, which does not need to be canonicalized.
+   *
+   * <p>The descriptor is parsed directly from its modified UTF-8 encoding.
+   */
+  public DexProto getProto(DexString descriptor) {
+    DexProto proto = protoCache.get(descriptor);
+    if (proto == null) {
+      proto = createProto(descriptor.content);
+      protoCache.put(descriptor, proto);
+    }
+    return proto;
+  }
+
+  private DexProto createProto(byte[] content) {
+    assert content[0] == '(';
+    int parameterCount = 0;
+    int offset = 1;
+    while (content[offset] != ')') {
+      offset = getDescriptorEnd(content, offset);
+      parameterCount++;
+    }
+    DexType[] parameters = parameterCount == 0 ? DexType.EMPTY_ARRAY : new DexType[parameterCount];
+    // The shorty has one character for the return type and one for each parameter.
+    byte[] shorty = new byte[parameterCount + 2];
+    offset = 1;
+    for (int i = 0; i < parameterCount; i++) {
+      int end = getDescriptorEnd(content, offset);
+      parameters[i] = getTypeFromDescriptor(content, offset, end);
+      shorty[i + 1] = getShortyDescriptor(content[offset]);
+      offset = end;
+    }
+    // Skip the ')'.
+    offset++;
+    DexType returnType = getTypeFromDescriptor(content, offset, getDescriptorEnd(content, offset));
+    shorty[0] = getShortyDescriptor(content[offset]);
+    return options.itemFactory.createProto(
+        returnType,
+        parameterCount == 0 ? DexTypeList.empty() : new DexTypeList(parameters),
+        options.itemFactory.createString(parameterCount + 1, shorty));
+  }
+
+  private DexType getTypeFromDescriptor(byte[] content, int start, int end) {
+    int size = 0;
+    for (int i = start; i < end; i++) {
+      // Count all bytes that are not continuation bytes of a multi-byte character.
+      if ((content[i] & 0xc0) != 0x80) {
+        size++;
+      }
+    }
+    byte[] descriptor = Arrays.copyOfRange(content, start, end + 1);
+    descriptor[end - start] = 0;
+    return getTypeFromDescriptor(new DexString(size, descriptor));
+  }
+
+  private static int getDescriptorEnd(byte[] content, int start) {
+    int end = start;
+    while (content[end] == '[') {
+      end++;
+    }
+    if (content[end] == 'L') {
+      while (content[end] != ';') {
+        end++;
+      }
+    }
+    return end + 1;
+  }
+
+  private static byte getShortyDescriptor(byte descriptor) {
+    return descriptor == '[' ? (byte) 'L' : descriptor;
+  }
+
   private static String getShortyDescriptor(String descriptor) {
     if (descriptor.length() == 1) {
       return descriptor;
@@ -43,6 +43,7 @@ import com.android.tools.r8.utils.DescriptorUtils;
 import com.android.tools.r8.utils.ExceptionUtils;
 import com.android.tools.r8.utils.FieldSignatureEquivalence;
 import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.InternalOptions.OptimizationInfoCacheOptions;
 import com.android.tools.r8.utils.MethodSignatureEquivalence;
 import com.android.tools.r8.utils.StringDiagnostic;
 import com.android.tools.r8.utils.StringUtils;
@@ -53,7 +54,6 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -112,7 +112,12 @@ public class JarClassFileReader<T extends DexClass> {
       application.options.desugarGraphConsumer.acceptProgramNode(origin);
     }
 
-    ClassReader reader = new ClassReader(bytes);
+    OptimizationInfoCacheOptions optimizationInfoCacheOptions =
+        application.options.getOptimizationInfoCacheOptions();
+    if (optimizationInfoCacheOptions.isEnabled()) {
+      optimizationInfoCacheOptions.recordClassFile(
+          classKind, application.getTypeFromName(new ClassReader(bytes).getClassName()), bytes);
+    }
 
     int parsingOptions = SKIP_FRAMES | SKIP_CODE;
 
@@ -128,6 +133,17 @@ public class JarClassFileReader<T extends DexClass> {
     if (classKind != ClassKind.PROGRAM) {
       parsingOptions |= SKIP_DEBUG;
     }
+
+    // Read the class structure without ASM unless the class uses features that are only supported
+    // by the ASM based reader.
+    if (application.options.getCfCodeParsingOptions().isDirectClassFileReaderEnabled()
+        && new DirectClassFileReader<>(
+                origin, classKind, bytes, application, classConsumer, parsingOptions)
+            .read()) {
+      return;
+    }
+
+    ClassReader reader = new ClassReader(bytes);
     reader.accept(
         new CreateDexClassVisitor<>(origin, classKind, reader.b, application, classConsumer),
         getAttributePrototypes(),
@@ -172,6 +188,10 @@ public class JarClassFileReader<T extends DexClass> {
     boolean isConstructor =
         name.equals(Constants.INSTANCE_INITIALIZER_NAME)
             || name.equals(Constants.CLASS_INITIALIZER_NAME);
+    return createMethodAccessFlags(access, isConstructor);
+  }
+
+  static MethodAccessFlags createMethodAccessFlags(int access, boolean isConstructor) {
     return MethodAccessFlags.fromCfAccessFlags(cleanAccessFlags(access), isConstructor);
   }
 
@@ -193,8 +213,11 @@ public class JarClassFileReader<T extends DexClass> {
 
   private static boolean retainCompileTimeAnnotation(
       String desc, JarApplicationReader application) {
-    return DexAnnotation.retainCompileTimeAnnotation(
-        application.getTypeFromDescriptor(desc), application.options);
+    return retainCompileTimeAnnotation(application.getTypeFromDescriptor(desc), application);
+  }
+
+  static boolean retainCompileTimeAnnotation(DexType type, JarApplicationReader application) {
+    return DexAnnotation.retainCompileTimeAnnotation(type, application.options);
   }
 
   private static DexEncodedAnnotation createEncodedAnnotation(String desc,
@@ -208,7 +231,7 @@ public class JarClassFileReader<T extends DexClass> {
     return new DexEncodedAnnotation(application.getTypeFromDescriptor(desc), elements);
   }
 
-  private static class CreateDexClassVisitor<T extends DexClass> extends ClassVisitor {
+  static class CreateDexClassVisitor<T extends DexClass> extends ClassVisitor {
 
     private final Origin origin;
     private final ClassKind<T> classKind;
@@ -270,22 +293,29 @@ public class JarClassFileReader<T extends DexClass> {
       if (outerName != null && innerName != null) {
         String separator = DescriptorUtils.computeInnerClassSeparator(outerName, name, innerName);
         if (separator == null && version.isLessThan(CfVersion.V9)) {
-          application.options.reporter.info(
-              new StringDiagnostic(
-                  StringUtils.lines(
-                      "Malformed inner-class attribute:",
-                      "\touterTypeInternal: " + outerName,
-                      "\tinnerTypeInternal: " + name,
-                      "\tinnerName: " + innerName),
-                  origin));
+          reportMalformedInnerClass(outerName, name, innerName);
         }
       }
-      innerClasses.add(
-          new InnerClassAttribute(
-              access,
-              application.getTypeFromName(name),
-              outerName == null ? null : application.getTypeFromName(outerName),
-              innerName == null ? null : application.getString(innerName)));
+      visitInnerClass(
+          access,
+          application.getTypeFromName(name),
+          outerName == null ? null : application.getTypeFromName(outerName),
+          innerName == null ? null : application.getString(innerName));
+    }
+
+    void visitInnerClass(int access, DexType inner, DexType outer, DexString innerName) {
+      innerClasses.add(new InnerClassAttribute(access, inner, outer, innerName));
+    }
+
+    void reportMalformedInnerClass(String outerName, String name, String innerName) {
+      application.options.reporter.info(
+          new StringDiagnostic(
+              StringUtils.lines(
+                  "Malformed inner-class attribute:",
+                  "\touterTypeInternal: " + outerName,
+                  "\tinnerTypeInternal: " + name,
+                  "\tinnerName: " + innerName),
+              origin));
     }
 
     @Override
@@ -299,17 +329,32 @@ public class JarClassFileReader<T extends DexClass> {
               : new EnclosingMethodAttribute(application.getMethod(ownerType, name, desc));
     }
 
+    void visitOuterClass(DexType owner, DexString name, DexProto proto) {
+      assert enclosingMember == null;
+      enclosingMember =
+          name == null || name == application.getFactory().classConstructorMethodName
+              ? new EnclosingMethodAttribute(owner)
+              : new EnclosingMethodAttribute(
+                  application.getFactory().createMethod(owner, proto, name));
+    }
+
     @Override
     public void visitNestHost(String nestHost) {
+      visitNestHost(application.getTypeFromName(nestHost));
+    }
+
+    void visitNestHost(DexType nestHostType) {
       assert this.nestHost == null && nestMembers.isEmpty();
-      DexType nestHostType = application.getTypeFromName(nestHost);
       this.nestHost = new NestHostClassAttribute(nestHostType);
     }
 
     @Override
     public void visitNestMember(String nestMember) {
+      visitNestMember(application.getTypeFromName(nestMember));
+    }
+
+    void visitNestMember(DexType nestMemberType) {
       assert nestHost == null;
-      DexType nestMemberType = application.getTypeFromName(nestMember);
       nestMembers.add(new NestMemberClassAttribute(nestMemberType));
     }
 
@@ -338,19 +383,22 @@ public class JarClassFileReader<T extends DexClass> {
       assert descriptor != null;
       // Javac generated record components are only the instance fields, so we just reuse the field
       // to avoid duplicating the field and field signature rewriting logic.
-      DexField field =
-          application
-              .getFactory()
-              .createField(
-                  type, application.getTypeFromDescriptor(descriptor), application.getString(name));
-      recordComponents.add(field);
+      visitRecordComponent(
+          application.getString(name), application.getTypeFromDescriptor(descriptor));
       return super.visitRecordComponent(name, descriptor, signature);
     }
 
+    void visitRecordComponent(DexString name, DexType componentType) {
+      recordComponents.add(application.getFactory().createField(type, componentType, name));
+    }
+
     @Override
     public void visitPermittedSubclass(String permittedSubclass) {
       assert permittedSubclass != null;
-      DexType permittedSubclassType = application.getTypeFromName(permittedSubclass);
+      visitPermittedSubclass(application.getTypeFromName(permittedSubclass));
+    }
+
+    void visitPermittedSubclass(DexType permittedSubclassType) {
       permittedSubclasses.add(new PermittedSubclassAttribute(permittedSubclassType));
     }
 
@@ -362,13 +410,31 @@ public class JarClassFileReader<T extends DexClass> {
         String signature,
         String superName,
         String[] interfaces) {
+      visit(
+          rawVersion,
+          access,
+          name,
+          application.getTypeFromName(name),
+          signature,
+          superName == null ? null : application.getTypeFromName(superName),
+          application.getTypeListFromNames(interfaces));
+    }
+
+    void visit(
+        int rawVersion,
+        int access,
+        String name,
+        DexType type,
+        String signature,
+        DexType superType,
+        DexTypeList interfaces) {
       version = CfVersion.fromRaw(rawVersion);
       if (InternalOptions.SUPPORTED_CF_VERSION.isLessThan(version)) {
         throw new CompilationError("Unsupported class file version: " + version, origin);
       }
       this.deprecated = AsmUtils.isDeprecated(access);
       accessFlags = ClassAccessFlags.fromCfAccessFlags(cleanAccessFlags(access));
-      type = application.getTypeFromName(name);
+      this.type = type;
       // Check if constraints from
       // https://docs.oracle.com/javase/specs/jvms/se7/html/jvms-4.html#jvms-4.1 are met.
       if (!accessFlags.areValid(version, name.endsWith("/package-info"))) {
@@ -380,24 +446,23 @@ public class JarClassFileReader<T extends DexClass> {
                 "has invalid access flags. Found: " + accessFlags.toString()),
             origin);
       }
-      if (superName == null && !name.equals(Constants.JAVA_LANG_OBJECT_NAME)) {
+      if (superType == null && !name.equals(Constants.JAVA_LANG_OBJECT_NAME)) {
         throw new CompilationError(
             illegalClassFileMessage(accessFlags, name, version, "is missing a super type"), origin);
       }
-      if (accessFlags.isInterface()
-          && !Objects.equals(superName, Constants.JAVA_LANG_OBJECT_NAME)) {
+      if (accessFlags.isInterface() && superType != application.getFactory().objectType) {
         throw new CompilationError(
             illegalClassFileMessage(
                 accessFlags,
                 name,
                 version,
-                "must extend class java.lang.Object. Found: " + superName),
+                "must extend class java.lang.Object. Found: " + superType.getInternalName()),
             origin);
       }
       checkName(name);
-      assert superName != null || name.equals(Constants.JAVA_LANG_OBJECT_NAME);
-      superType = superName == null ? null : application.getTypeFromName(superName);
-      this.interfaces = application.getTypeListFromNames(interfaces);
+      assert superType != null || name.equals(Constants.JAVA_LANG_OBJECT_NAME);
+      this.superType = superType;
+      this.interfaces = interfaces;
       if (application.options.parseSignatureAttribute()) {
         classSignature =
             GenericSignature.parseClassSignature(
@@ -407,41 +472,99 @@ public class JarClassFileReader<T extends DexClass> {
 
     @Override
     public void visitSource(String source, String debug) {
+      visitSource(
+          source == null ? null : application.getString(source),
+          debug == null ? null : application.getString(debug));
+    }
+
+    void visitSource(DexString source, DexString debug) {
       if (source != null) {
-        sourceFile = application.getString(source);
+        sourceFile = source;
       }
       if (debug != null) {
         getAnnotations().add(
             DexAnnotation.createSourceDebugExtensionAnnotation(
-                new DexValueString(application.getString(debug)), application.getFactory()));
+                new DexValueString(debug), application.getFactory()));
       }
     }
 
     @Override
     public FieldVisitor visitField(
         int access, String name, String desc, String signature, Object value) {
-      if (classKind == ClassKind.LIBRARY) {
-        FieldAccessFlags flags = createFieldAccessFlags(access);
-        if (flags.isPrivate()) {
-          return null;
-        }
+      if (isIgnoredField(access)) {
+        return null;
       }
       checkName(name);
       return new CreateFieldVisitor(
-          this, access, name, desc, signature, classKind == ClassKind.LIBRARY ? null : value);
+          this,
+          access,
+          application.getField(type, name, desc),
+          signature,
+          classKind == ClassKind.LIBRARY ? null : value);
+    }
+
+    CreateFieldVisitor visitField(
+        int access, DexString name, DexType fieldType, String signature, Object value) {
+      assert !isIgnoredField(access);
+      checkName(name);
+      return new CreateFieldVisitor(
+          this,
+          access,
+          application.getFactory().createField(type, fieldType, name),
+          signature,
+          classKind == ClassKind.LIBRARY ? null : value);
     }
 
     @Override
     public MethodVisitor visitMethod(
         int access, String name, String desc, String signature, String[] exceptions) {
-      if (classKind == ClassKind.LIBRARY) {
-        MethodAccessFlags flags = createMethodAccessFlags(name, access);
-        if ((flags.isStatic() && flags.isConstructor()) || flags.isPrivate()) {
-          return null;
+      MethodAccessFlags flags = createMethodAccessFlags(name, access);
+      if (isIgnoredMethod(flags)) {
+        return null;
+      }
+      checkName(name);
+      DexType[] exceptionTypes = null;
+      if (exceptions != null && exceptions.length > 0) {
+        exceptionTypes = new DexType[exceptions.length];
+        for (int i = 0; i < exceptions.length; i++) {
+          exceptionTypes[i] = application.getTypeFromName(exceptions[i]);
         }
       }
+      return new CreateMethodVisitor(
+          access,
+          application.getMethod(type, name, desc),
+          flags,
+          signature,
+          exceptionTypes,
+          this);
+    }
+
+    CreateMethodVisitor visitMethod(
+        int access,
+        MethodAccessFlags flags,
+        DexString name,
+        DexProto proto,
+        String signature,
+        DexType[] exceptions) {
+      assert !isIgnoredMethod(flags);
       checkName(name);
-      return new CreateMethodVisitor(access, name, desc, signature, exceptions, this);
+      return new CreateMethodVisitor(
+          access,
+          application.getFactory().createMethod(type, proto, name),
+          flags,
+          signature,
+          exceptions,
+          this);
+    }
+
+    // Private members and class initializers of library classes are not read.
+    boolean isIgnoredField(int access) {
+      return classKind == ClassKind.LIBRARY && createFieldAccessFlags(access).isPrivate();
+    }
+
+    boolean isIgnoredMethod(MethodAccessFlags flags) {
+      return classKind == ClassKind.LIBRARY
+          && ((flags.isStatic() && flags.isConstructor()) || flags.isPrivate());
     }
 
     @Override
@@ -558,6 +681,12 @@ public class JarClassFileReader<T extends DexClass> {
       return DexProgramClass::invalidChecksumRequest;
     }
 
+    private void checkName(DexString name) {
+      if (!application.options.canUseSpacesInSimpleName()) {
+        checkName(name.toString());
+      }
+    }
+
     private void checkName(String name) {
       if (!application.options.canUseSpacesInSimpleName()
           && !DexString.isValidSimpleName(application.options.getMinApiLevel(), name)) {
@@ -592,14 +721,14 @@ public class JarClassFileReader<T extends DexClass> {
       return false;
     }
 
-    private void addDefaultAnnotation(String name, DexValue value) {
+    private void addDefaultAnnotation(DexString name, DexValue value) {
       if (defaultAnnotations == null) {
         defaultAnnotations = new ArrayList<>();
       }
-      defaultAnnotations.add(new DexAnnotationElement(application.getString(name), value));
+      defaultAnnotations.add(new DexAnnotationElement(name, value));
     }
 
-    private void addAnnotation(DexAnnotation annotation) {
+    void addAnnotation(DexAnnotation annotation) {
       getAnnotations().add(annotation);
     }
 
@@ -615,7 +744,7 @@ public class JarClassFileReader<T extends DexClass> {
     }
   }
 
-  private static DexAnnotationSet createAnnotationSet(
+  static DexAnnotationSet createAnnotationSet(
       List<DexAnnotation> annotations, InternalOptions options) {
     if (annotations == null || annotations.isEmpty()) {
       return DexAnnotationSet.empty();
@@ -630,12 +759,11 @@ public class JarClassFileReader<T extends DexClass> {
     return DexAnnotationSet.create(annotations.toArray(DexAnnotation.EMPTY_ARRAY));
   }
 
-  private static class CreateFieldVisitor extends FieldVisitor {
+  static class CreateFieldVisitor extends FieldVisitor {
 
     private final CreateDexClassVisitor<?> parent;
     private final int access;
-    private final String name;
-    private final String desc;
+    private final DexField dexField;
     private final Object value;
     private final FieldTypeSignature fieldSignature;
     private List<DexAnnotation> annotations = null;
@@ -643,20 +771,18 @@ public class JarClassFileReader<T extends DexClass> {
     public CreateFieldVisitor(
         CreateDexClassVisitor<?> parent,
         int access,
-        String name,
-        String desc,
+        DexField dexField,
         String signature,
         Object value) {
       super(ASM_VERSION);
       this.parent = parent;
       this.access = access;
-      this.name = name;
-      this.desc = desc;
+      this.dexField = dexField;
       this.value = value;
       this.fieldSignature =
-          parent.application.options.parseSignatureAttribute()
+          parent.application.options.parseSignatureAttribute() && signature != null
               ? GenericSignature.parseFieldTypeSignature(
-                  name,
+                  dexField.name.toString(),
                   signature,
                   parent.origin,
                   parent.application.getFactory(),
@@ -676,10 +802,13 @@ public class JarClassFileReader<T extends DexClass> {
       return null;
     }
 
+    void addAnnotation(DexAnnotation annotation) {
+      getAnnotations().add(annotation);
+    }
+
     @Override
     public void visitEnd() {
       FieldAccessFlags flags = createFieldAccessFlags(access);
-      DexField dexField = parent.application.getField(parent.type, name, desc);
       parent.application.checkFieldForRecord(dexField, parent.classKind);
       Wrapper<DexField> signature = FieldSignatureEquivalence.get().wrap(dexField);
       if (parent.fieldSignatures.add(signature)) {
@@ -740,7 +869,8 @@ public class JarClassFileReader<T extends DexClass> {
         return DexValueDouble.create((Double) value);
       }
       if (type == factory.stringType) {
-        return new DexValueString(factory.createString((String) value));
+        return new DexValueString(
+            value instanceof DexString ? (DexString) value : factory.createString((String) value));
       }
       throw new Unreachable("Unexpected static-value type " + type);
     }
@@ -753,9 +883,8 @@ public class JarClassFileReader<T extends DexClass> {
     }
   }
 
-  private static class CreateMethodVisitor extends MethodVisitor {
+  static class CreateMethodVisitor extends MethodVisitor {
 
-    private final String name;
     final CreateDexClassVisitor<?> parent;
     private final int parameterCount;
     private List<DexAnnotation> annotations = null;
@@ -772,30 +901,29 @@ public class JarClassFileReader<T extends DexClass> {
 
     public CreateMethodVisitor(
         int access,
-        String name,
-        String desc,
+        DexMethod method,
+        MethodAccessFlags flags,
         String signature,
-        String[] exceptions,
+        DexType[] exceptions,
         CreateDexClassVisitor<?> parent) {
       super(ASM_VERSION);
-      this.name = name;
       this.parent = parent;
-      this.method = parent.application.getMethod(parent.type, name, desc);
-      this.flags = createMethodAccessFlags(name, access);
+      this.method = method;
+      this.flags = flags;
       this.deprecated = AsmUtils.isDeprecated(access);
-      parameterCount = DescriptorUtils.getArgumentCount(desc);
+      parameterCount = method.getArity();
       if (exceptions != null && exceptions.length > 0) {
         DexValue[] values = new DexValue[exceptions.length];
         for (int i = 0; i < exceptions.length; i++) {
-          values[i] = new DexValueType(parent.application.getTypeFromName(exceptions[i]));
+          values[i] = new DexValueType(exceptions[i]);
         }
         addAnnotation(DexAnnotation.createThrowsAnnotation(
             values, parent.application.getFactory()));
       }
       genericSignature =
-          parent.application.options.parseSignatureAttribute()
+          parent.application.options.parseSignatureAttribute() && signature != null
               ? GenericSignature.parseMethodSignature(
-                  name,
+                  method.name.toString(),
                   signature,
                   parent.origin,
                   parent.application.getFactory(),
@@ -816,6 +944,10 @@ public class JarClassFileReader<T extends DexClass> {
       });
     }
 
+    void setDefaultAnnotation(DexValue defaultAnnotation) {
+      this.defaultAnnotation = defaultAnnotation;
+    }
+
     @Override
     public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String desc,
         boolean visible) {
@@ -836,6 +968,12 @@ public class JarClassFileReader<T extends DexClass> {
 
     @Override
     public AnnotationVisitor visitParameterAnnotation(int parameter, String desc, boolean visible) {
+      assert mv == null;
+      return createAnnotationVisitor(
+          desc, visible, getParameterAnnotations(parameter), parent.application);
+    }
+
+    List<DexAnnotation> getParameterAnnotations(int parameter) {
       if (parameterAnnotationsLists == null) {
         if (annotableParameterCount == -1) {
           annotableParameterCount = parameterCount;
@@ -845,9 +983,7 @@ public class JarClassFileReader<T extends DexClass> {
           parameterAnnotationsLists.add(new ArrayList<>());
         }
       }
-      assert mv == null;
-      return createAnnotationVisitor(desc, visible,
-          parameterAnnotationsLists.get(parameter), parent.application);
+      return parameterAnnotationsLists.get(parameter);
     }
 
     @Override
@@ -873,14 +1009,18 @@ public class JarClassFileReader<T extends DexClass> {
 
     @Override
     public void visitParameter(String name, int access) {
+      visitParameter(parent.application.getFactory().createString(name), access);
+      super.visitParameter(name, access);
+    }
+
+    void visitParameter(DexString name, int access) {
       if (parameterNames == null) {
         assert parameterFlags == null;
         parameterNames = new ArrayList<>(parameterCount);
         parameterFlags = new ArrayList<>(parameterCount);
       }
-      parameterNames.add(new DexValueString(parent.application.getFactory().createString(name)));
+      parameterNames.add(new DexValueString(name));
       parameterFlags.add(DexValueInt.create(access));
-      super.visitParameter(name, access);
     }
 
     @Override
@@ -953,7 +1093,7 @@ public class JarClassFileReader<T extends DexClass> {
                     method.toSourceString())));
       }
       if (defaultAnnotation != null) {
-        parent.addDefaultAnnotation(name, defaultAnnotation);
+        parent.addDefaultAnnotation(method.name, defaultAnnotation);
       }
     }
 
@@ -975,7 +1115,7 @@ public class JarClassFileReader<T extends DexClass> {
       return annotations;
     }
 
-    private void addAnnotation(DexAnnotation annotation) {
+    void addAnnotation(DexAnnotation annotation) {
       getAnnotations().add(annotation);
     }
   }
@@ -1133,5 +1273,7 @@ public class JarClassFileReader<T extends DexClass> {
     public byte[] classCache;
     public DexClass owner;
     public final List<Code> codeList = new ArrayList<>();
+    // Set if the class contains JSR instructions, such that re-parsing can use the JSR inliner.
+    public boolean useJsrInliner = false;
   }
 }
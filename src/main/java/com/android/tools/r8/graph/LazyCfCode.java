@@ -79,6 +79,7 @@ import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ReferenceMap;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
+import java.lang.ref.SoftReference;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -108,17 +109,28 @@ public class LazyCfCode extends Code {
     this.origin = origin;
     this.context = context;
     this.application = application;
+    this.softlyReferenceParsedCode =
+        application.options.getCfCodeParsingOptions().isParsedCodeSoftlyReferenced();
     context.codeList.add(this);
   }
 
   private final Origin origin;
   private JarApplicationReader application;
-  private CfCode code;
+  private volatile CfCode code;
   private ReparseContext context;
   private boolean reachabilitySensitive = false;
 
+  // When parsed code is softly referenced, the parsed code is only stored in `code` once it has
+  // been handed out by asCfCode(), since the caller may modify the code. Until then the parsed code
+  // is kept in `softlyReferencedCode` and re-parsed from the retained class file bytes if it has
+  // been garbage collected. All accesses to these fields are guarded by the reparse context.
+  private final boolean softlyReferenceParsedCode;
+  private CfCode parsedCode;
+  private SoftReference<CfCode> softlyReferencedCode;
+
   public void markReachabilitySensitive() {
     assert code == null;
+    assert softlyReferencedCode == null;
     reachabilitySensitive = true;
   }
 
@@ -139,13 +151,56 @@ public class LazyCfCode extends Code {
 
   @Override
   public CfCode asCfCode() {
+    CfCode code = this.code;
     if (code == null) {
-      ExceptionUtils.withOriginAttachmentHandler(origin, this::internalParseCode);
+      code = getOrParseCode(true);
+    }
+    return code;
+  }
+
+  /** Returns the code for uses that do not modify it, without preventing it from being released. */
+  private CfCode getCodeForReading() {
+    CfCode code = this.code;
+    if (code == null) {
+      code = getOrParseCode(false);
     }
-    assert code != null;
     return code;
   }
 
+  private CfCode getOrParseCode(boolean retain) {
+    if (!softlyReferenceParsedCode) {
+      ExceptionUtils.withOriginAttachmentHandler(origin, this::internalParseCode);
+      assert code != null;
+      return code;
+    }
+    synchronized (context) {
+      if (code != null) {
+        return code;
+      }
+      CfCode result = softlyReferencedCode != null ? softlyReferencedCode.get() : null;
+      if (result == null) {
+        ExceptionUtils.withOriginAttachmentHandler(origin, this::internalParseCode);
+        result = parsedCode;
+        for (Code code : context.codeList) {
+          code.asLazyCfCode().releaseParsedCode();
+        }
+      }
+      assert result != null;
+      if (retain) {
+        code = result;
+        softlyReferencedCode = null;
+      }
+      return result;
+    }
+  }
+
+  private void releaseParsedCode() {
+    if (parsedCode != null) {
+      softlyReferencedCode = new SoftReference<>(parsedCode);
+      parsedCode = null;
+    }
+  }
+
   @Override
   public CfWritableCode asCfWritableCode() {
     return asCfCode();
@@ -158,10 +213,12 @@ public class LazyCfCode extends Code {
     assert context != null;
     // The ClassCodeVisitor is in charge of setting this.context to null.
     try {
-      parseCode(context, false);
+      parseCode(context, context.useJsrInliner);
     } catch (JsrEncountered e) {
+      context.useJsrInliner = true;
       for (Code code : context.codeList) {
         code.asLazyCfCode().code = null;
+        code.asLazyCfCode().parsedCode = null;
         code.asLazyCfCode().context = context;
         code.asLazyCfCode().application = application;
       }
@@ -171,12 +228,12 @@ public class LazyCfCode extends Code {
         throw new Unreachable(e1);
       }
     }
-    assert verifyNoReparseContext(context.owner);
+    assert softlyReferenceParsedCode || verifyNoReparseContext(context.owner);
   }
 
   @Override
   public Code getCodeAsInlining(DexMethod caller, DexMethod callee, DexItemFactory factory) {
-    return asCfCode().getCodeAsInlining(caller, callee, factory);
+    return getCodeForReading().getCodeAsInlining(caller, callee, factory);
   }
 
   public static class DebugParsingOptions {
@@ -193,11 +250,16 @@ public class LazyCfCode extends Code {
 
   public void parseCode(ReparseContext context, boolean useJsrInliner) {
     DebugParsingOptions parsingOptions = getParsingOptions(application, reachabilitySensitive);
+    LazyCfCodeParsingStatistics statistics =
+        application.options.getCfCodeParsingOptions().getStatistics();
+    if (statistics != null) {
+      statistics.recordClassParse(useJsrInliner);
+    }
 
     ClassCodeVisitor classVisitor =
         new ClassCodeVisitor(
             context.owner,
-            createCodeLocator(context),
+            isReparse() ? createReparseCodeLocator(context) : createCodeLocator(context),
             application,
             useJsrInliner,
             origin,
@@ -205,7 +267,24 @@ public class LazyCfCode extends Code {
     new ClassReader(context.classCache).accept(classVisitor, parsingOptions.asmReaderOptions);
   }
 
-  private void setCode(CfCode code) {
+  // When re-parsing code that has been released, all other code of the class has already been
+  // parsed once. Only the code of this method is therefore parsed again.
+  private boolean isReparse() {
+    return softlyReferencedCode != null;
+  }
+
+  private void setCode(DexMethod method, CfCode code) {
+    LazyCfCodeParsingStatistics statistics =
+        application.options.getCfCodeParsingOptions().getStatistics();
+    if (statistics != null) {
+      statistics.recordMethodParse(method, isReparse());
+    }
+    if (softlyReferenceParsedCode) {
+      assert this.code == null;
+      assert this.parsedCode == null;
+      this.parsedCode = code;
+      return;
+    }
     assert this.code == null;
     assert this.context != null;
     this.code = code;
@@ -225,22 +304,22 @@ public class LazyCfCode extends Code {
 
   @Override
   public boolean isEmptyVoidMethod() {
-    return asCfCode().isEmptyVoidMethod();
+    return getCodeForReading().isEmptyVoidMethod();
   }
 
   @Override
   public int estimatedSizeForInlining() {
-    return asCfCode().estimatedSizeForInlining();
+    return getCodeForReading().estimatedSizeForInlining();
   }
 
   @Override
   public boolean estimatedSizeForInliningAtMost(int threshold) {
-    return asCfCode().estimatedSizeForInliningAtMost(threshold);
+    return getCodeForReading().estimatedSizeForInliningAtMost(threshold);
   }
 
   @Override
   public int estimatedDexCodeSizeUpperBoundInBytes() {
-    return asCfCode().estimatedDexCodeSizeUpperBoundInBytes();
+    return getCodeForReading().estimatedDexCodeSizeUpperBoundInBytes();
   }
 
   @Override
@@ -249,7 +328,7 @@ public class LazyCfCode extends Code {
       AppView<?> appView,
       Origin origin,
       MutableMethodConversionOptions conversionOptions) {
-    return asCfCode().buildIR(method, appView, origin, conversionOptions);
+    return getCodeForReading().buildIR(method, appView, origin, conversionOptions);
   }
 
   @Override
@@ -262,7 +341,7 @@ public class LazyCfCode extends Code {
       Position callerPosition,
       Origin origin,
       RewrittenPrototypeDescription protoChanges) {
-    return asCfCode()
+    return getCodeForReading()
         .buildInliningIR(
             context,
             method,
@@ -276,33 +355,41 @@ public class LazyCfCode extends Code {
 
   @Override
   public void registerCodeReferences(ProgramMethod method, UseRegistry registry) {
-    asCfCode().registerCodeReferences(method, registry);
+    getCodeForReading().registerCodeReferences(method, registry);
   }
 
   @Override
   public void registerCodeReferencesForDesugaring(ClasspathMethod method, UseRegistry registry) {
-    asCfCode().registerCodeReferencesForDesugaring(method, registry);
+    getCodeForReading().registerCodeReferencesForDesugaring(method, registry);
   }
 
   @Override
   public void registerArgumentReferences(DexEncodedMethod method, ArgumentUse registry) {
-    asCfCode().registerArgumentReferences(method, registry);
+    getCodeForReading().registerArgumentReferences(method, registry);
   }
 
   @Override
   public String toString() {
-    return asCfCode().toString();
+    return getCodeForReading().toString();
   }
 
   @Override
   public String toString(DexEncodedMethod method, ClassNameMapper naming) {
-    return asCfCode().toString(method, naming);
+    return getCodeForReading().toString(method, naming);
   }
 
   protected BiFunction<String, String, LazyCfCode> createCodeLocator(ReparseContext context) {
     return new DefaultCodeLocator(context, application);
   }
 
+  private BiFunction<String, String, LazyCfCode> createReparseCodeLocator(ReparseContext context) {
+    BiFunction<String, String, LazyCfCode> codeLocator = createCodeLocator(context);
+    return (name, desc) -> {
+      LazyCfCode code = codeLocator.apply(name, desc);
+      return code == this ? code : null;
+    };
+  }
+
   private static class DefaultCodeLocator implements BiFunction<String, String, LazyCfCode> {
     private final ReparseContext context;
     private final JarApplicationReader application;
@@ -436,6 +523,7 @@ public class LazyCfCode extends Code {
       }
       finalizeFramesWithIncompleteUninitializedNew();
       code.setCode(
+          method,
           new CfCode(
               method.holder,
               desugaredVisitMultiANewArrayInstruction ? Integer.MAX_VALUE : maxStack,
@@ -1167,7 +1255,7 @@ public class LazyCfCode extends Code {
 
   @Override
   public boolean verifyNoInputReaders() {
-    assert context == null && application == null;
+    assert softlyReferenceParsedCode || (context == null && application == null);
     return true;
   }
 
@@ -1186,6 +1274,6 @@ public class LazyCfCode extends Code {
   @Override
   public Int2ReferenceMap<DebugLocalInfo> collectParameterInfo(
       DexEncodedMethod encodedMethod, AppView<?> appView) {
-    return asCfCode().collectParameterInfo(encodedMethod, appView);
+    return getCodeForReading().collectParameterInfo(encodedMethod, appView);
   }
 }
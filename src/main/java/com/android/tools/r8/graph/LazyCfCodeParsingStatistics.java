@@ -0,0 +1,81 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.graph;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts how often the code of {@link LazyCfCode} instances is parsed from the class file.
+ *
+ * <p>Unless parsed code is softly referenced, each method is parsed once, or twice for classes that
+ * contain JSR instructions. When parsed code is softly referenced, the number of re-parses reflects
+ * the CPU time spent on saving memory.
+ */
+public class LazyCfCodeParsingStatistics {
+
+  private static final int NUMBER_OF_METHODS_TO_PRINT = 10;
+
+  private final AtomicInteger numberOfClassParses = new AtomicInteger();
+  private final AtomicInteger numberOfClassParsesWithJsrInliner = new AtomicInteger();
+  private final AtomicInteger numberOfMethodParses = new AtomicInteger();
+  private final AtomicInteger numberOfMethodReparses = new AtomicInteger();
+  private final Map<DexMethod, AtomicInteger> numberOfReparsesPerMethod =
+      new ConcurrentHashMap<>();
+
+  void recordClassParse(boolean useJsrInliner) {
+    numberOfClassParses.incrementAndGet();
+    if (useJsrInliner) {
+      numberOfClassParsesWithJsrInliner.incrementAndGet();
+    }
+  }
+
+  void recordMethodParse(DexMethod method, boolean isReparse) {
+    numberOfMethodParses.incrementAndGet();
+    if (isReparse) {
+      numberOfMethodReparses.incrementAndGet();
+      numberOfReparsesPerMethod
+          .computeIfAbsent(method, ignore -> new AtomicInteger())
+          .incrementAndGet();
+    }
+  }
+
+  public int getNumberOfClassParses() {
+    return numberOfClassParses.get();
+  }
+
+  public int getNumberOfMethodParses() {
+    return numberOfMethodParses.get();
+  }
+
+  public int getNumberOfMethodReparses() {
+    return numberOfMethodReparses.get();
+  }
+
+  public void print(PrintStream out) {
+    out.println("Class file code parsing statistics:");
+    out.println("  Number of class parses: " + numberOfClassParses.get());
+    out.println(
+        "  Number of class parses with JSR inliner: " + numberOfClassParsesWithJsrInliner.get());
+    out.println("  Number of method parses: " + numberOfMethodParses.get());
+    out.println("  Number of method re-parses: " + numberOfMethodReparses.get());
+    out.println("  Number of re-parsed methods: " + numberOfReparsesPerMethod.size());
+    List<Entry<DexMethod, AtomicInteger>> entries =
+        new ArrayList<>(numberOfReparsesPerMethod.entrySet());
+    entries.sort(
+        (x, y) -> {
+          int diff = y.getValue().get() - x.getValue().get();
+          return diff != 0 ? diff : x.getKey().compareTo(y.getKey());
+        });
+    for (int i = 0; i < Math.min(entries.size(), NUMBER_OF_METHODS_TO_PRINT); i++) {
+      Entry<DexMethod, AtomicInteger> entry = entries.get(i);
+      out.println("    " + entry.getKey().toSourceString() + ": " + entry.getValue().get());
+    }
+  }
+}
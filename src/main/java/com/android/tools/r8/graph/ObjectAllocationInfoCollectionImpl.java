@@ -13,10 +13,12 @@ import com.android.tools.r8.shaking.InstantiationReason;
 import com.android.tools.r8.shaking.KeepReason;
 import com.android.tools.r8.shaking.MissingClasses;
 import com.android.tools.r8.utils.LensUtils;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.TraversalContinuation;
 import com.android.tools.r8.utils.WorkList;
 import com.google.common.collect.Sets;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
@@ -24,6 +26,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -73,6 +77,10 @@ public abstract class ObjectAllocationInfoCollectionImpl implements ObjectAlloca
 
   public abstract void mutate(Consumer<Builder> mutator, AppInfo appInfo);
 
+  public abstract void mutate(
+      Consumer<Builder> mutator, AppInfo appInfo, ExecutorService executorService)
+      throws ExecutionException;
+
   /**
    * True if a class type might be instantiated directly at the given type.
    *
@@ -319,6 +327,18 @@ public abstract class ObjectAllocationInfoCollectionImpl implements ObjectAlloca
       return this;
     }
 
+    public ObjectAllocationInfoCollectionImpl build(
+        DexDefinitionSupplier definitions, ExecutorService executorService)
+        throws ExecutionException {
+      assert data != null;
+      if (instantiatedHierarchy == null) {
+        repopulateInstantiatedHierarchy(definitions, executorService);
+      }
+      assert validate(definitions);
+      data = null;
+      return this;
+    }
+
     // Consider a mutation interface that has just the mutation methods.
     @Override
     public void mutate(Consumer<Builder> mutator, AppInfo appInfo) {
@@ -326,6 +346,13 @@ public abstract class ObjectAllocationInfoCollectionImpl implements ObjectAlloca
       repopulateInstantiatedHierarchy(appInfo);
     }
 
+    @Override
+    public void mutate(Consumer<Builder> mutator, AppInfo appInfo, ExecutorService executorService)
+        throws ExecutionException {
+      mutator.accept(this);
+      repopulateInstantiatedHierarchy(appInfo, executorService);
+    }
+
     private boolean shouldTrackAllocationSitesForClass(
         DexProgramClass clazz, InstantiationReason instantiationReason) {
       if (!data.trackAllocationSites) {
@@ -402,43 +429,112 @@ public abstract class ObjectAllocationInfoCollectionImpl implements ObjectAlloca
 
     private void repopulateInstantiatedHierarchy(DexDefinitionSupplier definitions) {
       instantiatedHierarchy = new IdentityHashMap<>();
-      classesWithAllocationSiteTracking
-          .keySet()
-          .forEach(clazz -> populateInstantiatedHierarchy(definitions, clazz));
-      classesWithoutAllocationSiteTracking.forEach(
-          clazz -> populateInstantiatedHierarchy(definitions, clazz));
-      interfacesWithUnknownSubtypeHierarchy.forEach(
-          clazz -> populateInstantiatedHierarchy(definitions, clazz));
+      forEachInstantiatedHierarchyRoot(
+          definitions, clazz -> populateInstantiatedHierarchy(definitions, clazz));
+    }
+
+    /**
+     * Rebuilds the instantiated hierarchy in parallel.
+     *
+     * <p>The roots of the hierarchy are split into consecutive partitions that each populate a
+     * partial hierarchy. Since the instantiated hierarchy is the union of the supertype closures of
+     * the roots, the partial hierarchies are simply merged afterwards.
+     */
+    private void repopulateInstantiatedHierarchy(
+        DexDefinitionSupplier definitions, ExecutorService executorService)
+        throws ExecutionException {
+      List<DexClass> roots = new ArrayList<>();
+      forEachInstantiatedHierarchyRoot(definitions, roots::add);
+      Collection<Map<DexType, Set<DexClass>>> partialHierarchies =
+          ThreadUtils.processPartitionsWithResults(
+              roots,
+              partition -> {
+                Map<DexType, Set<DexClass>> partialHierarchy = new IdentityHashMap<>();
+                for (DexClass root : partition) {
+                  populateInstantiatedHierarchy(definitions, root, partialHierarchy);
+                }
+                return partialHierarchy;
+              },
+              executorService);
+      Iterator<Map<DexType, Set<DexClass>>> partialHierarchyIterator =
+          partialHierarchies.iterator();
+      instantiatedHierarchy =
+          partialHierarchyIterator.hasNext()
+              ? partialHierarchyIterator.next()
+              : new IdentityHashMap<>();
+      while (partialHierarchyIterator.hasNext()) {
+        partialHierarchyIterator
+            .next()
+            .forEach(
+                (type, subtypes) -> {
+                  Set<DexClass> existingSubtypes = instantiatedHierarchy.get(type);
+                  if (existingSubtypes == null) {
+                    instantiatedHierarchy.put(type, subtypes);
+                  } else {
+                    existingSubtypes.addAll(subtypes);
+                  }
+                });
+      }
+    }
+
+    private void forEachInstantiatedHierarchyRoot(
+        DexDefinitionSupplier definitions, Consumer<DexClass> consumer) {
+      classesWithAllocationSiteTracking.keySet().forEach(consumer);
+      classesWithoutAllocationSiteTracking.forEach(consumer);
+      interfacesWithUnknownSubtypeHierarchy.forEach(consumer);
       instantiatedLambdas
           .keySet()
-          .forEach(type -> populateInstantiatedHierarchy(definitions, type));
+          .forEach(
+              type -> {
+                DexClass clazz = definitions.contextIndependentDefinitionFor(type);
+                if (clazz != null) {
+                  consumer.accept(clazz);
+                }
+              });
     }
 
     private void populateInstantiatedHierarchy(DexDefinitionSupplier definitions, DexType type) {
+      populateInstantiatedHierarchy(definitions, type, instantiatedHierarchy);
+    }
+
+    private static void populateInstantiatedHierarchy(
+        DexDefinitionSupplier definitions,
+        DexType type,
+        Map<DexType, Set<DexClass>> instantiatedHierarchy) {
       DexClass clazz = definitions.definitionFor(type);
       if (clazz != null) {
-        populateInstantiatedHierarchy(definitions, clazz);
+        populateInstantiatedHierarchy(definitions, clazz, instantiatedHierarchy);
       }
     }
 
     public void injectInterfaces(
         DexDefinitionSupplier definitions, DexProgramClass clazz, Set<DexClass> newInterfaces) {
       for (DexClass newInterface : newInterfaces) {
-        populateInstantiatedHierarchy(definitions, newInterface.type, clazz);
+        populateInstantiatedHierarchy(definitions, newInterface.type, clazz, instantiatedHierarchy);
       }
     }
 
     private void populateInstantiatedHierarchy(DexDefinitionSupplier definitions, DexClass clazz) {
+      populateInstantiatedHierarchy(definitions, clazz, instantiatedHierarchy);
+    }
+
+    private static void populateInstantiatedHierarchy(
+        DexDefinitionSupplier definitions,
+        DexClass clazz,
+        Map<DexType, Set<DexClass>> instantiatedHierarchy) {
       if (clazz.superType != null) {
-        populateInstantiatedHierarchy(definitions, clazz.superType, clazz);
+        populateInstantiatedHierarchy(definitions, clazz.superType, clazz, instantiatedHierarchy);
       }
       for (DexType iface : clazz.interfaces.values) {
-        populateInstantiatedHierarchy(definitions, iface, clazz);
+        populateInstantiatedHierarchy(definitions, iface, clazz, instantiatedHierarchy);
       }
     }
 
-    private void populateInstantiatedHierarchy(
-        DexDefinitionSupplier definitions, DexType type, DexClass subtype) {
+    private static void populateInstantiatedHierarchy(
+        DexDefinitionSupplier definitions,
+        DexType type,
+        DexClass subtype,
+        Map<DexType, Set<DexClass>> instantiatedHierarchy) {
       if (type == definitions.dexItemFactory().objectType) {
         return;
       }
@@ -451,7 +547,7 @@ public abstract class ObjectAllocationInfoCollectionImpl implements ObjectAlloca
       subtypes = Sets.newIdentityHashSet();
       subtypes.add(subtype);
       instantiatedHierarchy.put(type, subtypes);
-      populateInstantiatedHierarchy(definitions, type);
+      populateInstantiatedHierarchy(definitions, type, instantiatedHierarchy);
     }
 
     public void markNoLongerInstantiated(DexProgramClass clazz) {
@@ -3,21 +3,32 @@
 // BSD-style license that can be found in the LICENSE file.
 package com.android.tools.r8.graph;
 
+import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.structural.StructuralItem;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Deque;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.SortedSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class SubtypingInfo {
 
@@ -63,23 +74,115 @@ public class SubtypingInfo {
     return new SubtypingInfo(typeInfo, subtypeMap, definitions.dexItemFactory());
   }
 
+  public static SubtypingInfo create(
+      AppView<? extends AppInfoWithClassHierarchy> appView, ExecutorService executorService)
+      throws ExecutionException {
+    DirectMappedDexApplication directApp = appView.appInfo().app().asDirect();
+    List<DexClass> classes =
+        ImmutableList.<DexClass>builder()
+            .addAll(directApp.programClasses())
+            .addAll(directApp.classpathClasses())
+            .addAll(directApp.libraryClasses())
+            .build();
+    return create(classes, appView.appInfo(), executorService);
+  }
+
+  /**
+   * Computes the subtyping information for the given classes in parallel.
+   *
+   * <p>The classes are split into consecutive partitions that each populate a partial subtype map.
+   * The partial maps are merged in partition order, which guarantees that the result is identical
+   * to the result of {@link #create(Iterable, DexDefinitionSupplier)}, independently of the number
+   * of threads.
+   */
+  public static SubtypingInfo create(
+      List<? extends DexClass> classes,
+      DexDefinitionSupplier definitions,
+      ExecutorService executorService)
+      throws ExecutionException {
+    Map<DexType, TypeInfo> typeInfo = new ConcurrentHashMap<>();
+    getTypeInfo(definitions.dexItemFactory().objectType, typeInfo).tagAsSubtypeRoot();
+    Collection<Map<DexType, Set<DexType>>> partialSubtypeMaps =
+        ThreadUtils.processPartitionsWithResults(
+            classes,
+            partition -> {
+              Map<DexType, Set<DexType>> partialSubtypeMap = new IdentityHashMap<>();
+              for (DexClass clazz : partition) {
+                populateAllSuperTypes(
+                    partialSubtypeMap,
+                    typeInfo,
+                    clazz.type,
+                    clazz,
+                    definitions,
+                    LinkedHashSet::new);
+              }
+              return partialSubtypeMap;
+            },
+            executorService);
+    Map<DexType, Set<DexType>> subtypeMap =
+        mergeSubtypeMaps(partialSubtypeMaps, executorService);
+    typeInfo.values().forEach(TypeInfo::freeze);
+    assert validateLevelsAreCorrect(typeInfo, definitions);
+    return new SubtypingInfo(typeInfo, subtypeMap, definitions.dexItemFactory());
+  }
+
+  private static Map<DexType, Set<DexType>> mergeSubtypeMaps(
+      Collection<Map<DexType, Set<DexType>>> partialSubtypeMaps, ExecutorService executorService)
+      throws ExecutionException {
+    Map<DexType, List<Set<DexType>>> partialSubtypes = new IdentityHashMap<>();
+    for (Map<DexType, Set<DexType>> partialSubtypeMap : partialSubtypeMaps) {
+      partialSubtypeMap.forEach(
+          (type, subtypes) ->
+              partialSubtypes.computeIfAbsent(type, ignore -> new ArrayList<>()).add(subtypes));
+    }
+    List<DexType> types = new ArrayList<>(partialSubtypes.keySet());
+    Collection<List<Set<DexType>>> mergedSubtypes =
+        ThreadUtils.processPartitionsWithResults(
+            types,
+            partition -> {
+              List<Set<DexType>> result = new ArrayList<>(partition.size());
+              for (DexType type : partition) {
+                // Insert the subtypes in the same order as a sequential population would, such that
+                // the iteration order of the resulting set does not depend on the partitioning.
+                Set<DexType> subtypes = new HashSet<>();
+                partialSubtypes.get(type).forEach(subtypes::addAll);
+                result.add(ImmutableSet.copyOf(subtypes));
+              }
+              return result;
+            },
+            executorService);
+    Map<DexType, Set<DexType>> subtypeMap = new IdentityHashMap<>(types.size());
+    Iterator<DexType> typeIterator = types.iterator();
+    for (List<Set<DexType>> partition : mergedSubtypes) {
+      for (Set<DexType> subtypes : partition) {
+        subtypeMap.put(typeIterator.next(), subtypes);
+      }
+    }
+    assert !typeIterator.hasNext();
+    return subtypeMap;
+  }
+
   private static void populateSuperType(
       Map<DexType, Set<DexType>> map,
       Map<DexType, TypeInfo> typeInfo,
       DexType superType,
       DexClass baseClass,
-      DexDefinitionSupplier definitionSupplier) {
+      DexDefinitionSupplier definitionSupplier,
+      Supplier<Set<DexType>> setFactory) {
     if (superType != null) {
-      Set<DexType> set = map.computeIfAbsent(superType, ignore -> new HashSet<>());
+      Set<DexType> set = map.computeIfAbsent(superType, ignore -> setFactory.get());
       if (set.add(baseClass.type)) {
         // Only continue recursion if type has been added to set.
-        populateAllSuperTypes(map, typeInfo, superType, baseClass, definitionSupplier);
+        populateAllSuperTypes(map, typeInfo, superType, baseClass, definitionSupplier, setFactory);
       }
     }
   }
 
   private TypeInfo getTypeInfo(DexType type) {
-    return getTypeInfo(type, typeInfo);
+    assert type != null;
+    // Do not record type info for types that are not in the hierarchy to keep this immutable.
+    TypeInfo info = typeInfo.get(type);
+    return info != null ? info : new TypeInfo(type);
   }
 
   private static TypeInfo getTypeInfo(DexType type, Map<DexType, TypeInfo> typeInfo) {
@@ -92,14 +195,16 @@ public class SubtypingInfo {
       Map<DexType, TypeInfo> typeInfo,
       DexType holder,
       DexClass baseClass,
-      DexDefinitionSupplier definitionSupplier) {
+      DexDefinitionSupplier definitionSupplier,
+      Supplier<Set<DexType>> setFactory) {
     DexClass holderClass = definitionSupplier.contextIndependentDefinitionFor(holder);
     // Skip if no corresponding class is found.
     TypeInfo typeInfoHere = getTypeInfo(holder, typeInfo);
     if (holderClass != null) {
       holderClass.forEachImmediateSupertype(
           (superType, isInterface) -> {
-            populateSuperType(map, typeInfo, superType, baseClass, definitionSupplier);
+            populateSuperType(
+                map, typeInfo, superType, baseClass, definitionSupplier, setFactory);
             TypeInfo superTypeInfo = getTypeInfo(superType, typeInfo);
             if (isInterface) {
               superTypeInfo.addInterfaceSubtype(holder);
@@ -126,9 +231,10 @@ public class SubtypingInfo {
       DexDefinitionSupplier definitionSupplier) {
     getTypeInfo(definitionSupplier.dexItemFactory().objectType, typeInfo).tagAsSubtypeRoot();
     for (DexClass clazz : classes) {
-      populateAllSuperTypes(map, typeInfo, clazz.type, clazz, definitionSupplier);
+      populateAllSuperTypes(map, typeInfo, clazz.type, clazz, definitionSupplier, HashSet::new);
     }
     map.replaceAll((k, v) -> ImmutableSet.copyOf(v));
+    typeInfo.values().forEach(TypeInfo::freeze);
     assert validateLevelsAreCorrect(typeInfo, definitionSupplier);
   }
 
@@ -249,13 +355,14 @@ public class SubtypingInfo {
 
     private final DexType type;
 
-    private int hierarchyLevel = UNKNOWN_LEVEL;
+    // The type info is populated concurrently when the subtyping info is created in parallel.
+    private volatile int hierarchyLevel = UNKNOWN_LEVEL;
 
     /**
      * Set of direct subtypes. This set has to remain sorted to ensure determinism. The actual
      * sorting is not important but {@link DexType#compareTo(StructuralItem)} works well.
      */
-    private Set<DexType> directSubtypes = NO_DIRECT_SUBTYPE;
+    private volatile Set<DexType> directSubtypes = NO_DIRECT_SUBTYPE;
 
     TypeInfo(DexType type) {
       this.type = type;
@@ -282,11 +389,21 @@ public class SubtypingInfo {
 
     private void ensureDirectSubTypeSet() {
       if (directSubtypes == NO_DIRECT_SUBTYPE) {
-        directSubtypes = new ConcurrentSkipListSet<>(DexType::compareTo);
+        synchronized (this) {
+          if (directSubtypes == NO_DIRECT_SUBTYPE) {
+            directSubtypes = new ConcurrentSkipListSet<>(DexType::compareTo);
+          }
+        }
+      }
+    }
+
+    private void freeze() {
+      if (directSubtypes != NO_DIRECT_SUBTYPE) {
+        directSubtypes = ImmutableSortedSet.copyOfSorted((SortedSet<DexType>) directSubtypes);
       }
     }
 
-    private void setLevel(int level) {
+    private synchronized void setLevel(int level) {
       if (level == hierarchyLevel) {
         return;
       }
@@ -15,6 +15,8 @@ import com.android.tools.r8.shaking.DefaultEnqueuerUseRegistry;
 import com.android.tools.r8.shaking.Enqueuer;
 import com.android.tools.r8.shaking.EnqueuerWorklist;
 import com.android.tools.r8.utils.Timing;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 public abstract class EnqueuerAnalysis {
 
@@ -64,4 +66,12 @@ public abstract class EnqueuerAnalysis {
    * perform some post-processing.
    */
   public void done(Enqueuer enqueuer) {}
+
+  /**
+   * Called when the Enqueuer has reached the final fixpoint. Analyses that benefit from parallel
+   * post-processing may override this callback to use the {@param executorService}.
+   */
+  public void done(Enqueuer enqueuer, ExecutorService executorService) throws ExecutionException {
+    done(enqueuer);
+  }
 }
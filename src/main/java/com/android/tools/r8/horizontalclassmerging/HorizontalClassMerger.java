@@ -108,8 +108,12 @@ public class HorizontalClassMerger {
     // Run the policies on all program classes to produce a final grouping.
     List<Policy> policies =
         PolicyScheduler.getPolicies(appView, codeProvider, mode, runtimeTypeCheckInfo);
+    PolicyExecutor policyExecutor = new PolicyExecutor(options);
     Collection<MergeGroup> groups =
-        new PolicyExecutor().run(getInitialGroups(), policies, executorService, timing);
+        policyExecutor.run(getInitialGroups(), policies, executorService, timing);
+    if (options.isPrintPolicyStatisticsEnabled()) {
+      policyExecutor.printStatistics(System.out);
+    }
 
     // If there are no groups, then end horizontal class merging.
     if (groups.isEmpty()) {
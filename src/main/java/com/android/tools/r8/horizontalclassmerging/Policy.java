@@ -6,6 +6,7 @@ package com.android.tools.r8.horizontalclassmerging;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 
 /**
  * The super class of all horizontal class merging policies. Most classes will either implement
@@ -13,7 +14,7 @@ import java.util.Collection;
  */
 public abstract class Policy {
 
-  /** Counter keeping track of how many classes this policy has removed. For debugging only. */
+  /** Counter keeping track of how many classes this policy has removed. */
   public int numberOfRemovedClasses;
 
   public int numberOfRemovedInterfaces;
@@ -54,6 +55,15 @@ public abstract class Policy {
     return false;
   }
 
+  /**
+   * Returns true if this policy can be applied to different classes (for single class policies)
+   * or different merge groups (for multi class policies) concurrently. This requires that applying
+   * the policy does not mutate any state that is shared between classes or groups, such as caches.
+   */
+  public boolean isParallelizable() {
+    return false;
+  }
+
   /**
    * Remove all groups containing no or only a single class, as there is no point in merging these.
    */
@@ -63,8 +73,28 @@ public abstract class Policy {
     return groups;
   }
 
-  boolean recordRemovedClassesForDebugging(
+  void recordRemovedClasses(boolean isInterfaceGroup, int previousGroupSize, MergeGroup newGroup) {
+    recordRemovedClasses(isInterfaceGroup, previousGroupSize, Collections.singletonList(newGroup));
+  }
+
+  void recordRemovedClasses(
       boolean isInterfaceGroup, int previousGroupSize, Collection<MergeGroup> newGroups) {
+    recordRemovedClasses(isInterfaceGroup, getNumberOfRemovedClasses(previousGroupSize, newGroups));
+  }
+
+  void recordRemovedClasses(boolean isInterfaceGroup, int change) {
+    if (isInterfaceGroup) {
+      numberOfRemovedInterfaces += change;
+    } else {
+      numberOfRemovedClasses += change;
+    }
+  }
+
+  /**
+   * Returns the number of classes that can no longer be merged into another class, as a result of
+   * splitting a group of the given size into the given groups.
+   */
+  static int getNumberOfRemovedClasses(int previousGroupSize, Collection<MergeGroup> newGroups) {
     assert previousGroupSize >= 2;
     int previousNumberOfRemovedClasses = previousGroupSize - 1;
     int newNumberOfRemovedClasses = 0;
@@ -74,12 +104,6 @@ public abstract class Policy {
       }
     }
     assert previousNumberOfRemovedClasses >= newNumberOfRemovedClasses;
-    int change = previousNumberOfRemovedClasses - newNumberOfRemovedClasses;
-    if (isInterfaceGroup) {
-      numberOfRemovedInterfaces += change;
-    } else {
-      numberOfRemovedClasses += change;
-    }
-    return true;
+    return previousNumberOfRemovedClasses - newNumberOfRemovedClasses;
   }
 }
@@ -4,21 +4,41 @@
 
 package com.android.tools.r8.horizontalclassmerging;
 
+import com.android.tools.r8.graph.DexProgramClass;
+import com.android.tools.r8.utils.InternalOptions.HorizontalClassMergerOptions;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.Timing;
-import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 
 /**
- * This is a simple policy executor that ensures regular sequential execution of policies. It should
- * primarily be readable and correct. The SimplePolicyExecutor should be a reference implementation,
- * against which more efficient policy executors can be compared.
+ * Applies the policies of horizontal class merging in sequence. Policies that are {@link
+ * Policy#isParallelizable() parallelizable} are applied to the classes (single class policies) or
+ * merge groups (multi class policies) concurrently when there are sufficiently many classes. The
+ * resulting merge groups are always in the same order as when applying the policies sequentially.
  */
 public class PolicyExecutor {
 
+  // The number of chunks to create per thread when applying a policy concurrently. Using more than
+  // one chunk per thread helps balance the load, since the cost of applying a policy varies between
+  // classes and groups.
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  private final HorizontalClassMergerOptions options;
+
+  private final List<PolicyStatistics> statistics = new ArrayList<>();
+
+  public PolicyExecutor(HorizontalClassMergerOptions options) {
+    this.options = options;
+  }
+
   private void applySingleClassPolicy(SingleClassPolicy policy, LinkedList<MergeGroup> groups) {
     Iterator<MergeGroup> i = groups.iterator();
     while (i.hasNext()) {
@@ -26,28 +46,54 @@ public class PolicyExecutor {
       boolean isInterfaceGroup = group.isInterfaceGroup();
       int previousGroupSize = group.size();
       group.removeIf(clazz -> !policy.canMerge(clazz));
-      assert policy.recordRemovedClassesForDebugging(
-          isInterfaceGroup, previousGroupSize, ImmutableList.of(group));
+      policy.recordRemovedClasses(isInterfaceGroup, previousGroupSize, group);
       if (group.isTrivial()) {
         i.remove();
       }
     }
   }
 
+  private void applySingleClassPolicyInParallel(
+      SingleClassPolicy policy,
+      LinkedList<MergeGroup> groups,
+      int numberOfClasses,
+      ExecutorService executorService)
+      throws ExecutionException {
+    // Compute the result of the policy for all classes concurrently, and then remove the classes
+    // that cannot be merged from their groups in the original order.
+    List<DexProgramClass> classes = new ArrayList<>(numberOfClasses);
+    groups.forEach(group -> group.forEach(classes::add));
+    boolean[] canMerge = new boolean[classes.size()];
+    int chunkSize = getChunkSize(classes.size(), executorService);
+    ThreadUtils.processItems(
+        Lists.partition(classes, chunkSize),
+        (chunk, chunkIndex) -> {
+          int offset = chunkIndex * chunkSize;
+          for (int i = 0; i < chunk.size(); i++) {
+            canMerge[offset + i] = policy.canMerge(chunk.get(i));
+          }
+        },
+        executorService);
+    int[] index = {0};
+    Iterator<MergeGroup> i = groups.iterator();
+    while (i.hasNext()) {
+      MergeGroup group = i.next();
+      boolean isInterfaceGroup = group.isInterfaceGroup();
+      int previousGroupSize = group.size();
+      group.removeIf(clazz -> !canMerge[index[0]++]);
+      policy.recordRemovedClasses(isInterfaceGroup, previousGroupSize, group);
+      if (group.isTrivial()) {
+        i.remove();
+      }
+    }
+    assert index[0] == canMerge.length;
+  }
+
   private LinkedList<MergeGroup> applyMultiClassPolicy(
       MultiClassPolicy policy, LinkedList<MergeGroup> groups) {
     // For each group apply the multi class policy and add all the new groups together.
     LinkedList<MergeGroup> newGroups = new LinkedList<>();
-    groups.forEach(
-        group -> {
-          boolean isInterfaceGroup = group.isInterfaceGroup();
-          int previousGroupSize = group.size();
-          Collection<MergeGroup> policyGroups = policy.apply(group);
-          policyGroups.forEach(newGroup -> newGroup.applyMetadataFrom(group));
-          assert policy.recordRemovedClassesForDebugging(
-              isInterfaceGroup, previousGroupSize, policyGroups);
-          newGroups.addAll(policyGroups);
-        });
+    groups.forEach(group -> newGroups.addAll(applyMultiClassPolicy(policy, group, policy::apply)));
     return newGroups;
   }
 
@@ -60,18 +106,78 @@ public class PolicyExecutor {
     T data = policy.preprocess(groups, executorService);
     LinkedList<MergeGroup> newGroups = new LinkedList<>();
     groups.forEach(
-        group -> {
-          boolean isInterfaceGroup = group.isInterfaceGroup();
-          int previousGroupSize = group.size();
-          Collection<MergeGroup> policyGroups = policy.apply(group, data);
-          policyGroups.forEach(newGroup -> newGroup.applyMetadataFrom(group));
-          assert policy.recordRemovedClassesForDebugging(
-              isInterfaceGroup, previousGroupSize, policyGroups);
-          newGroups.addAll(policyGroups);
-        });
+        group ->
+            newGroups.addAll(
+                applyMultiClassPolicy(policy, group, ignore -> policy.apply(group, data))));
     return newGroups;
   }
 
+  private LinkedList<MergeGroup> applyMultiClassPolicyInParallel(
+      Policy policy,
+      LinkedList<MergeGroup> groups,
+      MultiClassPolicyApplication application,
+      ExecutorService executorService)
+      throws ExecutionException {
+    // Apply the multi class policy to chunks of groups concurrently, and add all the new groups
+    // together in the original order.
+    List<MergeGroup> groupList = new ArrayList<>(groups);
+    List<List<MergeGroup>> chunks =
+        Lists.partition(groupList, getChunkSize(groupList.size(), executorService));
+    int[] numberOfRemovedClassesPerChunk = new int[chunks.size()];
+    int[] numberOfRemovedInterfacesPerChunk = new int[chunks.size()];
+    Collection<List<MergeGroup>> newGroupsPerChunk =
+        ThreadUtils.processItemsWithResults(
+            chunks,
+            (chunk, chunkIndex) -> {
+              List<MergeGroup> newGroups = new ArrayList<>();
+              for (MergeGroup group : chunk) {
+                boolean isInterfaceGroup = group.isInterfaceGroup();
+                int previousGroupSize = group.size();
+                Collection<MergeGroup> policyGroups = application.apply(group);
+                policyGroups.forEach(newGroup -> newGroup.applyMetadataFrom(group));
+                int numberOfRemovedClasses =
+                    Policy.getNumberOfRemovedClasses(previousGroupSize, policyGroups);
+                if (isInterfaceGroup) {
+                  numberOfRemovedInterfacesPerChunk[chunkIndex] += numberOfRemovedClasses;
+                } else {
+                  numberOfRemovedClassesPerChunk[chunkIndex] += numberOfRemovedClasses;
+                }
+                newGroups.addAll(policyGroups);
+              }
+              return newGroups;
+            },
+            executorService);
+    for (int i = 0; i < chunks.size(); i++) {
+      policy.recordRemovedClasses(false, numberOfRemovedClassesPerChunk[i]);
+      policy.recordRemovedClasses(true, numberOfRemovedInterfacesPerChunk[i]);
+    }
+    LinkedList<MergeGroup> newGroups = new LinkedList<>();
+    newGroupsPerChunk.forEach(newGroups::addAll);
+    return newGroups;
+  }
+
+  private Collection<MergeGroup> applyMultiClassPolicy(
+      Policy policy, MergeGroup group, MultiClassPolicyApplication application) {
+    boolean isInterfaceGroup = group.isInterfaceGroup();
+    int previousGroupSize = group.size();
+    Collection<MergeGroup> policyGroups = application.apply(group);
+    policyGroups.forEach(newGroup -> newGroup.applyMetadataFrom(group));
+    policy.recordRemovedClasses(isInterfaceGroup, previousGroupSize, policyGroups);
+    return policyGroups;
+  }
+
+  private int getChunkSize(int numberOfItems, ExecutorService executorService) {
+    int numberOfChunks = ThreadUtils.getNumberOfThreads(executorService) * CHUNKS_PER_THREAD;
+    return Math.max(1, (numberOfItems + numberOfChunks - 1) / numberOfChunks);
+  }
+
+  private boolean shouldApplyInParallel(
+      Policy policy, int numberOfClasses, ExecutorService executorService) {
+    return policy.isParallelizable()
+        && numberOfClasses >= options.getParallelPolicyApplicationThreshold()
+        && ThreadUtils.getNumberOfThreads(executorService) > 1;
+  }
+
   /**
    * Given an initial collection of class groups which can potentially be merged, run all of the
    * policies registered to this policy executor on the class groups yielding a new collection of
@@ -96,17 +202,39 @@ public class PolicyExecutor {
         continue;
       }
 
+      int numberOfClasses = 0;
+      for (MergeGroup group : linkedGroups) {
+        numberOfClasses += group.size();
+      }
+      boolean applyInParallel = shouldApplyInParallel(policy, numberOfClasses, executorService);
+
       timing.begin(policy.getName());
+      long startTime = System.nanoTime();
       if (policy.isSingleClassPolicy()) {
-        applySingleClassPolicy(policy.asSingleClassPolicy(), linkedGroups);
+        if (applyInParallel) {
+          applySingleClassPolicyInParallel(
+              policy.asSingleClassPolicy(), linkedGroups, numberOfClasses, executorService);
+        } else {
+          applySingleClassPolicy(policy.asSingleClassPolicy(), linkedGroups);
+        }
       } else if (policy.isMultiClassPolicy()) {
-        linkedGroups = applyMultiClassPolicy(policy.asMultiClassPolicy(), linkedGroups);
+        if (applyInParallel) {
+          MultiClassPolicy multiClassPolicy = policy.asMultiClassPolicy();
+          linkedGroups =
+              applyMultiClassPolicyInParallel(
+                  multiClassPolicy, linkedGroups, multiClassPolicy::apply, executorService);
+        } else {
+          linkedGroups = applyMultiClassPolicy(policy.asMultiClassPolicy(), linkedGroups);
+        }
       } else {
         assert policy.isMultiClassPolicyWithPreprocessing();
         linkedGroups =
             applyMultiClassPolicyWithPreprocessing(
                 policy.asMultiClassPolicyWithPreprocessing(), linkedGroups, executorService);
       }
+      statistics.add(
+          new PolicyStatistics(
+              policy, System.nanoTime() - startTime, numberOfClasses, applyInParallel));
       timing.end();
 
       policy.clear();
@@ -121,4 +249,52 @@ public class PolicyExecutor {
 
     return linkedGroups;
   }
+
+  /** Prints the time spent in each policy and the number of classes that it prevented merging. */
+  public void printStatistics(PrintStream out) {
+    out.println("Horizontal class merging policy statistics:");
+    for (PolicyStatistics policyStatistics : statistics) {
+      out.println("  " + policyStatistics);
+    }
+  }
+
+  @FunctionalInterface
+  private interface MultiClassPolicyApplication {
+
+    Collection<MergeGroup> apply(MergeGroup group);
+  }
+
+  private static class PolicyStatistics {
+
+    private final String name;
+    private final long duration;
+    private final int numberOfClasses;
+    private final int numberOfRemovedClasses;
+    private final int numberOfRemovedInterfaces;
+    private final boolean parallel;
+
+    PolicyStatistics(Policy policy, long duration, int numberOfClasses, boolean parallel) {
+      this.name = policy.getName();
+      this.duration = duration;
+      this.numberOfClasses = numberOfClasses;
+      this.numberOfRemovedClasses = policy.numberOfRemovedClasses;
+      this.numberOfRemovedInterfaces = policy.numberOfRemovedInterfaces;
+      this.parallel = parallel;
+    }
+
+    @Override
+    public String toString() {
+      return name
+          + ": "
+          + (duration / 1000000)
+          + "ms"
+          + (parallel ? " (parallel)" : "")
+          + ", input classes: "
+          + numberOfClasses
+          + ", removed classes: "
+          + numberOfRemovedClasses
+          + ", removed interfaces: "
+          + numberOfRemovedInterfaces;
+    }
+  }
 }
@@ -31,4 +31,9 @@ public class AllInstantiatedOrUninstantiated extends MultiClassSameReferencePoli
   public String getName() {
     return "AllInstantiatedOrUninstantiated";
   }
+
+  @Override
+  public boolean isParallelizable() {
+    return true;
+  }
 }
@@ -60,6 +60,11 @@ public class LimitClassGroups extends MultiClassPolicy {
     return "LimitGroups";
   }
 
+  @Override
+  public boolean isParallelizable() {
+    return true;
+  }
+
   @Override
   public boolean isIdentityForInterfaceGroups() {
     return true;
@@ -60,4 +60,9 @@ public class LimitInterfaceGroups extends MultiClassPolicy {
   public String getName() {
     return "LimitInterfaceGroups";
   }
+
+  @Override
+  public boolean isParallelizable() {
+    return true;
+  }
 }
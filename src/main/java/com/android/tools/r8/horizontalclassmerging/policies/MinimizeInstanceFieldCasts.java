@@ -75,4 +75,9 @@ public class MinimizeInstanceFieldCasts extends MultiClassPolicy {
   public String getName() {
     return "MinimizeFieldCasts";
   }
+
+  @Override
+  public boolean isParallelizable() {
+    return true;
+  }
 }
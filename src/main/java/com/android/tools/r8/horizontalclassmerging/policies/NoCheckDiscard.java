@@ -30,4 +30,9 @@ public class NoCheckDiscard extends SingleClassPolicy {
   public String getName() {
     return "NoCheckDiscard";
   }
+
+  @Override
+  public boolean isParallelizable() {
+    return true;
+  }
 }
@@ -17,4 +17,9 @@ public class NoClassAnnotationCollisions extends AtMostOneClassThatMatchesPolicy
   public String getName() {
     return "NoClassAnnotationCollisions";
   }
+
+  @Override
+  public boolean isParallelizable() {
+    return true;
+  }
 }
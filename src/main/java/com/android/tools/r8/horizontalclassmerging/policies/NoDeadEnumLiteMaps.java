@@ -36,4 +36,9 @@ public class NoDeadEnumLiteMaps extends SingleClassPolicy {
   public String getName() {
     return "NoDeadEnumLiteMaps";
   }
+
+  @Override
+  public boolean isParallelizable() {
+    return true;
+  }
 }
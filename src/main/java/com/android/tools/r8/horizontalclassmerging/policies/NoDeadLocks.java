@@ -61,4 +61,9 @@ public class NoDeadLocks extends MultiClassPolicy {
   public String getName() {
     return "NoDeadLocks";
   }
+
+  @Override
+  public boolean isParallelizable() {
+    return true;
+  }
 }
@@ -45,6 +45,11 @@ public class NoDirectRuntimeTypeChecks extends SingleClassPolicy {
     return "NoDirectRuntimeTypeChecks";
   }
 
+  @Override
+  public boolean isParallelizable() {
+    return true;
+  }
+
   @Override
   public boolean shouldSkipPolicy() {
     return options.horizontalClassMergerOptions().isIgnoreRuntimeTypeChecksForTestingEnabled();
@@ -30,6 +30,11 @@ public class NoFailedResolutionTargets extends SingleClassPolicy {
     return "NoFailedResolutionTargets";
   }
 
+  @Override
+  public boolean isParallelizable() {
+    return true;
+  }
+
   @Override
   public boolean canMerge(DexProgramClass program) {
     return !failedResolutionHolders.contains(program.getType());
@@ -61,4 +61,9 @@ public class NoIllegalInlining extends SingleClassPolicy {
   public String getName() {
     return "DontInlinePolicy";
   }
+
+  @Override
+  public boolean isParallelizable() {
+    return true;
+  }
 }
@@ -34,4 +34,9 @@ public class NoInterfaces extends SingleClassPolicy {
   public String getName() {
     return "NoInterfaces";
   }
+
+  @Override
+  public boolean isParallelizable() {
+    return true;
+  }
 }
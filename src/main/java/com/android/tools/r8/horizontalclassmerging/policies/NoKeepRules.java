@@ -58,4 +58,9 @@ public class NoKeepRules extends SingleClassPolicy {
   public String getName() {
     return "NoKeepRules";
   }
+
+  @Override
+  public boolean isParallelizable() {
+    return true;
+  }
 }
@@ -30,4 +30,9 @@ public class NoServiceLoaders extends SingleClassPolicy {
   public String getName() {
     return "NoServiceLoaders";
   }
+
+  @Override
+  public boolean isParallelizable() {
+    return true;
+  }
 }
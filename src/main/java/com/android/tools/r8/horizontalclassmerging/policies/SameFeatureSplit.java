@@ -26,4 +26,9 @@ public class SameFeatureSplit extends MultiClassSameReferencePolicy<FeatureSplit
   public String getName() {
     return "SameFeatureSplit";
   }
+
+  @Override
+  public boolean isParallelizable() {
+    return true;
+  }
 }
@@ -32,4 +32,9 @@ public class SameMainDexGroup extends MultiClassSameReferencePolicy<MainDexGroup
   public String getName() {
     return "SameMainDexGroup";
   }
+
+  @Override
+  public boolean isParallelizable() {
+    return true;
+  }
 }
@@ -41,4 +41,9 @@ public class SyntheticItemsPolicy extends MultiClassSameReferencePolicy<ClassKin
   public String getName() {
     return "SyntheticItemsPolicy";
   }
+
+  @Override
+  public boolean isParallelizable() {
+    return true;
+  }
 }
@@ -1002,16 +1002,35 @@ public class BasicBlock {
 
   public List<BasicBlock> unlink(
       BasicBlock successor, DominatorTree dominator, Set<Value> affectedValues) {
+    return unlink(successor, dominator, affectedValues, false);
+  }
+
+  /**
+   * Unlinks {@param successor} and all the blocks dominated by it. If {@param
+   * updateDominatorTree} is set, then {@param dominator} is updated incrementally to reflect the
+   * removal, such that it can be used for subsequent unlinking.
+   */
+  public List<BasicBlock> unlink(
+      BasicBlock successor,
+      DominatorTree dominator,
+      Set<Value> affectedValues,
+      boolean updateDominatorTree) {
     assert affectedValues != null;
     assert successors.contains(successor);
     assert successor.predecessors.size() == 1; // There are no critical edges.
     assert successor.predecessors.get(0) == this;
-    List<BasicBlock> removedBlocks = new ArrayList<>();
-    for (BasicBlock dominated : dominator.dominatedBlocks(successor)) {
+    List<BasicBlock> removedBlocks = dominator.dominatedBlocks(successor);
+    BasicBlock affectedRoot =
+        updateDominatorTree
+            ? dominator.getRootOfSubtreeAffectedByRemoval(successor, removedBlocks)
+            : null;
+    for (BasicBlock dominated : removedBlocks) {
       affectedValues.addAll(dominated.cleanForRemoval());
-      removedBlocks.add(dominated);
     }
     assert blocksClean(removedBlocks);
+    if (updateDominatorTree) {
+      dominator.removeBlocks(removedBlocks, affectedRoot);
+    }
     return removedBlocks;
   }
 
@@ -574,7 +574,9 @@ public class BasicBlockInstructionListIterator implements InstructionListIterato
     if (block.hasCatchHandlers()) {
       if (block == throwBlock) {
         // Remove all catch handlers where the guard does not include NullPointerException if the
-        // replaced instruction could throw.
+        // replaced instruction could throw. The dominator tree is built once and updated
+        // incrementally each time a catch handler is unlinked.
+        LazyDominatorTree dominatorTree = new LazyDominatorTree(code);
         CatchHandlers<BasicBlock> catchHandlers = block.getCatchHandlers();
         catchHandlers.forEach(
             (guard, target) -> {
@@ -584,10 +586,8 @@ public class BasicBlockInstructionListIterator implements InstructionListIterato
                 return;
               }
               if (appView.isSubtype(appView.dexItemFactory().npeType, guard).isFalse()) {
-                // TODO(christofferqa): Consider updating previous dominator tree instead of
-                //   rebuilding it from scratch.
-                DominatorTree dominatorTree = new DominatorTree(code, MAY_HAVE_UNREACHABLE_BLOCKS);
-                blocksToRemove.addAll(block.unlink(target, dominatorTree, affectedValues));
+                blocksToRemove.addAll(
+                    block.unlink(target, dominatorTree.get(), affectedValues, true));
               }
             });
       } else {
@@ -8,7 +8,9 @@ import static com.android.tools.r8.ir.code.DominatorTree.Assumption.MAY_HAVE_UNR
 
 import com.android.tools.r8.ir.code.BasicBlock.BasicBlockChangeListener;
 import com.google.common.collect.ImmutableList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -25,11 +27,22 @@ public class DominatorTree implements BasicBlockChangeListener {
     NO
   }
 
-  private final BasicBlock[] sorted;
-  private BasicBlock[] doms;
+  private static final int UNREACHABLE = -1;
+
+  private final IRCode code;
+
+  private BasicBlock[] sorted;
+  // The immediate dominator and the depth in the dominator tree of each block, indexed by the
+  // number of the block.
+  private int[] idoms;
+  private int[] depths;
   private final BasicBlock normalExitBlock = new BasicBlock();
 
-  private final int unreachableStartIndex;
+  private int unreachableStartIndex;
+
+  // Whether the dominators of a block are guaranteed to be numbered before the block itself. This
+  // holds after a full computation, but not necessarily after an incremental edge removal.
+  private boolean isDominatorNumberingTopological = true;
 
   private boolean obsolete = false;
 
@@ -40,9 +53,14 @@ public class DominatorTree implements BasicBlockChangeListener {
   public DominatorTree(IRCode code, Assumption assumption) {
     assert assumption != null;
     assert assumption == MAY_HAVE_UNREACHABLE_BLOCKS || code.getUnreachableBlocks().isEmpty();
+    this.code = code;
+    compute(assumption);
+  }
 
+  private void compute(Assumption assumption) {
     ImmutableList<BasicBlock> blocks = code.topologicallySortedBlocks();
     // Add the internal exit block to the block list.
+    normalExitBlock.getMutablePredecessors().clear();
     for (BasicBlock block : blocks) {
       if (block.exit().isReturn()) {
         normalExitBlock.getMutablePredecessors().add(block);
@@ -78,6 +96,8 @@ public class DominatorTree implements BasicBlockChangeListener {
     }
     numberBlocks();
     build();
+    isDominatorNumberingTopological = true;
+    obsolete = false;
 
     // This is intentionally implemented via an `assert` so that we do not attach listeners to all
     // basic blocks when running without assertions.
@@ -89,7 +109,8 @@ public class DominatorTree implements BasicBlockChangeListener {
    */
   public BasicBlock immediateDominator(BasicBlock block) {
     assert !obsolete;
-    return doms[block.getNumber()];
+    int idom = idoms[block.getNumber()];
+    return idom == UNREACHABLE ? null : sorted[idom];
   }
 
   /**
@@ -135,16 +156,7 @@ public class DominatorTree implements BasicBlockChangeListener {
     if (subject.getNumber() == 0 || subject == normalExitBlock) {
       return false;
     }
-    while (true) {
-      BasicBlock idom = immediateDominator(subject);
-      if (idom.getNumber() < dominator.getNumber()) {
-        return false;
-      }
-      if (idom == dominator) {
-        return true;
-      }
-      subject = idom;
-    }
+    return subject != dominator && isDominatedBy(subject.getNumber(), dominator.getNumber());
   }
 
   /**
@@ -161,7 +173,7 @@ public class DominatorTree implements BasicBlockChangeListener {
     Iterator<BasicBlock> it = blocks.iterator();
     BasicBlock dominator = it.next();
     while (it.hasNext()) {
-      dominator = intersect(dominator, it.next());
+      dominator = sorted[intersect(dominator.getNumber(), it.next().getNumber())];
     }
     return dominator;
   }
@@ -174,7 +186,8 @@ public class DominatorTree implements BasicBlockChangeListener {
   public <T extends Collection<BasicBlock>> T dominatedBlocks(
       BasicBlock dominator, T dominatedBlocks) {
     assert !obsolete;
-    for (int i = dominator.getNumber(); i < unreachableStartIndex; ++i) {
+    int start = isDominatorNumberingTopological ? dominator.getNumber() : 0;
+    for (int i = start; i < unreachableStartIndex; ++i) {
       BasicBlock block = sorted[i];
       if (dominatedBy(block, dominator)) {
         dominatedBlocks.add(block);
@@ -236,69 +249,359 @@ public class DominatorTree implements BasicBlockChangeListener {
     return sorted;
   }
 
+  /**
+   * Updates the dominator tree after the edge {@param from} -> {@param to} has been added to the
+   * control flow graph.
+   *
+   * <p>Only the dominators of the blocks in the subtree of the nearest common dominator of the two
+   * blocks can change, thus only this subtree is recomputed. If the edge makes a previously
+   * unreachable block reachable, or one of the blocks is not known to this dominator tree, then
+   * the dominator tree is recomputed from scratch.
+   */
+  public void addEdge(BasicBlock from, BasicBlock to) {
+    if (!isKnownBlock(from) || !isKnownBlock(to)) {
+      recompute();
+      return;
+    }
+    int fromNumber = from.getNumber();
+    int toNumber = to.getNumber();
+    if (!isReachable(fromNumber)) {
+      // An edge from an unreachable block does not change any dominators.
+      obsolete = false;
+      return;
+    }
+    if (!isReachable(toNumber)) {
+      recompute();
+      return;
+    }
+    // Dominators can only move up the tree when an edge is added, so the numbering of the blocks
+    // remains consistent with the dominator tree.
+    recomputeSubtree(intersect(fromNumber, toNumber));
+  }
+
+  /**
+   * Updates the dominator tree after the edge {@param from} -> {@param to} has been removed from
+   * the control flow graph.
+   *
+   * <p>If {@param to} remains reachable, then only the subtree of the nearest common dominator of
+   * the two blocks is recomputed. Otherwise, the dominator tree is recomputed from scratch.
+   */
+  public void removeEdge(BasicBlock from, BasicBlock to) {
+    if (!isKnownBlock(from) || !isKnownBlock(to)) {
+      recompute();
+      return;
+    }
+    int fromNumber = from.getNumber();
+    int toNumber = to.getNumber();
+    if (!isReachable(fromNumber) || !isReachable(toNumber)) {
+      obsolete = false;
+      return;
+    }
+    int nearestCommonDominator = intersect(fromNumber, toNumber);
+    if (nearestCommonDominator == toNumber) {
+      // Removing a back edge to a dominator does not change any dominators.
+      obsolete = false;
+      return;
+    }
+    if (idoms[toNumber] != fromNumber || hasPredecessorNotDominatedBy(toNumber)) {
+      isDominatorNumberingTopological = false;
+      recomputeSubtree(nearestCommonDominator);
+    } else {
+      // The block `to` may have become unreachable.
+      recompute();
+    }
+  }
+
+  /**
+   * Returns the root of the subtree whose dominators must be recomputed when the blocks dominated
+   * by {@param root} are removed, or null if the dominator tree must be recomputed from scratch.
+   *
+   * <p>This must be called before the removed blocks are detached from their successors.
+   */
+  BasicBlock getRootOfSubtreeAffectedByRemoval(BasicBlock root, List<BasicBlock> removedBlocks) {
+    if (!isKnownBlock(root) || !isReachable(root.getNumber())) {
+      return null;
+    }
+    int rootNumber = root.getNumber();
+    int affectedRoot = rootNumber;
+    for (BasicBlock removedBlock : removedBlocks) {
+      if (!isKnownBlock(removedBlock)) {
+        return null;
+      }
+      for (BasicBlock successor : removedBlock.getSuccessors()) {
+        if (!isKnownBlock(successor)) {
+          return null;
+        }
+        int successorNumber = successor.getNumber();
+        if (!isReachable(successorNumber) || isDominatedBy(successorNumber, rootNumber)) {
+          continue;
+        }
+        int nearestCommonDominator = intersect(successorNumber, rootNumber);
+        if (nearestCommonDominator != successorNumber
+            && depths[nearestCommonDominator] < depths[affectedRoot]) {
+          affectedRoot = nearestCommonDominator;
+        }
+      }
+      if (removedBlock.exit().isReturn()) {
+        int exitNumber = normalExitBlock.getNumber();
+        if (isReachable(exitNumber) && !isDominatedBy(exitNumber, rootNumber)) {
+          int nearestCommonDominator = intersect(exitNumber, rootNumber);
+          if (depths[nearestCommonDominator] < depths[affectedRoot]) {
+            affectedRoot = nearestCommonDominator;
+          }
+        }
+      }
+    }
+    return sorted[affectedRoot];
+  }
+
+  /**
+   * Updates the dominator tree after {@param removedBlocks} have been removed from the control flow
+   * graph, using the root computed by {@link #getRootOfSubtreeAffectedByRemoval} prior to the
+   * removal.
+   */
+  void removeBlocks(List<BasicBlock> removedBlocks, BasicBlock affectedRoot) {
+    if (affectedRoot == null) {
+      recompute();
+      return;
+    }
+    for (BasicBlock removedBlock : removedBlocks) {
+      idoms[removedBlock.getNumber()] = UNREACHABLE;
+    }
+    int exitNumber = normalExitBlock.getNumber();
+    if (isReachable(exitNumber) && !hasReachablePredecessor(normalExitBlock)) {
+      idoms[exitNumber] = UNREACHABLE;
+    }
+    isDominatorNumberingTopological = false;
+    if (idoms[affectedRoot.getNumber()] == UNREACHABLE) {
+      // The affected root was itself removed, thus no remaining block is affected.
+      obsolete = false;
+      return;
+    }
+    recomputeSubtree(affectedRoot.getNumber());
+  }
+
+  private void recompute() {
+    compute(MAY_HAVE_UNREACHABLE_BLOCKS);
+  }
+
+  private void recomputeSubtree(int root) {
+    if (!semiNca(root, true)) {
+      recompute();
+      return;
+    }
+    obsolete = false;
+  }
+
+  private boolean hasPredecessorNotDominatedBy(int blockNumber) {
+    for (BasicBlock predecessor : getPredecessors(blockNumber)) {
+      if (isKnownBlock(predecessor)
+          && isReachable(predecessor.getNumber())
+          && !isDominatedBy(predecessor.getNumber(), blockNumber)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean hasReachablePredecessor(BasicBlock block) {
+    for (BasicBlock predecessor : block.getPredecessors()) {
+      if (isKnownBlock(predecessor) && isReachable(predecessor.getNumber())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isDominatedBy(int subject, int dominator) {
+    if (!isReachable(subject) || !isReachable(dominator)) {
+      return false;
+    }
+    int current = subject;
+    int dominatorDepth = depths[dominator];
+    while (depths[current] > dominatorDepth) {
+      current = idoms[current];
+    }
+    return current == dominator;
+  }
+
+  private boolean isKnownBlock(BasicBlock block) {
+    int number = block.getNumber();
+    return 0 <= number && number < sorted.length && sorted[number] == block;
+  }
+
+  private boolean isReachable(int blockNumber) {
+    return idoms[blockNumber] != UNREACHABLE;
+  }
+
+  private List<BasicBlock> getPredecessors(int blockNumber) {
+    return sorted[blockNumber].getPredecessors();
+  }
+
   private void numberBlocks() {
     for (int i = 0; i < sorted.length; i++) {
       sorted[i].setNumber(i);
     }
   }
 
-  private boolean postorderCompareLess(BasicBlock b1, BasicBlock b2) {
-    // The topological sort is reverse postorder.
-    return b1.getNumber() > b2.getNumber();
+  private void build() {
+    idoms = new int[sorted.length];
+    depths = new int[sorted.length];
+    Arrays.fill(idoms, UNREACHABLE);
+    idoms[0] = 0;
+    boolean completed = semiNca(0, false);
+    assert completed;
   }
 
-  // Build dominator tree based on the algorithm described in this paper:
+  // Build the dominator tree, or the subtree rooted at `root`, based on the Semi-NCA algorithm
+  // described in this paper:
   //
-  // A Simple, Fast Dominance Algorithm
-  // Cooper, Keith D.; Harvey, Timothy J.; and Kennedy, Ken (2001).
-  // http://www.cs.rice.edu/~keith/EMBED/dom.pdf
-  private void build() {
-    doms = new BasicBlock[sorted.length];
-    doms[0] = sorted[0];
-    boolean changed = true;
-    while (changed) {
-      changed = false;
-      // Run through all nodes in reverse postorder (except start node).
-      for (int i = 1; i < sorted.length; i++) {
-        BasicBlock b = sorted[i];
-        // Pick one processed predecessor.
-        BasicBlock newIDom = null;
-        int picked = -1;
-        for (int j = 0; newIDom == null && j < b.getPredecessors().size(); j++) {
-          BasicBlock p = b.getPredecessors().get(j);
-          if (doms[p.getNumber()] != null) {
-            picked = j;
-            newIDom = p;
+  // Finding Dominators in Practice
+  // Georgiadis, Loukas; Tarjan, Robert E.; and Werneck, Renato F. (2006).
+  // https://jgaa.info/accepted/2006/GeorgiadisTarjanWerneck2006.10.1.pdf
+  //
+  // When `restrictToSubtree` is set, only the blocks that were strictly dominated by `root` prior
+  // to the change of the control flow graph are visited, and the immediate dominator of `root` is
+  // left unchanged. Returns false if the subtree could not be recomputed in isolation.
+  private boolean semiNca(int root, boolean restrictToSubtree) {
+    int rootDepth = depths[root];
+    int normalExitNumber = normalExitBlock.getNumber();
+
+    // Compute a depth first spanning tree. Blocks are marked when popped from the stack, which
+    // ensures that the parent of each block in the spanning tree is its parent in a depth first
+    // search.
+    int[] preorder = new int[sorted.length];
+    Arrays.fill(preorder, -1);
+    int[] vertex = new int[sorted.length];
+    int[] parent = new int[sorted.length];
+    int count = 0;
+    IntArrayList stack = new IntArrayList();
+    stack.push(root);
+    stack.push(-1);
+    while (!stack.isEmpty()) {
+      int parentIndex = stack.popInt();
+      int blockNumber = stack.popInt();
+      if (preorder[blockNumber] >= 0) {
+        continue;
+      }
+      int index = count++;
+      preorder[blockNumber] = index;
+      vertex[index] = blockNumber;
+      parent[index] = parentIndex;
+      if (blockNumber == normalExitNumber) {
+        continue;
+      }
+      BasicBlock block = sorted[blockNumber];
+      List<BasicBlock> successors = block.getSuccessors();
+      for (int i = successors.size() - 1; i >= 0; i--) {
+        BasicBlock successor = successors.get(i);
+        if (!isKnownBlock(successor)) {
+          if (restrictToSubtree) {
+            return false;
           }
+          continue;
         }
-        // Run through all other predecessors.
-        for (int j = 0; j < b.getPredecessors().size(); j++) {
-          BasicBlock p = b.getPredecessors().get(j);
-          if (j == picked) {
-            continue;
-          }
-          if (doms[p.getNumber()] != null) {
-            newIDom = intersect(p, newIDom);
-          }
+        int successorNumber = successor.getNumber();
+        if (preorder[successorNumber] < 0
+            && (!restrictToSubtree
+                || (isReachable(successorNumber) && depths[successorNumber] > rootDepth))) {
+          stack.push(successorNumber);
+          stack.push(index);
         }
-        if (doms[b.getNumber()] != newIDom) {
-          doms[b.getNumber()] = newIDom;
-          changed = true;
+      }
+      if (block.exit().isReturn()
+          && preorder[normalExitNumber] < 0
+          && (!restrictToSubtree
+              || (isReachable(normalExitNumber) && depths[normalExitNumber] > rootDepth))) {
+        stack.push(normalExitNumber);
+        stack.push(index);
+      }
+    }
+
+    // Compute semidominators in reverse preorder using path compression.
+    int[] semi = new int[count];
+    int[] label = new int[count];
+    int[] ancestor = new int[count];
+    for (int i = 0; i < count; i++) {
+      semi[i] = i;
+      label[i] = i;
+      ancestor[i] = -1;
+    }
+    IntArrayList path = new IntArrayList();
+    for (int i = count - 1; i > 0; i--) {
+      int blockNumber = vertex[i];
+      List<BasicBlock> predecessors =
+          blockNumber == normalExitNumber
+              ? normalExitBlock.getPredecessors()
+              : getPredecessors(blockNumber);
+      for (BasicBlock predecessor : predecessors) {
+        if (!isKnownBlock(predecessor)) {
+          continue;
+        }
+        int predecessorIndex = preorder[predecessor.getNumber()];
+        if (predecessorIndex < 0) {
+          continue;
+        }
+        int u = eval(predecessorIndex, ancestor, label, semi, path);
+        if (semi[u] < semi[i]) {
+          semi[i] = semi[u];
         }
       }
+      ancestor[i] = parent[i];
     }
-  }
 
-  private BasicBlock intersect(BasicBlock b1, BasicBlock b2) {
-    BasicBlock finger1 = b1;
-    BasicBlock finger2 = b2;
-    while (finger1 != finger2) {
-      while (postorderCompareLess(finger1, finger2)) {
-        finger1 = doms[finger1.getNumber()];
+    // Compute immediate dominators in preorder as the nearest common ancestor of the parent and
+    // the semidominator in the tree computed so far.
+    int[] dom = new int[count];
+    for (int i = 1; i < count; i++) {
+      int candidate = parent[i];
+      while (candidate > semi[i]) {
+        candidate = dom[candidate];
       }
-      while (postorderCompareLess(finger2, finger1)) {
-        finger2 = doms[finger2.getNumber()];
+      dom[i] = candidate;
+      int blockNumber = vertex[i];
+      int idom = vertex[candidate];
+      idoms[blockNumber] = idom;
+      depths[blockNumber] = depths[idom] + 1;
+    }
+    assert !restrictToSubtree || depths[root] == rootDepth;
+    return true;
+  }
+
+  private static int eval(int v, int[] ancestor, int[] label, int[] semi, IntArrayList path) {
+    if (ancestor[v] < 0) {
+      return v;
+    }
+    // Compress the path from `v` to the root of its tree in the forest.
+    int current = v;
+    while (ancestor[ancestor[current]] >= 0) {
+      path.push(current);
+      current = ancestor[current];
+    }
+    while (!path.isEmpty()) {
+      int node = path.popInt();
+      int nodeAncestor = ancestor[node];
+      if (semi[label[nodeAncestor]] < semi[label[node]]) {
+        label[node] = label[nodeAncestor];
       }
+      ancestor[node] = ancestor[nodeAncestor];
+    }
+    return label[v];
+  }
+
+  // Returns the number of the nearest common dominator of the two given blocks.
+  private int intersect(int b1, int b2) {
+    int finger1 = b1;
+    int finger2 = b2;
+    while (depths[finger1] > depths[finger2]) {
+      finger1 = idoms[finger1];
+    }
+    while (depths[finger2] > depths[finger1]) {
+      finger2 = idoms[finger2];
+    }
+    while (finger1 != finger2) {
+      finger1 = idoms[finger1];
+      finger2 = idoms[finger2];
     }
     return finger1;
   }
@@ -310,7 +613,7 @@ public class DominatorTree implements BasicBlockChangeListener {
     for (BasicBlock block : sorted) {
       builder.append(block.getNumber());
       builder.append(": ");
-      builder.append(doms[block.getNumber()].getNumber());
+      builder.append(idoms[block.getNumber()]);
       builder.append("\n");
     }
     return builder.toString();
@@ -0,0 +1,1723 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.ir.conversion;
+
+import com.android.tools.r8.cf.code.CfArithmeticBinop;
+import com.android.tools.r8.cf.code.CfArrayLength;
+import com.android.tools.r8.cf.code.CfArrayLoad;
+import com.android.tools.r8.cf.code.CfArrayStore;
+import com.android.tools.r8.cf.code.CfCheckCast;
+import com.android.tools.r8.cf.code.CfCmp;
+import com.android.tools.r8.cf.code.CfConstClass;
+import com.android.tools.r8.cf.code.CfConstNull;
+import com.android.tools.r8.cf.code.CfConstNumber;
+import com.android.tools.r8.cf.code.CfConstString;
+import com.android.tools.r8.cf.code.CfFrame;
+import com.android.tools.r8.cf.code.CfIf;
+import com.android.tools.r8.cf.code.CfIfCmp;
+import com.android.tools.r8.cf.code.CfIinc;
+import com.android.tools.r8.cf.code.CfInstanceFieldRead;
+import com.android.tools.r8.cf.code.CfInstanceFieldWrite;
+import com.android.tools.r8.cf.code.CfInstruction;
+import com.android.tools.r8.cf.code.CfInvoke;
+import com.android.tools.r8.cf.code.CfLabel;
+import com.android.tools.r8.cf.code.CfLoad;
+import com.android.tools.r8.cf.code.CfLogicalBinop;
+import com.android.tools.r8.cf.code.CfNeg;
+import com.android.tools.r8.cf.code.CfNew;
+import com.android.tools.r8.cf.code.CfNewArray;
+import com.android.tools.r8.cf.code.CfNop;
+import com.android.tools.r8.cf.code.CfNumberConversion;
+import com.android.tools.r8.cf.code.CfPosition;
+import com.android.tools.r8.cf.code.CfReturn;
+import com.android.tools.r8.cf.code.CfReturnVoid;
+import com.android.tools.r8.cf.code.CfSafeCheckCast;
+import com.android.tools.r8.cf.code.CfStackInstruction;
+import com.android.tools.r8.cf.code.CfStaticFieldRead;
+import com.android.tools.r8.cf.code.CfStaticFieldWrite;
+import com.android.tools.r8.cf.code.CfStore;
+import com.android.tools.r8.cf.code.CfSwitch;
+import com.android.tools.r8.cf.code.CfTryCatch;
+import com.android.tools.r8.cf.code.frame.FrameType;
+import com.android.tools.r8.dex.code.DexAddDouble;
+import com.android.tools.r8.dex.code.DexAddFloat;
+import com.android.tools.r8.dex.code.DexAddInt;
+import com.android.tools.r8.dex.code.DexAddIntLit16;
+import com.android.tools.r8.dex.code.DexAddIntLit8;
+import com.android.tools.r8.dex.code.DexAddLong;
+import com.android.tools.r8.dex.code.DexAget;
+import com.android.tools.r8.dex.code.DexAgetBoolean;
+import com.android.tools.r8.dex.code.DexAgetByte;
+import com.android.tools.r8.dex.code.DexAgetChar;
+import com.android.tools.r8.dex.code.DexAgetObject;
+import com.android.tools.r8.dex.code.DexAgetShort;
+import com.android.tools.r8.dex.code.DexAgetWide;
+import com.android.tools.r8.dex.code.DexAndInt;
+import com.android.tools.r8.dex.code.DexAndLong;
+import com.android.tools.r8.dex.code.DexAput;
+import com.android.tools.r8.dex.code.DexAputBoolean;
+import com.android.tools.r8.dex.code.DexAputByte;
+import com.android.tools.r8.dex.code.DexAputChar;
+import com.android.tools.r8.dex.code.DexAputObject;
+import com.android.tools.r8.dex.code.DexAputShort;
+import com.android.tools.r8.dex.code.DexAputWide;
+import com.android.tools.r8.dex.code.DexArrayLength;
+import com.android.tools.r8.dex.code.DexCheckCast;
+import com.android.tools.r8.dex.code.DexCmpLong;
+import com.android.tools.r8.dex.code.DexCmpgDouble;
+import com.android.tools.r8.dex.code.DexCmpgFloat;
+import com.android.tools.r8.dex.code.DexCmplDouble;
+import com.android.tools.r8.dex.code.DexCmplFloat;
+import com.android.tools.r8.dex.code.DexConst;
+import com.android.tools.r8.dex.code.DexConst16;
+import com.android.tools.r8.dex.code.DexConst4;
+import com.android.tools.r8.dex.code.DexConstClass;
+import com.android.tools.r8.dex.code.DexConstHigh16;
+import com.android.tools.r8.dex.code.DexConstString;
+import com.android.tools.r8.dex.code.DexConstWide;
+import com.android.tools.r8.dex.code.DexConstWide16;
+import com.android.tools.r8.dex.code.DexConstWide32;
+import com.android.tools.r8.dex.code.DexConstWideHigh16;
+import com.android.tools.r8.dex.code.DexDivDouble;
+import com.android.tools.r8.dex.code.DexDivFloat;
+import com.android.tools.r8.dex.code.DexDivInt;
+import com.android.tools.r8.dex.code.DexDivLong;
+import com.android.tools.r8.dex.code.DexDoubleToFloat;
+import com.android.tools.r8.dex.code.DexDoubleToInt;
+import com.android.tools.r8.dex.code.DexDoubleToLong;
+import com.android.tools.r8.dex.code.DexFloatToDouble;
+import com.android.tools.r8.dex.code.DexFloatToInt;
+import com.android.tools.r8.dex.code.DexFloatToLong;
+import com.android.tools.r8.dex.code.DexFormat31t;
+import com.android.tools.r8.dex.code.DexGoto32;
+import com.android.tools.r8.dex.code.DexIfEq;
+import com.android.tools.r8.dex.code.DexIfEqz;
+import com.android.tools.r8.dex.code.DexIfGe;
+import com.android.tools.r8.dex.code.DexIfGez;
+import com.android.tools.r8.dex.code.DexIfGt;
+import com.android.tools.r8.dex.code.DexIfGtz;
+import com.android.tools.r8.dex.code.DexIfLe;
+import com.android.tools.r8.dex.code.DexIfLez;
+import com.android.tools.r8.dex.code.DexIfLt;
+import com.android.tools.r8.dex.code.DexIfLtz;
+import com.android.tools.r8.dex.code.DexIfNe;
+import com.android.tools.r8.dex.code.DexIfNez;
+import com.android.tools.r8.dex.code.DexIget;
+import com.android.tools.r8.dex.code.DexIgetBoolean;
+import com.android.tools.r8.dex.code.DexIgetByte;
+import com.android.tools.r8.dex.code.DexIgetChar;
+import com.android.tools.r8.dex.code.DexIgetObject;
+import com.android.tools.r8.dex.code.DexIgetShort;
+import com.android.tools.r8.dex.code.DexIgetWide;
+import com.android.tools.r8.dex.code.DexInstanceOf;
+import com.android.tools.r8.dex.code.DexInstruction;
+import com.android.tools.r8.dex.code.DexIntToByte;
+import com.android.tools.r8.dex.code.DexIntToChar;
+import com.android.tools.r8.dex.code.DexIntToDouble;
+import com.android.tools.r8.dex.code.DexIntToFloat;
+import com.android.tools.r8.dex.code.DexIntToLong;
+import com.android.tools.r8.dex.code.DexIntToShort;
+import com.android.tools.r8.dex.code.DexInvokeDirectRange;
+import com.android.tools.r8.dex.code.DexInvokeInterfaceRange;
+import com.android.tools.r8.dex.code.DexInvokeStaticRange;
+import com.android.tools.r8.dex.code.DexInvokeSuperRange;
+import com.android.tools.r8.dex.code.DexInvokeVirtualRange;
+import com.android.tools.r8.dex.code.DexIput;
+import com.android.tools.r8.dex.code.DexIputBoolean;
+import com.android.tools.r8.dex.code.DexIputByte;
+import com.android.tools.r8.dex.code.DexIputChar;
+import com.android.tools.r8.dex.code.DexIputObject;
+import com.android.tools.r8.dex.code.DexIputShort;
+import com.android.tools.r8.dex.code.DexIputWide;
+import com.android.tools.r8.dex.code.DexLongToDouble;
+import com.android.tools.r8.dex.code.DexLongToFloat;
+import com.android.tools.r8.dex.code.DexLongToInt;
+import com.android.tools.r8.dex.code.DexMove;
+import com.android.tools.r8.dex.code.DexMoveException;
+import com.android.tools.r8.dex.code.DexMoveObject;
+import com.android.tools.r8.dex.code.DexMoveResult;
+import com.android.tools.r8.dex.code.DexMoveResultObject;
+import com.android.tools.r8.dex.code.DexMoveResultWide;
+import com.android.tools.r8.dex.code.DexMoveWide;
+import com.android.tools.r8.dex.code.DexMulDouble;
+import com.android.tools.r8.dex.code.DexMulFloat;
+import com.android.tools.r8.dex.code.DexMulInt;
+import com.android.tools.r8.dex.code.DexMulLong;
+import com.android.tools.r8.dex.code.DexNegDouble;
+import com.android.tools.r8.dex.code.DexNegFloat;
+import com.android.tools.r8.dex.code.DexNegInt;
+import com.android.tools.r8.dex.code.DexNegLong;
+import com.android.tools.r8.dex.code.DexNewArray;
+import com.android.tools.r8.dex.code.DexNewInstance;
+import com.android.tools.r8.dex.code.DexNop;
+import com.android.tools.r8.dex.code.DexOrInt;
+import com.android.tools.r8.dex.code.DexOrLong;
+import com.android.tools.r8.dex.code.DexPackedSwitch;
+import com.android.tools.r8.dex.code.DexPackedSwitchPayload;
+import com.android.tools.r8.dex.code.DexRemDouble;
+import com.android.tools.r8.dex.code.DexRemFloat;
+import com.android.tools.r8.dex.code.DexRemInt;
+import com.android.tools.r8.dex.code.DexRemLong;
+import com.android.tools.r8.dex.code.DexReturn;
+import com.android.tools.r8.dex.code.DexReturnObject;
+import com.android.tools.r8.dex.code.DexReturnVoid;
+import com.android.tools.r8.dex.code.DexReturnWide;
+import com.android.tools.r8.dex.code.DexSget;
+import com.android.tools.r8.dex.code.DexSgetBoolean;
+import com.android.tools.r8.dex.code.DexSgetByte;
+import com.android.tools.r8.dex.code.DexSgetChar;
+import com.android.tools.r8.dex.code.DexSgetObject;
+import com.android.tools.r8.dex.code.DexSgetShort;
+import com.android.tools.r8.dex.code.DexSgetWide;
+import com.android.tools.r8.dex.code.DexShlInt;
+import com.android.tools.r8.dex.code.DexShlLong;
+import com.android.tools.r8.dex.code.DexShrInt;
+import com.android.tools.r8.dex.code.DexShrLong;
+import com.android.tools.r8.dex.code.DexSparseSwitch;
+import com.android.tools.r8.dex.code.DexSparseSwitchPayload;
+import com.android.tools.r8.dex.code.DexSput;
+import com.android.tools.r8.dex.code.DexSputBoolean;
+import com.android.tools.r8.dex.code.DexSputByte;
+import com.android.tools.r8.dex.code.DexSputChar;
+import com.android.tools.r8.dex.code.DexSputObject;
+import com.android.tools.r8.dex.code.DexSputShort;
+import com.android.tools.r8.dex.code.DexSputWide;
+import com.android.tools.r8.dex.code.DexSubDouble;
+import com.android.tools.r8.dex.code.DexSubFloat;
+import com.android.tools.r8.dex.code.DexSubInt;
+import com.android.tools.r8.dex.code.DexSubLong;
+import com.android.tools.r8.dex.code.DexThrow;
+import com.android.tools.r8.dex.code.DexUshrInt;
+import com.android.tools.r8.dex.code.DexUshrLong;
+import com.android.tools.r8.dex.code.DexXorInt;
+import com.android.tools.r8.dex.code.DexXorLong;
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.CfCode;
+import com.android.tools.r8.graph.CfCode.LocalVariableInfo;
+import com.android.tools.r8.graph.Code;
+import com.android.tools.r8.graph.DebugLocalInfo;
+import com.android.tools.r8.graph.DexCode;
+import com.android.tools.r8.graph.DexCode.Try;
+import com.android.tools.r8.graph.DexCode.TryHandler;
+import com.android.tools.r8.graph.DexCode.TryHandler.TypeAddrPair;
+import com.android.tools.r8.graph.DexDebugEvent;
+import com.android.tools.r8.graph.DexDebugEventBuilder;
+import com.android.tools.r8.graph.DexDebugInfo;
+import com.android.tools.r8.graph.DexDebugInfo.EventBasedDebugInfo;
+import com.android.tools.r8.graph.DexEncodedMethod;
+import com.android.tools.r8.graph.DexField;
+import com.android.tools.r8.graph.DexItemFactory;
+import com.android.tools.r8.graph.DexMethod;
+import com.android.tools.r8.graph.DexString;
+import com.android.tools.r8.graph.DexType;
+import com.android.tools.r8.graph.ProgramMethod;
+import com.android.tools.r8.ir.code.CatchHandlers;
+import com.android.tools.r8.ir.code.Cmp.Bias;
+import com.android.tools.r8.ir.code.FieldMemberType;
+import com.android.tools.r8.ir.code.If;
+import com.android.tools.r8.ir.code.Invoke;
+import com.android.tools.r8.ir.code.NumericType;
+import com.android.tools.r8.ir.code.Position;
+import com.android.tools.r8.ir.code.Position.SourcePosition;
+import com.android.tools.r8.ir.code.ValueType;
+import com.android.tools.r8.utils.NumberUtils;
+import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ReferenceMap;
+import it.unimi.dsi.fastutil.ints.Int2ReferenceMap.Entry;
+import it.unimi.dsi.fastutil.ints.Int2ReferenceOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntRBTreeSet;
+import it.unimi.dsi.fastutil.ints.IntSortedSet;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * Translation of CF code directly to DEX code, without building IR.
+ *
+ * <p>Each slot of the operand stack and each local is assigned a fixed register, and each CF
+ * instruction is translated to DEX instructions that operate on these registers. Stack slot i is
+ * register i, the locals that are not arguments follow the stack registers, and the arguments are
+ * in the last registers as required by the calling convention. The resulting code is not
+ * optimized, but the register of a local does not change during the method, which allows the
+ * locals and the line information of the CF code to be preserved as is.
+ *
+ * <p>The translation is only used when the registers fit in four bits, such that all instruction
+ * formats can address all registers. Code that cannot be translated, such as code with monitors,
+ * invoke-dynamic, assertions, or byte and boolean array accesses that require type information, is
+ * rejected and must be converted through IR. The translation does not apply any of the workarounds
+ * for runtime bugs that are applied during IR processing.
+ */
+public class CfToDexTranslator {
+
+  // The number of registers that can be addressed by all instruction formats.
+  private static final int MAX_REGISTERS = 16;
+
+  private final AppView<?> appView;
+  private final DexItemFactory factory;
+
+  public CfToDexTranslator(AppView<?> appView) {
+    this.appView = appView;
+    this.factory = appView.dexItemFactory();
+  }
+
+  /**
+   * Returns the DEX code for the CF code of the given method, or null if the code must be converted
+   * through IR.
+   */
+  public DexCode translate(ProgramMethod method) {
+    DexEncodedMethod definition = method.getDefinition();
+    Code code = definition.getCode();
+    // Synchronized methods need monitor instructions for the method synchronization, which are
+    // generated when building IR.
+    if (!code.isCfCode() || definition.isSynchronized()) {
+      return null;
+    }
+    CfCode cfCode = code.asCfCode();
+    int argumentSize = definition.isStatic() ? 0 : 1;
+    for (DexType parameter : method.getParameters()) {
+      argumentSize += parameter.getRequiredRegisters();
+    }
+    int localsSize = Math.max(cfCode.getMaxLocals(), argumentSize);
+    // The max stack is unbounded for code where multi-dimensional arrays have been desugared.
+    if (cfCode.getMaxStack() > MAX_REGISTERS
+        || cfCode.getMaxStack() + localsSize > MAX_REGISTERS) {
+      return null;
+    }
+    try {
+      return new Translation(method, cfCode, argumentSize, localsSize).run();
+    } catch (UnsupportedCodeException e) {
+      return null;
+    }
+  }
+
+  // Signals that the code cannot be translated. The exception carries no state and is shared.
+  private static class UnsupportedCodeException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final UnsupportedCodeException INSTANCE = new UnsupportedCodeException();
+
+    private UnsupportedCodeException() {
+      super(null, null, false, false);
+    }
+  }
+
+  private static UnsupportedCodeException unsupported() {
+    throw UnsupportedCodeException.INSTANCE;
+  }
+
+  private static class JumpFixup {
+
+    private final int index;
+    private final CfLabel target;
+    private final IntFunction<DexInstruction> factory;
+
+    JumpFixup(int index, CfLabel target, IntFunction<DexInstruction> factory) {
+      this.index = index;
+      this.target = target;
+      this.factory = factory;
+    }
+  }
+
+  private static class SwitchFixup {
+
+    private final DexFormat31t instruction;
+    private final CfSwitch cfSwitch;
+
+    SwitchFixup(DexFormat31t instruction, CfSwitch cfSwitch) {
+      this.instruction = instruction;
+      this.cfSwitch = cfSwitch;
+    }
+  }
+
+  private class Translation {
+
+    private final ProgramMethod method;
+    private final CfCode code;
+    private final int argumentSize;
+    private final int localsSize;
+    private final int maxStack;
+    private final int registerCount;
+
+    // The type of the value in each stack slot, or null for the high half of a wide value.
+    private final ValueType[] stack;
+    private int stackHeight = 0;
+    // False if the current instruction is only reachable by a jump or by an exception, and the
+    // state of the stack has not been established by a previous jump or a frame.
+    private boolean hasStackState = true;
+    private final Map<CfLabel, ValueType[]> stackStatesAtTargets = new IdentityHashMap<>();
+    private final Set<CfLabel> handlers = Sets.newIdentityHashSet();
+
+    // The type of the reference in each stack slot and local, if known. This is only used to
+    // select between the byte and boolean variants of array accesses, so the types are cleared at
+    // the targets of jumps and only restored for the locals of a frame.
+    private final DexType[] stackTypes;
+    private final DexType[] localTypes;
+    private final Set<CfLabel> targets = Sets.newIdentityHashSet();
+    private boolean needsMoveException = false;
+
+    private final List<DexInstruction> instructions = new ArrayList<>();
+    private final Reference2IntMap<CfLabel> labelOffsets = new Reference2IntOpenHashMap<>();
+    private final List<JumpFixup> jumpFixups = new ArrayList<>();
+    private final List<SwitchFixup> switchFixups = new ArrayList<>();
+    private int offset = 0;
+    private int outRegisterCount = 0;
+
+    // Local variable ranges by their start and end labels.
+    private final Map<CfLabel, List<LocalVariableInfo>> localStarts = new IdentityHashMap<>();
+    private final Map<CfLabel, List<LocalVariableInfo>> localEnds = new IdentityHashMap<>();
+
+    // State of the debug information, see DexDebugEventBuilder.
+    private final List<DexDebugEvent> events = new ArrayList<>();
+    private DexString[] parameters;
+    private final Int2ReferenceMap<DebugLocalInfo> pendingLocals = new Int2ReferenceOpenHashMap<>();
+    private boolean pendingLocalChanges = false;
+    private Int2ReferenceMap<DebugLocalInfo> emittedLocals;
+    private Int2ReferenceMap<DebugLocalInfo> lastKnownLocals;
+    private Position currentPosition = Position.none();
+    private boolean currentPositionHasInstructions = false;
+    private Position emittedPosition = Position.none();
+    private int emittedPc = DexDebugEventBuilder.NO_PC_INFO;
+    private int startLine = -1;
+
+    Translation(ProgramMethod method, CfCode code, int argumentSize, int localsSize) {
+      this.method = method;
+      this.code = code;
+      this.argumentSize = argumentSize;
+      this.localsSize = localsSize;
+      this.maxStack = code.getMaxStack();
+      this.registerCount = maxStack + localsSize;
+      this.stack = new ValueType[maxStack];
+      this.stackTypes = new DexType[maxStack];
+      this.localTypes = new DexType[localsSize];
+    }
+
+    DexCode run() {
+      for (CfTryCatch tryCatch : code.getTryCatchRanges()) {
+        handlers.addAll(tryCatch.targets);
+      }
+      targets.addAll(handlers);
+      for (CfInstruction instruction : code.getInstructions()) {
+        if (instruction.isSwitch()) {
+          targets.addAll(instruction.asSwitch().getSwitchTargets());
+          targets.add(instruction.asSwitch().getDefaultTarget());
+        } else if (instruction.getTarget() != null) {
+          targets.add(instruction.getTarget());
+        }
+      }
+      int argumentIndex = 0;
+      if (!method.getDefinition().isStatic()) {
+        localTypes[argumentIndex++] = method.getHolderType();
+      }
+      for (DexType parameter : method.getParameters()) {
+        localTypes[argumentIndex] = parameter;
+        argumentIndex += parameter.getRequiredRegisters();
+      }
+      for (LocalVariableInfo local : code.getLocalVariables()) {
+        localRegister(local.getIndex(), ValueType.fromDexType(local.getLocal().type));
+        localStarts.computeIfAbsent(local.getStart(), ignore -> new ArrayList<>()).add(local);
+        if (local.getEnd() != null) {
+          localEnds.computeIfAbsent(local.getEnd(), ignore -> new ArrayList<>()).add(local);
+        }
+      }
+      for (CfInstruction instruction : code.getInstructions()) {
+        translateInstruction(instruction);
+      }
+      // All branch offsets must fit in 16 bits.
+      if (needsMoveException || offset > Short.MAX_VALUE) {
+        throw unsupported();
+      }
+      for (JumpFixup fixup : jumpFixups) {
+        int jumpOffset = instructions.get(fixup.index).getOffset();
+        DexInstruction jump = fixup.factory.apply(getLabelOffset(fixup.target) - jumpOffset);
+        jump.setOffset(jumpOffset);
+        instructions.set(fixup.index, jump);
+      }
+      for (SwitchFixup fixup : switchFixups) {
+        addSwitchPayload(fixup);
+      }
+      Try[] tries;
+      TryHandler[] tryHandlers;
+      if (code.getTryCatchRanges().isEmpty()) {
+        tries = Try.EMPTY_ARRAY;
+        tryHandlers = TryHandler.EMPTY_ARRAY;
+      } else {
+        Map<CatchHandlers<Integer>, Integer> handlerIndices = new LinkedHashMap<>();
+        tries = computeTries(handlerIndices);
+        tryHandlers = computeTryHandlers(handlerIndices);
+      }
+      return new DexCode(
+          registerCount,
+          argumentSize,
+          outRegisterCount,
+          instructions.toArray(DexInstruction.EMPTY_ARRAY),
+          tries,
+          tryHandlers,
+          buildDebugInfo());
+    }
+
+    private int getLabelOffset(CfLabel label) {
+      if (!labelOffsets.containsKey(label)) {
+        throw unsupported();
+      }
+      return labelOffsets.getInt(label);
+    }
+
+    private int localRegister(int index) {
+      return index < argumentSize
+          ? registerCount - argumentSize + index
+          : maxStack + index - argumentSize;
+    }
+
+    private int localRegister(int index, ValueType type) {
+      int end = index + type.requiredRegisters();
+      // The registers of a wide local must be consecutive, so it cannot span both the last
+      // argument register and the first of the other local registers.
+      if (end > localsSize || (index < argumentSize && end > argumentSize)) {
+        throw unsupported();
+      }
+      return localRegister(index);
+    }
+
+    // Stack.
+
+    private int push(ValueType type) {
+      return push(type, null);
+    }
+
+    private int push(DexType type) {
+      return push(ValueType.fromDexType(type), type.isReferenceType() ? type : null);
+    }
+
+    private int push(ValueType type, DexType referenceType) {
+      int register = stackHeight;
+      if (register + type.requiredRegisters() > maxStack) {
+        throw unsupported();
+      }
+      stackTypes[stackHeight] = referenceType;
+      stack[stackHeight++] = type;
+      if (type.isWide()) {
+        stackTypes[stackHeight] = null;
+        stack[stackHeight++] = null;
+      }
+      return register;
+    }
+
+    private int pop(ValueType type) {
+      return pop(type.requiredRegisters());
+    }
+
+    private int pop(DexType type) {
+      return pop(type.getRequiredRegisters());
+    }
+
+    private int pop(int size) {
+      if (stackHeight < size) {
+        throw unsupported();
+      }
+      stackHeight -= size;
+      return stackHeight;
+    }
+
+    private void recordTarget(CfLabel target) {
+      // Handlers are only supported if they are only reachable by exceptions, since they start
+      // with a move-exception instruction.
+      if (handlers.contains(target)) {
+        throw unsupported();
+      }
+      stackStatesAtTargets.computeIfAbsent(target, ignore -> Arrays.copyOf(stack, stackHeight));
+    }
+
+    private void setStackState(ValueType[] state) {
+      System.arraycopy(state, 0, stack, 0, state.length);
+      Arrays.fill(stackTypes, null);
+      stackHeight = state.length;
+      hasStackState = true;
+    }
+
+    // Instructions.
+
+    private void add(DexInstruction instruction) {
+      if (needsMoveException) {
+        needsMoveException = false;
+        add(new DexMoveException(0));
+      }
+      updateDebugInfo();
+      instruction.setOffset(offset);
+      instructions.add(instruction);
+      offset += instruction.getSize();
+      currentPositionHasInstructions = true;
+    }
+
+    private void addJump(CfLabel target, IntFunction<DexInstruction> factory) {
+      recordTarget(target);
+      // All jump instructions have a fixed size, so the jump can be created once the offsets of
+      // all labels are known.
+      add(factory.apply(0));
+      jumpFixups.add(new JumpFixup(instructions.size() - 1, target, factory));
+    }
+
+    private void addMove(ValueType type, int dest, int src) {
+      if (type.isObject()) {
+        add(new DexMoveObject(dest, src));
+      } else if (type.isWide()) {
+        add(new DexMoveWide(dest, src));
+      } else {
+        add(new DexMove(dest, src));
+      }
+    }
+
+    private void translateInstruction(CfInstruction instruction) {
+      if (instruction.isLabel()) {
+        enterLabel(instruction.asLabel());
+        return;
+      }
+      if (instruction.isFrame()) {
+        enterFrame(instruction.asFrame());
+        return;
+      }
+      if (instruction.isPosition()) {
+        enterPosition(instruction.asPosition());
+        return;
+      }
+      if (instruction instanceof CfNop) {
+        return;
+      }
+      if (!hasStackState) {
+        throw unsupported();
+      }
+      if (instruction.isLoad()) {
+        CfLoad load = instruction.asLoad();
+        int src = localRegister(load.getLocalIndex(), load.getType());
+        DexType referenceType = load.getType().isObject() ? localTypes[load.getLocalIndex()] : null;
+        addMove(load.getType(), push(load.getType(), referenceType), src);
+      } else if (instruction.isStore()) {
+        CfStore store = instruction.asStore();
+        int dest = localRegister(store.getLocalIndex(), store.getType());
+        int src = pop(store.getType());
+        localTypes[store.getLocalIndex()] = store.getType().isObject() ? stackTypes[src] : null;
+        if (store.getType().isWide()) {
+          localTypes[store.getLocalIndex() + 1] = null;
+        }
+        addMove(store.getType(), dest, src);
+      } else if (instruction instanceof CfIinc) {
+        CfIinc iinc = (CfIinc) instruction;
+        int register = localRegister(iinc.getLocalIndex(), ValueType.INT);
+        if (NumberUtils.is8Bit(iinc.getIncrement())) {
+          add(new DexAddIntLit8(register, register, iinc.getIncrement()));
+        } else {
+          add(new DexAddIntLit16(register, register, iinc.getIncrement()));
+        }
+      } else if (instruction instanceof CfConstNumber) {
+        CfConstNumber constNumber = (CfConstNumber) instruction;
+        addConstNumber(push(constNumber.getType()), constNumber);
+      } else if (instruction instanceof CfConstNull) {
+        add(new DexConst4(push(ValueType.OBJECT), 0));
+      } else if (instruction.isConstString()) {
+        CfConstString constString = instruction.asConstString();
+        add(new DexConstString(push(ValueType.OBJECT), constString.getString()));
+      } else if (instruction instanceof CfConstClass) {
+        CfConstClass constClass = (CfConstClass) instruction;
+        add(
+            new DexConstClass(
+                push(ValueType.OBJECT), constClass.getType(), constClass.ignoreCompatRules()));
+      } else if (instruction instanceof CfStackInstruction) {
+        translateStackInstruction((CfStackInstruction) instruction);
+      } else if (instruction instanceof CfArithmeticBinop) {
+        translateArithmeticBinop((CfArithmeticBinop) instruction);
+      } else if (instruction instanceof CfLogicalBinop) {
+        translateLogicalBinop((CfLogicalBinop) instruction);
+      } else if (instruction instanceof CfNeg) {
+        translateNeg((CfNeg) instruction);
+      } else if (instruction instanceof CfNumberConversion) {
+        translateNumberConversion((CfNumberConversion) instruction);
+      } else if (instruction instanceof CfCmp) {
+        translateCmp((CfCmp) instruction);
+      } else if (instruction instanceof CfIf) {
+        CfIf cfIf = (CfIf) instruction;
+        int register = pop(cfIf.getType());
+        addJump(cfIf.getTarget(), ifZeroFactory(cfIf.getKind(), register));
+      } else if (instruction instanceof CfIfCmp) {
+        CfIfCmp ifCmp = (CfIfCmp) instruction;
+        int right = pop(ifCmp.getType());
+        int left = pop(ifCmp.getType());
+        addJump(ifCmp.getTarget(), ifFactory(ifCmp.getKind(), left, right));
+      } else if (instruction.isGoto()) {
+        addJump(instruction.asGoto().getTarget(), DexGoto32::new);
+        hasStackState = false;
+      } else if (instruction.isSwitch()) {
+        translateSwitch(instruction.asSwitch());
+      } else if (instruction.isFieldInstruction()) {
+        translateFieldInstruction(instruction);
+      } else if (instruction.isInvoke()) {
+        translateInvoke(instruction.asInvoke());
+      } else if (instruction instanceof CfNew) {
+        add(new DexNewInstance(push(ValueType.OBJECT), ((CfNew) instruction).getType()));
+      } else if (instruction instanceof CfNewArray) {
+        DexType type = ((CfNewArray) instruction).getType();
+        int size = pop(ValueType.INT);
+        add(new DexNewArray(push(type), size, type));
+      } else if (instruction instanceof CfArrayLength) {
+        int array = pop(ValueType.OBJECT);
+        add(new DexArrayLength(push(ValueType.INT), array));
+      } else if (instruction instanceof CfArrayLoad) {
+        translateArrayLoad((CfArrayLoad) instruction);
+      } else if (instruction.isArrayStore()) {
+        translateArrayStore(instruction.asArrayStore());
+      } else if (instruction instanceof CfCheckCast
+          && !(instruction instanceof CfSafeCheckCast)) {
+        CfCheckCast checkCast = (CfCheckCast) instruction;
+        pop(ValueType.OBJECT);
+        add(
+            new DexCheckCast(
+                push(checkCast.getType()), checkCast.getType(), checkCast.ignoreCompatRules()));
+      } else if (instruction.isInstanceOf()) {
+        int value = pop(ValueType.OBJECT);
+        add(new DexInstanceOf(push(ValueType.INT), value, instruction.asInstanceOf().getType()));
+      } else if (instruction instanceof CfReturn) {
+        CfReturn cfReturn = (CfReturn) instruction;
+        int register = pop(cfReturn.getType());
+        if (cfReturn.getType().isObject()) {
+          add(new DexReturnObject(register));
+        } else if (cfReturn.getType().isWide()) {
+          add(new DexReturnWide(register));
+        } else {
+          add(new DexReturn(register));
+        }
+        hasStackState = false;
+      } else if (instruction instanceof CfReturnVoid) {
+        add(new DexReturnVoid());
+        hasStackState = false;
+      } else if (instruction.isThrow()) {
+        add(new DexThrow(pop(ValueType.OBJECT)));
+        hasStackState = false;
+      } else {
+        // Monitors, invoke-dynamic, constant dynamics, method handles and types, multi-dimensional
+        // arrays, JSR/RET and instructions only present in code generated by R8.
+        throw unsupported();
+      }
+    }
+
+    private void enterLabel(CfLabel label) {
+      // A handler label must be at the offset of the move-exception of the handler.
+      if (needsMoveException) {
+        throw unsupported();
+      }
+      labelOffsets.put(label, offset);
+      updateLocals(label);
+      if (targets.contains(label)) {
+        Arrays.fill(stackTypes, null);
+        Arrays.fill(localTypes, null);
+      }
+      if (handlers.contains(label)) {
+        // Handlers must not be reachable by fall-through.
+        if (hasStackState) {
+          throw unsupported();
+        }
+        stackHeight = 0;
+        push(ValueType.OBJECT);
+        hasStackState = true;
+        needsMoveException = true;
+        return;
+      }
+      if (!hasStackState) {
+        ValueType[] state = stackStatesAtTargets.get(label);
+        if (state != null) {
+          setStackState(state);
+        }
+      }
+    }
+
+    private void enterFrame(CfFrame frame) {
+      // The state of the stack at the target of a backward jump is given by the frame. Only frames
+      // with an empty stack are supported.
+      if (!hasStackState) {
+        if (!frame.getStack().isEmpty()) {
+          throw unsupported();
+        }
+        stackHeight = 0;
+        hasStackState = true;
+      }
+      Arrays.fill(localTypes, null);
+      for (Int2ObjectMap.Entry<FrameType> entry : frame.getLocals().int2ObjectEntrySet()) {
+        FrameType type = entry.getValue();
+        if (entry.getIntKey() < localsSize
+            && type.isInitializedNonNullReferenceTypeWithoutInterfaces()) {
+          localTypes[entry.getIntKey()] = type.getInitializedType(factory);
+        }
+      }
+    }
+
+    private void addConstNumber(int register, CfConstNumber constNumber) {
+      long value = constNumber.getRawValue();
+      if (constNumber.getType().isSingle()) {
+        if (NumberUtils.is4Bit(value)) {
+          add(new DexConst4(register, (int) value));
+        } else if (NumberUtils.is16Bit(value)) {
+          add(new DexConst16(register, (int) value));
+        } else if ((value & 0x0000ffffL) == 0) {
+          add(new DexConstHigh16(register, ((int) value) >>> 16));
+        } else {
+          add(new DexConst(register, (int) value));
+        }
+      } else {
+        if (NumberUtils.is16Bit(value)) {
+          add(new DexConstWide16(register, (int) value));
+        } else if ((value & 0x0000ffffffffffffL) == 0) {
+          add(new DexConstWideHigh16(register, (int) (value >>> 48)));
+        } else if (NumberUtils.is32Bit(value)) {
+          add(new DexConstWide32(register, (int) value));
+        } else {
+          add(new DexConstWide(register, value));
+        }
+      }
+    }
+
+    private void translateStackInstruction(CfStackInstruction instruction) {
+      int height = stackHeight;
+      switch (instruction.getOpcode()) {
+        case Pop:
+          requireSingle(height - 1);
+          pop(1);
+          break;
+        case Pop2:
+          pop(2);
+          break;
+        case Dup:
+          requireSingle(height - 1);
+          moveSlot(height, height - 1);
+          stackHeight += 1;
+          break;
+        case DupX1:
+          requireSingle(height - 1);
+          requireSingle(height - 2);
+          moveSlot(height, height - 1);
+          moveSlot(height - 1, height - 2);
+          moveSlot(height - 2, height);
+          stackHeight += 1;
+          break;
+        case DupX2:
+          requireSingle(height - 1);
+          moveSlot(height, height - 1);
+          if (isWideHighHalf(height - 2)) {
+            moveSlot(height - 2, height - 3);
+          } else {
+            requireSingle(height - 2);
+            requireSingle(height - 3);
+            moveSlot(height - 1, height - 2);
+            moveSlot(height - 2, height - 3);
+          }
+          moveSlot(height - 3, height);
+          stackHeight += 1;
+          break;
+        case Dup2:
+          if (isWideHighHalf(height - 1)) {
+            moveSlot(height, height - 2);
+          } else {
+            requireSingle(height - 1);
+            requireSingle(height - 2);
+            moveSlot(height, height - 2);
+            moveSlot(height + 1, height - 1);
+          }
+          stackHeight += 2;
+          break;
+        case Dup2X1:
+          if (isWideHighHalf(height - 1)) {
+            requireSingle(height - 3);
+            moveSlot(height, height - 2);
+            moveSlot(height - 1, height - 3);
+            moveSlot(height - 3, height);
+          } else {
+            requireSingle(height - 1);
+            requireSingle(height - 2);
+            requireSingle(height - 3);
+            moveSlot(height + 1, height - 1);
+            moveSlot(height, height - 2);
+            moveSlot(height - 1, height - 3);
+            moveSlot(height - 2, height + 1);
+            moveSlot(height - 3, height);
+          }
+          stackHeight += 2;
+          break;
+        case Swap:
+          // The slot above the stack is used as a temporary register.
+          requireSingle(height - 1);
+          requireSingle(height - 2);
+          moveSlot(height, height - 1);
+          moveSlot(height - 1, height - 2);
+          moveSlot(height - 2, height);
+          break;
+        default:
+          throw unsupported();
+      }
+    }
+
+    // A null type is the high half of a wide value.
+    private boolean isWideHighHalf(int slot) {
+      if (slot < 0) {
+        throw unsupported();
+      }
+      return slot > 0 && stack[slot] == null;
+    }
+
+    private void requireSingle(int slot) {
+      if (slot < 0 || stack[slot] == null || stack[slot].isWide()) {
+        throw unsupported();
+      }
+    }
+
+    // Copies the value in the given stack slot, which may be wide, to another stack slot.
+    private void moveSlot(int dest, int src) {
+      ValueType type = stack[src];
+      if (dest + type.requiredRegisters() > maxStack) {
+        throw unsupported();
+      }
+      addMove(type, dest, src);
+      stack[dest] = type;
+      stackTypes[dest] = stackTypes[src];
+      if (type.isWide()) {
+        stack[dest + 1] = null;
+        stackTypes[dest + 1] = null;
+      }
+    }
+
+    private void translateArithmeticBinop(CfArithmeticBinop instruction) {
+      NumericType type = instruction.getType();
+      ValueType valueType = ValueType.fromNumericType(type);
+      int right = pop(valueType);
+      int left = pop(valueType);
+      int dest = push(valueType);
+      switch (instruction.getOpcode()) {
+        case Add:
+          add(
+              select(
+                  type,
+                  () -> new DexAddInt(dest, left, right),
+                  () -> new DexAddLong(dest, left, right),
+                  () -> new DexAddFloat(dest, left, right),
+                  () -> new DexAddDouble(dest, left, right)));
+          break;
+        case Sub:
+          add(
+              select(
+                  type,
+                  () -> new DexSubInt(dest, left, right),
+                  () -> new DexSubLong(dest, left, right),
+                  () -> new DexSubFloat(dest, left, right),
+                  () -> new DexSubDouble(dest, left, right)));
+          break;
+        case Mul:
+          add(
+              select(
+                  type,
+                  () -> new DexMulInt(dest, left, right),
+                  () -> new DexMulLong(dest, left, right),
+                  () -> new DexMulFloat(dest, left, right),
+                  () -> new DexMulDouble(dest, left, right)));
+          break;
+        case Div:
+          add(
+              select(
+                  type,
+                  () -> new DexDivInt(dest, left, right),
+                  () -> new DexDivLong(dest, left, right),
+                  () -> new DexDivFloat(dest, left, right),
+                  () -> new DexDivDouble(dest, left, right)));
+          break;
+        case Rem:
+          add(
+              select(
+                  type,
+                  () -> new DexRemInt(dest, left, right),
+                  () -> new DexRemLong(dest, left, right),
+                  () -> new DexRemFloat(dest, left, right),
+                  () -> new DexRemDouble(dest, left, right)));
+          break;
+        default:
+          throw unsupported();
+      }
+    }
+
+    private void translateLogicalBinop(CfLogicalBinop instruction) {
+      NumericType type = instruction.getType();
+      ValueType valueType = ValueType.fromNumericType(type);
+      boolean isShift =
+          instruction.getOpcode() == CfLogicalBinop.Opcode.Shl
+              || instruction.getOpcode() == CfLogicalBinop.Opcode.Shr
+              || instruction.getOpcode() == CfLogicalBinop.Opcode.Ushr;
+      int right = pop(isShift ? ValueType.INT : valueType);
+      int left = pop(valueType);
+      int dest = push(valueType);
+      switch (instruction.getOpcode()) {
+        case And:
+          add(
+              select(
+                  type,
+                  () -> new DexAndInt(dest, left, right),
+                  () -> new DexAndLong(dest, left, right),
+                  null,
+                  null));
+          break;
+        case Or:
+          add(
+              select(
+                  type,
+                  () -> new DexOrInt(dest, left, right),
+                  () -> new DexOrLong(dest, left, right),
+                  null,
+                  null));
+          break;
+        case Xor:
+          add(
+              select(
+                  type,
+                  () -> new DexXorInt(dest, left, right),
+                  () -> new DexXorLong(dest, left, right),
+                  null,
+                  null));
+          break;
+        case Shl:
+          add(
+              select(
+                  type,
+                  () -> new DexShlInt(dest, left, right),
+                  () -> new DexShlLong(dest, left, right),
+                  null,
+                  null));
+          break;
+        case Shr:
+          add(
+              select(
+                  type,
+                  () -> new DexShrInt(dest, left, right),
+                  () -> new DexShrLong(dest, left, right),
+                  null,
+                  null));
+          break;
+        case Ushr:
+          add(
+              select(
+                  type,
+                  () -> new DexUshrInt(dest, left, right),
+                  () -> new DexUshrLong(dest, left, right),
+                  null,
+                  null));
+          break;
+        default:
+          throw unsupported();
+      }
+    }
+
+    private void translateNeg(CfNeg instruction) {
+      NumericType type = instruction.getType();
+      ValueType valueType = ValueType.fromNumericType(type);
+      int src = pop(valueType);
+      int dest = push(valueType);
+      add(
+          select(
+              type,
+              () -> new DexNegInt(dest, src),
+              () -> new DexNegLong(dest, src),
+              () -> new DexNegFloat(dest, src),
+              () -> new DexNegDouble(dest, src)));
+    }
+
+    private void translateNumberConversion(CfNumberConversion instruction) {
+      NumericType from = instruction.getFromType();
+      NumericType to = instruction.getToType();
+      int src = pop(ValueType.fromNumericType(from));
+      int dest = push(ValueType.fromNumericType(to));
+      switch (from) {
+        case INT:
+          switch (to) {
+            case BYTE:
+              add(new DexIntToByte(dest, src));
+              return;
+            case CHAR:
+              add(new DexIntToChar(dest, src));
+              return;
+            case SHORT:
+              add(new DexIntToShort(dest, src));
+              return;
+            case LONG:
+              add(new DexIntToLong(dest, src));
+              return;
+            case FLOAT:
+              add(new DexIntToFloat(dest, src));
+              return;
+            case DOUBLE:
+              add(new DexIntToDouble(dest, src));
+              return;
+            default:
+              throw unsupported();
+          }
+        case LONG:
+          switch (to) {
+            case INT:
+              add(new DexLongToInt(dest, src));
+              return;
+            case FLOAT:
+              add(new DexLongToFloat(dest, src));
+              return;
+            case DOUBLE:
+              add(new DexLongToDouble(dest, src));
+              return;
+            default:
+              throw unsupported();
+          }
+        case FLOAT:
+          switch (to) {
+            case INT:
+              add(new DexFloatToInt(dest, src));
+              return;
+            case LONG:
+              add(new DexFloatToLong(dest, src));
+              return;
+            case DOUBLE:
+              add(new DexFloatToDouble(dest, src));
+              return;
+            default:
+              throw unsupported();
+          }
+        case DOUBLE:
+          switch (to) {
+            case INT:
+              add(new DexDoubleToInt(dest, src));
+              return;
+            case LONG:
+              add(new DexDoubleToLong(dest, src));
+              return;
+            case FLOAT:
+              add(new DexDoubleToFloat(dest, src));
+              return;
+            default:
+              throw unsupported();
+          }
+        default:
+          throw unsupported();
+      }
+    }
+
+    private void translateCmp(CfCmp instruction) {
+      ValueType valueType = ValueType.fromNumericType(instruction.getType());
+      int right = pop(valueType);
+      int left = pop(valueType);
+      int dest = push(ValueType.INT);
+      boolean isLessThanBias = instruction.getBias() == Bias.LT;
+      switch (instruction.getType()) {
+        case LONG:
+          add(new DexCmpLong(dest, left, right));
+          break;
+        case FLOAT:
+          add(
+              isLessThanBias
+                  ? new DexCmplFloat(dest, left, right)
+                  : new DexCmpgFloat(dest, left, right));
+          break;
+        case DOUBLE:
+          add(
+              isLessThanBias
+                  ? new DexCmplDouble(dest, left, right)
+                  : new DexCmpgDouble(dest, left, right));
+          break;
+        default:
+          throw unsupported();
+      }
+    }
+
+    private IntFunction<DexInstruction> ifZeroFactory(If.Type kind, int register) {
+      switch (kind) {
+        case EQ:
+          return jumpOffset -> new DexIfEqz(register, jumpOffset);
+        case NE:
+          return jumpOffset -> new DexIfNez(register, jumpOffset);
+        case LT:
+          return jumpOffset -> new DexIfLtz(register, jumpOffset);
+        case GE:
+          return jumpOffset -> new DexIfGez(register, jumpOffset);
+        case GT:
+          return jumpOffset -> new DexIfGtz(register, jumpOffset);
+        case LE:
+          return jumpOffset -> new DexIfLez(register, jumpOffset);
+        default:
+          throw unsupported();
+      }
+    }
+
+    private IntFunction<DexInstruction> ifFactory(If.Type kind, int left, int right) {
+      switch (kind) {
+        case EQ:
+          return jumpOffset -> new DexIfEq(left, right, jumpOffset);
+        case NE:
+          return jumpOffset -> new DexIfNe(left, right, jumpOffset);
+        case LT:
+          return jumpOffset -> new DexIfLt(left, right, jumpOffset);
+        case GE:
+          return jumpOffset -> new DexIfGe(left, right, jumpOffset);
+        case GT:
+          return jumpOffset -> new DexIfGt(left, right, jumpOffset);
+        case LE:
+          return jumpOffset -> new DexIfLe(left, right, jumpOffset);
+        default:
+          throw unsupported();
+      }
+    }
+
+    private void translateSwitch(CfSwitch instruction) {
+      int register = pop(ValueType.INT);
+      List<CfLabel> targets = instruction.getSwitchTargets();
+      if (targets.isEmpty()) {
+        throw unsupported();
+      }
+      for (CfLabel target : targets) {
+        recordTarget(target);
+      }
+      DexFormat31t dexSwitch =
+          instruction.getKind() == CfSwitch.Kind.TABLE
+              ? new DexPackedSwitch(register)
+              : new DexSparseSwitch(register);
+      add(dexSwitch);
+      switchFixups.add(new SwitchFixup(dexSwitch, instruction));
+      // The default target of a DEX switch is the next instruction.
+      addJump(instruction.getDefaultTarget(), DexGoto32::new);
+      hasStackState = false;
+    }
+
+    private void addSwitchPayload(SwitchFixup fixup) {
+      // Payloads must be aligned at even offsets.
+      if (offset % 2 != 0) {
+        DexNop nop = new DexNop();
+        nop.setOffset(offset++);
+        instructions.add(nop);
+      }
+      int switchOffset = fixup.instruction.getOffset();
+      List<CfLabel> targets = fixup.cfSwitch.getSwitchTargets();
+      int[] targetOffsets = new int[targets.size()];
+      for (int i = 0; i < targetOffsets.length; i++) {
+        targetOffsets[i] = getLabelOffset(targets.get(i)) - switchOffset;
+      }
+      List<Integer> keys = fixup.cfSwitch.getKeys();
+      DexNop payload;
+      if (fixup.cfSwitch.getKind() == CfSwitch.Kind.TABLE) {
+        payload = new DexPackedSwitchPayload(keys.get(0), targetOffsets);
+      } else {
+        int[] keysArray = new int[keys.size()];
+        for (int i = 0; i < keysArray.length; i++) {
+          keysArray[i] = keys.get(i);
+        }
+        payload = new DexSparseSwitchPayload(keysArray, targetOffsets);
+      }
+      fixup.instruction.setPayloadOffset(offset - switchOffset);
+      payload.setOffset(offset);
+      instructions.add(payload);
+      offset += payload.getSize();
+    }
+
+    private void translateFieldInstruction(CfInstruction instruction) {
+      DexField field = instruction.asFieldInstruction().getField();
+      if (isAssertionsField(field)) {
+        throw unsupported();
+      }
+      FieldMemberType type = FieldMemberType.fromDexType(field.getType());
+      if (instruction instanceof CfInstanceFieldRead) {
+        int object = pop(ValueType.OBJECT);
+        int dest = push(field.getType());
+        switch (type) {
+          case INT:
+          case FLOAT:
+            add(new DexIget(dest, object, field));
+            break;
+          case LONG:
+          case DOUBLE:
+            add(new DexIgetWide(dest, object, field));
+            break;
+          case OBJECT:
+            add(new DexIgetObject(dest, object, field));
+            break;
+          case BOOLEAN:
+            add(new DexIgetBoolean(dest, object, field));
+            break;
+          case BYTE:
+            add(new DexIgetByte(dest, object, field));
+            break;
+          case CHAR:
+            add(new DexIgetChar(dest, object, field));
+            break;
+          case SHORT:
+            add(new DexIgetShort(dest, object, field));
+            break;
+          default:
+            throw unsupported();
+        }
+      } else if (instruction instanceof CfInstanceFieldWrite) {
+        int value = pop(field.getType());
+        int object = pop(ValueType.OBJECT);
+        switch (type) {
+          case INT:
+          case FLOAT:
+            add(new DexIput(value, object, field));
+            break;
+          case LONG:
+          case DOUBLE:
+            add(new DexIputWide(value, object, field));
+            break;
+          case OBJECT:
+            add(new DexIputObject(value, object, field));
+            break;
+          case BOOLEAN:
+            add(new DexIputBoolean(value, object, field));
+            break;
+          case BYTE:
+            add(new DexIputByte(value, object, field));
+            break;
+          case CHAR:
+            add(new DexIputChar(value, object, field));
+            break;
+          case SHORT:
+            add(new DexIputShort(value, object, field));
+            break;
+          default:
+            throw unsupported();
+        }
+      } else if (instruction instanceof CfStaticFieldRead) {
+        int dest = push(field.getType());
+        switch (type) {
+          case INT:
+          case FLOAT:
+            add(new DexSget(dest, field));
+            break;
+          case LONG:
+          case DOUBLE:
+            add(new DexSgetWide(dest, field));
+            break;
+          case OBJECT:
+            add(new DexSgetObject(dest, field));
+            break;
+          case BOOLEAN:
+            add(new DexSgetBoolean(dest, field));
+            break;
+          case BYTE:
+            add(new DexSgetByte(dest, field));
+            break;
+          case CHAR:
+            add(new DexSgetChar(dest, field));
+            break;
+          case SHORT:
+            add(new DexSgetShort(dest, field));
+            break;
+          default:
+            throw unsupported();
+        }
+      } else if (instruction instanceof CfStaticFieldWrite) {
+        int value = pop(field.getType());
+        switch (type) {
+          case INT:
+          case FLOAT:
+            add(new DexSput(value, field));
+            break;
+          case LONG:
+          case DOUBLE:
+            add(new DexSputWide(value, field));
+            break;
+          case OBJECT:
+            add(new DexSputObject(value, field));
+            break;
+          case BOOLEAN:
+            add(new DexSputBoolean(value, field));
+            break;
+          case BYTE:
+            add(new DexSputByte(value, field));
+            break;
+          case CHAR:
+            add(new DexSputChar(value, field));
+            break;
+          case SHORT:
+            add(new DexSputShort(value, field));
+            break;
+          default:
+            throw unsupported();
+        }
+      } else {
+        throw unsupported();
+      }
+    }
+
+    private void translateInvoke(CfInvoke instruction) {
+      DexMethod invokedMethod = instruction.getMethod();
+      if (invokedMethod == factory.classMethods.desiredAssertionStatus) {
+        throw unsupported();
+      }
+      Invoke.Type type =
+          Invoke.Type.fromCfOpcode(instruction.getOpcode(), invokedMethod, method, appView);
+      int argumentCount = type == Invoke.Type.STATIC ? 0 : 1;
+      for (DexType parameter : invokedMethod.getParameters()) {
+        argumentCount += parameter.getRequiredRegisters();
+      }
+      // The arguments are in consecutive stack slots, so the range form can always be used.
+      int first = pop(argumentCount);
+      switch (type) {
+        case DIRECT:
+          add(new DexInvokeDirectRange(first, argumentCount, invokedMethod));
+          break;
+        case INTERFACE:
+          add(new DexInvokeInterfaceRange(first, argumentCount, invokedMethod));
+          break;
+        case STATIC:
+          add(new DexInvokeStaticRange(first, argumentCount, invokedMethod));
+          break;
+        case SUPER:
+          add(new DexInvokeSuperRange(first, argumentCount, invokedMethod));
+          break;
+        case VIRTUAL:
+          add(new DexInvokeVirtualRange(first, argumentCount, invokedMethod));
+          break;
+        default:
+          throw unsupported();
+      }
+      outRegisterCount = Math.max(outRegisterCount, argumentCount);
+      DexType returnType = invokedMethod.getReturnType();
+      if (!returnType.isVoidType()) {
+        ValueType valueType = ValueType.fromDexType(returnType);
+        int dest = push(returnType);
+        if (valueType.isObject()) {
+          add(new DexMoveResultObject(dest));
+        } else if (valueType.isWide()) {
+          add(new DexMoveResultWide(dest));
+        } else {
+          add(new DexMoveResult(dest));
+        }
+      }
+    }
+
+    private void translateArrayLoad(CfArrayLoad instruction) {
+      int index = pop(ValueType.INT);
+      int array = pop(ValueType.OBJECT);
+      DexType arrayType = stackTypes[array];
+      int dest =
+          instruction.getType().isObject() && arrayType != null && arrayType.isArrayType()
+              ? push(arrayType.toArrayElementType(factory))
+              : push(ValueType.fromMemberType(instruction.getType()));
+      switch (instruction.getType()) {
+        case INT:
+        case FLOAT:
+          add(new DexAget(dest, array, index));
+          break;
+        case LONG:
+        case DOUBLE:
+          add(new DexAgetWide(dest, array, index));
+          break;
+        case OBJECT:
+          add(new DexAgetObject(dest, array, index));
+          break;
+        case CHAR:
+          add(new DexAgetChar(dest, array, index));
+          break;
+        case SHORT:
+          add(new DexAgetShort(dest, array, index));
+          break;
+        case BOOLEAN_OR_BYTE:
+          if (arrayType == factory.booleanArrayType) {
+            add(new DexAgetBoolean(dest, array, index));
+          } else if (arrayType == factory.byteArrayType) {
+            add(new DexAgetByte(dest, array, index));
+          } else {
+            throw unsupported();
+          }
+          break;
+        default:
+          throw unsupported();
+      }
+    }
+
+    private void translateArrayStore(CfArrayStore instruction) {
+      int value = pop(ValueType.fromMemberType(instruction.getType()));
+      int index = pop(ValueType.INT);
+      int array = pop(ValueType.OBJECT);
+      switch (instruction.getType()) {
+        case INT:
+        case FLOAT:
+          add(new DexAput(value, array, index));
+          break;
+        case LONG:
+        case DOUBLE:
+          add(new DexAputWide(value, array, index));
+          break;
+        case OBJECT:
+          add(new DexAputObject(value, array, index));
+          break;
+        case CHAR:
+          add(new DexAputChar(value, array, index));
+          break;
+        case SHORT:
+          add(new DexAputShort(value, array, index));
+          break;
+        case BOOLEAN_OR_BYTE:
+          if (stackTypes[array] == factory.booleanArrayType) {
+            add(new DexAputBoolean(value, array, index));
+          } else if (stackTypes[array] == factory.byteArrayType) {
+            add(new DexAputByte(value, array, index));
+          } else {
+            throw unsupported();
+          }
+          break;
+        default:
+          throw unsupported();
+      }
+    }
+
+    // The code for javac and kotlinc assertions is rewritten by the AssertionsRewriter.
+    private boolean isAssertionsField(DexField field) {
+      return field.getName() == factory.assertionsDisabled
+          || field == factory.kotlin.assertions.enabledField;
+    }
+
+    // Try-catch ranges.
+
+    private Try[] computeTries(Map<CatchHandlers<Integer>, Integer> handlerIndices) {
+      // Split the ranges into disjoint ranges, each with the handlers of all the ranges that cover
+      // it in the order of the exception table.
+      List<CfTryCatch> tryCatchRanges = code.getTryCatchRanges();
+      int[] starts = new int[tryCatchRanges.size()];
+      int[] ends = new int[tryCatchRanges.size()];
+      IntSortedSet boundaries = new IntRBTreeSet();
+      for (int i = 0; i < tryCatchRanges.size(); i++) {
+        starts[i] = getLabelOffset(tryCatchRanges.get(i).start);
+        ends[i] = getLabelOffset(tryCatchRanges.get(i).end);
+        boundaries.add(starts[i]);
+        boundaries.add(ends[i]);
+      }
+      int[] sortedBoundaries = boundaries.toIntArray();
+      List<Try> tries = new ArrayList<>();
+      CatchHandlers<Integer> previousHandlers = null;
+      Try previousTry = null;
+      for (int i = 0; i + 1 < sortedBoundaries.length; i++) {
+        int start = sortedBoundaries[i];
+        int end = sortedBoundaries[i + 1];
+        List<DexType> guards = new ArrayList<>();
+        List<Integer> targets = new ArrayList<>();
+        for (int j = 0; j < tryCatchRanges.size(); j++) {
+          if (starts[j] <= start && end <= ends[j]) {
+            CfTryCatch tryCatch = tryCatchRanges.get(j);
+            for (int k = 0; k < tryCatch.guards.size(); k++) {
+              DexType guard = tryCatch.guards.get(k);
+              if (!guards.contains(guard) && !guards.contains(factory.throwableType)) {
+                guards.add(guard);
+                targets.add(getLabelOffset(tryCatch.targets.get(k)));
+              }
+            }
+          }
+        }
+        if (guards.isEmpty()) {
+          previousHandlers = null;
+          continue;
+        }
+        CatchHandlers<Integer> handlers = new CatchHandlers<>(guards, targets);
+        if (previousTry != null
+            && previousTry.startAddress + previousTry.instructionCount == start
+            && handlers.equals(previousHandlers)) {
+          previousTry.instructionCount = end - previousTry.startAddress;
+          continue;
+        }
+        Integer handlerIndex = handlerIndices.get(handlers);
+        if (handlerIndex == null) {
+          handlerIndex = handlerIndices.size();
+          handlerIndices.put(handlers, handlerIndex);
+        }
+        Try dexTry = new Try(start, end - start, -1);
+        dexTry.handlerIndex = handlerIndex;
+        tries.add(dexTry);
+        previousTry = dexTry;
+        previousHandlers = handlers;
+      }
+      return tries.toArray(Try.EMPTY_ARRAY);
+    }
+
+    private TryHandler[] computeTryHandlers(
+        Map<CatchHandlers<Integer>, Integer> handlerIndices) {
+      TryHandler[] tryHandlers = new TryHandler[handlerIndices.size()];
+      for (Map.Entry<CatchHandlers<Integer>, Integer> entry : handlerIndices.entrySet()) {
+        CatchHandlers<Integer> handlers = entry.getKey();
+        int catchAllOffset = TryHandler.NO_HANDLER;
+        List<TypeAddrPair> pairs = new ArrayList<>();
+        for (int i = 0; i < handlers.size(); i++) {
+          DexType guard = handlers.getGuard(i);
+          int target = handlers.getAllTargets().get(i);
+          if (guard == factory.throwableType) {
+            catchAllOffset = target;
+          } else {
+            pairs.add(new TypeAddrPair(guard, target));
+          }
+        }
+        tryHandlers[entry.getValue()] =
+            new TryHandler(pairs.toArray(new TypeAddrPair[0]), catchAllOffset);
+      }
+      return tryHandlers;
+    }
+
+    // Debug information.
+
+    private void enterPosition(CfPosition instruction) {
+      Position position = instruction.getPosition();
+      if (position.hasCallerPosition() || position.getMethod() != method.getReference()) {
+        throw unsupported();
+      }
+      // Materialize a line without instructions to allow setting breakpoints on it.
+      if (hasStackState
+          && !needsMoveException
+          && currentPosition.isSome()
+          && !currentPositionHasInstructions
+          && !currentPosition.equals(position)) {
+        add(new DexNop());
+      }
+      currentPosition = position;
+      currentPositionHasInstructions = false;
+    }
+
+    private void updateLocals(CfLabel label) {
+      List<LocalVariableInfo> ending = localEnds.get(label);
+      if (ending != null) {
+        for (LocalVariableInfo local : ending) {
+          int register = localRegister(local.getIndex());
+          if (local.getLocal().equals(pendingLocals.get(register))) {
+            pendingLocals.remove(register);
+            pendingLocalChanges = true;
+          }
+        }
+      }
+      List<LocalVariableInfo> starting = localStarts.get(label);
+      if (starting != null) {
+        for (LocalVariableInfo local : starting) {
+          pendingLocals.put(localRegister(local.getIndex()), local.getLocal());
+          pendingLocalChanges = true;
+        }
+      }
+    }
+
+    private void updateDebugInfo() {
+      if (emittedLocals == null) {
+        initializeLocals();
+      }
+      if (currentPosition.isSome() && !currentPosition.equals(emittedPosition)) {
+        emitDebugPosition(currentPosition);
+      }
+      if (emittedPc != offset) {
+        emitLocalChanges();
+      }
+    }
+
+    private void initializeLocals() {
+      // Implicitly open all unparameterized arguments.
+      emittedLocals = new Int2ReferenceOpenHashMap<>();
+      for (Entry<DebugLocalInfo> entry : pendingLocals.int2ReferenceEntrySet()) {
+        if (entry.getIntKey() >= registerCount - argumentSize
+            && entry.getValue().signature == null) {
+          emittedLocals.put(entry.getIntKey(), entry.getValue());
+        }
+      }
+      lastKnownLocals = new Int2ReferenceOpenHashMap<>(emittedLocals);
+      parameters = new DexString[method.getReference().getArity()];
+      int index = method.getDefinition().isStatic() ? 0 : 1;
+      for (int i = 0; i < parameters.length; i++) {
+        DebugLocalInfo local = pendingLocals.get(localRegister(index));
+        parameters[i] = local == null || local.signature != null ? null : local.name;
+        index += method.getParameter(i).getRequiredRegisters();
+      }
+    }
+
+    private boolean localsChanged() {
+      if (!pendingLocalChanges) {
+        return false;
+      }
+      pendingLocalChanges = !DebugLocalInfo.localsInfoMapsEqual(emittedLocals, pendingLocals);
+      return pendingLocalChanges;
+    }
+
+    private void emitDebugPosition(Position position) {
+      if (startLine < 0) {
+        if (position.isSyntheticPosition()) {
+          // Ignore synthetic positions prior to any actual position.
+          return;
+        }
+        startLine = position.getLine();
+        emittedPosition =
+            SourcePosition.builder().setLine(startLine).setMethod(position.getMethod()).build();
+      }
+      int previousPc = emittedPc == DexDebugEventBuilder.NO_PC_INFO ? 0 : emittedPc;
+      DexDebugEventBuilder.emitAdvancementEvents(
+          previousPc, emittedPosition, offset, position, events, factory, false);
+      emittedPc = offset;
+      emittedPosition = position;
+      if (localsChanged()) {
+        DexDebugEventBuilder.emitLocalChangeEvents(
+            emittedLocals, pendingLocals, lastKnownLocals, events, factory);
+      }
+      pendingLocalChanges = false;
+    }
+
+    private void emitLocalChanges() {
+      if (localsChanged()) {
+        int pcDelta = emittedPc == DexDebugEventBuilder.NO_PC_INFO ? offset : offset - emittedPc;
+        if (pcDelta > 0) {
+          events.add(factory.createAdvancePC(pcDelta));
+        }
+        emittedPc = offset;
+        DexDebugEventBuilder.emitLocalChangeEvents(
+            emittedLocals, pendingLocals, lastKnownLocals, events, factory);
+        pendingLocalChanges = false;
+      }
+    }
+
+    private DexDebugInfo buildDebugInfo() {
+      if (startLine < 0) {
+        return null;
+      }
+      return new EventBasedDebugInfo(
+          startLine, parameters, events.toArray(DexDebugEvent.EMPTY_ARRAY));
+    }
+  }
+
+  private interface InstructionSupplier {
+
+    DexInstruction get();
+  }
+
+  private DexInstruction select(
+      NumericType type,
+      InstructionSupplier intInstruction,
+      InstructionSupplier longInstruction,
+      InstructionSupplier floatInstruction,
+      InstructionSupplier doubleInstruction) {
+    InstructionSupplier supplier;
+    switch (type) {
+      case INT:
+        supplier = intInstruction;
+        break;
+      case LONG:
+        supplier = longInstruction;
+        break;
+      case FLOAT:
+        supplier = floatInstruction;
+        break;
+      case DOUBLE:
+        supplier = doubleInstruction;
+        break;
+      default:
+        supplier = null;
+        break;
+    }
+    if (supplier == null) {
+      throw unsupported();
+    }
+    return supplier.get();
+  }
+}
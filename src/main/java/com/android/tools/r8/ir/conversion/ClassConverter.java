@@ -14,19 +14,13 @@ import com.android.tools.r8.ir.desugar.CfClassSynthesizerDesugaringEventConsumer
 import com.android.tools.r8.ir.desugar.CfInstructionDesugaringEventConsumer;
 import com.android.tools.r8.ir.desugar.CfInstructionDesugaringEventConsumer.D8CfInstructionDesugaringEventConsumer;
 import com.android.tools.r8.ir.desugar.itf.InterfaceProcessor;
-import com.android.tools.r8.utils.MapUtils;
 import com.android.tools.r8.utils.ThreadUtils;
-import com.android.tools.r8.utils.collections.ImmutableDeque;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.Deque;
-import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -68,48 +62,6 @@ public abstract class ClassConverter {
     return resultBuilder.build();
   }
 
-  private static Deque<List<DexProgramClass>> getDeterministicNestWaves(
-      Collection<DexProgramClass> classes) {
-    Map<DexType, List<DexProgramClass>> nestGroups = new IdentityHashMap<>();
-    for (DexProgramClass clazz : classes) {
-      if (clazz.isInANest()) {
-        nestGroups.computeIfAbsent(clazz.getNestHost(), k -> new ArrayList<>()).add(clazz);
-      }
-    }
-    if (nestGroups.isEmpty()) {
-      return ImmutableDeque.of();
-    }
-    int maxGroupSize = 0;
-    for (List<DexProgramClass> members : nestGroups.values()) {
-      maxGroupSize = Math.max(maxGroupSize, members.size());
-      members.sort(Comparator.comparing(DexClass::getType));
-    }
-    Deque<List<DexProgramClass>> processingList = new ArrayDeque<>(maxGroupSize);
-    for (int i = 0; i < maxGroupSize; i++) {
-      List<DexProgramClass> wave = new ArrayList<>(nestGroups.size());
-      final int index = i;
-      MapUtils.removeIf(
-          nestGroups,
-          (host, members) -> {
-            wave.add(members.get(index));
-            return index + 1 == members.size();
-          });
-      processingList.add(wave);
-    }
-    return processingList;
-  }
-
-  private static List<DexProgramClass> filterOutClassesInNests(
-      Collection<DexProgramClass> classes) {
-    List<DexProgramClass> filtered = new ArrayList<>(classes.size());
-    for (DexProgramClass clazz : classes) {
-      if (!clazz.isInANest()) {
-        filtered.add(clazz);
-      }
-    }
-    return filtered;
-  }
-
   private void internalConvertClasses(
       ClassConverterResult.Builder resultBuilder, ExecutorService executorService)
       throws ExecutionException {
@@ -128,79 +80,59 @@ public abstract class ClassConverter {
 
     converter.prepareDesugaringForD8(executorService);
 
-    // When adding nest members to the wave we must do so deterministically.
-    Deque<List<DexProgramClass>> nestProcessingWaves = getDeterministicNestWaves(classes);
-    Collection<DexProgramClass> wave;
-    if (nestProcessingWaves.isEmpty()) {
-      wave = classes;
-    } else {
-      List<DexProgramClass> firstWave = filterOutClassesInNests(classes);
-      firstWave.addAll(nestProcessingWaves.removeFirst());
-      wave = firstWave;
-    }
-
-    while (!wave.isEmpty()) {
-      // TODO(b/179755192): Avoid marking classes as scheduled by building up waves of methods.
-      for (DexProgramClass clazz : wave) {
-        methodProcessor.addScheduled(clazz);
-      }
-
-      D8CfInstructionDesugaringEventConsumer instructionDesugaringEventConsumer =
-          CfInstructionDesugaringEventConsumer.createForD8(methodProcessor);
-
-      // Process the wave and wait for all IR processing to complete.
+    // All classes are converted in a single pass. The bridges needed for nest based accesses are
+    // added to the program when preparing the desugaring, so converting a class never adds methods
+    // to another class that may be converted concurrently. Methods synthesized during conversion
+    // are scheduled for processing as soon as they are created.
+    D8CfInstructionDesugaringEventConsumer instructionDesugaringEventConsumer =
+        CfInstructionDesugaringEventConsumer.createForD8(methodProcessor);
+
+    // Process the classes and wait for all IR processing to complete.
+    methodProcessor.newWave();
+    checkDeterminism(classes);
+    ThreadUtils.processItems(
+        classes, clazz -> convertClass(clazz, instructionDesugaringEventConsumer), executorService);
+    methodProcessor.awaitMethodProcessing();
+
+    // Finalize the desugaring of the processed classes. This may require processing (and
+    // reprocessing) of some methods.
+    List<ProgramMethod> needsProcessing =
+        instructionDesugaringEventConsumer.finalizeDesugaring(appView, resultBuilder);
+    if (!needsProcessing.isEmpty()) {
+      // Create a new processor context to ensure unique method processing contexts.
       methodProcessor.newWave();
-      checkWaveDeterminism(wave);
+
+      // Process the methods that require reprocessing. These are all simple bridge methods and
+      // should therefore not lead to additional desugaring.
       ThreadUtils.processItems(
-          wave, clazz -> convertClass(clazz, instructionDesugaringEventConsumer), executorService);
+          needsProcessing,
+          method -> {
+            DexEncodedMethod definition = method.getDefinition();
+            if (definition.isProcessed()) {
+              definition.markNotProcessed();
+            }
+            methodProcessor.processMethod(method, instructionDesugaringEventConsumer);
+            if (interfaceProcessor != null) {
+              interfaceProcessor.processMethod(method, instructionDesugaringEventConsumer);
+            }
+          },
+          executorService);
+
+      // Verify there is nothing to finalize once method processing finishes.
       methodProcessor.awaitMethodProcessing();
-
-      // Finalize the desugaring of the processed classes. This may require processing (and
-      // reprocessing) of some methods.
-      List<ProgramMethod> needsProcessing =
-          instructionDesugaringEventConsumer.finalizeDesugaring(appView, resultBuilder);
-      if (!needsProcessing.isEmpty()) {
-        // Create a new processor context to ensure unique method processing contexts.
-        methodProcessor.newWave();
-
-        // Process the methods that require reprocessing. These are all simple bridge methods and
-        // should therefore not lead to additional desugaring.
-        ThreadUtils.processItems(
-            needsProcessing,
-            method -> {
-              DexEncodedMethod definition = method.getDefinition();
-              if (definition.isProcessed()) {
-                definition.markNotProcessed();
-              }
-              methodProcessor.processMethod(method, instructionDesugaringEventConsumer);
-              if (interfaceProcessor != null) {
-                interfaceProcessor.processMethod(method, instructionDesugaringEventConsumer);
-              }
-            },
-            executorService);
-
-        // Verify there is nothing to finalize once method processing finishes.
-        methodProcessor.awaitMethodProcessing();
-        assert instructionDesugaringEventConsumer.verifyNothingToFinalize();
-      }
-
-      if (!nestProcessingWaves.isEmpty()) {
-        wave = nestProcessingWaves.removeFirst();
-      } else {
-        break;
-      }
+      assert instructionDesugaringEventConsumer.verifyNothingToFinalize();
     }
   }
 
-  private void checkWaveDeterminism(Collection<DexProgramClass> wave) {
+  private void checkDeterminism(Collection<DexProgramClass> classes) {
     appView
         .options()
         .testing
         .checkDeterminism(
             checker -> {
-              // There is no constraint on the order within the wave so sort them to have a
-              // deterministic log.
-              List<DexProgramClass> sorted = new ArrayList<>(wave);
+              // There is no constraint on the processing order of the classes so sort them to have
+              // a deterministic log.
+              List<DexProgramClass> sorted = new ArrayList<>(classes);
               sorted.sort(Comparator.comparing(DexClass::getType));
               checker.accept(
                   lineCallback -> {
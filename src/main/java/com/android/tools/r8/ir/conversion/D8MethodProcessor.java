@@ -6,19 +6,15 @@ package com.android.tools.r8.ir.conversion;
 import com.android.tools.r8.contexts.CompilationContext.MethodProcessingContext;
 import com.android.tools.r8.contexts.CompilationContext.ProcessorContext;
 import com.android.tools.r8.errors.Unreachable;
-import com.android.tools.r8.graph.DexProgramClass;
-import com.android.tools.r8.graph.DexType;
 import com.android.tools.r8.graph.ProgramMethod;
 import com.android.tools.r8.ir.conversion.callgraph.CallSiteInformation;
 import com.android.tools.r8.ir.desugar.CfInstructionDesugaringEventConsumer;
 import com.android.tools.r8.ir.desugar.CfInstructionDesugaringEventConsumer.D8CfInstructionDesugaringEventConsumer;
 import com.android.tools.r8.ir.optimize.info.OptimizationFeedbackIgnore;
 import com.android.tools.r8.utils.ThreadUtils;
-import com.google.common.collect.Sets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -27,7 +23,6 @@ public class D8MethodProcessor extends MethodProcessor {
 
   private final IRConverter converter;
   private final ExecutorService executorService;
-  private final Set<DexType> scheduled = Sets.newIdentityHashSet();
 
   // Asynchronous method processing actions. These are "terminal" method processing actions in the
   // sense that the method processing is known not to fork any other futures.
@@ -47,11 +42,6 @@ public class D8MethodProcessor extends MethodProcessor {
     this.processorContext = converter.appView.createProcessorContext();
   }
 
-  public void addScheduled(DexProgramClass clazz) {
-    boolean added = scheduled.add(clazz.getType());
-    assert added;
-  }
-
   public void newWave() {
     this.processorContext = converter.appView.createProcessorContext();
   }
@@ -74,13 +64,6 @@ public class D8MethodProcessor extends MethodProcessor {
 
   public void scheduleMethodForProcessing(
       ProgramMethod method, D8CfInstructionDesugaringEventConsumer eventConsumer) {
-    // TODO(b/179755192): By building up waves of methods in the class converter, we can avoid the
-    //  following check and always process the method asynchronously.
-    if (!scheduled.contains(method.getHolderType())
-        && !converter.appView.getSyntheticItems().isSynthetic(method.getHolder())) {
-      // The non-synthetic holder is not scheduled. It will be processed once holder is scheduled.
-      return;
-    }
     nonTerminalFutures.add(
         ThreadUtils.processAsynchronously(
             () ->
@@ -95,13 +78,6 @@ public class D8MethodProcessor extends MethodProcessor {
 
   @Override
   public void scheduleDesugaredMethodForProcessing(ProgramMethod method) {
-    // TODO(b/179755192): By building up waves of methods in the class converter, we can avoid the
-    //  following check and always process the method asynchronously.
-    if (!scheduled.contains(method.getHolderType())
-        && !converter.appView.getSyntheticItems().isSynthetic(method.getHolder())) {
-      // The non-synthetic holder is not scheduled. It will be processed once holder is scheduled.
-      return;
-    }
     if (method.getDefinition().isAbstract()) {
       return;
     }
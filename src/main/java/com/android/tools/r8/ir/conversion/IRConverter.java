@@ -14,6 +14,7 @@ import com.android.tools.r8.graph.AppView;
 import com.android.tools.r8.graph.Code;
 import com.android.tools.r8.graph.DexApplication;
 import com.android.tools.r8.graph.DexApplication.Builder;
+import com.android.tools.r8.graph.DexCode;
 import com.android.tools.r8.graph.DexEncodedMethod;
 import com.android.tools.r8.graph.DexMethod;
 import com.android.tools.r8.graph.DexProgramClass;
@@ -74,6 +75,7 @@ import com.android.tools.r8.ir.optimize.info.OptimizationFeedback;
 import com.android.tools.r8.ir.optimize.info.OptimizationFeedbackDelayed;
 import com.android.tools.r8.ir.optimize.info.OptimizationFeedbackIgnore;
 import com.android.tools.r8.ir.optimize.info.OptimizationFeedbackSimple;
+import com.android.tools.r8.ir.optimize.info.cache.OptimizationInfoCacheExporter;
 import com.android.tools.r8.ir.optimize.info.field.InstanceFieldInitializationInfoCollection;
 import com.android.tools.r8.ir.optimize.membervaluepropagation.D8MemberValuePropagation;
 import com.android.tools.r8.ir.optimize.membervaluepropagation.MemberValuePropagation;
@@ -130,6 +132,7 @@ public class IRConverter {
   private final NaturalIntLoopRemover naturalIntLoopRemover = new NaturalIntLoopRemover();
   public final MemberValuePropagation<?> memberValuePropagation;
   private final LensCodeRewriter lensCodeRewriter;
+  private final CfToDexTranslator cfToDexTranslator;
   private final Inliner inliner;
   private final IdentifierNameStringMarker identifierNameStringMarker;
   private final Devirtualizer devirtualizer;
@@ -147,6 +150,7 @@ public class IRConverter {
   public final DeadCodeRemover deadCodeRemover;
 
   private final MethodOptimizationInfoCollector methodOptimizationInfoCollector;
+  private final MethodProcessingProfile methodProcessingProfile;
 
   private final OptimizationFeedbackDelayed delayedOptimizationFeedback =
       new OptimizationFeedbackDelayed();
@@ -174,6 +178,7 @@ public class IRConverter {
     this.appView = appView;
     this.options = appView.options();
     this.printer = printer;
+    this.methodProcessingProfile = options.getMethodProcessingProfilingOptions().getProfile();
     this.codeRewriter = new CodeRewriter(appView);
     this.classInitializerDefaultsOptimization =
         new ClassInitializerDefaultsOptimization(appView, this);
@@ -223,6 +228,7 @@ public class IRConverter {
       this.enumValueOptimizer = null;
       this.enumUnboxer = EnumUnboxer.empty();
       this.assumeInserter = null;
+      this.cfToDexTranslator = null;
       return;
     }
     this.instructionDesugaring =
@@ -269,6 +275,7 @@ public class IRConverter {
               : null;
       this.enumValueOptimizer =
           options.enableEnumValueOptimization ? new EnumValueOptimizer(appViewWithLiveness) : null;
+      this.cfToDexTranslator = null;
     } else {
       AppView<AppInfo> appViewWithoutClassHierarchy = appView.withoutClassHierarchy();
       this.assumeInserter = null;
@@ -290,6 +297,8 @@ public class IRConverter {
       this.methodOptimizationInfoCollector = null;
       this.enumValueOptimizer = null;
       this.enumUnboxer = EnumUnboxer.empty();
+      this.cfToDexTranslator =
+          options.canUseDirectCfToDexTranslation() ? new CfToDexTranslator(appView) : null;
     }
     this.stringSwitchRemover =
         options.isStringSwitchConversionEnabled()
@@ -728,7 +737,8 @@ public class IRConverter {
     }
 
     outliner.rewriteWithLens();
-    enumUnboxer.unboxEnums(appView, this, postMethodProcessorBuilder, executorService, feedback);
+    enumUnboxer.unboxEnums(
+        appView, this, postMethodProcessorBuilder, executorService, feedback, timing);
     appView.unboxedEnums().checkEnumsUnboxed(appView);
 
     GraphLens graphLensForSecondaryOptimizationPass = appView.graphLens();
@@ -759,6 +769,10 @@ public class IRConverter {
     }
     timing.end();
 
+    if (inliner != null) {
+      inliner.onPostMethodProcessingDone();
+    }
+
     enumUnboxer.unsetRewriter();
 
     // All the code that should be impacted by the lenses inserted between phase 1 and phase 2
@@ -824,6 +838,9 @@ public class IRConverter {
     assert delayedOptimizationFeedback.noUpdatesLeft();
     onWaveDoneActions.forEach(com.android.tools.r8.utils.Action::execute);
     onWaveDoneActions = null;
+    if (inliner != null) {
+      inliner.enforceRetainedDataBudget(classInliner);
+    }
     if (!prunedMethodsInWave.isEmpty()) {
       appView.pruneItems(
           PrunedItems.builder()
@@ -1054,12 +1071,31 @@ public class IRConverter {
       return Timing.empty();
     }
 
+    if (cfToDexTranslator != null) {
+      DexCode dexCode = cfToDexTranslator.translate(method);
+      if (dexCode != null) {
+        method.setCode(dexCode, appView);
+        feedback.markProcessed(method.getDefinition(), ConstraintWithTarget.NEVER);
+        updateHighestSortingStrings(method.getDefinition());
+        return Timing.empty();
+      }
+    }
+
+    MethodProcessingProfile.Recording recording =
+        methodProcessingProfile != null ? methodProcessingProfile.begin(method) : null;
     IRCode code = method.buildIR(appView);
     if (code == null) {
       feedback.markProcessed(method.getDefinition(), ConstraintWithTarget.NEVER);
       return Timing.empty();
     }
-    return optimize(code, feedback, methodProcessor, methodProcessingContext);
+    if (recording != null) {
+      recording.recordIRBuilt(code);
+    }
+    Timing timing = optimize(code, feedback, methodProcessor, methodProcessingContext);
+    if (recording != null) {
+      recording.end(timing);
+    }
+    return timing;
   }
 
   private boolean desugar(
@@ -1089,7 +1125,10 @@ public class IRConverter {
     DexProgramClass holder = context.getHolder();
     assert holder != null;
 
-    Timing timing = Timing.create(context.toSourceString(), options);
+    Timing timing =
+        methodProcessingProfile != null
+            ? Timing.create(context.toSourceString(), options.printMemory)
+            : Timing.create(context.toSourceString(), options);
 
     if (Log.ENABLED) {
       Log.debug(getClass(), "Initial (SSA) flow graph for %s:\n%s", method.toSourceString(), code);
@@ -1524,6 +1563,8 @@ public class IRConverter {
 
   // Compute optimization info summary for the current method unless it is pinned
   // (in that case we should not be making any assumptions about the behavior of the method).
+  // Pinned methods that allow optimization and are exported to the optimization info cache are
+  // the exception, since the exported info is computed from their code.
   public void collectOptimizationInfo(
       ProgramMethod method,
       IRCode code,
@@ -1560,6 +1601,10 @@ public class IRConverter {
     }
 
     if (appView.getKeepInfo(code.context()).isPinned(options)) {
+      if (OptimizationInfoCacheExporter.isEligibleForExport(appView, method)) {
+        methodOptimizationInfoCollector.collectExportedMethodOptimizationInfo(
+            method, code, feedback, dynamicTypeOptimization, methodProcessor, timing);
+      }
       return;
     }
 
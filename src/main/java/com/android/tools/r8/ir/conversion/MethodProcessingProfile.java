@@ -0,0 +1,254 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.ir.conversion;
+
+import com.android.tools.r8.graph.DexMethod;
+import com.android.tools.r8.graph.ProgramMethod;
+import com.android.tools.r8.ir.code.BasicBlock;
+import com.android.tools.r8.ir.code.IRCode;
+import com.android.tools.r8.utils.Timing;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the wall time, thread CPU time, allocated bytes and IR size of processing each method in
+ * the {@link IRConverter}, together with the time spent in each of the steps recorded in the
+ * per-method {@link Timing}.
+ *
+ * <p>A method that is processed more than once, e.g., both in the primary and the post method
+ * processor, accumulates the measurements of all processings. Allocated bytes and CPU time are
+ * only recorded if supported by the JVM.
+ */
+public class MethodProcessingProfile {
+
+  static final String BUILD_IR = "Build IR";
+
+  private static final String STEP_SEPARATOR = " > ";
+
+  private final Map<DexMethod, MethodProfile> profiles = new ConcurrentHashMap<>();
+  private final ThreadMXBean threadMXBean;
+  private final com.sun.management.ThreadMXBean allocationMXBean;
+
+  public MethodProcessingProfile() {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    this.threadMXBean = threadMXBean.isCurrentThreadCpuTimeSupported() ? threadMXBean : null;
+    if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean allocationMXBean =
+          (com.sun.management.ThreadMXBean) threadMXBean;
+      if (allocationMXBean.isThreadAllocatedMemorySupported()) {
+        if (!allocationMXBean.isThreadAllocatedMemoryEnabled()) {
+          allocationMXBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        this.allocationMXBean = allocationMXBean;
+        return;
+      }
+    }
+    this.allocationMXBean = null;
+  }
+
+  /** Starts recording the processing of the given method on the current thread. */
+  public Recording begin(ProgramMethod method) {
+    return new Recording(method.getReference());
+  }
+
+  public int getNumberOfProcessedMethods() {
+    return profiles.size();
+  }
+
+  private long getCurrentThreadCpuTime() {
+    return threadMXBean != null ? threadMXBean.getCurrentThreadCpuTime() : 0;
+  }
+
+  private long getCurrentThreadAllocatedBytes() {
+    return allocationMXBean != null
+        ? allocationMXBean.getThreadAllocatedBytes(Thread.currentThread().getId())
+        : 0;
+  }
+
+  private static int getNumberOfInstructions(IRCode code) {
+    int numberOfInstructions = 0;
+    for (BasicBlock block : code.blocks) {
+      numberOfInstructions += block.getInstructions().size();
+    }
+    return numberOfInstructions;
+  }
+
+  private List<Entry<DexMethod, MethodProfile>> getProfilesSortedByMethod() {
+    List<Entry<DexMethod, MethodProfile>> entries = new ArrayList<>(profiles.entrySet());
+    entries.sort(Entry.comparingByKey());
+    return entries;
+  }
+
+  /** Prints the total time spent in each step and the methods that took the longest to process. */
+  public void print(PrintStream out, int numberOfMethodsToPrint) {
+    long totalTime = 0;
+    long totalCpuTime = 0;
+    long totalAllocatedBytes = 0;
+    int numberOfProcessings = 0;
+    Map<String, Long> totalStepTimes = new LinkedHashMap<>();
+    for (MethodProfile profile : profiles.values()) {
+      totalTime += profile.time;
+      totalCpuTime += profile.cpuTime;
+      totalAllocatedBytes += profile.allocatedBytes;
+      numberOfProcessings += profile.numberOfProcessings;
+      profile.stepTimes.forEach((step, time) -> totalStepTimes.merge(step, time, Long::sum));
+    }
+    out.println("Method processing profile:");
+    out.println("  Number of processed methods: " + profiles.size());
+    out.println("  Number of method processings: " + numberOfProcessings);
+    out.println("  Total time: " + prettyTime(totalTime));
+    out.println("  Total CPU time: " + prettyTime(totalCpuTime));
+    out.println("  Total allocated: " + prettySize(totalAllocatedBytes));
+    out.println("  Slowest steps:");
+    List<Entry<String, Long>> steps = new ArrayList<>(totalStepTimes.entrySet());
+    steps.sort(Entry.<String, Long>comparingByValue().reversed());
+    for (int i = 0; i < Math.min(steps.size(), numberOfMethodsToPrint); i++) {
+      Entry<String, Long> step = steps.get(i);
+      out.println("    " + step.getKey() + ": " + prettyTime(step.getValue()));
+    }
+    out.println("  Slowest methods:");
+    List<Entry<DexMethod, MethodProfile>> methods = getProfilesSortedByMethod();
+    methods.sort(
+        Comparator.comparing(
+            (Entry<DexMethod, MethodProfile> entry) -> entry.getValue().time,
+            Comparator.reverseOrder()));
+    for (int i = 0; i < Math.min(methods.size(), numberOfMethodsToPrint); i++) {
+      DexMethod method = methods.get(i).getKey();
+      MethodProfile profile = methods.get(i).getValue();
+      out.println(
+          "    "
+              + method.toSourceString()
+              + ": "
+              + prettyTime(profile.time)
+              + ", allocated: "
+              + prettySize(profile.allocatedBytes)
+              + ", instructions: "
+              + profile.numberOfInstructions
+              + ", processings: "
+              + profile.numberOfProcessings);
+      profile.stepTimes.entrySet().stream()
+          .sorted(Entry.<String, Long>comparingByValue().reversed())
+          .limit(5)
+          .forEach(
+              step -> out.println("      - " + step.getKey() + ": " + prettyTime(step.getValue())));
+    }
+  }
+
+  /**
+   * Writes the profile of all processed methods to the given file, sorted by method.
+   *
+   * <p>The file has a header line followed by a line per method with the tab separated columns
+   * method, number of processings, wall time (ns), CPU time (ns), allocated bytes, maximum number
+   * of IR instructions after building IR, and the time (ns) of each step as step=time pairs
+   * separated by semicolons. Nested steps are named by their path from the outermost step.
+   */
+  public void write(Path path) throws IOException {
+    try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+      writer.write(
+          "method\tprocessings\ttime_ns\tcpu_time_ns\tallocated_bytes\tinstructions\tsteps\n");
+      for (Entry<DexMethod, MethodProfile> entry : getProfilesSortedByMethod()) {
+        MethodProfile profile = entry.getValue();
+        StringBuilder builder = new StringBuilder();
+        builder
+            .append(entry.getKey().toSourceString())
+            .append('\t')
+            .append(profile.numberOfProcessings)
+            .append('\t')
+            .append(profile.time)
+            .append('\t')
+            .append(profile.cpuTime)
+            .append('\t')
+            .append(profile.allocatedBytes)
+            .append('\t')
+            .append(profile.numberOfInstructions)
+            .append('\t');
+        boolean first = true;
+        for (Entry<String, Long> step : profile.stepTimes.entrySet()) {
+          if (!first) {
+            builder.append(';');
+          }
+          builder.append(step.getKey()).append('=').append(step.getValue());
+          first = false;
+        }
+        writer.write(builder.append('\n').toString());
+      }
+    }
+  }
+
+  private static String prettyTime(long value) {
+    return (value / 1000000) + "ms";
+  }
+
+  private static String prettySize(long value) {
+    return (value / 1024) + "k";
+  }
+
+  public class Recording {
+
+    private final DexMethod method;
+    private final long startTime;
+    private final long startCpuTime;
+    private final long startAllocatedBytes;
+
+    private long buildTime = -1;
+    private int numberOfInstructions;
+
+    private Recording(DexMethod method) {
+      this.method = method;
+      this.startCpuTime = getCurrentThreadCpuTime();
+      this.startAllocatedBytes = getCurrentThreadAllocatedBytes();
+      this.startTime = System.nanoTime();
+    }
+
+    /** Records that the IR of the method has been built. */
+    public void recordIRBuilt(IRCode code) {
+      buildTime = System.nanoTime() - startTime;
+      numberOfInstructions = getNumberOfInstructions(code);
+    }
+
+    /** Ends the recording. The given timing must be the timing of processing the method. */
+    public void end(Timing timing) {
+      long time = System.nanoTime() - startTime;
+      long cpuTime = getCurrentThreadCpuTime() - startCpuTime;
+      long allocatedBytes = getCurrentThreadAllocatedBytes() - startAllocatedBytes;
+      MethodProfile profile = profiles.computeIfAbsent(method, ignore -> new MethodProfile());
+      synchronized (profile) {
+        profile.numberOfProcessings++;
+        profile.time += time;
+        profile.cpuTime += cpuTime;
+        profile.allocatedBytes += allocatedBytes;
+        profile.numberOfInstructions = Math.max(profile.numberOfInstructions, numberOfInstructions);
+        if (buildTime >= 0) {
+          profile.stepTimes.merge(BUILD_IR, buildTime, Long::sum);
+        }
+        timing.forEachStep(
+            STEP_SEPARATOR,
+            (step, stepTime) -> profile.stepTimes.merge(step, stepTime, Long::sum));
+      }
+    }
+  }
+
+  private static class MethodProfile {
+
+    int numberOfProcessings = 0;
+    long time = 0;
+    long cpuTime = 0;
+    long allocatedBytes = 0;
+    int numberOfInstructions = 0;
+    final Map<String, Long> stepTimes = new LinkedHashMap<>();
+  }
+}
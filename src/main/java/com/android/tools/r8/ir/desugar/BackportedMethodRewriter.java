@@ -92,6 +92,11 @@ public final class BackportedMethodRewriter implements CfInstructionDesugaring {
         : null;
   }
 
+  @Override
+  public Collection<Class<? extends CfInstruction>> getInstructionTypesToDesugar() {
+    return ImmutableList.of(CfInvoke.class);
+  }
+
   @Override
   public boolean needsDesugaring(CfInstruction instruction, ProgramMethod context) {
     return instruction.isInvoke()
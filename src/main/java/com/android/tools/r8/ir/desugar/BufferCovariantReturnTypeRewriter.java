@@ -85,6 +85,11 @@ public class BufferCovariantReturnTypeRewriter implements CfInstructionDesugarin
         || instruction.isInvokeInterface();
   }
 
+  @Override
+  public Collection<Class<? extends CfInstruction>> getInstructionTypesToDesugar() {
+    return ImmutableList.of(CfInvoke.class);
+  }
+
   @Override
   public boolean needsDesugaring(CfInstruction instruction, ProgramMethod context) {
     if (!isInvokeCandidate(instruction)) {
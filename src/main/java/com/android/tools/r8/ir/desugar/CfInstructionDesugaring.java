@@ -43,6 +43,17 @@ public interface CfInstructionDesugaring {
       CfInstructionDesugaringCollection desugaringCollection,
       DexItemFactory dexItemFactory);
 
+  /**
+   * Returns the types of the instructions that this desugaring may desugar, or null if instructions
+   * of any type may need desugaring.
+   *
+   * <p>{@link #needsDesugaring} must return false for instructions of other types. This allows the
+   * desugaring collection to only query the desugarings that may apply to a given instruction.
+   */
+  default Collection<Class<? extends CfInstruction>> getInstructionTypesToDesugar() {
+    return null;
+  }
+
   /**
    * Returns true if the given instruction needs desugaring.
    *
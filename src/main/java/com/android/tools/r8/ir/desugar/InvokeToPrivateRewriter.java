@@ -49,6 +49,11 @@ public class InvokeToPrivateRewriter implements CfInstructionDesugaring {
     return ImmutableList.of(new CfInvoke(Opcodes.INVOKESPECIAL, method, invoke.isInterface()));
   }
 
+  @Override
+  public Collection<Class<? extends CfInstruction>> getInstructionTypesToDesugar() {
+    return ImmutableList.of(CfInvoke.class);
+  }
+
   @Override
   public boolean needsDesugaring(CfInstruction instruction, ProgramMethod context) {
     if (!instruction.isInvokeVirtual() && !instruction.isInvokeInterface()) {
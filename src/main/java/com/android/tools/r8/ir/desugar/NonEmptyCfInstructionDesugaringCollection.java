@@ -42,6 +42,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
@@ -52,6 +54,11 @@ public class NonEmptyCfInstructionDesugaringCollection extends CfInstructionDesu
   // A special collection of desugarings that yield to all other desugarings.
   private final List<CfInstructionDesugaring> yieldingDesugarings = new ArrayList<>();
 
+  // The desugarings and yielding desugarings that may apply to instructions of a given type. This
+  // is populated lazily since the desugarings can be added to after construction.
+  private final Map<Class<? extends CfInstruction>, DesugaringsForInstructionType>
+      desugaringsByInstructionType = new ConcurrentHashMap<>();
+
   private final NestBasedAccessDesugaring nestBasedAccessDesugaring;
   private final RecordDesugaring recordRewriter;
   private final DesugaredLibraryRetargeter desugaredLibraryRetargeter;
@@ -276,6 +283,11 @@ public class NonEmptyCfInstructionDesugaringCollection extends CfInstructionDesu
       ProgramMethod context,
       MethodProcessingContext methodProcessingContext) {
     // TODO(b/177810578): Migrate other cf-to-cf based desugaring here.
+    DesugaringsForInstructionType desugaringsForInstruction =
+        getDesugaringsForInstruction(instruction);
+    if (desugaringsForInstruction.isEmpty()) {
+      return null;
+    }
     Collection<CfInstruction> replacement =
         applyDesugaring(
             instruction,
@@ -284,7 +296,7 @@ public class NonEmptyCfInstructionDesugaringCollection extends CfInstructionDesu
             eventConsumer,
             context,
             methodProcessingContext,
-            desugarings.iterator());
+            desugaringsForInstruction.desugarings.iterator());
     if (replacement != null) {
       return replacement;
     }
@@ -297,7 +309,7 @@ public class NonEmptyCfInstructionDesugaringCollection extends CfInstructionDesu
         eventConsumer,
         context,
         methodProcessingContext,
-        yieldingDesugarings.iterator());
+        desugaringsForInstruction.yieldingDesugarings.iterator());
   }
 
   private Collection<CfInstruction> applyDesugaring(
@@ -349,10 +361,59 @@ public class NonEmptyCfInstructionDesugaringCollection extends CfInstructionDesu
   }
 
   private boolean needsDesugaring(CfInstruction instruction, ProgramMethod context) {
+    DesugaringsForInstructionType desugaringsForInstruction =
+        getDesugaringsForInstruction(instruction);
+    if (desugaringsForInstruction.isEmpty()) {
+      return false;
+    }
     return Iterables.any(
-            desugarings, desugaring -> desugaring.needsDesugaring(instruction, context))
+            desugaringsForInstruction.desugarings,
+            desugaring -> desugaring.needsDesugaring(instruction, context))
         || Iterables.any(
-            yieldingDesugarings, desugaring -> desugaring.needsDesugaring(instruction, context));
+            desugaringsForInstruction.yieldingDesugarings,
+            desugaring -> desugaring.needsDesugaring(instruction, context));
+  }
+
+  private DesugaringsForInstructionType getDesugaringsForInstruction(CfInstruction instruction) {
+    Class<? extends CfInstruction> instructionType = instruction.getClass();
+    DesugaringsForInstructionType desugaringsForInstruction =
+        desugaringsByInstructionType.get(instructionType);
+    if (desugaringsForInstruction == null) {
+      desugaringsForInstruction =
+          desugaringsByInstructionType.computeIfAbsent(
+              instructionType,
+              type ->
+                  new DesugaringsForInstructionType(
+                      ListUtils.filter(desugarings, d -> mayDesugar(d, type)),
+                      ListUtils.filter(yieldingDesugarings, d -> mayDesugar(d, type))));
+    }
+    return desugaringsForInstruction;
+  }
+
+  private static boolean mayDesugar(
+      CfInstructionDesugaring desugaring, Class<? extends CfInstruction> instructionType) {
+    Collection<Class<? extends CfInstruction>> instructionTypesToDesugar =
+        desugaring.getInstructionTypesToDesugar();
+    return instructionTypesToDesugar == null
+        || Iterables.any(
+            instructionTypesToDesugar, type -> type.isAssignableFrom(instructionType));
+  }
+
+  private static class DesugaringsForInstructionType {
+
+    private final List<CfInstructionDesugaring> desugarings;
+    private final List<CfInstructionDesugaring> yieldingDesugarings;
+
+    DesugaringsForInstructionType(
+        List<CfInstructionDesugaring> desugarings,
+        List<CfInstructionDesugaring> yieldingDesugarings) {
+      this.desugarings = desugarings;
+      this.yieldingDesugarings = yieldingDesugarings;
+    }
+
+    boolean isEmpty() {
+      return desugarings.isEmpty() && yieldingDesugarings.isEmpty();
+    }
   }
 
   private boolean verifyNoOtherDesugaringNeeded(
@@ -390,6 +390,16 @@ public class UnrepresentableInDexInstructionRemover implements CfInstructionDesu
             dexItemFactory);
   }
 
+  @Override
+  public Collection<Class<? extends CfInstruction>> getInstructionTypesToDesugar() {
+    return ImmutableList.of(
+        CfConstDynamic.class,
+        CfConstMethodHandle.class,
+        CfConstMethodType.class,
+        CfInvoke.class,
+        CfInvokeDynamic.class);
+  }
+
   @Override
   public boolean needsDesugaring(CfInstruction instruction, ProgramMethod context) {
     return compute(instruction).needsDesugaring();
@@ -70,6 +70,11 @@ public class ApiInvokeOutlinerDesugaring implements CfInstructionDesugaring {
     return null;
   }
 
+  @Override
+  public Collection<Class<? extends CfInstruction>> getInstructionTypesToDesugar() {
+    return ImmutableList.of(CfInvoke.class);
+  }
+
   @Override
   public boolean needsDesugaring(CfInstruction instruction, ProgramMethod context) {
     if (context.getDefinition().isD8R8Synthesized()) {
@@ -22,6 +22,7 @@ import com.android.tools.r8.ir.desugar.FreshLocalProvider;
 import com.android.tools.r8.ir.desugar.LocalStackAllocator;
 import com.android.tools.r8.position.MethodPosition;
 import com.android.tools.r8.utils.Box;
+import com.google.common.collect.ImmutableList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
@@ -118,6 +119,11 @@ public class ConstantDynamicInstructionDesugaring implements CfInstructionDesuga
     }
   }
 
+  @Override
+  public Collection<Class<? extends CfInstruction>> getInstructionTypesToDesugar() {
+    return ImmutableList.of(CfConstDynamic.class);
+  }
+
   @Override
   public boolean needsDesugaring(CfInstruction instruction, ProgramMethod context) {
     return computeDesugaring(instruction, context).needsDesugaring();
@@ -36,6 +36,11 @@ public class InvokeSpecialToSelfDesugaring implements CfInstructionDesugaring {
     this.dexItemFactory = appView.dexItemFactory();
   }
 
+  @Override
+  public Collection<Class<? extends CfInstruction>> getInstructionTypesToDesugar() {
+    return ImmutableList.of(CfInvoke.class);
+  }
+
   @Override
   public boolean needsDesugaring(CfInstruction instruction, ProgramMethod context) {
     if (instruction.isInvokeSpecial()) {
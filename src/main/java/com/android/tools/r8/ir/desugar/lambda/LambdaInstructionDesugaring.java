@@ -181,6 +181,11 @@ public class LambdaInstructionDesugaring implements CfInstructionDesugaring {
     return lambdaClass;
   }
 
+  @Override
+  public Collection<Class<? extends CfInstruction>> getInstructionTypesToDesugar() {
+    return ImmutableList.of(CfInvokeDynamic.class);
+  }
+
   @Override
   public boolean needsDesugaring(CfInstruction instruction, ProgramMethod context) {
     return isLambdaInvoke(instruction, context, appView);
@@ -249,6 +249,11 @@ public class NestBasedAccessDesugaring implements CfInstructionDesugaring {
         code.asCfCode().getInstructions(), instruction -> needsDesugaring(instruction, method));
   }
 
+  @Override
+  public Collection<Class<? extends CfInstruction>> getInstructionTypesToDesugar() {
+    return ImmutableList.of(CfFieldInstruction.class, CfInvoke.class);
+  }
+
   @Override
   public boolean needsDesugaring(CfInstruction instruction, ProgramMethod context) {
     if (instruction.isFieldInstruction()) {
@@ -611,16 +611,27 @@ public final class DefaultInliningOracle implements InliningOracle, InliningStra
     if (inlinee.reason.mustBeInlined()) {
       return false;
     }
-    return willExceedInstructionBudget(inlinee, whyAreYouNotInliningReporter)
+    return willExceedInstructionBudget(
+            Inliner.numberOfInstructions(inlinee.code), whyAreYouNotInliningReporter)
         || willExceedMonitorEnterValuesBudget(code, invoke, inlinee, whyAreYouNotInliningReporter)
         || willExceedControlFlowResolutionBlocksBudget(
             inlinee, block, whyAreYouNotInliningReporter);
   }
 
+  @Override
+  public boolean willExceedInstructionBudget(
+      InlineAction action,
+      int numberOfInstructions,
+      WhyAreYouNotInliningReporter whyAreYouNotInliningReporter) {
+    if (action.reason.mustBeInlined()) {
+      return false;
+    }
+    return willExceedInstructionBudget(numberOfInstructions, whyAreYouNotInliningReporter);
+  }
+
   private boolean willExceedInstructionBudget(
-      InlineeWithReason inlinee, WhyAreYouNotInliningReporter whyAreYouNotInliningReporter) {
-    int numberOfInstructions = Inliner.numberOfInstructions(inlinee.code);
-    if (instructionAllowance < Inliner.numberOfInstructions(inlinee.code)) {
+      int numberOfInstructions, WhyAreYouNotInliningReporter whyAreYouNotInliningReporter) {
+    if (instructionAllowance < numberOfInstructions) {
       whyAreYouNotInliningReporter.reportWillExceedInstructionBudget(
           numberOfInstructions, instructionAllowance);
       return true;
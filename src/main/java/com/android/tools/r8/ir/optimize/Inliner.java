@@ -51,9 +51,11 @@ import com.android.tools.r8.ir.conversion.LensCodeRewriter;
 import com.android.tools.r8.ir.conversion.MethodProcessor;
 import com.android.tools.r8.ir.conversion.PostMethodProcessor;
 import com.android.tools.r8.ir.optimize.SimpleDominatingEffectAnalysis.SimpleEffectAnalysisResult;
+import com.android.tools.r8.ir.optimize.classinliner.ClassInliner;
 import com.android.tools.r8.ir.optimize.info.OptimizationFeedback;
 import com.android.tools.r8.ir.optimize.info.OptimizationFeedbackIgnore;
 import com.android.tools.r8.ir.optimize.inliner.DefaultInliningReasonStrategy;
+import com.android.tools.r8.ir.optimize.inliner.InlineeSizeCache;
 import com.android.tools.r8.ir.optimize.inliner.InliningIRProvider;
 import com.android.tools.r8.ir.optimize.inliner.InliningReasonStrategy;
 import com.android.tools.r8.ir.optimize.inliner.NopWhyAreYouNotInliningReporter;
@@ -106,6 +108,9 @@ public class Inliner {
 
   private final AvailableApiExceptions availableApiExceptions;
 
+  // Cache of the number of instructions in the inlining IR of inlinees, or null if disabled.
+  private final InlineeSizeCache inlineeSizeCache;
+
   public Inliner(
       AppView<AppInfoWithLiveness> appView,
       IRConverter converter,
@@ -121,6 +126,8 @@ public class Inliner {
         appView.options().canHaveDalvikCatchHandlerVerificationBug()
             ? new AvailableApiExceptions(appView.options())
             : null;
+    this.inlineeSizeCache =
+        appView.options().inlinerOptions().enableInlineeSizeCache ? new InlineeSizeCache() : null;
   }
 
   private ConstraintWithTarget instructionAllowedForInlining(
@@ -542,6 +549,19 @@ public class Inliner {
       shouldEnsureStaticInitialization = true;
     }
 
+    /**
+     * Returns true if the inlining IR built by {@link #buildInliningIR} only depends on the target,
+     * the method processor and whether the receiver may be null.
+     */
+    boolean isInlineeSizeCacheApplicable(AppView<AppInfoWithLiveness> appView) {
+      // The IR of instance initializers has already been built to check if the instance
+      // initializer can be inlined, and the insertion of init class instructions depends on the
+      // caller.
+      return !target.getDefinition().isInstanceInitializer()
+          && !shouldEnsureStaticInitialization
+          && appView.options().testing.inlineeIrModifier == null;
+    }
+
     InlineeWithReason buildInliningIR(
         AppView<AppInfoWithLiveness> appView,
         InvokeMethod invoke,
@@ -857,6 +877,7 @@ public class Inliner {
         code,
         OptimizationFeedbackIgnore.getInstance(),
         inliningIRProvider,
+        null,
         methodProcessor,
         timing);
   }
@@ -894,7 +915,15 @@ public class Inliner {
         new InliningIRProvider(appView, method, code, methodProcessor);
     assert inliningIRProvider.verifyIRCacheIsEmpty();
     performInliningImpl(
-        oracle, oracle, method, code, feedback, inliningIRProvider, methodProcessor, timing);
+        oracle,
+        oracle,
+        method,
+        code,
+        feedback,
+        inliningIRProvider,
+        inlineeSizeCache,
+        methodProcessor,
+        timing);
   }
 
   public InliningReasonStrategy createDefaultInliningReasonStrategy(
@@ -937,6 +966,7 @@ public class Inliner {
       IRCode code,
       OptimizationFeedback feedback,
       InliningIRProvider inliningIRProvider,
+      InlineeSizeCache inlineeSizeCache,
       MethodProcessor methodProcessor,
       Timing timing) {
     AssumeRemover assumeRemover = new AssumeRemover(appView, code);
@@ -1026,9 +1056,36 @@ public class Inliner {
             continue;
           }
 
+          // Reject the inlinee without building its IR if the size of its IR is known to exceed the
+          // instruction budget.
+          boolean isInlineeSizeCacheApplicable =
+              inlineeSizeCache != null && action.isInlineeSizeCacheApplicable(appView);
+          boolean mayRequireReceiverNullCheck =
+              invoke.isInvokeMethodWithReceiver()
+                  && invoke.asInvokeMethodWithReceiver().getReceiver().isMaybeNull();
+          if (isInlineeSizeCacheApplicable) {
+            int numberOfInstructions =
+                inlineeSizeCache.getNumberOfInstructions(
+                    singleTarget, methodProcessor, mayRequireReceiverNullCheck);
+            if (numberOfInstructions >= 0
+                && strategy.willExceedInstructionBudget(
+                    action, numberOfInstructions, whyAreYouNotInliningReporter)) {
+              assert whyAreYouNotInliningReporter.unsetReasonHasBeenReportedFlag();
+              inlineeSizeCache.recordAvoidedIRBuild();
+              continue;
+            }
+          }
+
           InlineeWithReason inlinee =
               action.buildInliningIR(
                   appView, invoke, context, inliningIRProvider, lensCodeRewriter);
+          if (isInlineeSizeCacheApplicable) {
+            inlineeSizeCache.recordNumberOfInstructions(
+                singleTarget,
+                methodProcessor,
+                mayRequireReceiverNullCheck,
+                numberOfInstructions(inlinee.code));
+          }
           if (strategy.willExceedBudget(
               code, invoke, inlinee, block, whyAreYouNotInliningReporter)) {
             assert whyAreYouNotInliningReporter.unsetReasonHasBeenReportedFlag();
@@ -1287,11 +1344,37 @@ public class Inliner {
     singleCallerInlinedMethodsInWave.clear();
   }
 
+  /**
+   * Discards data that the class inliner and the multi caller inliner retain across waves when its
+   * estimated size exceeds {@link InlinerOptions#retainedDataBudgetInMegabytes}. The class inliner
+   * cache is discarded first, since it can be recomputed on demand. Both may change the inlining
+   * decisions compared to compiling without a budget, but the decisions remain deterministic since
+   * data is only discarded at wave boundaries.
+   */
+  public void enforceRetainedDataBudget(ClassInliner classInliner) {
+    InlinerOptions inlinerOptions = appView.options().inlinerOptions();
+    if (!inlinerOptions.hasRetainedDataBudget()) {
+      return;
+    }
+    long budget = inlinerOptions.getRetainedDataBudgetInBytes();
+    long multiCallerInlinerBytes = multiCallerInliner.getEstimatedRetainedBytes();
+    if (classInliner != null
+        && multiCallerInlinerBytes + classInliner.getEstimatedRetainedBytes() > budget) {
+      classInliner.discardRetainedData();
+    }
+    if (multiCallerInlinerBytes > budget) {
+      multiCallerInliner.reduceRetainedBytes(multiCallerInlinerBytes, budget);
+    }
+  }
+
   public void onLastWaveDone(
       PostMethodProcessor.Builder postMethodProcessorBuilder,
       ExecutorService executorService,
       Timing timing)
       throws ExecutionException {
+    if (inlineeSizeCache != null) {
+      inlineeSizeCache.clear();
+    }
     postMethodProcessorBuilder
         .rewrittenWithLens(appView)
         .merge(
@@ -1304,6 +1387,15 @@ public class Inliner {
     multiCallerInliner.onLastWaveDone(postMethodProcessorBuilder, executorService, timing);
   }
 
+  public void onPostMethodProcessingDone() {
+    if (inlineeSizeCache != null) {
+      inlineeSizeCache.clear();
+      if (appView.options().inlinerOptions().printInlineeSizeCacheStatistics) {
+        inlineeSizeCache.reportStatistics(appView.reporter());
+      }
+    }
+  }
+
   public static boolean verifyAllSingleCallerMethodsHaveBeenPruned(
       AppView<AppInfoWithLiveness> appView) {
     for (DexProgramClass clazz : appView.appInfo().classesWithDeterministicOrder()) {
@@ -52,6 +52,19 @@ interface InliningStrategy {
       BasicBlock block,
       WhyAreYouNotInliningReporter whyAreYouNotInliningReporter);
 
+  /**
+   * Check if an inlinee with the given number of instructions will exceed the instruction budget
+   * for inlining into the current method. This allows rejecting the inlinee before its IR is built.
+   *
+   * <p>Return true if the strategy will *not* allow inlining.
+   */
+  default boolean willExceedInstructionBudget(
+      InlineAction action,
+      int numberOfInstructions,
+      WhyAreYouNotInliningReporter whyAreYouNotInliningReporter) {
+    return false;
+  }
+
   /** Inform the strategy that the inlinee has been inlined. */
   void markInlined(InlineeWithReason inlinee);
 
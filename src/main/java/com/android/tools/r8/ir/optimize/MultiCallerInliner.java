@@ -32,6 +32,9 @@ import com.android.tools.r8.utils.collections.LongLivedProgramMethodSetBuilder;
 import com.android.tools.r8.utils.collections.ProgramMethodMap;
 import com.android.tools.r8.utils.collections.ProgramMethodMultiset;
 import com.android.tools.r8.utils.collections.ProgramMethodSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -41,6 +44,12 @@ import java.util.concurrent.ExecutorService;
 //  we should disallow inlining into it).
 public class MultiCallerInliner {
 
+  // Rough estimates of the retained size of an entry in multiInlineCallEdges and of each distinct
+  // caller in a tracked set of call sites, used to bound the memory of this analysis.
+  private static final int ESTIMATED_BYTES_PER_METHOD = 96;
+  private static final int ESTIMATED_BYTES_PER_TRACKED_METHOD = 160;
+  private static final int ESTIMATED_BYTES_PER_CALLER = 96;
+
   private final AppView<AppInfoWithLiveness> appView;
 
   // Maps each method to the set of inlineable call sites targeting the method, or Optional.empty()
@@ -182,6 +191,52 @@ public class MultiCallerInliner {
     multiInlineCallEdges.put(method, Optional.empty());
   }
 
+  long getEstimatedRetainedBytes() {
+    long[] estimatedRetainedBytes = {0};
+    multiInlineCallEdges.forEach(
+        (method, value) -> estimatedRetainedBytes[0] += getEstimatedRetainedBytes(value));
+    return estimatedRetainedBytes[0];
+  }
+
+  private static long getEstimatedRetainedBytes(Optional<ProgramMethodMultiset> value) {
+    if (!value.isPresent()) {
+      return ESTIMATED_BYTES_PER_METHOD;
+    }
+    return ESTIMATED_BYTES_PER_TRACKED_METHOD
+        + (long) ESTIMATED_BYTES_PER_CALLER * value.get().getNumberOfDistinctElements();
+  }
+
+  /**
+   * Stops tracking the call sites of the methods with the most callers until the estimated size of
+   * the retained data is within the given budget. The methods that are no longer tracked are
+   * conservatively treated as ineligible for multi caller inlining.
+   *
+   * <p>This must only be called between two waves, such that the result is deterministic.
+   */
+  void reduceRetainedBytes(long estimatedRetainedBytes, long budget) {
+    List<ProgramMethod> trackedMethods = new ArrayList<>();
+    multiInlineCallEdges.forEach(
+        (method, value) -> {
+          if (value.isPresent()) {
+            trackedMethods.add(method);
+          }
+        });
+    trackedMethods.sort(
+        Comparator.<ProgramMethod>comparingInt(
+                method ->
+                    -multiInlineCallEdges.get(method).get().getNumberOfDistinctElements())
+            .thenComparing(ProgramMethod::getReference));
+    for (ProgramMethod method : trackedMethods) {
+      if (estimatedRetainedBytes <= budget) {
+        break;
+      }
+      estimatedRetainedBytes -=
+          getEstimatedRetainedBytes(multiInlineCallEdges.get(method))
+              - ESTIMATED_BYTES_PER_METHOD;
+      stopTrackingCallSitesForMethod(method);
+    }
+  }
+
   void onMethodPruned(ProgramMethod method) {
     assert !multiInlineCallEdges.containsKey(method);
   }
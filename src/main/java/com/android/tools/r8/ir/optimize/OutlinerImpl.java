@@ -6,6 +6,7 @@ package com.android.tools.r8.ir.optimize;
 
 import static com.android.tools.r8.ir.analysis.type.Nullability.definitelyNotNull;
 import static com.android.tools.r8.ir.analysis.type.Nullability.maybeNull;
+import static com.android.tools.r8.utils.MapUtils.ignoreKey;
 
 import com.android.tools.r8.androidapi.ComputedApiLevel;
 import com.android.tools.r8.contexts.CompilationContext.MethodProcessingContext;
@@ -66,6 +67,8 @@ import com.android.tools.r8.ir.optimize.info.OptimizationFeedbackDelayed;
 import com.android.tools.r8.ir.optimize.info.OptimizationFeedbackIgnore;
 import com.android.tools.r8.ir.optimize.outliner.OutlineCollection;
 import com.android.tools.r8.ir.optimize.outliner.Outliner;
+import com.android.tools.r8.ir.optimize.outliner.RepeatedSequenceFinder;
+import com.android.tools.r8.ir.optimize.outliner.RepeatedSequenceFinder.RepeatedSequence;
 import com.android.tools.r8.naming.ClassNameMapper;
 import com.android.tools.r8.origin.Origin;
 import com.android.tools.r8.shaking.AppInfoWithLiveness;
@@ -80,7 +83,11 @@ import com.android.tools.r8.utils.collections.ProgramMethodSet;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import java.lang.ref.SoftReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
@@ -90,9 +97,12 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Support class for implementing outlining (i.e. extracting common code patterns as methods).
@@ -131,6 +141,13 @@ public class OutlinerImpl extends Outliner {
   /** Result of third step (see {@link OutlinerImpl#buildOutlineMethods()}. */
   private final Map<Outline, DexMethod> generatedOutlines = new HashMap<>();
 
+  /**
+   * The instruction windows of each method selected for outlining that contain a repeated
+   * instruction sequence, when using {@link OutlineOptions#enableSuffixArrayCandidateDiscovery}.
+   * When null, outline sites are identified in all instructions of the selected methods.
+   */
+  private Map<DexMethod, List<OutlineWindow>> outlineWindows;
+
   static final int MAX_IN_SIZE = 5;  // Avoid using ranged calls for outlined code.
 
   private final AppView<AppInfoWithLiveness> appView;
@@ -1347,20 +1364,33 @@ public class OutlinerImpl extends Outliner {
     timing.begin("IR conversion phase 3");
     ProgramMethodSet methodsSelectedForOutlining = selectMethodsForOutlining();
     if (!methodsSelectedForOutlining.isEmpty()) {
-      forEachSelectedOutliningMethod(
-          converter,
-          methodsSelectedForOutlining,
-          code -> {
-            converter.printMethod(code, "IR before outlining (SSA)", null);
-            identifyOutlineSites(code);
-          },
-          executorService);
+      // The IR that is built for identifying the outline sites is retained for applying the
+      // outlines, unless the IR cache is full or the garbage collector needs the memory.
+      OutliningIRCache irCache =
+          new OutliningIRCache(appView.options().outline.maxNumberOfCachedIRInstructions);
+      if (appView.options().outline.enableSuffixArrayCandidateDiscovery) {
+        identifyOutlineSitesUsingSuffixArray(
+            converter, methodsSelectedForOutlining, irCache, executorService, timing);
+      } else {
+        forEachSelectedOutliningMethod(
+            methodsSelectedForOutlining,
+            method -> buildIRForOutlining(converter, method),
+            code -> {
+              converter.printMethod(code, "IR before outlining (SSA)", null);
+              identifyOutlineSites(code);
+              irCache.put(code);
+            },
+            executorService);
+      }
       List<ProgramMethod> outlineMethods = buildOutlineMethods();
       converter.optimizeSynthesizedMethods(outlineMethods, executorService);
       feedback.updateVisibleOptimizationInfo();
       forEachSelectedOutliningMethod(
-          converter,
           methodsSelectedForOutlining,
+          method -> {
+            IRCode code = irCache.remove(method);
+            return code != null ? code : buildIRForOutlining(converter, method);
+          },
           code -> {
             applyOutliningCandidate(code);
             converter.printMethod(code, "IR after outlining (SSA)", null);
@@ -1373,35 +1403,271 @@ public class OutlinerImpl extends Outliner {
       feedback.updateVisibleOptimizationInfo();
       assert checkAllOutlineSitesFoundAgain();
       outlineMethods.forEach(m -> m.getDefinition().markNotProcessed());
+      outlineWindows = null;
     }
     timing.end();
   }
 
-  private void forEachSelectedOutliningMethod(
+  private void identifyOutlineSitesUsingSuffixArray(
       IRConverter converter,
       ProgramMethodSet methodsSelectedForOutlining,
+      OutliningIRCache irCache,
+      ExecutorService executorService,
+      Timing timing)
+      throws ExecutionException {
+    // Linearize the instructions of all selected methods into a token stream and find the
+    // instruction sequences that are repeated sufficiently often.
+    timing.begin("Tokenize");
+    Map<DexMethod, List<InstructionSequenceTokens>> tokensPerMethod = new ConcurrentHashMap<>();
+    forEachSelectedOutliningMethod(
+        methodsSelectedForOutlining,
+        method -> buildIRForOutlining(converter, method),
+        code -> {
+          converter.printMethod(code, "IR before outlining (SSA)", null);
+          tokensPerMethod.put(code.context().getReference(), tokenize(code));
+          irCache.put(code);
+        },
+        executorService);
+    timing.end();
+    timing.begin("Find repeated sequences");
+    outlineWindows = computeOutlineWindows(tokensPerMethod, executorService);
+    timing.end();
+    // Identify the outline sites in the windows of the methods that contain a repeated sequence.
+    timing.begin("Identify outline sites");
+    ProgramMethodSet methodsWithOutlineWindows = ProgramMethodSet.create();
+    methodsSelectedForOutlining.forEach(
+        method -> {
+          if (outlineWindows.containsKey(method.getReference())) {
+            methodsWithOutlineWindows.add(method);
+          }
+        });
+    forEachSelectedOutliningMethod(
+        methodsWithOutlineWindows,
+        method -> {
+          IRCode code = irCache.remove(method);
+          return code != null ? code : buildIRForOutlining(converter, method);
+        },
+        code -> {
+          identifyOutlineSites(code);
+          irCache.put(code);
+        },
+        executorService);
+    timing.end();
+  }
+
+  private List<InstructionSequenceTokens> tokenize(IRCode code) {
+    List<InstructionSequenceTokens> result = new ArrayList<>();
+    getInstructions(
+        appView,
+        code,
+        instructions -> {
+          List<OutlineInstruction> templates = new ArrayList<>(instructions.size());
+          IntList instructionIndices = new IntArrayList(instructions.size());
+          for (int i = 0; i < instructions.size(); i++) {
+            Instruction instruction = instructions.get(i);
+            if (instruction.isConstInstruction() || instruction.isAssume()) {
+              // Not part of the outline template.
+              continue;
+            }
+            if (instruction.isInvokeMethod()
+                || instruction.isNewInstance()
+                || instruction.isArithmeticBinop()) {
+              templates.add(OutlineInstruction.fromInstruction(instruction));
+            } else {
+              // Instructions that cannot be outlined separate the instruction sequences.
+              templates.add(null);
+            }
+            instructionIndices.add(i);
+          }
+          result.add(new InstructionSequenceTokens(templates, instructionIndices.toIntArray()));
+        });
+    return result;
+  }
+
+  private Map<DexMethod, List<OutlineWindow>> computeOutlineWindows(
+      Map<DexMethod, List<InstructionSequenceTokens>> tokensPerMethod,
+      ExecutorService executorService)
+      throws ExecutionException {
+    // Build the token stream from the methods in a deterministic order. Each distinct template
+    // instruction is a non-negative token, and each separator is a distinct negative token. The
+    // instruction sequences are terminated by a separator.
+    List<DexMethod> methods = new ArrayList<>(tokensPerMethod.keySet());
+    methods.sort(Comparator.naturalOrder());
+    Map<OutlineInstruction, Integer> tokenIds = new HashMap<>();
+    IntList tokens = new IntArrayList();
+    List<DexMethod> sequenceMethods = new ArrayList<>();
+    List<InstructionSequenceTokens> sequences = new ArrayList<>();
+    IntList sequenceIndicesInMethod = new IntArrayList();
+    IntList sequenceStarts = new IntArrayList();
+    for (DexMethod method : methods) {
+      List<InstructionSequenceTokens> sequencesInMethod = tokensPerMethod.get(method);
+      for (int i = 0; i < sequencesInMethod.size(); i++) {
+        InstructionSequenceTokens sequence = sequencesInMethod.get(i);
+        sequenceMethods.add(method);
+        sequences.add(sequence);
+        sequenceIndicesInMethod.add(i);
+        sequenceStarts.add(tokens.size());
+        for (OutlineInstruction template : sequence.templates) {
+          tokens.add(
+              template != null
+                  ? tokenIds.computeIfAbsent(template, ignoreKey(tokenIds::size))
+                  : -tokens.size() - 1);
+        }
+        tokens.add(-tokens.size() - 1);
+      }
+    }
+    OutlineOptions outlineOptions = appView.options().outline;
+    List<RepeatedSequence> repeatedSequences =
+        new RepeatedSequenceFinder(
+                tokens.toIntArray(),
+                tokenIds.size(),
+                outlineOptions.minSize,
+                outlineOptions.maxSize,
+                outlineOptions.threshold)
+            .run(executorService);
+    // Map the occurrences of the repeated sequences back to windows of the instruction sequences.
+    Map<DexMethod, List<OutlineWindow>> result = new IdentityHashMap<>();
+    int[] sequenceStartsArray = sequenceStarts.toIntArray();
+    for (RepeatedSequence repeatedSequence : repeatedSequences) {
+      for (int start : repeatedSequence.getStarts()) {
+        int sequenceIndex = Arrays.binarySearch(sequenceStartsArray, start);
+        if (sequenceIndex < 0) {
+          sequenceIndex = -sequenceIndex - 2;
+        }
+        InstructionSequenceTokens sequence = sequences.get(sequenceIndex);
+        int firstToken = start - sequenceStartsArray[sequenceIndex];
+        int lastToken = firstToken + repeatedSequence.getLength() - 1;
+        result
+            .computeIfAbsent(sequenceMethods.get(sequenceIndex), ignoreKey(ArrayList::new))
+            .add(
+                new OutlineWindow(
+                    sequenceIndicesInMethod.getInt(sequenceIndex),
+                    sequence.instructionIndices[firstToken],
+                    sequence.instructionIndices[lastToken] + 1));
+      }
+    }
+    // Process the windows of each method in instruction order.
+    result.values().forEach(windows -> windows.sort(OutlineWindow::compareTo));
+    return result;
+  }
+
+  private void forEachSelectedOutliningMethod(
+      ProgramMethodSet methodsSelectedForOutlining,
+      Function<ProgramMethod, IRCode> irProvider,
       Consumer<IRCode> consumer,
       ExecutorService executorService)
       throws ExecutionException {
     assert !appView.options().skipIR;
     ThreadUtils.processItems(
         methodsSelectedForOutlining,
-        method -> {
-          IRCode code = method.buildIR(appView);
-          assert code != null;
-          assert !method.getDefinition().getCode().isOutlineCode();
-          // Instead of repeating all the optimizations of rewriteCode(), only run the
-          // optimizations needed for outlining: rewriteMoveResult() to remove out-values on
-          // StringBuilder/StringBuffer method invocations, and removeDeadCode() to remove
-          // unused out-values.
-          converter.codeRewriter.rewriteMoveResult(code);
-          converter.deadCodeRemover.run(code, Timing.empty());
-          CodeRewriter.removeAssumeInstructions(appView, code);
-          consumer.accept(code);
-        },
+        method -> consumer.accept(irProvider.apply(method)),
         executorService);
   }
 
+  private IRCode buildIRForOutlining(IRConverter converter, ProgramMethod method) {
+    IRCode code = method.buildIR(appView);
+    assert code != null;
+    assert !method.getDefinition().getCode().isOutlineCode();
+    // Instead of repeating all the optimizations of rewriteCode(), only run the
+    // optimizations needed for outlining: rewriteMoveResult() to remove out-values on
+    // StringBuilder/StringBuffer method invocations, and removeDeadCode() to remove
+    // unused out-values.
+    converter.codeRewriter.rewriteMoveResult(code);
+    converter.deadCodeRemover.run(code, Timing.empty());
+    CodeRewriter.removeAssumeInstructions(appView, code);
+    return code;
+  }
+
+  // The outline template instructions of an instruction sequence returned by getInstructions(),
+  // where null represents an instruction that cannot be outlined. Const and assume instructions
+  // are not represented.
+  private static class InstructionSequenceTokens {
+
+    private final List<OutlineInstruction> templates;
+    // The index in the instruction sequence of the instruction of each template.
+    private final int[] instructionIndices;
+
+    InstructionSequenceTokens(List<OutlineInstruction> templates, int[] instructionIndices) {
+      this.templates = templates;
+      this.instructionIndices = instructionIndices;
+    }
+  }
+
+  // The instructions [start, end[ of the instruction sequence with the given index.
+  private static class OutlineWindow implements Comparable<OutlineWindow> {
+
+    private final int sequenceIndex;
+    private final int start;
+    private final int end;
+
+    OutlineWindow(int sequenceIndex, int start, int end) {
+      this.sequenceIndex = sequenceIndex;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public int compareTo(OutlineWindow other) {
+      int result = Integer.compare(sequenceIndex, other.sequenceIndex);
+      return result != 0 ? result : Integer.compare(start, other.start);
+    }
+  }
+
+  /**
+   * Softly retains the IR of the methods selected for outlining between identifying the outline
+   * sites and applying the outlines, such that the IR only needs to be built once. The total
+   * number of cached instructions is bounded, and IR that is not cached or has been reclaimed by
+   * the garbage collector is rebuilt.
+   */
+  private static class OutliningIRCache {
+
+    private final Map<DexMethod, CacheEntry> cache = new ConcurrentHashMap<>();
+    private final AtomicInteger remainingNumberOfInstructions;
+
+    OutliningIRCache(int maxNumberOfInstructions) {
+      this.remainingNumberOfInstructions = new AtomicInteger(maxNumberOfInstructions);
+    }
+
+    void put(IRCode code) {
+      int numberOfInstructions = 0;
+      for (BasicBlock block : code.blocks) {
+        numberOfInstructions += block.size();
+      }
+      if (remainingNumberOfInstructions.addAndGet(-numberOfInstructions) >= 0) {
+        CacheEntry previous =
+            cache.put(
+                code.context().getReference(),
+                new CacheEntry(new SoftReference<>(code), numberOfInstructions));
+        if (previous != null) {
+          remainingNumberOfInstructions.addAndGet(previous.numberOfInstructions);
+        }
+      } else {
+        remainingNumberOfInstructions.addAndGet(numberOfInstructions);
+      }
+    }
+
+    IRCode remove(ProgramMethod method) {
+      CacheEntry entry = cache.remove(method.getReference());
+      if (entry == null) {
+        return null;
+      }
+      // Give back the budget of the removed code, also if it has been garbage collected.
+      remainingNumberOfInstructions.addAndGet(entry.numberOfInstructions);
+      return entry.code.get();
+    }
+
+    private static class CacheEntry {
+
+      private final SoftReference<IRCode> code;
+      private final int numberOfInstructions;
+
+      CacheEntry(SoftReference<IRCode> code, int numberOfInstructions) {
+        this.code = code;
+        this.numberOfInstructions = numberOfInstructions;
+      }
+    }
+  }
+
   @Override
   public void rewriteWithLens() {
     // Rewrite the outline collection with the graph lens, such that the reprocessing of methods
@@ -1491,10 +1757,25 @@ public class OutlinerImpl extends Outliner {
     ProgramMethod context = code.context();
     assert !context.getDefinition().getCode().isOutlineCode();
     assert !ClassToFeatureSplitMap.isInFeature(context.getHolder(), appView);
-    getInstructions(
-        appView,
-        code,
-        instructions -> new OutlineSiteIdentifier(context, code, instructions).process());
+    forEachOutliningCandidateInstructions(
+        code, instructions -> new OutlineSiteIdentifier(context, code, instructions).process());
+  }
+
+  private void forEachOutliningCandidateInstructions(
+      IRCode code, Consumer<List<Instruction>> consumer) {
+    if (outlineWindows == null) {
+      getInstructions(appView, code, consumer);
+      return;
+    }
+    List<OutlineWindow> windows = outlineWindows.get(code.context().getReference());
+    if (windows == null) {
+      return;
+    }
+    List<List<Instruction>> sequences = new ArrayList<>();
+    getInstructions(appView, code, sequences::add);
+    for (OutlineWindow window : windows) {
+      consumer.accept(sequences.get(window.sequenceIndex).subList(window.start, window.end));
+    }
   }
 
   public ProgramMethodSet selectMethodsForOutlining() {
@@ -1577,8 +1858,7 @@ public class OutlinerImpl extends Outliner {
     assert !code.context().getDefinition().getCode().isOutlineCode();
     Set<Instruction> toRemove = Sets.newIdentityHashSet();
     Set<Instruction> invokesToOutlineMethods = Sets.newIdentityHashSet();
-    getInstructions(
-        appView,
+    forEachOutliningCandidateInstructions(
         code,
         instructions ->
             new OutlineRewriter(code, instructions, toRemove, invokesToOutlineMethods).process());
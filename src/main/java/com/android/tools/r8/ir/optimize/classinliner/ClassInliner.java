@@ -47,6 +47,9 @@ public final class ClassInliner {
   private final ConcurrentHashMap<DexClass, EligibilityStatus> knownClasses =
       new ConcurrentHashMap<>();
 
+  // Rough estimate of the retained size of an entry in knownClasses.
+  private static final int ESTIMATED_BYTES_PER_KNOWN_CLASS = 48;
+
   // Process method code and inline eligible class instantiations, in short:
   //
   // - collect all 'new-instance' and 'static-get' instructions (called roots below) in
@@ -262,6 +265,20 @@ public final class ClassInliner {
     }
   }
 
+  public long getEstimatedRetainedBytes() {
+    return (long) ESTIMATED_BYTES_PER_KNOWN_CLASS * knownClasses.size();
+  }
+
+  /**
+   * Discards the cached class eligibility, which is recomputed on demand.
+   *
+   * <p>The recomputed eligibility is based on the optimization info at the time of recomputation,
+   * so it may differ from the discarded value and change later class inlining decisions.
+   */
+  public void discardRetainedData() {
+    knownClasses.clear();
+  }
+
   private EligibilityStatus isClassEligible(
       AppView<AppInfoWithLiveness> appView, DexProgramClass clazz) {
     EligibilityStatus eligible = knownClasses.get(clazz);
@@ -17,6 +17,7 @@ import com.android.tools.r8.ir.conversion.MethodProcessor;
 import com.android.tools.r8.ir.conversion.PostMethodProcessor.Builder;
 import com.android.tools.r8.ir.optimize.info.OptimizationFeedbackDelayed;
 import com.android.tools.r8.shaking.AppInfoWithLiveness;
+import com.android.tools.r8.utils.Timing;
 import java.util.Collections;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
@@ -75,7 +76,8 @@ public class EmptyEnumUnboxer extends EnumUnboxer {
       IRConverter converter,
       Builder postMethodProcessorBuilder,
       ExecutorService executorService,
-      OptimizationFeedbackDelayed feedback) {
+      OptimizationFeedbackDelayed feedback,
+      Timing timing) {
     appView.setUnboxedEnums(EnumDataMap.empty());
   }
 
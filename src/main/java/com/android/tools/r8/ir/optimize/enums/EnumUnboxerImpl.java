@@ -101,6 +101,8 @@ import com.android.tools.r8.shaking.AppInfoWithLiveness;
 import com.android.tools.r8.shaking.KeepInfoCollection;
 import com.android.tools.r8.utils.Reporter;
 import com.android.tools.r8.utils.StringDiagnostic;
+import com.android.tools.r8.utils.ThreadUtils;
+import com.android.tools.r8.utils.Timing;
 import com.android.tools.r8.utils.collections.ImmutableInt2ReferenceSortedMap;
 import com.android.tools.r8.utils.collections.LongLivedClassSetBuilder;
 import com.android.tools.r8.utils.collections.LongLivedProgramMethodMapBuilder;
@@ -629,12 +631,14 @@ public class EnumUnboxerImpl extends EnumUnboxer {
       IRConverter converter,
       Builder postMethodProcessorBuilder,
       ExecutorService executorService,
-      OptimizationFeedbackDelayed feedback)
+      OptimizationFeedbackDelayed feedback,
+      Timing timing)
       throws ExecutionException {
     assert feedback.noUpdatesLeft();
 
+    timing.begin("Enum unboxing");
     assert candidatesToRemoveInWave.isEmpty();
-    EnumDataMap enumDataMap = finishAnalysis();
+    EnumDataMap enumDataMap = finishAnalysis(executorService, timing);
     assert candidatesToRemoveInWave.isEmpty();
 
     // At this point the enum unboxing candidates are no longer candidates, they will all be
@@ -644,6 +648,7 @@ public class EnumUnboxerImpl extends EnumUnboxer {
 
     if (enumUnboxingCandidatesInfo.isEmpty()) {
       assert enumDataMap.isEmpty();
+      timing.end();
       return;
     }
 
@@ -657,12 +662,15 @@ public class EnumUnboxerImpl extends EnumUnboxer {
     // Update keep info on any of the enum methods of the removed classes.
     updateKeepInfo(enumsToUnbox);
 
+    timing.begin("Synthesize utility classes");
     EnumUnboxingUtilityClasses utilityClasses =
         EnumUnboxingUtilityClasses.builder(appView)
             .synthesizeEnumUnboxingUtilityClasses(enumClassesToUnbox, enumDataMap)
             .build(converter, executorService);
+    timing.end();
 
     // Fixup the application.
+    timing.begin("Fixup application");
     ProgramMethodMap<Set<DexProgramClass>> checkNotNullMethods =
         checkNotNullMethodsBuilder
             .rewrittenWithLens(appView, (enumClasses, appliedGraphLens) -> enumClasses)
@@ -677,8 +685,9 @@ public class EnumUnboxerImpl extends EnumUnboxer {
     EnumUnboxingTreeFixer.Result treeFixerResult =
         new EnumUnboxingTreeFixer(
                 appView, checkNotNullMethods, enumDataMap, enumClassesToUnbox, utilityClasses)
-            .fixupTypeReferences(converter, executorService);
+            .fixupTypeReferences(converter, executorService, timing);
     EnumUnboxingLens enumUnboxingLens = treeFixerResult.getLens();
+    timing.end();
 
     // Enqueue the (lens rewritten) methods that require reprocessing.
     //
@@ -698,7 +707,9 @@ public class EnumUnboxerImpl extends EnumUnboxer {
                 .removeAll(treeFixerResult.getPrunedItems().getRemovedMethods()));
     methodsDependingOnLibraryModelisation.clear();
 
+    timing.begin("Update optimization info");
     updateOptimizationInfos(executorService, feedback, treeFixerResult, previousLens);
+    timing.end();
 
     enumUnboxerRewriter =
         new EnumUnboxingRewriter(
@@ -710,6 +721,7 @@ public class EnumUnboxerImpl extends EnumUnboxer {
 
     // Ensure determinism of method-to-reprocess set.
     appView.testing().checkDeterminism(postMethodProcessorBuilder::dump);
+    timing.end();
   }
 
   private void updateOptimizationInfos(
@@ -763,24 +775,47 @@ public class EnumUnboxerImpl extends EnumUnboxer {
                 PrunedItems.builder().setRemovedClasses(enumsToUnbox).build()));
   }
 
-  public EnumDataMap finishAnalysis() {
-    analyzeInitializers();
+  private EnumDataMap finishAnalysis(ExecutorService executorService, Timing timing)
+      throws ExecutionException {
+    timing.begin("Finish analysis");
+    timing.begin("Analyze initializers");
+    analyzeInitializers(executorService);
     updateEnumUnboxingCandidatesInfo();
-    EnumDataMap enumDataMap = analyzeEnumInstances();
+    timing.end();
+    timing.begin("Analyze enum instances");
+    EnumDataMap enumDataMap = analyzeEnumInstances(executorService);
+    timing.end();
     if (debugLogEnabled) {
       // Remove all enums that have been reported as being unboxable.
       debugLogs.keySet().forEach(enumUnboxingCandidatesInfo::removeCandidate);
       reportEnumsAnalysis();
     }
     assert enumDataMap.getUnboxedEnums().size() == enumUnboxingCandidatesInfo.candidates().size();
+    timing.end();
     return enumDataMap;
   }
 
-  private EnumDataMap analyzeEnumInstances() {
+  private EnumDataMap analyzeEnumInstances(ExecutorService executorService)
+      throws ExecutionException {
+    // The enum data of each candidate is computed independently of the other candidates. The
+    // result is collected in the candidate order afterwards, for determinism.
+    Map<DexType, EnumData> enumDataByType = new ConcurrentHashMap<>();
+    ThreadUtils.processItems(
+        enumUnboxingCandidatesInfo::forEachCandidate,
+        enumClass -> {
+          EnumData data =
+              buildData(
+                  enumClass,
+                  enumUnboxingCandidatesInfo.getRequiredInstanceFieldData(enumClass));
+          if (data != null) {
+            enumDataByType.put(enumClass.getType(), data);
+          }
+        },
+        executorService);
     ImmutableMap.Builder<DexType, EnumData> builder = ImmutableMap.builder();
-    enumUnboxingCandidatesInfo.forEachCandidateAndRequiredInstanceFieldData(
-        (enumClass, instanceFields) -> {
-          EnumData data = buildData(enumClass, instanceFields);
+    enumUnboxingCandidatesInfo.forEachCandidate(
+        enumClass -> {
+          EnumData data = enumDataByType.get(enumClass.getType());
           if (data == null) {
             // Reason is already reported at this point.
             enumUnboxingCandidatesInfo.removeCandidate(enumClass);
@@ -979,8 +1014,9 @@ public class EnumUnboxerImpl extends EnumUnboxer {
     }
   }
 
-  private void analyzeInitializers() {
-    enumUnboxingCandidatesInfo.forEachCandidate(
+  private void analyzeInitializers(ExecutorService executorService) throws ExecutionException {
+    ThreadUtils.processItems(
+        enumUnboxingCandidatesInfo::forEachCandidate,
         enumClass -> {
           for (DexEncodedMethod directMethod : enumClass.directMethods()) {
             if (directMethod.isInstanceInitializer()) {
@@ -997,7 +1033,8 @@ public class EnumUnboxerImpl extends EnumUnboxer {
           if (enumClass.classInitializationMayHaveSideEffects(appView)) {
             markEnumAsUnboxable(Reason.INVALID_CLINIT, enumClass);
           }
-        });
+        },
+        executorService);
   }
 
   private Reason instructionAllowEnumUnboxing(
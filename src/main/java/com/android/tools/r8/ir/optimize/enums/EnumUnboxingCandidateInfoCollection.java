@@ -112,6 +112,12 @@ public class EnumUnboxingCandidateInfoCollection {
     info.addRequiredInstanceFieldData(field);
   }
 
+  public Set<DexField> getRequiredInstanceFieldData(DexProgramClass enumClass) {
+    EnumUnboxingCandidateInfo info = enumTypeToInfo.get(enumClass.getType());
+    assert info != null;
+    return info.getRequiredInstanceFieldData();
+  }
+
   public void forEachCandidate(Consumer<DexProgramClass> enumClassConsumer) {
     enumTypeToInfo.values().forEach(info -> enumClassConsumer.accept(info.enumClass));
   }
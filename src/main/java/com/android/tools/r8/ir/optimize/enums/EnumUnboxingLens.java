@@ -202,6 +202,16 @@ class EnumUnboxingLens extends NestedGraphLens {
       return prototypeChanges;
     }
 
+    /**
+     * Adds the field and method moves from the given builder, which must not share any moved
+     * fields or methods with this builder.
+     */
+    void merge(Builder builder) {
+      newFieldSignatures.putAll(builder.newFieldSignatures);
+      builder.newMethodSignatures.forEach(newMethodSignatures::put);
+      prototypeChangesPerMethod.putAll(builder.prototypeChangesPerMethod);
+    }
+
     void recordCheckNotZeroMethod(
         ProgramMethod checkNotNullMethod, ProgramMethod checkNotZeroMethod) {
       DexMethod originalCheckNotNullMethodSignature =
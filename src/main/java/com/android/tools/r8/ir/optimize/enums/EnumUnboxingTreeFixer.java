@@ -56,6 +56,7 @@ import com.android.tools.r8.utils.Timing;
 import com.android.tools.r8.utils.collections.ProgramMethodMap;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
+import com.google.common.collect.Iterables;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.IdentityHashMap;
@@ -96,40 +97,39 @@ class EnumUnboxingTreeFixer {
     this.utilityClasses = utilityClasses;
   }
 
-  Result fixupTypeReferences(IRConverter converter, ExecutorService executorService)
+  Result fixupTypeReferences(
+      IRConverter converter, ExecutorService executorService, Timing timing)
       throws ExecutionException {
     PrunedItems.Builder prunedItemsBuilder = PrunedItems.builder();
 
     // We do this before so that we can still perform lookup of definitions.
+    timing.begin("Fixup enum class initializers");
     fixupEnumClassInitializers(converter, executorService);
-
-    // Fix all methods and fields using enums to unbox.
-    // TODO(b/191617665): Parallelize this fixup.
-    for (DexProgramClass clazz : appView.appInfo().classes()) {
-      if (enumDataMap.isUnboxedEnum(clazz)) {
-        // Clear the initializers and move the other methods to the new location.
-        LocalEnumUnboxingUtilityClass localUtilityClass =
-            utilityClasses.getLocalUtilityClass(clazz);
-        Collection<DexEncodedField> localUtilityFields =
-            createLocalUtilityFields(clazz, localUtilityClass, prunedItemsBuilder);
-        Collection<DexEncodedMethod> localUtilityMethods =
-            createLocalUtilityMethods(clazz, localUtilityClass, prunedItemsBuilder);
-
-        // Cleanup old class.
-        clazz.clearInstanceFields();
-        clazz.clearStaticFields();
-        clazz.getMethodCollection().clearDirectMethods();
-        clazz.getMethodCollection().clearVirtualMethods();
-
-        // Update members on the local utility class.
-        localUtilityClass.getDefinition().setDirectMethods(localUtilityMethods);
-        localUtilityClass.getDefinition().setStaticFields(localUtilityFields);
-      } else {
-        clazz.getMethodCollection().replaceMethods(method -> fixupEncodedMethod(clazz, method));
-        fixupFields(clazz.staticFields(), clazz::setStaticField);
-        fixupFields(clazz.instanceFields(), clazz::setInstanceField);
-      }
+    timing.end();
+
+    // Fix all methods and fields using enums to unbox. Each class only rewrites its own members,
+    // except that the members of an unboxed enum are moved to its local utility class. The unboxed
+    // enums are therefore fixed up before the other classes (including the utility classes). Each
+    // class is fixed up using its own lens builder, and the results are merged in a deterministic
+    // order afterwards.
+    timing.begin("Fixup classes");
+    List<ClassFixupResult> classFixupResults = new ArrayList<>();
+    classFixupResults.addAll(
+        ThreadUtils.processItemsWithResults(
+            unboxedEnums, this::fixupUnboxedEnum, executorService));
+    classFixupResults.addAll(
+        ThreadUtils.processItemsWithResults(
+            Iterables.filter(
+                appView.appInfo().classes(), clazz -> !enumDataMap.isUnboxedEnum(clazz)),
+            this::fixupClass,
+            executorService));
+    for (ClassFixupResult classFixupResult : classFixupResults) {
+      lensBuilder.merge(classFixupResult.lensBuilder);
+      prunedItemsBuilder
+          .addRemovedFields(classFixupResult.removedFields)
+          .addRemovedMethods(classFixupResult.removedMethods);
     }
+    timing.end();
 
     // Install the new graph lens before processing any checkNotZero() methods.
     EnumUnboxingLens lens = lensBuilder.build(appView);
@@ -139,12 +139,49 @@ class EnumUnboxingTreeFixer {
     converter.outliner.rewriteWithLens();
 
     // Create mapping from checkNotNull() to checkNotZero() methods.
+    timing.begin("Duplicate checkNotNull() methods");
     BiMap<DexMethod, DexMethod> checkNotNullToCheckNotZeroMapping =
         duplicateCheckNotNullMethods(converter, executorService);
+    timing.end();
 
     return new Result(checkNotNullToCheckNotZeroMapping, lens, prunedItemsBuilder.build());
   }
 
+  private ClassFixupResult fixupUnboxedEnum(DexProgramClass unboxedEnum) {
+    assert enumDataMap.isUnboxedEnum(unboxedEnum);
+    ClassFixupResult result = new ClassFixupResult();
+
+    // Clear the initializers and move the other methods to the new location.
+    LocalEnumUnboxingUtilityClass localUtilityClass =
+        utilityClasses.getLocalUtilityClass(unboxedEnum);
+    Collection<DexEncodedField> localUtilityFields =
+        createLocalUtilityFields(unboxedEnum, localUtilityClass, result);
+    Collection<DexEncodedMethod> localUtilityMethods =
+        createLocalUtilityMethods(unboxedEnum, localUtilityClass, result);
+
+    // Cleanup old class.
+    unboxedEnum.clearInstanceFields();
+    unboxedEnum.clearStaticFields();
+    unboxedEnum.getMethodCollection().clearDirectMethods();
+    unboxedEnum.getMethodCollection().clearVirtualMethods();
+
+    // Update members on the local utility class.
+    localUtilityClass.getDefinition().setDirectMethods(localUtilityMethods);
+    localUtilityClass.getDefinition().setStaticFields(localUtilityFields);
+    return result;
+  }
+
+  private ClassFixupResult fixupClass(DexProgramClass clazz) {
+    assert !enumDataMap.isUnboxedEnum(clazz);
+    ClassFixupResult result = new ClassFixupResult();
+    clazz
+        .getMethodCollection()
+        .replaceMethods(method -> fixupEncodedMethod(clazz, method, result.lensBuilder));
+    fixupFields(clazz.staticFields(), clazz::setStaticField, result.lensBuilder);
+    fixupFields(clazz.instanceFields(), clazz::setInstanceField, result.lensBuilder);
+    return result;
+  }
+
   private BiMap<DexMethod, DexMethod> duplicateCheckNotNullMethods(
       IRConverter converter, ExecutorService executorService) throws ExecutionException {
     BiMap<DexMethod, DexMethod> checkNotNullToCheckNotZeroMapping = HashBiMap.create();
@@ -428,7 +465,7 @@ class EnumUnboxingTreeFixer {
   private Collection<DexEncodedField> createLocalUtilityFields(
       DexProgramClass unboxedEnum,
       LocalEnumUnboxingUtilityClass localUtilityClass,
-      PrunedItems.Builder prunedItemsBuilder) {
+      ClassFixupResult result) {
     EnumData enumData = enumDataMap.get(unboxedEnum);
     Map<DexField, DexEncodedField> localUtilityFields =
         new LinkedHashMap<>(unboxedEnum.staticFields().size());
@@ -437,7 +474,7 @@ class EnumUnboxingTreeFixer {
     unboxedEnum.forEachProgramField(
         field -> {
           if (isPrunedAfterEnumUnboxing(field, enumData)) {
-            prunedItemsBuilder.addRemovedField(field.getReference());
+            result.removedFields.add(field.getReference());
             return;
           }
 
@@ -445,7 +482,8 @@ class EnumUnboxingTreeFixer {
               createLocalUtilityField(
                   field,
                   localUtilityClass,
-                  newFieldSignature -> !localUtilityFields.containsKey(newFieldSignature));
+                  newFieldSignature -> !localUtilityFields.containsKey(newFieldSignature),
+                  result.lensBuilder);
           assert !localUtilityFields.containsKey(newLocalUtilityField.getReference());
           localUtilityFields.put(newLocalUtilityField.getReference(), newLocalUtilityField);
         });
@@ -455,7 +493,8 @@ class EnumUnboxingTreeFixer {
   private DexEncodedField createLocalUtilityField(
       ProgramField field,
       LocalEnumUnboxingUtilityClass localUtilityClass,
-      Predicate<DexField> availableFieldSignatures) {
+      Predicate<DexField> availableFieldSignatures,
+      EnumUnboxingLens.Builder lensBuilder) {
     // Create a new, fresh field signature on the local utility class.
     DexField newFieldSignature =
         factory.createFreshFieldNameWithoutHolder(
@@ -486,7 +525,7 @@ class EnumUnboxingTreeFixer {
   private Collection<DexEncodedMethod> createLocalUtilityMethods(
       DexProgramClass unboxedEnum,
       LocalEnumUnboxingUtilityClass localUtilityClass,
-      PrunedItems.Builder prunedItemsBuilder) {
+      ClassFixupResult result) {
     Map<DexMethod, DexEncodedMethod> localUtilityMethods =
         new LinkedHashMap<>(
             localUtilityClass.getDefinition().getMethodCollection().size()
@@ -498,13 +537,14 @@ class EnumUnboxingTreeFixer {
     unboxedEnum.forEachProgramMethod(
         method -> {
           if (method.getDefinition().isInstanceInitializer()) {
-            prunedItemsBuilder.addRemovedMethod(method.getReference());
+            result.removedMethods.add(method.getReference());
           } else {
             DexEncodedMethod newLocalUtilityMethod =
                 createLocalUtilityMethod(
                     method,
                     localUtilityClass,
-                    newMethodSignature -> !localUtilityMethods.containsKey(newMethodSignature));
+                    newMethodSignature -> !localUtilityMethods.containsKey(newMethodSignature),
+                    result.lensBuilder);
             assert !localUtilityMethods.containsKey(newLocalUtilityMethod.getReference());
             localUtilityMethods.put(newLocalUtilityMethod.getReference(), newLocalUtilityMethod);
           }
@@ -515,7 +555,8 @@ class EnumUnboxingTreeFixer {
   private DexEncodedMethod createLocalUtilityMethod(
       ProgramMethod method,
       LocalEnumUnboxingUtilityClass localUtilityClass,
-      Predicate<DexMethod> availableMethodSignatures) {
+      Predicate<DexMethod> availableMethodSignatures,
+      EnumUnboxingLens.Builder lensBuilder) {
     DexMethod methodReference = method.getReference();
 
     // Create a new, fresh method signature on the local utility class. We prefix the method by "_"
@@ -561,7 +602,8 @@ class EnumUnboxingTreeFixer {
             && !field.getDefinition().getOptimizationInfo().isDead());
   }
 
-  private DexEncodedMethod fixupEncodedMethod(DexProgramClass holder, DexEncodedMethod method) {
+  private DexEncodedMethod fixupEncodedMethod(
+      DexProgramClass holder, DexEncodedMethod method, EnumUnboxingLens.Builder lensBuilder) {
     DexProto oldProto = method.getProto();
     DexProto newProto = fixupProto(oldProto);
     if (newProto == method.getProto()) {
@@ -613,7 +655,10 @@ class EnumUnboxingTreeFixer {
     return newMethod;
   }
 
-  private void fixupFields(List<DexEncodedField> fields, DexClass.FieldSetter setter) {
+  private void fixupFields(
+      List<DexEncodedField> fields,
+      DexClass.FieldSetter setter,
+      EnumUnboxingLens.Builder lensBuilder) {
     if (fields == null) {
       return;
     }
@@ -667,6 +712,15 @@ class EnumUnboxingTreeFixer {
     return result;
   }
 
+  /** The moves and removed members that result from fixing up a single class. */
+  private class ClassFixupResult {
+
+    private final EnumUnboxingLens.Builder lensBuilder =
+        EnumUnboxingLens.enumUnboxingLensBuilder(appView);
+    private final List<DexField> removedFields = new ArrayList<>();
+    private final List<DexMethod> removedMethods = new ArrayList<>();
+  }
+
   public static class Result {
 
     private final BiMap<DexMethod, DexMethod> checkNotNullToCheckNotZeroMapping;
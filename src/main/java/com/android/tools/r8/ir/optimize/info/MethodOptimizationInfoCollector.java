@@ -158,6 +158,25 @@ public class MethodOptimizationInfoCollector {
     computeUnusedArguments(method, code, feedback, timing);
   }
 
+  /**
+   * Computes the optimization info that is exported by {@link
+   * com.android.tools.r8.ir.optimize.info.cache.OptimizationInfoCacheExporter} for a pinned method.
+   * The optimization info of pinned methods is otherwise not computed.
+   */
+  public void collectExportedMethodOptimizationInfo(
+      ProgramMethod method,
+      IRCode code,
+      OptimizationFeedback feedback,
+      DynamicTypeOptimization dynamicTypeOptimization,
+      MethodProcessor methodProcessor,
+      Timing timing) {
+    DexEncodedMethod definition = method.getDefinition();
+    analyzeReturns(code, feedback, methodProcessor, timing);
+    computeDynamicReturnType(dynamicTypeOptimization, feedback, method, code, timing);
+    computeMayHaveSideEffects(feedback, definition, code, timing);
+    computeNonNullParamOrThrow(feedback, definition, code, timing);
+  }
+
   private void identifyBridgeInfo(
       DexEncodedMethod method, IRCode code, OptimizationFeedback feedback, Timing timing) {
     timing.begin("Identify bridge info");
@@ -0,0 +1,401 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.ir.optimize.info.cache;
+
+import static com.android.tools.r8.ir.optimize.info.cache.OptimizationInfoCacheFormat.MAY_NOT_HAVE_SIDE_EFFECTS;
+import static com.android.tools.r8.ir.optimize.info.cache.OptimizationInfoCacheFormat.NEVER_RETURNS_NULL;
+import static com.android.tools.r8.ir.optimize.info.cache.OptimizationInfoCacheFormat.NON_NULL_PARAM_OR_THROW;
+import static com.android.tools.r8.ir.optimize.info.cache.OptimizationInfoCacheFormat.RETURNS_ARGUMENT;
+
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.DexClass;
+import com.android.tools.r8.graph.DexEncodedMethod;
+import com.android.tools.r8.graph.DexField;
+import com.android.tools.r8.graph.DexMethod;
+import com.android.tools.r8.graph.DexProgramClass;
+import com.android.tools.r8.graph.DexType;
+import com.android.tools.r8.graph.ProgramMethod;
+import com.android.tools.r8.graph.UseRegistryWithResult;
+import com.android.tools.r8.ir.optimize.info.MethodOptimizationInfo;
+import com.android.tools.r8.origin.PathOrigin;
+import com.android.tools.r8.shaking.KeepMethodInfo;
+import com.android.tools.r8.shaking.ProguardAssumeNoSideEffectRule;
+import com.android.tools.r8.shaking.ProguardAssumeValuesRule;
+import com.android.tools.r8.shaking.ProguardConfiguration;
+import com.android.tools.r8.shaking.ProguardConfigurationRule;
+import com.android.tools.r8.utils.ExceptionDiagnostic;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.InternalOptions.OptimizationInfoCacheOptions;
+import com.android.tools.r8.utils.StringDiagnostic;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes summaries of the optimization info computed for a set of program classes, such that later
+ * compilations that are given these classes as library or classpath input can use the summaries.
+ *
+ * <p>The keys of the classes are the hashes of their class files. The summaries are written after
+ * the primary and post optimization passes. Only facts that remain true in any program that
+ * contains the same classes are exported: a method is only exported if it is kept with its original
+ * name and signature and allows optimization (-keep,allowoptimization), cannot be overridden, and
+ * its input code only refers to the exported classes
+ * and to library classes, without virtual dispatch into program code, without accessing program
+ * fields, and only calling program methods that satisfy the same conditions. Since the optimized
+ * code may contain code inlined from elsewhere, this is checked on the input code before any
+ * optimizations. Nothing is exported if the configuration has -assumenosideeffects or -assumevalues
+ * rules, since the optimization info may depend on these.
+ */
+public class OptimizationInfoCacheExporter {
+
+  private final Path exportFile;
+  private final Map<DexType, String> classKeys;
+  private final Map<DexMethod, Boolean> independentMethods = new IdentityHashMap<>();
+
+  private OptimizationInfoCacheExporter(Path exportFile, Map<DexType, String> classKeys) {
+    this.exportFile = exportFile;
+    this.classKeys = classKeys;
+  }
+
+  public static OptimizationInfoCacheExporter createIfEnabled(AppView<?> appView) {
+    OptimizationInfoCacheOptions cacheOptions =
+        appView.options().getOptimizationInfoCacheOptions();
+    if (!cacheOptions.hasExportFile()) {
+      return null;
+    }
+    Map<DexType, String> classKeys = new IdentityHashMap<>();
+    if (hasAssumeRules(appView)) {
+      appView
+          .reporter()
+          .warning(
+              new StringDiagnostic(
+                  "Optimization info is not exported since the configuration has "
+                      + "-assumenosideeffects or -assumevalues rules",
+                  new PathOrigin(cacheOptions.getExportFile())));
+    } else {
+      for (DexProgramClass clazz : appView.appInfo().classes()) {
+        String key = cacheOptions.getProgramClassFileKey(clazz.getType());
+        if (key != null && isInExportedPackage(clazz, cacheOptions.getExportPackagePrefixes())) {
+          classKeys.put(clazz.getType(), key);
+        }
+      }
+    }
+    OptimizationInfoCacheExporter exporter =
+        new OptimizationInfoCacheExporter(cacheOptions.getExportFile(), classKeys);
+    // Analyze the input code, since the optimized code may contain code inlined from other classes.
+    for (DexProgramClass clazz : appView.appInfo().classes()) {
+      if (classKeys.containsKey(clazz.getType())) {
+        clazz.forEachProgramMethodMatching(
+            DexEncodedMethod::hasCode,
+            method -> exporter.isIndependentOfCodeOutsideExportedClasses(appView, method));
+      }
+    }
+    return exporter;
+  }
+
+  private static boolean hasAssumeRules(AppView<?> appView) {
+    ProguardConfiguration configuration = appView.options().getProguardConfiguration();
+    if (configuration == null) {
+      return false;
+    }
+    for (ProguardConfigurationRule rule : configuration.getRules()) {
+      if (rule instanceof ProguardAssumeNoSideEffectRule
+          || rule instanceof ProguardAssumeValuesRule) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isInExportedPackage(DexProgramClass clazz, List<String> prefixes) {
+    if (prefixes.isEmpty()) {
+      return true;
+    }
+    String name = clazz.getTypeName();
+    for (String prefix : prefixes) {
+      if (name.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public void run(AppView<?> appView) {
+    List<DexProgramClass> classes = new ArrayList<>();
+    for (DexProgramClass clazz : appView.appInfo().classes()) {
+      if (classKeys.containsKey(clazz.getType())
+          && appView.graphLens().getOriginalType(clazz.getType()) == clazz.getType()) {
+        classes.add(clazz);
+      }
+    }
+    classes.sort(Comparator.comparing(DexClass::getType));
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(exportFile)))) {
+      out.writeInt(OptimizationInfoCacheFormat.MAGIC);
+      out.writeInt(OptimizationInfoCacheFormat.FORMAT_VERSION);
+      out.writeUTF(OptimizationInfoCacheFormat.getCompilerVersion());
+      out.writeInt(classes.size());
+      for (DexProgramClass clazz : classes) {
+        writeClass(appView, clazz, out);
+      }
+    } catch (IOException e) {
+      appView.reporter().warning(new ExceptionDiagnostic(e, new PathOrigin(exportFile)));
+    }
+  }
+
+  private void writeClass(AppView<?> appView, DexProgramClass clazz, DataOutputStream out)
+      throws IOException {
+    List<ProgramMethod> methods = new ArrayList<>();
+    clazz.forEachProgramMethodMatching(
+        DexEncodedMethod::hasCode,
+        method -> {
+          if (isEligibleForExport(appView, method)) {
+            methods.add(method);
+          }
+        });
+    methods.sort(Comparator.comparing(ProgramMethod::getReference));
+    List<ProgramMethod> methodsWithFacts = new ArrayList<>();
+    IntList facts = new IntArrayList();
+    for (ProgramMethod method : methods) {
+      int methodFacts = getFacts(appView, method);
+      if (methodFacts != 0) {
+        methodsWithFacts.add(method);
+        facts.add(methodFacts);
+      }
+    }
+    out.writeUTF(clazz.getType().toDescriptorString());
+    out.writeUTF(classKeys.get(clazz.getType()));
+    out.writeInt(methodsWithFacts.size());
+    for (int i = 0; i < methodsWithFacts.size(); i++) {
+      ProgramMethod method = methodsWithFacts.get(i);
+      MethodOptimizationInfo optimizationInfo = method.getOptimizationInfo();
+      DexMethod reference = method.getReference();
+      out.writeUTF(reference.getName().toString());
+      out.writeUTF(reference.getReturnType().toDescriptorString());
+      out.writeInt(reference.getArity());
+      for (DexType parameter : reference.getParameters()) {
+        out.writeUTF(parameter.toDescriptorString());
+      }
+      int methodFacts = facts.getInt(i);
+      out.writeInt(methodFacts);
+      if ((methodFacts & RETURNS_ARGUMENT) != 0) {
+        out.writeInt(optimizationInfo.getReturnedArgument());
+      }
+      if ((methodFacts & NON_NULL_PARAM_OR_THROW) != 0) {
+        byte[] nonNullParamOrThrow = optimizationInfo.getNonNullParamOrThrow().toByteArray();
+        out.writeInt(nonNullParamOrThrow.length);
+        out.write(nonNullParamOrThrow);
+      }
+    }
+  }
+
+  private int getFacts(AppView<?> appView, ProgramMethod method) {
+    MethodOptimizationInfo optimizationInfo = method.getOptimizationInfo();
+    int facts = 0;
+    if (method.getReturnType().isReferenceType()
+        && optimizationInfo.getDynamicType().getNullability().isDefinitelyNotNull()) {
+      facts |= NEVER_RETURNS_NULL;
+    }
+    if (!optimizationInfo.mayHaveSideEffects()) {
+      facts |= MAY_NOT_HAVE_SIDE_EFFECTS;
+    }
+    if (optimizationInfo.returnsArgument()) {
+      facts |= RETURNS_ARGUMENT;
+    }
+    if (optimizationInfo.hasNonNullParamOrThrow()) {
+      facts |= NON_NULL_PARAM_OR_THROW;
+    }
+    if (facts == 0) {
+      return 0;
+    }
+    // Only export the facts if the input code does not depend on code outside the exported classes.
+    return independentMethods.getOrDefault(method.getReference(), false) ? facts : 0;
+  }
+
+  private boolean isIndependentOfCodeOutsideExportedClasses(
+      AppView<?> appView, ProgramMethod method) {
+    Boolean cached = independentMethods.get(method.getReference());
+    if (cached != null) {
+      return cached;
+    }
+    if (!method.getDefinition().hasCode()) {
+      independentMethods.put(method.getReference(), false);
+      return false;
+    }
+    // Conservatively treat recursive calls as dependent while the method is being analyzed.
+    independentMethods.put(method.getReference(), false);
+    boolean isIndependent =
+        !method.registerCodeReferencesWithResult(
+            new ExternalDependenceUseRegistry(appView, method));
+    independentMethods.put(method.getReference(), isIndependent);
+    return isIndependent;
+  }
+
+  /**
+   * Returns true if the optimization info of the method is exported, provided that the method does
+   * not depend on code outside the exported classes.
+   *
+   * <p>The exported methods are kept, thus pinned. The optimization info of pinned methods is only
+   * computed if this returns true.
+   */
+  public static boolean isEligibleForExport(AppView<?> appView, ProgramMethod method) {
+    OptimizationInfoCacheOptions cacheOptions =
+        appView.options().getOptimizationInfoCacheOptions();
+    if (!cacheOptions.hasExportFile()
+        || !isInExportedPackage(method.getHolder(), cacheOptions.getExportPackagePrefixes())) {
+      return false;
+    }
+    DexEncodedMethod definition = method.getDefinition();
+    if (definition.isPrivate() || definition.isClassInitializer()) {
+      // Not present when the class is given as library input.
+      return false;
+    }
+    if (!definition.isStatic()
+        && !definition.isInstanceInitializer()
+        && !definition.isFinal()
+        && !method.getHolder().isFinal()) {
+      // The method may be overridden in a subclass outside the exported classes.
+      return false;
+    }
+    InternalOptions options = appView.options();
+    KeepMethodInfo keepInfo = appView.getKeepInfo(method);
+    if (keepInfo.isShrinkingAllowed(options)
+        || keepInfo.isMinificationAllowed(options)
+        || !keepInfo.isOptimizationAllowed(options)) {
+      return false;
+    }
+    return appView.graphLens().getOriginalMethodSignature(method.getReference())
+        == method.getReference();
+  }
+
+  /**
+   * Finds references that make the optimization info of a method depend on code outside the
+   * exported classes. The only invokes to program methods that are allowed are direct and static
+   * invokes to methods of the same holder as the method, where the target is itself independent.
+   * Program fields are not allowed, since their values may be computed by class or instance
+   * initializers. Reading android.os.Build$VERSION.SDK_INT is not allowed, since its value is
+   * assumed based on the min API level of the compilation.
+   */
+  private class ExternalDependenceUseRegistry
+      extends UseRegistryWithResult<Boolean, ProgramMethod> {
+
+    private final AppView<?> appView;
+
+    ExternalDependenceUseRegistry(AppView<?> appView, ProgramMethod context) {
+      super(appView, context, false);
+      this.appView = appView;
+    }
+
+    private boolean isProgramType(DexType type) {
+      DexType baseType = type.toBaseType(appView.dexItemFactory());
+      if (!baseType.isClassType()) {
+        return false;
+      }
+      DexClass clazz = appView.definitionFor(baseType);
+      return clazz == null || clazz.isProgramClass();
+    }
+
+    private boolean isExternal(DexType type) {
+      return isProgramType(type)
+          && !classKeys.containsKey(type.toBaseType(appView.dexItemFactory()));
+    }
+
+    private void registerDirectInvoke(DexMethod method) {
+      if (!isProgramType(method.getHolderType())) {
+        return;
+      }
+      ProgramMethod context = getContext();
+      if (method.getHolderType() != context.getHolderType()) {
+        setResult(true);
+        return;
+      }
+      ProgramMethod target = context.getHolder().lookupProgramMethod(method);
+      if (target == null || !isIndependentOfCodeOutsideExportedClasses(appView, target)) {
+        setResult(true);
+      }
+    }
+
+    private void registerDependentReference(DexType type) {
+      if (isProgramType(type)) {
+        setResult(true);
+      }
+    }
+
+    @Override
+    public void registerInitClass(DexType type) {
+      registerDependentReference(type);
+    }
+
+    @Override
+    public void registerInvokeVirtual(DexMethod method) {
+      registerDependentReference(method.getHolderType());
+    }
+
+    @Override
+    public void registerInvokeDirect(DexMethod method) {
+      registerDirectInvoke(method);
+    }
+
+    @Override
+    public void registerInvokeStatic(DexMethod method) {
+      registerDirectInvoke(method);
+    }
+
+    @Override
+    public void registerInvokeInterface(DexMethod method) {
+      registerDependentReference(method.getHolderType());
+    }
+
+    @Override
+    public void registerInvokeSuper(DexMethod method) {
+      registerDependentReference(method.getHolderType());
+    }
+
+    @Override
+    public void registerInstanceFieldRead(DexField field) {
+      registerDependentReference(field.getHolderType());
+    }
+
+    @Override
+    public void registerInstanceFieldWrite(DexField field) {
+      registerDependentReference(field.getHolderType());
+    }
+
+    @Override
+    public void registerNewInstance(DexType type) {
+      registerDependentReference(type);
+    }
+
+    @Override
+    public void registerStaticFieldRead(DexField field) {
+      if (field == appView.dexItemFactory().androidOsBuildVersionMembers.SDK_INT) {
+        setResult(true);
+        return;
+      }
+      registerDependentReference(field.getHolderType());
+    }
+
+    @Override
+    public void registerStaticFieldWrite(DexField field) {
+      registerDependentReference(field.getHolderType());
+    }
+
+    @Override
+    public void registerTypeReference(DexType type) {
+      if (isExternal(type)) {
+        setResult(true);
+      }
+    }
+  }
+}
@@ -0,0 +1,40 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.ir.optimize.info.cache;
+
+import com.android.tools.r8.Version;
+
+/**
+ * The format of an optimization info cache file:
+ *
+ * <pre>
+ *   header:  magic (int), format version (int), compiler version (utf)
+ *   classes: number of classes (int), followed by each class
+ *   class:   descriptor (utf), key (utf), number of methods (int), followed by each method
+ *   method:  name (utf), return type descriptor (utf), number of parameters (int), followed by
+ *            each parameter type descriptor (utf), facts (int), returned argument (int, only if
+ *            RETURNS_ARGUMENT is set), and, only if NON_NULL_PARAM_OR_THROW is set, the number of
+ *            bytes in the non-null-param-or-throw bit set (int) followed by the bytes
+ * </pre>
+ *
+ * <p>The key of a class is a hash of the class file that defines the class, see {@link
+ * com.android.tools.r8.utils.InternalOptions.OptimizationInfoCacheOptions}. Classes that are not
+ * read from class files have no key, and no summaries are exported or imported for such classes.
+ */
+class OptimizationInfoCacheFormat {
+
+  static final int MAGIC = 0x52384f49;
+  static final int FORMAT_VERSION = 2;
+
+  // Facts.
+  static final int NEVER_RETURNS_NULL = 1;
+  static final int MAY_NOT_HAVE_SIDE_EFFECTS = 2;
+  static final int RETURNS_ARGUMENT = 4;
+  static final int NON_NULL_PARAM_OR_THROW = 8;
+
+  static String getCompilerVersion() {
+    return Version.LABEL;
+  }
+}
@@ -0,0 +1,147 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.ir.optimize.info.cache;
+
+import static com.android.tools.r8.ir.optimize.info.cache.OptimizationInfoCacheFormat.MAY_NOT_HAVE_SIDE_EFFECTS;
+import static com.android.tools.r8.ir.optimize.info.cache.OptimizationInfoCacheFormat.NEVER_RETURNS_NULL;
+import static com.android.tools.r8.ir.optimize.info.cache.OptimizationInfoCacheFormat.NON_NULL_PARAM_OR_THROW;
+import static com.android.tools.r8.ir.optimize.info.cache.OptimizationInfoCacheFormat.RETURNS_ARGUMENT;
+
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.DexClass;
+import com.android.tools.r8.graph.DexEncodedMethod;
+import com.android.tools.r8.graph.DexItemFactory;
+import com.android.tools.r8.graph.DexMethod;
+import com.android.tools.r8.graph.DexType;
+import com.android.tools.r8.ir.analysis.type.DynamicType;
+import com.android.tools.r8.ir.optimize.info.LibraryOptimizationInfoInitializerFeedback;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.origin.PathOrigin;
+import com.android.tools.r8.utils.ExceptionDiagnostic;
+import com.android.tools.r8.utils.StringDiagnostic;
+import com.google.common.collect.Sets;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Set;
+
+/**
+ * Reads the summaries written by {@link OptimizationInfoCacheExporter} and applies them to the
+ * library and classpath classes whose class file is unchanged since the summaries were exported.
+ *
+ * <p>Summaries for classes that are program classes in the current compilation are ignored, since
+ * the optimization info of program methods is computed by the compilation itself.
+ */
+public class OptimizationInfoCacheImporter {
+
+  private final AppView<?> appView;
+  private final DexItemFactory dexItemFactory;
+  private final LibraryOptimizationInfoInitializerFeedback feedback =
+      LibraryOptimizationInfoInitializerFeedback.getInstance();
+  private final Path importFile;
+  private final Origin origin;
+
+  private final Set<DexType> modeledTypes = Sets.newIdentityHashSet();
+
+  public OptimizationInfoCacheImporter(AppView<?> appView) {
+    this.appView = appView;
+    this.dexItemFactory = appView.dexItemFactory();
+    this.importFile = appView.options().getOptimizationInfoCacheOptions().getImportFile();
+    this.origin = new PathOrigin(importFile);
+  }
+
+  public Set<DexType> getModeledTypes() {
+    return modeledTypes;
+  }
+
+  public void run() {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(importFile)))) {
+      if (in.readInt() != OptimizationInfoCacheFormat.MAGIC
+          || in.readInt() != OptimizationInfoCacheFormat.FORMAT_VERSION) {
+        appView
+            .reporter()
+            .warning(new StringDiagnostic("Unsupported optimization info cache format", origin));
+        return;
+      }
+      String compilerVersion = in.readUTF();
+      if (!compilerVersion.equals(OptimizationInfoCacheFormat.getCompilerVersion())) {
+        appView
+            .reporter()
+            .warning(
+                new StringDiagnostic(
+                    "Ignoring optimization info cache from compiler version " + compilerVersion,
+                    origin));
+        return;
+      }
+      int numberOfClasses = in.readInt();
+      for (int i = 0; i < numberOfClasses; i++) {
+        readClass(in);
+      }
+    } catch (IOException e) {
+      appView.reporter().warning(new ExceptionDiagnostic(e, origin));
+    }
+  }
+
+  private void readClass(DataInputStream in) throws IOException {
+    DexType type = dexItemFactory.createType(in.readUTF());
+    String key = in.readUTF();
+    DexClass clazz = appView.definitionFor(type);
+    boolean isApplicable =
+        clazz != null
+            && !clazz.isProgramClass()
+            && key.equals(
+                appView
+                    .options()
+                    .getOptimizationInfoCacheOptions()
+                    .getNonProgramClassFileKey(type));
+    int numberOfMethods = in.readInt();
+    for (int i = 0; i < numberOfMethods; i++) {
+      DexMethod method = readMethodReference(type, in);
+      int facts = in.readInt();
+      int returnedArgument = (facts & RETURNS_ARGUMENT) != 0 ? in.readInt() : -1;
+      BitSet nonNullParamOrThrow = null;
+      if ((facts & NON_NULL_PARAM_OR_THROW) != 0) {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        nonNullParamOrThrow = BitSet.valueOf(bytes);
+      }
+      if (!isApplicable) {
+        continue;
+      }
+      DexEncodedMethod definition = clazz.lookupMethod(method);
+      if (definition == null) {
+        continue;
+      }
+      if ((facts & NEVER_RETURNS_NULL) != 0) {
+        feedback.setDynamicReturnType(definition, appView, DynamicType.definitelyNotNull());
+      }
+      if ((facts & MAY_NOT_HAVE_SIDE_EFFECTS) != 0) {
+        feedback.methodMayNotHaveSideEffects(definition);
+      }
+      if (returnedArgument >= 0) {
+        feedback.methodReturnsArgument(definition, returnedArgument);
+      }
+      if (nonNullParamOrThrow != null) {
+        feedback.setNonNullParamOrThrow(definition, nonNullParamOrThrow);
+      }
+      modeledTypes.add(type);
+    }
+  }
+
+  private DexMethod readMethodReference(DexType holder, DataInputStream in) throws IOException {
+    String name = in.readUTF();
+    DexType returnType = dexItemFactory.createType(in.readUTF());
+    DexType[] parameters = new DexType[in.readInt()];
+    for (int i = 0; i < parameters.length; i++) {
+      parameters[i] = dexItemFactory.createType(in.readUTF());
+    }
+    return dexItemFactory.createMethod(
+        holder, dexItemFactory.createProto(returnType, parameters), name);
+  }
+}
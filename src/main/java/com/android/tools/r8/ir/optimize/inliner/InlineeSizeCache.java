@@ -0,0 +1,125 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.ir.optimize.inliner;
+
+import com.android.tools.r8.graph.Code;
+import com.android.tools.r8.graph.DexMethod;
+import com.android.tools.r8.graph.ProgramMethod;
+import com.android.tools.r8.ir.conversion.MethodProcessor;
+import com.android.tools.r8.utils.Reporter;
+import com.android.tools.r8.utils.StringDiagnostic;
+import com.android.tools.r8.utils.StringUtils;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caches the number of instructions in the inlining IR of inlinees, such that the inliner can
+ * reject an inlining candidate that exceeds the instruction budget of the caller without building
+ * the IR of the inlinee.
+ *
+ * <p>The inlining IR of a method only depends on the code of the method, the code rewritings that
+ * the method processor applies to the method, and whether a null check is synthesized for the
+ * receiver. An entry is therefore only used if the code of the inlinee and the method processor
+ * are the same as when the entry was recorded. When an inlinee is reprocessed its code is replaced,
+ * which implicitly invalidates the entry.
+ */
+public class InlineeSizeCache {
+
+  private static final int UNKNOWN = -1;
+
+  private final Map<DexMethod, Entry> entries = new ConcurrentHashMap<>();
+
+  private final AtomicInteger numberOfLookups = new AtomicInteger();
+  private final AtomicInteger numberOfHits = new AtomicInteger();
+  private final AtomicInteger numberOfAvoidedIRBuilds = new AtomicInteger();
+
+  /**
+   * Returns the number of instructions in the inlining IR of the given inlinee, or -1 if this is
+   * not known.
+   */
+  public int getNumberOfInstructions(
+      ProgramMethod inlinee,
+      MethodProcessor methodProcessor,
+      boolean mayRequireReceiverNullCheck) {
+    numberOfLookups.incrementAndGet();
+    Entry entry = entries.get(inlinee.getReference());
+    if (entry == null || !entry.isValidFor(inlinee, methodProcessor)) {
+      return UNKNOWN;
+    }
+    int numberOfInstructions = entry.getNumberOfInstructions(mayRequireReceiverNullCheck);
+    if (numberOfInstructions != UNKNOWN) {
+      numberOfHits.incrementAndGet();
+    }
+    return numberOfInstructions;
+  }
+
+  public void recordAvoidedIRBuild() {
+    numberOfAvoidedIRBuilds.incrementAndGet();
+  }
+
+  public void recordNumberOfInstructions(
+      ProgramMethod inlinee,
+      MethodProcessor methodProcessor,
+      boolean mayRequireReceiverNullCheck,
+      int numberOfInstructions) {
+    assert numberOfInstructions >= 0;
+    Entry entry =
+        entries.compute(
+            inlinee.getReference(),
+            (ignore, existing) ->
+                existing != null && existing.isValidFor(inlinee, methodProcessor)
+                    ? existing
+                    : new Entry(inlinee.getDefinition().getCode(), methodProcessor));
+    entry.setNumberOfInstructions(mayRequireReceiverNullCheck, numberOfInstructions);
+  }
+
+  /** Removes the entries of the previous method processor, which can no longer be used. */
+  public void clear() {
+    entries.clear();
+  }
+
+  public void reportStatistics(Reporter reporter) {
+    reporter.info(
+        new StringDiagnostic(
+            StringUtils.lines(
+                "Inlinee size cache statistics:",
+                "  Number of lookups: " + numberOfLookups.get(),
+                "  Number of hits: " + numberOfHits.get(),
+                "  Number of avoided IR builds: " + numberOfAvoidedIRBuilds.get())));
+  }
+
+  private static class Entry {
+
+    private final Code code;
+    private final MethodProcessor methodProcessor;
+
+    private volatile int numberOfInstructionsWithoutReceiverNullCheck = UNKNOWN;
+    private volatile int numberOfInstructionsWithReceiverNullCheck = UNKNOWN;
+
+    Entry(Code code, MethodProcessor methodProcessor) {
+      this.code = code;
+      this.methodProcessor = methodProcessor;
+    }
+
+    boolean isValidFor(ProgramMethod inlinee, MethodProcessor methodProcessor) {
+      return inlinee.getDefinition().getCode() == code && this.methodProcessor == methodProcessor;
+    }
+
+    int getNumberOfInstructions(boolean mayRequireReceiverNullCheck) {
+      return mayRequireReceiverNullCheck
+          ? numberOfInstructionsWithReceiverNullCheck
+          : numberOfInstructionsWithoutReceiverNullCheck;
+    }
+
+    void setNumberOfInstructions(boolean mayRequireReceiverNullCheck, int numberOfInstructions) {
+      if (mayRequireReceiverNullCheck) {
+        numberOfInstructionsWithReceiverNullCheck = numberOfInstructions;
+      } else {
+        numberOfInstructionsWithoutReceiverNullCheck = numberOfInstructions;
+      }
+    }
+  }
+}
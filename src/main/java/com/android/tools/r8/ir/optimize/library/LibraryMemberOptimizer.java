@@ -23,6 +23,7 @@ import com.android.tools.r8.ir.code.Value;
 import com.android.tools.r8.ir.conversion.CodeOptimization;
 import com.android.tools.r8.ir.conversion.MethodProcessor;
 import com.android.tools.r8.ir.optimize.info.OptimizationFeedback;
+import com.android.tools.r8.ir.optimize.info.cache.OptimizationInfoCacheImporter;
 import com.android.tools.r8.utils.Timing;
 import com.google.common.collect.Sets;
 import java.util.IdentityHashMap;
@@ -70,6 +71,12 @@ public class LibraryMemberOptimizer implements CodeOptimization {
           new LibraryOptimizationInfoInitializer(appView);
       libraryOptimizationInfoInitializer.run();
       modeledLibraryTypes.addAll(libraryOptimizationInfoInitializer.getModeledLibraryTypes());
+      if (appView.options().getOptimizationInfoCacheOptions().hasImportFile()) {
+        OptimizationInfoCacheImporter optimizationInfoCacheImporter =
+            new OptimizationInfoCacheImporter(appView);
+        optimizationInfoCacheImporter.run();
+        modeledLibraryTypes.addAll(optimizationInfoCacheImporter.getModeledTypes());
+      }
       timing.end();
     }
   }
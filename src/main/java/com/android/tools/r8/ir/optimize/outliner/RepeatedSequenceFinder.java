@@ -0,0 +1,289 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.ir.optimize.outliner;
+
+import com.android.tools.r8.utils.ThreadUtils;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntComparator;
+import it.unimi.dsi.fastutil.ints.IntList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Finds repeated sequences in a token stream using the suffix array and the longest common prefix
+ * (LCP) array of the stream.
+ *
+ * <p>Non-negative tokens can be part of a repeated sequence, whereas negative tokens are separators
+ * that never match any other token. Since repeated sequences are at most {@code maxLength} tokens
+ * long, suffixes are only ordered by their first {@code maxLength} tokens. This allows the suffixes
+ * that start with the same token to be sorted independently of each other, which is done in
+ * parallel. The LCP array is also computed in parallel.
+ *
+ * <p>Each interval of the suffix array where all suffixes share a prefix of at least {@code
+ * minLength} tokens and which has at least {@code minOccurrences} suffixes gives rise to a repeated
+ * sequence. The repeated sequences are then greedily selected by the number of tokens that they
+ * would save, such that the selected occurrences of the selected sequences do not overlap.
+ */
+public class RepeatedSequenceFinder {
+
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  private final int[] tokens;
+  private final int numberOfDistinctTokens;
+  private final int minLength;
+  private final int maxLength;
+  private final int minOccurrences;
+
+  /**
+   * @param tokens the token stream, where the non-negative tokens are in the range [0;
+   *     numberOfDistinctTokens[ and all negative tokens are distinct.
+   */
+  public RepeatedSequenceFinder(
+      int[] tokens, int numberOfDistinctTokens, int minLength, int maxLength, int minOccurrences) {
+    assert 0 < minLength && minLength <= maxLength;
+    this.tokens = tokens;
+    this.numberOfDistinctTokens = numberOfDistinctTokens;
+    this.minLength = minLength;
+    this.maxLength = maxLength;
+    this.minOccurrences = Math.max(2, minOccurrences);
+  }
+
+  /** Returns the selected repeated sequences, ordered by decreasing number of saved tokens. */
+  public List<RepeatedSequence> run(ExecutorService executorService) throws ExecutionException {
+    int[] suffixArray = computeSuffixArray(executorService);
+    int[] lcpArray = computeLcpArray(suffixArray, executorService);
+    return selectNonOverlappingSequences(suffixArray, computeCandidates(lcpArray));
+  }
+
+  private int[] computeSuffixArray(ExecutorService executorService) throws ExecutionException {
+    // Bucket the suffixes by their first token using a counting sort. Suffixes starting with a
+    // separator cannot be the start of a repeated sequence and are left out.
+    int[] bucketStarts = new int[numberOfDistinctTokens + 1];
+    for (int token : tokens) {
+      if (token >= 0) {
+        bucketStarts[token + 1]++;
+      }
+    }
+    for (int token = 0; token < numberOfDistinctTokens; token++) {
+      bucketStarts[token + 1] += bucketStarts[token];
+    }
+    int[] suffixArray = new int[bucketStarts[numberOfDistinctTokens]];
+    int[] nextInBucket = Arrays.copyOf(bucketStarts, numberOfDistinctTokens);
+    for (int position = 0; position < tokens.length; position++) {
+      int token = tokens[position];
+      if (token >= 0) {
+        suffixArray[nextInBucket[token]++] = position;
+      }
+    }
+    // Sort the suffixes in each bucket. The suffixes are in increasing position order within each
+    // bucket, thus buckets with fewer than minOccurrences suffixes are skipped since they cannot
+    // contain any repeated sequences of interest anyway.
+    List<Integer> bucketsToSort = new ArrayList<>();
+    for (int token = 0; token < numberOfDistinctTokens; token++) {
+      if (bucketStarts[token + 1] - bucketStarts[token] >= minOccurrences) {
+        bucketsToSort.add(token);
+      }
+    }
+    // Start with the largest buckets to balance the load between the threads.
+    bucketsToSort.sort(
+        Comparator.comparingInt(
+                (Integer token) -> bucketStarts[token + 1] - bucketStarts[token])
+            .reversed());
+    SuffixComparator comparator = new SuffixComparator();
+    ThreadUtils.processItems(
+        bucketsToSort,
+        token ->
+            IntArrays.quickSort(
+                suffixArray, bucketStarts[token], bucketStarts[token + 1], comparator),
+        executorService);
+    return suffixArray;
+  }
+
+  private int[] computeLcpArray(int[] suffixArray, ExecutorService executorService)
+      throws ExecutionException {
+    // The entry at index i is the length of the common prefix of the suffixes at index i - 1 and
+    // i in the suffix array, and zero for i = 0.
+    int[] lcpArray = new int[suffixArray.length];
+    int numberOfChunks =
+        Math.max(1, ThreadUtils.getNumberOfThreads(executorService)) * CHUNKS_PER_THREAD;
+    int chunkSize = Math.max(1, (suffixArray.length + numberOfChunks - 1) / numberOfChunks);
+    List<Integer> chunkStarts = new ArrayList<>();
+    for (int chunkStart = 1; chunkStart < suffixArray.length; chunkStart += chunkSize) {
+      chunkStarts.add(chunkStart);
+    }
+    ThreadUtils.processItems(
+        chunkStarts,
+        chunkStart -> {
+          int chunkEnd = Math.min(chunkStart + chunkSize, suffixArray.length);
+          for (int i = chunkStart; i < chunkEnd; i++) {
+            lcpArray[i] = getCommonPrefixLength(suffixArray[i - 1], suffixArray[i]);
+          }
+        },
+        executorService);
+    return lcpArray;
+  }
+
+  private List<LcpInterval> computeCandidates(int[] lcpArray) {
+    // Enumerate the LCP intervals of the suffix array using a stack of the intervals that are
+    // currently open, see Abouelhoda et al., "Replacing suffix trees with enhanced suffix arrays".
+    List<LcpInterval> candidates = new ArrayList<>();
+    Deque<LcpInterval> stack = new ArrayDeque<>();
+    stack.push(new LcpInterval(0, 0));
+    for (int i = 1; i <= lcpArray.length; i++) {
+      int lcp = i < lcpArray.length ? lcpArray[i] : 0;
+      int leftBound = i - 1;
+      while (lcp < stack.peek().length) {
+        LcpInterval interval = stack.pop();
+        interval.rightBound = i - 1;
+        if (interval.length >= minLength && interval.size() >= minOccurrences) {
+          candidates.add(interval);
+        }
+        leftBound = interval.leftBound;
+      }
+      if (lcp > stack.peek().length) {
+        stack.push(new LcpInterval(lcp, leftBound));
+      }
+    }
+    return candidates;
+  }
+
+  private List<RepeatedSequence> selectNonOverlappingSequences(
+      int[] suffixArray, List<LcpInterval> candidates) {
+    candidates.sort(
+        Comparator.comparingLong(LcpInterval::getNumberOfSavedTokens)
+            .reversed()
+            .thenComparing(Comparator.comparingInt(LcpInterval::getLength).reversed())
+            .thenComparingInt(LcpInterval::getLeftBound));
+    List<RepeatedSequence> result = new ArrayList<>();
+    boolean[] used = new boolean[tokens.length];
+    for (LcpInterval candidate : candidates) {
+      int[] starts = Arrays.copyOfRange(suffixArray, candidate.leftBound, candidate.rightBound + 1);
+      Arrays.sort(starts);
+      IntList selectedStarts = new IntArrayList();
+      for (int start : starts) {
+        if (isUnused(used, start, candidate.length)) {
+          setUsed(used, start, candidate.length, true);
+          selectedStarts.add(start);
+        }
+      }
+      if (selectedStarts.size() >= minOccurrences) {
+        result.add(new RepeatedSequence(candidate.length, selectedStarts.toIntArray()));
+      } else {
+        for (int i = 0; i < selectedStarts.size(); i++) {
+          setUsed(used, selectedStarts.getInt(i), candidate.length, false);
+        }
+      }
+    }
+    return result;
+  }
+
+  private int getCommonPrefixLength(int position, int otherPosition) {
+    int length = 0;
+    while (length < maxLength
+        && position + length < tokens.length
+        && otherPosition + length < tokens.length
+        && tokens[position + length] >= 0
+        && tokens[position + length] == tokens[otherPosition + length]) {
+      length++;
+    }
+    return length;
+  }
+
+  private static boolean isUnused(boolean[] used, int start, int length) {
+    for (int i = start; i < start + length; i++) {
+      if (used[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void setUsed(boolean[] used, int start, int length, boolean value) {
+    Arrays.fill(used, start, start + length, value);
+  }
+
+  /** A sequence of tokens that is repeated at the given non-overlapping start positions. */
+  public static class RepeatedSequence {
+
+    private final int length;
+    private final int[] starts;
+
+    RepeatedSequence(int length, int[] starts) {
+      this.length = length;
+      this.starts = starts;
+    }
+
+    public int getLength() {
+      return length;
+    }
+
+    /** Returns the start positions of the occurrences of this sequence in increasing order. */
+    public int[] getStarts() {
+      return starts;
+    }
+  }
+
+  private static class LcpInterval {
+
+    private final int length;
+    private final int leftBound;
+    private int rightBound = -1;
+
+    LcpInterval(int length, int leftBound) {
+      this.length = length;
+      this.leftBound = leftBound;
+    }
+
+    int getLength() {
+      return length;
+    }
+
+    int getLeftBound() {
+      return leftBound;
+    }
+
+    long getNumberOfSavedTokens() {
+      return (long) (length - 1) * size();
+    }
+
+    int size() {
+      return rightBound - leftBound + 1;
+    }
+  }
+
+  // Orders suffixes by their first maxLength tokens. Suffixes with the same first maxLength tokens
+  // are ordered by their position, such that the suffix array is deterministic.
+  private class SuffixComparator implements IntComparator {
+
+    @Override
+    public int compare(int position, int otherPosition) {
+      int length = getCommonPrefixLength(position, otherPosition);
+      if (length < maxLength) {
+        int token = getTokenOrSeparator(position + length);
+        int otherToken = getTokenOrSeparator(otherPosition + length);
+        if (token != otherToken) {
+          return Integer.compare(token, otherToken);
+        }
+      }
+      return Integer.compare(position, otherPosition);
+    }
+
+    @Override
+    public int compare(Integer position, Integer otherPosition) {
+      return compare(position.intValue(), otherPosition.intValue());
+    }
+
+    private int getTokenOrSeparator(int position) {
+      return position < tokens.length ? tokens[position] : Integer.MIN_VALUE;
+    }
+  }
+}
@@ -28,8 +28,11 @@ import com.android.tools.r8.shaking.Enqueuer;
 import com.android.tools.r8.shaking.Enqueuer.EnqueuerDefinitionSupplier;
 import com.android.tools.r8.shaking.KeepClassInfo;
 import com.android.tools.r8.utils.StringDiagnostic;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.google.common.collect.Sets;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 public class KotlinMetadataEnqueuerExtension extends EnqueuerAnalysis {
 
@@ -54,7 +57,7 @@ public class KotlinMetadataEnqueuerExtension extends EnqueuerAnalysis {
   }
 
   @Override
-  public void done(Enqueuer enqueuer) {
+  public void done(Enqueuer enqueuer, ExecutorService executorService) throws ExecutionException {
     // In the first round of tree shaking build up all metadata such that it can be traced later.
     boolean keepKotlinMetadata =
         KeepClassInfo.isKotlinMetadataClassKept(
@@ -64,9 +67,11 @@ public class KotlinMetadataEnqueuerExtension extends EnqueuerAnalysis {
             enqueuer::getKeepInfo);
     // In the first round of tree shaking build up all metadata such that it can be traced later.
     if (enqueuer.getMode().isInitialTreeShaking()) {
-      Set<DexMethod> keepByteCodeFunctions = Sets.newIdentityHashSet();
-      Set<DexProgramClass> localOrAnonymousClasses = Sets.newIdentityHashSet();
-      enqueuer.forAllLiveClasses(
+      // The metadata of each class is read independently of other classes, so read it in parallel.
+      Set<DexMethod> keepByteCodeFunctions = Sets.newConcurrentHashSet();
+      Set<DexProgramClass> localOrAnonymousClasses = Sets.newConcurrentHashSet();
+      ThreadUtils.processItems(
+          enqueuer::forAllLiveClasses,
           clazz -> {
             assert clazz.getKotlinInfo().isNoKotlinInformation();
             try {
@@ -116,7 +121,8 @@ public class KotlinMetadataEnqueuerExtension extends EnqueuerAnalysis {
               clazz.setKotlinInfo(getNoKotlinInfo());
               reportUnknownMetadataVersion();
             }
-          });
+          },
+          executorService);
       for (DexProgramClass localOrAnonymousClass : localOrAnonymousClasses) {
         EnclosingMethodAttribute enclosingAttribute =
             localOrAnonymousClass.getEnclosingMethodAttribute();
@@ -167,7 +173,7 @@ public class KotlinMetadataEnqueuerExtension extends EnqueuerAnalysis {
         });
   }
 
-  private void reportUnknownMetadataVersion() {
+  private synchronized void reportUnknownMetadataVersion() {
     if (!reportedUnknownMetadataVersion) {
       reportedUnknownMetadataVersion = true;
       appView.reporter().warning(KotlinMetadataDiagnostic.unknownMetadataVersion());
@@ -158,19 +158,20 @@ public class ArgumentPropagator {
             .computeStronglyConnectedComponents();
     timing.end();
 
-    // Set the optimization info on each method.
+    // Set the optimization info on each method. The signature set of each component is created up
+    // front, since the components are processed concurrently and each component only adds to its
+    // own set.
     Map<Set<DexProgramClass>, DexMethodSignatureSet> interfaceDispatchOutsideProgram =
         new IdentityHashMap<>();
+    for (Set<DexProgramClass> component : stronglyConnectedProgramComponents) {
+      interfaceDispatchOutsideProgram.put(component, DexMethodSignatureSet.create());
+    }
     populateParameterOptimizationInfo(
         converter,
         immediateSubtypingInfo,
         stronglyConnectedProgramComponents,
-        (stronglyConnectedProgramComponent, signature) -> {
-          interfaceDispatchOutsideProgram
-              .computeIfAbsent(
-                  stronglyConnectedProgramComponent, (unused) -> DexMethodSignatureSet.create())
-              .add(signature);
-        },
+        (stronglyConnectedProgramComponent, signature) ->
+            interfaceDispatchOutsideProgram.get(stronglyConnectedProgramComponent).add(signature),
         postMethodProcessorBuilder,
         executorService,
         timing);
@@ -222,6 +223,7 @@ public class ArgumentPropagator {
     postMethodProcessorBuilder.rewrittenWithLens(appView);
 
     timing.begin("Compute optimization info");
+    long start = System.nanoTime();
     new ArgumentPropagatorOptimizationInfoPopulator(
             appView,
             converter,
@@ -231,6 +233,10 @@ public class ArgumentPropagator {
             stronglyConnectedProgramComponents,
             interfaceDispatchOutsideProgram)
         .populateOptimizationInfo(executorService, timing);
+    appView
+        .testing()
+        .argumentPropagatorEventConsumer
+        .acceptOptimizationInfoPopulationTime(System.nanoTime() - start);
     timing.end();
 
     timing.begin("Compute unused arguments");
@@ -35,6 +35,7 @@ import com.android.tools.r8.optimize.argumentpropagation.codescanner.ConcretePol
 import com.android.tools.r8.optimize.argumentpropagation.codescanner.ConcretePolymorphicMethodStateOrBottom;
 import com.android.tools.r8.optimize.argumentpropagation.codescanner.ConcretePrimitiveTypeParameterState;
 import com.android.tools.r8.optimize.argumentpropagation.codescanner.ConcreteReceiverParameterState;
+import com.android.tools.r8.optimize.argumentpropagation.codescanner.DynamicTypeFactory;
 import com.android.tools.r8.optimize.argumentpropagation.codescanner.MethodParameter;
 import com.android.tools.r8.optimize.argumentpropagation.codescanner.MethodParameterFactory;
 import com.android.tools.r8.optimize.argumentpropagation.codescanner.MethodState;
@@ -48,9 +49,7 @@ import com.android.tools.r8.optimize.argumentpropagation.utils.WideningUtils;
 import com.android.tools.r8.shaking.AppInfoWithLiveness;
 import com.android.tools.r8.utils.Timing;
 import com.google.common.collect.Sets;
-import java.util.ArrayList;
 import java.util.IdentityHashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -67,6 +66,8 @@ public class ArgumentPropagatorCodeScanner {
 
   private final AppView<AppInfoWithLiveness> appView;
 
+  private final DynamicTypeFactory dynamicTypeFactory = new DynamicTypeFactory();
+
   private final MethodParameterFactory methodParameterFactory = new MethodParameterFactory();
 
   private final Set<DexMethod> monomorphicVirtualMethods = Sets.newIdentityHashSet();
@@ -375,7 +376,7 @@ public class ArgumentPropagatorCodeScanner {
       ProgramMethod context,
       ConcreteMonomorphicMethodStateOrBottom existingMethodState,
       DynamicType dynamicReceiverType) {
-    List<ParameterState> parameterStates = new ArrayList<>(invoke.arguments().size());
+    ParameterState[] parameterStates = new ParameterState[invoke.arguments().size()];
 
     MethodReprocessingCriteria methodReprocessingCriteria =
         singleTarget != null
@@ -385,25 +386,25 @@ public class ArgumentPropagatorCodeScanner {
     int argumentIndex = 0;
     if (invoke.isInvokeMethodWithReceiver()) {
       assert dynamicReceiverType != null;
-      parameterStates.add(
+      parameterStates[0] =
           computeParameterStateForReceiver(
               invoke.asInvokeMethodWithReceiver(),
               resolvedMethod,
               dynamicReceiverType,
               existingMethodState,
-              methodReprocessingCriteria.getParameterReprocessingCriteria(0)));
+              methodReprocessingCriteria.getParameterReprocessingCriteria(0));
       argumentIndex++;
     }
 
     for (; argumentIndex < invoke.arguments().size(); argumentIndex++) {
-      parameterStates.add(
+      parameterStates[argumentIndex] =
           computeParameterStateForNonReceiver(
               invoke,
               argumentIndex,
               invoke.getArgument(argumentIndex),
               context,
               existingMethodState,
-              methodReprocessingCriteria.getParameterReprocessingCriteria(argumentIndex)));
+              methodReprocessingCriteria.getParameterReprocessingCriteria(argumentIndex));
     }
 
     // We simulate that the return value is used for methods with void return type. This ensures
@@ -438,7 +439,7 @@ public class ArgumentPropagatorCodeScanner {
         WideningUtils.widenDynamicReceiverType(appView, resolvedMethod, dynamicReceiverType);
     return widenedDynamicReceiverType.isUnknown()
         ? ParameterState.unknown()
-        : new ConcreteReceiverParameterState(dynamicReceiverType);
+        : new ConcreteReceiverParameterState(dynamicTypeFactory.canonicalize(dynamicReceiverType));
   }
 
   private ParameterState computeParameterStateForNonReceiver(
@@ -499,7 +500,8 @@ public class ArgumentPropagatorCodeScanner {
           WideningUtils.widenDynamicNonReceiverType(appView, dynamicType, parameterType);
       return abstractValue.isUnknown() && widenedDynamicType.isUnknown()
           ? ParameterState.unknown()
-          : new ConcreteClassTypeParameterState(abstractValue, widenedDynamicType);
+          : new ConcreteClassTypeParameterState(
+              abstractValue, dynamicTypeFactory.canonicalize(widenedDynamicType));
     }
 
     // For primitive types, we only track the abstract value, thus if the abstract value is unknown,
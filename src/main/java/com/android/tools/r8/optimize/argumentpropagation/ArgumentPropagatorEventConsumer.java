@@ -19,6 +19,14 @@ public interface ArgumentPropagatorEventConsumer {
 
   void acceptCodeScannerResult(MethodStateCollectionByReference methodStates);
 
+  /**
+   * Called with the time it took to propagate the argument information from the call sites to the
+   * methods, from the code scanner result until the optimization info has been populated.
+   */
+  default void acceptOptimizationInfoPopulationTime(long nanoTime) {
+    // Intentionally empty.
+  }
+
   default ArgumentPropagatorEventConsumer andThen(
       ArgumentPropagatorEventConsumer nextEventConsumer) {
     ArgumentPropagatorEventConsumer self = this;
@@ -28,6 +36,12 @@ public interface ArgumentPropagatorEventConsumer {
         self.acceptCodeScannerResult(methodStates);
         nextEventConsumer.acceptCodeScannerResult(methodStates);
       }
+
+      @Override
+      public void acceptOptimizationInfoPopulationTime(long nanoTime) {
+        self.acceptOptimizationInfoPopulationTime(nanoTime);
+        nextEventConsumer.acceptOptimizationInfoPopulationTime(nanoTime);
+      }
     };
   }
 }
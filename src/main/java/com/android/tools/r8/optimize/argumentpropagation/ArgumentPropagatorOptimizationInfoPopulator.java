@@ -30,6 +30,7 @@ import com.android.tools.r8.optimize.argumentpropagation.codescanner.ParameterSt
 import com.android.tools.r8.optimize.argumentpropagation.codescanner.StateCloner;
 import com.android.tools.r8.optimize.argumentpropagation.propagation.InParameterFlowPropagator;
 import com.android.tools.r8.optimize.argumentpropagation.propagation.InterfaceMethodArgumentPropagator;
+import com.android.tools.r8.optimize.argumentpropagation.propagation.MethodStateCollectionByComponent;
 import com.android.tools.r8.optimize.argumentpropagation.propagation.VirtualDispatchMethodArgumentPropagator;
 import com.android.tools.r8.optimize.argumentpropagation.utils.WideningUtils;
 import com.android.tools.r8.shaking.AppInfoWithLiveness;
@@ -38,6 +39,8 @@ import com.android.tools.r8.utils.ListUtils;
 import com.android.tools.r8.utils.OptionalBool;
 import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.Timing;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
@@ -53,7 +56,7 @@ public class ArgumentPropagatorOptimizationInfoPopulator {
 
   private final AppView<AppInfoWithLiveness> appView;
   private final IRConverter converter;
-  private final MethodStateCollectionByReference methodStates;
+  private final MethodStateCollectionByReference codeScannerResult;
   private final InternalOptions options;
   private final PostMethodProcessor.Builder postMethodProcessorBuilder;
 
@@ -67,14 +70,14 @@ public class ArgumentPropagatorOptimizationInfoPopulator {
       AppView<AppInfoWithLiveness> appView,
       IRConverter converter,
       ImmediateProgramSubtypingInfo immediateSubtypingInfo,
-      MethodStateCollectionByReference methodStates,
+      MethodStateCollectionByReference codeScannerResult,
       PostMethodProcessor.Builder postMethodProcessorBuilder,
       List<Set<DexProgramClass>> stronglyConnectedProgramComponents,
       BiConsumer<Set<DexProgramClass>, DexMethodSignature> interfaceDispatchOutsideProgram) {
     this.appView = appView;
     this.converter = converter;
     this.immediateSubtypingInfo = immediateSubtypingInfo;
-    this.methodStates = methodStates;
+    this.codeScannerResult = codeScannerResult;
     this.options = appView.options();
     this.postMethodProcessorBuilder = postMethodProcessorBuilder;
     this.stronglyConnectedProgramComponents = stronglyConnectedProgramComponents;
@@ -87,6 +90,14 @@ public class ArgumentPropagatorOptimizationInfoPopulator {
    */
   void populateOptimizationInfo(ExecutorService executorService, Timing timing)
       throws ExecutionException {
+    // Move the method states into a separate collection for each strongly connected component, so
+    // that the components can be processed in parallel without any synchronization.
+    timing.begin("Partition method states");
+    MethodStateCollectionByComponent methodStates =
+        MethodStateCollectionByComponent.create(
+            stronglyConnectedProgramComponents, codeScannerResult, executorService);
+    timing.end();
+
     // TODO(b/190154391): Propagate argument information to handle virtual dispatch.
     // TODO(b/190154391): To deal with arguments that are themselves passed as arguments to invoke
     //  instructions, build a flow graph where nodes are parameters and there is an edge from a
@@ -94,25 +105,35 @@ public class ArgumentPropagatorOptimizationInfoPopulator {
     //  collected argument information throughout the flow graph.
     timing.begin("Propagate argument information for virtual methods");
     ThreadUtils.processItems(
-        stronglyConnectedProgramComponents,
-        this::processStronglyConnectedComponent,
+        getComponentsInProcessingOrder(),
+        component -> processStronglyConnectedComponent(component, methodStates.get(component)),
         executorService);
     timing.end();
 
-    // Solve the parameter flow constraints.
+    // Solve the parameter flow constraints. Arguments flow between the components through call
+    // sites, thus the flow graph is built for the entire program.
     timing.begin("Solve flow constraints");
     new InParameterFlowPropagator(appView, converter, methodStates).run(executorService);
     timing.end();
 
     // The information stored on each method is now sound, and can be used as optimization info.
     timing.begin("Set optimization info");
-    setOptimizationInfo(executorService);
+    setOptimizationInfo(methodStates, executorService);
     timing.end();
 
     assert methodStates.isEmpty();
   }
 
-  private void processStronglyConnectedComponent(Set<DexProgramClass> stronglyConnectedComponent) {
+  private List<Set<DexProgramClass>> getComponentsInProcessingOrder() {
+    // Process the largest components first to balance the load between the threads.
+    List<Set<DexProgramClass>> components = new ArrayList<>(stronglyConnectedProgramComponents);
+    components.sort(Comparator.<Set<DexProgramClass>>comparingInt(Set::size).reversed());
+    return components;
+  }
+
+  private void processStronglyConnectedComponent(
+      Set<DexProgramClass> stronglyConnectedComponent,
+      MethodStateCollectionByReference methodStates) {
     // Invoke instructions that target interface methods may dispatch to methods that are not
     // defined on a subclass of the interface method holder.
     //
@@ -147,16 +168,24 @@ public class ArgumentPropagatorOptimizationInfoPopulator {
         .run(stronglyConnectedComponent);
   }
 
-  private void setOptimizationInfo(ExecutorService executorService) throws ExecutionException {
+  private void setOptimizationInfo(
+      MethodStateCollectionByComponent methodStates, ExecutorService executorService)
+      throws ExecutionException {
     ThreadUtils.processItems(
-        appView.appInfo().classes(), this::setOptimizationInfo, executorService);
+        methodStates.getComponents(),
+        component -> setOptimizationInfo(component, methodStates.get(component)),
+        executorService);
   }
 
-  private void setOptimizationInfo(DexProgramClass clazz) {
-    clazz.forEachProgramMethod(this::setOptimizationInfo);
+  private void setOptimizationInfo(
+      Set<DexProgramClass> component, MethodStateCollectionByReference methodStates) {
+    for (DexProgramClass clazz : component) {
+      clazz.forEachProgramMethod(method -> setOptimizationInfo(method, methodStates));
+    }
   }
 
-  private void setOptimizationInfo(ProgramMethod method) {
+  private void setOptimizationInfo(
+      ProgramMethod method, MethodStateCollectionByReference methodStates) {
     MethodState methodState = methodStates.remove(method);
     if (methodState.isBottom()) {
       if (method.getDefinition().hasCode() && !method.getDefinition().isClassInitializer()) {
@@ -11,7 +11,6 @@ import com.android.tools.r8.ir.analysis.type.Nullability;
 import com.android.tools.r8.ir.analysis.value.AbstractValue;
 import com.android.tools.r8.shaking.AppInfoWithLiveness;
 import com.android.tools.r8.utils.Action;
-import com.android.tools.r8.utils.SetUtils;
 import java.util.Collections;
 import java.util.Set;
 
@@ -20,7 +19,7 @@ public class ConcreteArrayTypeParameterState extends ConcreteReferenceTypeParame
   private Nullability nullability;
 
   public ConcreteArrayTypeParameterState(MethodParameter inParameter) {
-    this(Nullability.bottom(), SetUtils.newHashSet(inParameter));
+    this(Nullability.bottom(), Collections.singleton(inParameter));
   }
 
   public ConcreteArrayTypeParameterState(Nullability nullability) {
@@ -8,20 +8,27 @@ import com.android.tools.r8.graph.AppView;
 import com.android.tools.r8.graph.DexMethodSignature;
 import com.android.tools.r8.graph.DexType;
 import com.android.tools.r8.shaking.AppInfoWithLiveness;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Streams;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class ConcreteMonomorphicMethodState extends ConcreteMethodState
     implements ConcreteMonomorphicMethodStateOrBottom, ConcreteMonomorphicMethodStateOrUnknown {
 
   boolean isReturnValueUsed;
-  List<ParameterState> parameterStates;
+
+  // The parameter states are stored in an array rather than a list, since there is one method state
+  // for each method (and for each call site during the code scanning).
+  ParameterState[] parameterStates;
 
   public ConcreteMonomorphicMethodState(
       boolean isReturnValueUsed, List<ParameterState> parameterStates) {
-    assert Streams.stream(Iterables.skip(parameterStates, 1))
+    this(isReturnValueUsed, parameterStates.toArray(new ParameterState[0]));
+  }
+
+  private ConcreteMonomorphicMethodState(
+      boolean isReturnValueUsed, ParameterState[] parameterStates) {
+    assert Arrays.stream(parameterStates)
+        .skip(1)
         .noneMatch(x -> x.isConcrete() && x.asConcrete().isReceiverParameter());
     this.isReturnValueUsed = isReturnValueUsed;
     this.parameterStates = parameterStates;
@@ -29,18 +36,19 @@ public class ConcreteMonomorphicMethodState extends ConcreteMethodState
   }
 
   public static ConcreteMonomorphicMethodStateOrUnknown create(
-      boolean isReturnValueUsed, List<ParameterState> parameterStates) {
+      boolean isReturnValueUsed, ParameterState[] parameterStates) {
     return isEffectivelyUnknown(isReturnValueUsed, parameterStates)
         ? unknown()
         : new ConcreteMonomorphicMethodState(isReturnValueUsed, parameterStates);
   }
 
   public ParameterState getParameterState(int index) {
-    return parameterStates.get(index);
+    return parameterStates[index];
   }
 
+  /** Returns a fixed-size list view of the parameter states, which writes through to this state. */
   public List<ParameterState> getParameterStates() {
-    return parameterStates;
+    return Arrays.asList(parameterStates);
   }
 
   public boolean isReturnValueUsed() {
@@ -48,7 +56,12 @@ public class ConcreteMonomorphicMethodState extends ConcreteMethodState
   }
 
   public boolean isEffectivelyBottom() {
-    return Iterables.any(parameterStates, ParameterState::isBottom);
+    for (ParameterState parameterState : parameterStates) {
+      if (parameterState.isBottom()) {
+        return true;
+      }
+    }
+    return false;
   }
 
   public boolean isEffectivelyUnknown() {
@@ -56,15 +69,23 @@ public class ConcreteMonomorphicMethodState extends ConcreteMethodState
   }
 
   private static boolean isEffectivelyUnknown(
-      boolean isReturnValueUsed, List<ParameterState> parameterStates) {
-    return isReturnValueUsed && Iterables.all(parameterStates, ParameterState::isUnknown);
+      boolean isReturnValueUsed, ParameterState[] parameterStates) {
+    if (!isReturnValueUsed) {
+      return false;
+    }
+    for (ParameterState parameterState : parameterStates) {
+      if (!parameterState.isUnknown()) {
+        return false;
+      }
+    }
+    return true;
   }
 
   @Override
   public ConcreteMonomorphicMethodState mutableCopy() {
-    List<ParameterState> copiedParametersStates = new ArrayList<>(size());
-    for (ParameterState parameterState : getParameterStates()) {
-      copiedParametersStates.add(parameterState.mutableCopy());
+    ParameterState[] copiedParametersStates = new ParameterState[size()];
+    for (int i = 0; i < parameterStates.length; i++) {
+      copiedParametersStates[i] = parameterStates[i].mutableCopy();
     }
     return new ConcreteMonomorphicMethodState(isReturnValueUsed, copiedParametersStates);
   }
@@ -86,23 +107,22 @@ public class ConcreteMonomorphicMethodState extends ConcreteMethodState
     int argumentIndex = 0;
     if (size() > methodSignature.getArity()) {
       assert size() == methodSignature.getArity() + 1;
-      ParameterState parameterState = parameterStates.get(0);
-      ParameterState otherParameterState = methodState.parameterStates.get(0);
+      ParameterState parameterState = parameterStates[0];
+      ParameterState otherParameterState = methodState.parameterStates[0];
       DexType parameterType = null;
-      parameterStates.set(
-          0, parameterState.mutableJoin(appView, otherParameterState, parameterType, cloner));
+      parameterStates[0] =
+          parameterState.mutableJoin(appView, otherParameterState, parameterType, cloner);
       argumentIndex++;
     }
 
     for (int parameterIndex = 0; argumentIndex < size(); argumentIndex++, parameterIndex++) {
-      ParameterState parameterState = parameterStates.get(argumentIndex);
-      ParameterState otherParameterState = methodState.parameterStates.get(argumentIndex);
+      ParameterState parameterState = parameterStates[argumentIndex];
+      ParameterState otherParameterState = methodState.parameterStates[argumentIndex];
       DexType parameterType = methodSignature.getParameter(parameterIndex);
-      parameterStates.set(
-          argumentIndex,
-          parameterState.mutableJoin(appView, otherParameterState, parameterType, cloner));
-      assert !parameterStates.get(argumentIndex).isConcrete()
-          || !parameterStates.get(argumentIndex).asConcrete().isReceiverParameter();
+      parameterStates[argumentIndex] =
+          parameterState.mutableJoin(appView, otherParameterState, parameterType, cloner);
+      assert !parameterStates[argumentIndex].isConcrete()
+          || !parameterStates[argumentIndex].asConcrete().isReceiverParameter();
     }
 
     return isEffectivelyUnknown() ? unknown() : this;
@@ -127,10 +147,10 @@ public class ConcreteMonomorphicMethodState extends ConcreteMethodState
     assert index == 0
         || !parameterState.isConcrete()
         || !parameterState.asConcrete().isReceiverParameter();
-    parameterStates.set(index, parameterState);
+    parameterStates[index] = parameterState;
   }
 
   public int size() {
-    return parameterStates.size();
+    return parameterStates.length;
   }
 }
@@ -21,6 +21,8 @@ public abstract class ConcreteParameterState extends NonEmptyParameterState {
     RECEIVER
   }
 
+  // The in-parameters are represented by an immutable empty or singleton set until a second
+  // in-parameter is added, since most parameter states have at most one in-parameter.
   private Set<MethodParameter> inParameters;
 
   ConcreteParameterState(Set<MethodParameter> inParameters) {
@@ -34,8 +36,8 @@ public abstract class ConcreteParameterState extends NonEmptyParameterState {
   }
 
   public Set<MethodParameter> copyInParameters() {
-    if (inParameters.isEmpty()) {
-      assert inParameters == Collections.<MethodParameter>emptySet();
+    if (inParameters.size() <= 1) {
+      assert !(inParameters instanceof HashSet<?>);
       return inParameters;
     }
     return new HashSet<>(inParameters);
@@ -46,7 +48,7 @@ public abstract class ConcreteParameterState extends NonEmptyParameterState {
   }
 
   public Set<MethodParameter> getInParameters() {
-    assert inParameters.isEmpty() || inParameters instanceof HashSet<?>;
+    assert inParameters.size() <= 1 || inParameters instanceof HashSet<?>;
     return inParameters;
   }
 
@@ -131,12 +133,17 @@ public abstract class ConcreteParameterState extends NonEmptyParameterState {
   }
 
   boolean mutableJoinInParameters(ConcreteParameterState parameterState) {
-    if (parameterState.inParameters.isEmpty()) {
+    if (inParameters.containsAll(parameterState.inParameters)) {
       return false;
     }
-    if (inParameters.isEmpty()) {
-      assert inParameters == Collections.<MethodParameter>emptySet();
-      inParameters = new HashSet<>();
+    if (inParameters.isEmpty() && !(parameterState.inParameters instanceof HashSet<?>)) {
+      // The in-parameters of the other state is an immutable singleton set, which can be shared.
+      assert parameterState.inParameters.size() == 1;
+      inParameters = parameterState.inParameters;
+      return true;
+    }
+    if (!(inParameters instanceof HashSet<?>)) {
+      inParameters = new HashSet<>(inParameters);
     }
     return inParameters.addAll(parameterState.inParameters);
   }
@@ -0,0 +1,26 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.optimize.argumentpropagation.codescanner;
+
+import com.android.tools.r8.ir.analysis.type.DynamicType;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Canonicalizes the dynamic types computed for the call sites in the program, such that the
+ * parameter states of different methods share the same dynamic type instances.
+ */
+public class DynamicTypeFactory {
+
+  private final Map<DynamicType, DynamicType> dynamicTypes = new ConcurrentHashMap<>();
+
+  public DynamicType canonicalize(DynamicType dynamicType) {
+    if (dynamicType.isBottom() || dynamicType.isUnknown()) {
+      return dynamicType;
+    }
+    return dynamicTypes.computeIfAbsent(dynamicType, Function.identity());
+  }
+}
@@ -44,12 +44,12 @@ public class InParameterFlowPropagator {
 
   final AppView<AppInfoWithLiveness> appView;
   final IRConverter converter;
-  final MethodStateCollectionByReference methodStates;
+  final MethodStateCollectionByComponent methodStates;
 
   public InParameterFlowPropagator(
       AppView<AppInfoWithLiveness> appView,
       IRConverter converter,
-      MethodStateCollectionByReference methodStates) {
+      MethodStateCollectionByComponent methodStates) {
     this.appView = appView;
     this.converter = converter;
     this.methodStates = methodStates;
@@ -119,15 +119,22 @@ public class InParameterFlowPropagator {
   }
 
   private void postProcessMethodStates(ExecutorService executorService) throws ExecutionException {
+    // The method states of a component are not thread safe, thus process each component as a
+    // whole.
     ThreadUtils.processItems(
-        appView.appInfo().classes(), this::postProcessMethodStates, executorService);
+        methodStates.getComponents(), this::postProcessMethodStates, executorService);
   }
 
-  private void postProcessMethodStates(DexProgramClass clazz) {
-    clazz.forEachProgramMethod(this::postProcessMethodState);
+  private void postProcessMethodStates(Set<DexProgramClass> component) {
+    MethodStateCollectionByReference methodStatesForComponent = methodStates.get(component);
+    for (DexProgramClass clazz : component) {
+      clazz.forEachProgramMethod(
+          method -> postProcessMethodState(method, methodStatesForComponent));
+    }
   }
 
-  private void postProcessMethodState(ProgramMethod method) {
+  private void postProcessMethodState(
+      ProgramMethod method, MethodStateCollectionByReference methodStates) {
     ConcreteMethodState methodState = methodStates.get(method).asConcrete();
     if (methodState == null) {
       return;
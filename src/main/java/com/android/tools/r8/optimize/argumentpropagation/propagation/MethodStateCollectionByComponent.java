@@ -0,0 +1,109 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.optimize.argumentpropagation.propagation;
+
+import com.android.tools.r8.graph.DexProgramClass;
+import com.android.tools.r8.graph.DexType;
+import com.android.tools.r8.graph.ProgramMethod;
+import com.android.tools.r8.optimize.argumentpropagation.codescanner.MethodState;
+import com.android.tools.r8.optimize.argumentpropagation.codescanner.MethodStateCollectionByReference;
+import com.android.tools.r8.utils.ThreadUtils;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * The method states of the program partitioned by the strongly connected components of the program
+ * class hierarchy.
+ *
+ * <p>The argument propagation through virtual dispatch only reads and writes the method states of
+ * a single component. Each component therefore has its own (non-concurrent) method state
+ * collection, which must only be accessed by one thread at a time. Reading the method state of a
+ * method in another component is allowed when no thread is writing to the collection of that
+ * component.
+ */
+public class MethodStateCollectionByComponent {
+
+  private final List<Set<DexProgramClass>> components;
+  private final Map<Set<DexProgramClass>, MethodStateCollectionByReference> methodStatesByComponent;
+  private final Map<DexType, MethodStateCollectionByReference> methodStatesByHolder;
+
+  private MethodStateCollectionByComponent(
+      List<Set<DexProgramClass>> components,
+      Map<Set<DexProgramClass>, MethodStateCollectionByReference> methodStatesByComponent,
+      Map<DexType, MethodStateCollectionByReference> methodStatesByHolder) {
+    this.components = components;
+    this.methodStatesByComponent = methodStatesByComponent;
+    this.methodStatesByHolder = methodStatesByHolder;
+  }
+
+  /**
+   * Moves the method states from the given (concurrent) collection into the collection of the
+   * component that contains the holder of each method.
+   */
+  public static MethodStateCollectionByComponent create(
+      List<Set<DexProgramClass>> components,
+      MethodStateCollectionByReference methodStates,
+      ExecutorService executorService)
+      throws ExecutionException {
+    Map<Set<DexProgramClass>, MethodStateCollectionByReference> methodStatesByComponent =
+        new IdentityHashMap<>();
+    Map<DexType, MethodStateCollectionByReference> methodStatesByHolder = new IdentityHashMap<>();
+    for (Set<DexProgramClass> component : components) {
+      MethodStateCollectionByReference methodStatesForComponent =
+          MethodStateCollectionByReference.create();
+      methodStatesByComponent.put(component, methodStatesForComponent);
+      for (DexProgramClass clazz : component) {
+        methodStatesByHolder.put(clazz.getType(), methodStatesForComponent);
+      }
+    }
+    ThreadUtils.processItems(
+        components,
+        component -> {
+          MethodStateCollectionByReference methodStatesForComponent =
+              methodStatesByComponent.get(component);
+          for (DexProgramClass clazz : component) {
+            clazz.forEachProgramMethod(
+                method -> {
+                  MethodState methodState = methodStates.removeOrElse(method, null);
+                  if (methodState != null) {
+                    methodStatesForComponent.set(method, methodState);
+                  }
+                });
+          }
+        },
+        executorService);
+    assert methodStates.isEmpty();
+    return new MethodStateCollectionByComponent(
+        components, methodStatesByComponent, methodStatesByHolder);
+  }
+
+  public List<Set<DexProgramClass>> getComponents() {
+    return components;
+  }
+
+  public MethodStateCollectionByReference get(Set<DexProgramClass> component) {
+    return methodStatesByComponent.get(component);
+  }
+
+  public MethodState get(ProgramMethod method) {
+    return getForHolder(method).get(method);
+  }
+
+  private MethodStateCollectionByReference getForHolder(ProgramMethod method) {
+    MethodStateCollectionByReference methodStates =
+        methodStatesByHolder.get(method.getHolderType());
+    assert methodStates != null;
+    return methodStates;
+  }
+
+  public boolean isEmpty() {
+    return methodStatesByComponent.values().stream()
+        .allMatch(MethodStateCollectionByReference::isEmpty);
+  }
+}
@@ -22,6 +22,9 @@ import com.android.tools.r8.graph.DexValue.DexValueEnum;
 import com.android.tools.r8.graph.DexValue.DexValueType;
 import com.android.tools.r8.graph.GraphLens;
 import com.android.tools.r8.utils.ArrayUtils;
+import com.android.tools.r8.utils.ThreadUtils;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 public class AnnotationFixer {
 
@@ -33,12 +36,21 @@ public class AnnotationFixer {
 
   public void run(Iterable<DexProgramClass> classes) {
     for (DexProgramClass clazz : classes) {
-      clazz.setAnnotations(clazz.annotations().rewrite(this::rewriteAnnotation));
-      clazz.forEachMethod(this::processMethod);
-      clazz.forEachField(this::processField);
+      processClass(clazz);
     }
   }
 
+  public void run(Iterable<DexProgramClass> classes, ExecutorService executorService)
+      throws ExecutionException {
+    ThreadUtils.processItems(classes, this::processClass, executorService);
+  }
+
+  private void processClass(DexProgramClass clazz) {
+    clazz.setAnnotations(clazz.annotations().rewrite(this::rewriteAnnotation));
+    clazz.forEachMethod(this::processMethod);
+    clazz.forEachField(this::processField);
+  }
+
   private void processMethod(DexEncodedMethod method) {
     method.rewriteAllAnnotations(
         (annotation, isParameterAnnotation) -> rewriteAnnotation(annotation));
@@ -3599,7 +3599,9 @@ public class Enqueuer {
     trace(executorService, timing);
     options.reporter.failIfPendingErrors();
     finalizeLibraryMethodOverrideInformation();
-    analyses.forEach(analyses -> analyses.done(this));
+    for (EnqueuerAnalysis analysis : analyses) {
+      analysis.done(this, executorService);
+    }
     assert verifyKeptGraph();
     if (mode.isInitialTreeShaking() && forceProguardCompatibility) {
       appView.setProguardCompatibilityActions(proguardCompatibilityActionsBuilder.build());
@@ -3947,7 +3949,7 @@ public class Enqueuer {
     // Commit the pending synthetics and recompute subtypes.
     appInfo = appInfo.rebuildWithClassHierarchy(app -> app);
     appView.setAppInfo(appInfo);
-    subtypingInfo = SubtypingInfo.create(appView);
+    subtypingInfo = SubtypingInfo.create(appView, executorService);
 
     // Finally once all synthesized items "exist" it is now safe to continue tracing. The new work
     // items are enqueued and the fixed point will continue once this subroutine returns.
@@ -4209,7 +4211,7 @@ public class Enqueuer {
             // Filter out library fields and pinned fields, because these are read by default.
             fieldAccessInfoCollection,
             methodAccessInfoCollection.build(),
-            objectAllocationInfoCollection.build(appInfo),
+            objectAllocationInfoCollection.build(appInfo, executorService),
             callSites,
             keepInfo,
             rootSet.mayHaveSideEffects,
@@ -4505,7 +4507,7 @@ public class Enqueuer {
     // Commit the pending synthetics and recompute subtypes.
     appInfo = appInfo.rebuildWithClassHierarchy(app -> app);
     appView.setAppInfo(appInfo);
-    subtypingInfo = SubtypingInfo.create(appView);
+    subtypingInfo = SubtypingInfo.create(appView, executorService);
 
     syntheticAdditions.enqueueWorkItems(this);
 
@@ -77,6 +77,7 @@ import com.android.tools.r8.utils.FieldSignatureEquivalence;
 import com.android.tools.r8.utils.InternalOptions;
 import com.android.tools.r8.utils.MethodSignatureEquivalence;
 import com.android.tools.r8.utils.OptionalBool;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.Timing;
 import com.android.tools.r8.utils.TraversalContinuation;
 import com.android.tools.r8.utils.collections.BidirectionalManyToOneHashMap;
@@ -98,6 +99,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -255,7 +257,8 @@ public class VerticalClassMerger {
       DexApplication application,
       AppView<AppInfoWithLiveness> appView,
       ExecutorService executorService,
-      Timing timing) {
+      Timing timing)
+      throws ExecutionException {
     this.application = application;
     this.appInfo = appView.appInfo();
     this.appView = appView;
@@ -270,30 +273,40 @@ public class VerticalClassMerger {
 
     Iterable<DexProgramClass> classes = application.classesWithDeterministicOrder();
     initializePinnedTypes(classes); // Must be initialized prior to mergeCandidates.
+    timing.begin("Initialize merge candidates");
     initializeMergeCandidates(classes);
+    timing.end();
   }
 
-  private void initializeMergeCandidates(Iterable<DexProgramClass> classes) {
+  private void initializeMergeCandidates(Iterable<DexProgramClass> classes)
+      throws ExecutionException {
+    // No classes have been merged yet, so the eligibility of each (source, target) pair only
+    // depends on the pinned types and the unmodified program. The checks are therefore computed in
+    // parallel, and the candidates are added in the deterministic order of the classes afterwards.
+    Collection<Boolean> isMergeCandidate =
+        ThreadUtils.processItemsWithResults(
+            classes, this::isInitialMergeCandidate, executorService);
+    Iterator<Boolean> isMergeCandidateIterator = isMergeCandidate.iterator();
     for (DexProgramClass sourceClass : classes) {
-      DexType singleSubtype = subtypingInfo.getSingleDirectSubtype(sourceClass.type);
-      if (singleSubtype == null) {
-        continue;
-      }
-      DexProgramClass targetClass = asProgramClassOrNull(appView.definitionFor(singleSubtype));
-      if (targetClass == null) {
-        continue;
-      }
-      if (!isMergeCandidate(sourceClass, targetClass, pinnedTypes)) {
-        continue;
+      if (isMergeCandidateIterator.next()) {
+        mergeCandidates.add(sourceClass);
       }
-      if (!isStillMergeCandidate(sourceClass, targetClass)) {
-        continue;
-      }
-      if (mergeMayLeadToIllegalAccesses(sourceClass, targetClass)) {
-        continue;
-      }
-      mergeCandidates.add(sourceClass);
     }
+    assert !isMergeCandidateIterator.hasNext();
+  }
+
+  private boolean isInitialMergeCandidate(DexProgramClass sourceClass) {
+    DexType singleSubtype = subtypingInfo.getSingleDirectSubtype(sourceClass.type);
+    if (singleSubtype == null) {
+      return false;
+    }
+    DexProgramClass targetClass = asProgramClassOrNull(appView.definitionFor(singleSubtype));
+    if (targetClass == null) {
+      return false;
+    }
+    return isMergeCandidate(sourceClass, targetClass, pinnedTypes)
+        && isStillMergeCandidate(sourceClass, targetClass)
+        && !mergeMayLeadToIllegalAccesses(sourceClass, targetClass);
   }
 
   // Returns a set of types that must not be merged into other types.
@@ -699,7 +712,7 @@ public class VerticalClassMerger {
     }
   }
 
-  public VerticalClassMergerGraphLens run() {
+  public VerticalClassMergerGraphLens run() throws ExecutionException {
     timing.begin("merge");
     // Visit the program classes in a top-down order according to the class hierarchy.
     TopDownClassHierarchyTraversal.forProgramClasses(appView)
@@ -720,7 +733,7 @@ public class VerticalClassMerger {
     VerticalClassMergerGraphLens lens =
         new VerticalClassMergerTreeFixer(
                 appView, lensBuilder, verticallyMergedClasses, synthesizedBridges)
-            .fixupTypeReferences();
+            .fixupTypeReferences(executorService);
     KeepInfoCollection keepInfo = appView.getKeepInfo();
     keepInfo.mutate(
         mutator ->
@@ -1799,7 +1812,8 @@ public class VerticalClassMerger {
       this.synthesizedBridges = synthesizedBridges;
     }
 
-    private VerticalClassMergerGraphLens fixupTypeReferences() {
+    private VerticalClassMergerGraphLens fixupTypeReferences(ExecutorService executorService)
+        throws ExecutionException {
       // Globally substitute merged class types in protos and holders.
       for (DexProgramClass clazz : appView.appInfo().classes()) {
         clazz.getMethodCollection().replaceMethods(this::fixupMethod);
@@ -1811,7 +1825,7 @@ public class VerticalClassMerger {
       }
       VerticalClassMergerGraphLens lens = lensBuilder.build(appView, mergedClasses);
       if (lens != null) {
-        new AnnotationFixer(lens).run(appView.appInfo().classes());
+        new AnnotationFixer(lens).run(appView.appInfo().classes(), executorService);
       }
       return lens;
     }
@@ -37,6 +37,7 @@ import com.android.tools.r8.utils.IterableUtils;
 import com.android.tools.r8.utils.ListUtils;
 import com.android.tools.r8.utils.OptionalBool;
 import com.android.tools.r8.utils.SetUtils;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.Timing;
 import com.android.tools.r8.utils.collections.BidirectionalManyToOneRepresentativeHashMap;
 import com.android.tools.r8.utils.collections.BidirectionalManyToOneRepresentativeMap;
@@ -69,6 +70,10 @@ public class SyntheticFinalization {
   // TODO(b/237413146): Implement a non-quadratic grouping algorithm.
   private static final int GROUP_COUNT_THRESHOLD = 10;
 
+  // The maximal number of distinct groups that a set of potentially equivalent members is split
+  // into before the members are sorted instead.
+  private static final int MAX_UNSORTED_POTENTIAL_GROUPS = 8;
+
   public static class Result {
     public final CommittedItems commit;
     public final NonIdentityGraphLens lens;
@@ -167,7 +172,8 @@ public class SyntheticFinalization {
     assert !appView.appInfo().hasClassHierarchy();
     assert !appView.appInfo().hasLiveness();
     appView.options().testing.checkDeterminism(appView);
-    Result result = appView.getSyntheticItems().computeFinalSynthetics(appView, timing);
+    Result result =
+        appView.getSyntheticItems().computeFinalSynthetics(appView, executorService, timing);
     appView.setAppInfo(new AppInfo(result.commit, result.mainDexInfo));
     if (result.lens != null) {
       appView.setAppInfo(
@@ -188,7 +194,8 @@ public class SyntheticFinalization {
       throws ExecutionException {
     assert !appView.appInfo().hasLiveness();
     appView.options().testing.checkDeterminism(appView);
-    Result result = appView.getSyntheticItems().computeFinalSynthetics(appView, timing);
+    Result result =
+        appView.getSyntheticItems().computeFinalSynthetics(appView, executorService, timing);
     appView.setAppInfo(appView.appInfo().rebuildWithClassHierarchy(result.commit));
     appView.setAppInfo(appView.appInfo().rebuildWithMainDexInfo(result.mainDexInfo));
     if (result.lens != null) {
@@ -209,7 +216,8 @@ public class SyntheticFinalization {
       AppView<AppInfoWithLiveness> appView, ExecutorService executorService, Timing timing)
       throws ExecutionException {
     appView.options().testing.checkDeterminism(appView);
-    Result result = appView.getSyntheticItems().computeFinalSynthetics(appView, timing);
+    Result result =
+        appView.getSyntheticItems().computeFinalSynthetics(appView, executorService, timing);
     appView.setAppInfo(appView.appInfo().rebuildWithMainDexInfo(result.mainDexInfo));
     if (result.lens != null) {
       appView.rewriteWithLensAndApplication(result.lens, result.commit.getApplication().asDirect());
@@ -220,7 +228,8 @@ public class SyntheticFinalization {
     appView.pruneItems(result.prunedItems, executorService);
   }
 
-  Result computeFinalSynthetics(AppView<?> appView, Timing timing) {
+  Result computeFinalSynthetics(AppView<?> appView, ExecutorService executorService, Timing timing)
+      throws ExecutionException {
     assert verifyNoNestedSynthetics(appView.dexItemFactory());
     assert verifyOneSyntheticPerSyntheticClass();
     DexApplication application;
@@ -240,12 +249,22 @@ public class SyntheticFinalization {
                   "Method equivalence",
                   () ->
                       computeEquivalences(
-                          appView, committed.getMethods(), generators, lensBuilder, timing)),
+                          appView,
+                          committed.getMethods(),
+                          generators,
+                          lensBuilder,
+                          executorService,
+                          timing)),
               timing.time(
                   "Class equivalence",
                   () ->
                       computeEquivalences(
-                          appView, committed.getClasses(), generators, lensBuilder, timing)),
+                          appView,
+                          committed.getClasses(),
+                          generators,
+                          lensBuilder,
+                          executorService,
+                          timing)),
               lensBuilder,
               (clazz, reference) ->
                   finalClassesBuilder.put(clazz.getType(), ImmutableList.of(reference)),
@@ -306,7 +325,9 @@ public class SyntheticFinalization {
           ImmutableMap<DexType, List<R>> references,
           Map<String, NumberGenerator> generators,
           Builder lensBuilder,
-          Timing timing) {
+          ExecutorService executorService,
+          Timing timing)
+          throws ExecutionException {
     boolean intermediate = appView.options().intermediate;
     Map<DexType, D> definitions = lookupDefinitions(appView, references);
     ClassToFeatureSplitMap classToFeatureSplitMap =
@@ -321,7 +342,8 @@ public class SyntheticFinalization {
             appView.dexItemFactory(),
             appView.graphLens(),
             classToFeatureSplitMap,
-            synthetics);
+            synthetics,
+            executorService);
     timing.end();
     return computeActualEquivalences(
         potentialEquivalences,
@@ -330,6 +352,7 @@ public class SyntheticFinalization {
         intermediate,
         classToFeatureSplitMap,
         lensBuilder,
+        executorService,
         timing);
   }
 
@@ -585,14 +608,19 @@ public class SyntheticFinalization {
           boolean intermediate,
           ClassToFeatureSplitMap classToFeatureSplitMap,
           Builder lensBuilder,
-          Timing timing) {
+          ExecutorService executorService,
+          Timing timing)
+          throws ExecutionException {
     Map<String, List<EquivalenceGroup<T>>> groupsPerPrefix = new HashMap<>();
     Map<DexType, EquivalenceGroup<T>> equivalences = new IdentityHashMap<>();
     timing.begin("Groups");
-    potentialEquivalences.forEach(
-        members -> {
-          List<EquivalenceGroup<T>> groups =
-              groupEquivalent(appView, members, intermediate, classToFeatureSplitMap);
+    Collection<List<EquivalenceGroup<T>>> groupsPerPotentialEquivalence =
+        ThreadUtils.processItemsWithResults(
+            potentialEquivalences,
+            members -> groupEquivalent(appView, members, intermediate, classToFeatureSplitMap),
+            executorService);
+    groupsPerPotentialEquivalence.forEach(
+        groups -> {
           for (EquivalenceGroup<T> group : groups) {
             // If the group has a pinned representative don't construct an external type.
             if (group.isPinned(appView)) {
@@ -672,31 +700,34 @@ public class SyntheticFinalization {
     }
     assert !potentialEquivalence.isEmpty();
 
-    // Sort the potential members and split them up into potential groups of members that are
-    // actually equal.
+    // Split the potential members up into potential groups of members that are actually equal.
+    // The potential members have the same structural hash, so they are almost always all equal.
+    // Each member is therefore compared to the first member of each group found so far, instead of
+    // sorting all the members. Only if this finds many distinct groups, the members are sorted.
     GraphLens graphLens = appView.graphLens();
     boolean includeContext =
         intermediate || appView.options().getStartupOptions().isStartupInstrumentationEnabled();
-    List<T> sortedPotentialMembers =
-        ListUtils.sort(
-            potentialEquivalence,
-            (a, b) -> a.compareTo(b, includeContext, graphLens, classToFeatureSplitMap));
     List<List<T>> potentialGroups = new ArrayList<>();
-    {
-      List<T> currentGroup = new ArrayList<>();
-      T currentRepresentative = sortedPotentialMembers.get(0);
-      currentGroup.add(currentRepresentative);
-      for (int i = 1; i < sortedPotentialMembers.size(); i++) {
-        T member = sortedPotentialMembers.get(i);
-        if (!currentRepresentative.isEquivalentTo(
+    for (T member : potentialEquivalence) {
+      List<T> potentialGroup = null;
+      for (List<T> candidate : potentialGroups) {
+        if (candidate.get(0).isEquivalentTo(
             member, includeContext, graphLens, classToFeatureSplitMap)) {
-          potentialGroups.add(currentGroup);
-          currentGroup = new ArrayList<>();
-          currentRepresentative = member;
+          potentialGroup = candidate;
+          break;
         }
-        currentGroup.add(member);
       }
-      potentialGroups.add(currentGroup);
+      if (potentialGroup == null) {
+        if (potentialGroups.size() == MAX_UNSORTED_POTENTIAL_GROUPS) {
+          potentialGroups =
+              sortAndGroupEquivalent(
+                  potentialEquivalence, includeContext, graphLens, classToFeatureSplitMap);
+          break;
+        }
+        potentialGroup = new ArrayList<>();
+        potentialGroups.add(potentialGroup);
+      }
+      potentialGroup.add(member);
     }
 
     // Compute the actual groups by picking the group representatives. In cases of pinned members
@@ -739,6 +770,33 @@ public class SyntheticFinalization {
     return actualGroups;
   }
 
+  private static <T extends SyntheticDefinition<?, T, ?>> List<List<T>> sortAndGroupEquivalent(
+      List<T> potentialEquivalence,
+      boolean includeContext,
+      GraphLens graphLens,
+      ClassToFeatureSplitMap classToFeatureSplitMap) {
+    List<T> sortedPotentialMembers =
+        ListUtils.sort(
+            potentialEquivalence,
+            (a, b) -> a.compareTo(b, includeContext, graphLens, classToFeatureSplitMap));
+    List<List<T>> potentialGroups = new ArrayList<>();
+    List<T> currentGroup = new ArrayList<>();
+    T currentRepresentative = sortedPotentialMembers.get(0);
+    currentGroup.add(currentRepresentative);
+    for (int i = 1; i < sortedPotentialMembers.size(); i++) {
+      T member = sortedPotentialMembers.get(i);
+      if (!currentRepresentative.isEquivalentTo(
+          member, includeContext, graphLens, classToFeatureSplitMap)) {
+        potentialGroups.add(currentGroup);
+        currentGroup = new ArrayList<>();
+        currentRepresentative = member;
+      }
+      currentGroup.add(member);
+    }
+    potentialGroups.add(currentGroup);
+    return potentialGroups;
+  }
+
   private static <T extends SyntheticDefinition<?, T, ?>> T findSmallestMember(
       List<T> members, Consumer<T> notSmallestCallback) {
     assert !members.isEmpty();
@@ -833,7 +891,9 @@ public class SyntheticFinalization {
           DexItemFactory factory,
           GraphLens graphLens,
           ClassToFeatureSplitMap classToFeatureSplitMap,
-          SyntheticItems syntheticItems) {
+          SyntheticItems syntheticItems,
+          ExecutorService executorService)
+          throws ExecutionException {
     if (definitions.isEmpty()) {
       return Collections.emptyList();
     }
@@ -854,12 +914,21 @@ public class SyntheticFinalization {
               });
     }
     RepresentativeMap map = t -> syntheticTypes.contains(t) ? factory.voidType : t;
+    // The hash of each definition only depends on the definition itself, so compute them in
+    // parallel.
+    List<T> definitionList = new ArrayList<>(definitions.values());
+    Collection<HashCode> hashes =
+        ThreadUtils.processItemsWithResults(
+            definitionList,
+            definition ->
+                definition.computeHash(map, intermediate, classToFeatureSplitMap, syntheticItems),
+            executorService);
     Map<HashCode, List<T>> equivalences = new HashMap<>(definitions.size());
-    for (T definition : definitions.values()) {
-      HashCode hash =
-          definition.computeHash(map, intermediate, classToFeatureSplitMap, syntheticItems);
-      equivalences.computeIfAbsent(hash, k -> new ArrayList<>()).add(definition);
+    Iterator<HashCode> hashIterator = hashes.iterator();
+    for (T definition : definitionList) {
+      equivalences.computeIfAbsent(hashIterator.next(), k -> new ArrayList<>()).add(definition);
     }
+    assert !hashIterator.hasNext();
     return equivalences.values();
   }
 
@@ -57,6 +57,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -1069,9 +1071,11 @@ public class SyntheticItems implements SyntheticDefinitionsProvider {
 
   // Finalization of synthetic items.
 
-  Result computeFinalSynthetics(AppView<?> appView, Timing timing) {
+  Result computeFinalSynthetics(
+      AppView<?> appView, ExecutorService executorService, Timing timing)
+      throws ExecutionException {
     assert !hasPendingSyntheticClasses();
     return new SyntheticFinalization(appView.options(), this, committed)
-        .computeFinalSynthetics(appView, timing);
+        .computeFinalSynthetics(appView, executorService, timing);
   }
 }
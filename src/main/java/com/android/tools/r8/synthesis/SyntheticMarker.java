@@ -36,6 +36,10 @@ public class SyntheticMarker {
     writer.visitAttribute(new MarkerAttribute(kind, naming.getVersionHash(), naming));
   }
 
+  public static boolean isMarkerAttributeName(String attributeName) {
+    return SYNTHETIC_MARKER_ATTRIBUTE_TYPE_NAME.equals(attributeName);
+  }
+
   public static SyntheticMarker readMarkerAttribute(Attribute attribute) {
     if (attribute instanceof MarkerAttribute) {
       MarkerAttribute marker = (MarkerAttribute) attribute;
@@ -0,0 +1,91 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.tracereferences;
+
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.diagnostic.DefinitionContext;
+import com.android.tools.r8.references.PackageReference;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Consumer that collects the references traced from a single program class, such that the class
+ * can be traced without synchronizing with the tracing of other classes.
+ *
+ * <p>Each reference is only recorded once for each context it is referenced from. The recorded
+ * references are passed on to the actual consumer using {@link #forwardTo} once the class has been
+ * traced.
+ */
+class DeduplicatingTraceReferencesConsumer implements TraceReferencesConsumer {
+
+  private final Map<TracedReferenceKey, TracedClass> types = new LinkedHashMap<>();
+  private final Map<TracedReferenceKey, TracedField> fields = new LinkedHashMap<>();
+  private final Map<TracedReferenceKey, TracedMethod> methods = new LinkedHashMap<>();
+  private final Set<PackageReference> packages = new LinkedHashSet<>();
+
+  @Override
+  public void acceptType(TracedClass tracedClass, DiagnosticsHandler handler) {
+    types.putIfAbsent(new TracedReferenceKey(tracedClass), tracedClass);
+  }
+
+  @Override
+  public void acceptField(TracedField tracedField, DiagnosticsHandler handler) {
+    fields.putIfAbsent(new TracedReferenceKey(tracedField), tracedField);
+  }
+
+  @Override
+  public void acceptMethod(TracedMethod tracedMethod, DiagnosticsHandler handler) {
+    methods.putIfAbsent(new TracedReferenceKey(tracedMethod), tracedMethod);
+  }
+
+  @Override
+  public void acceptPackage(PackageReference pkg, DiagnosticsHandler handler) {
+    packages.add(pkg);
+  }
+
+  /**
+   * Passes the recorded references on to the given consumer. The caller is responsible for not
+   * calling the consumer concurrently.
+   */
+  void forwardTo(TraceReferencesConsumer consumer, DiagnosticsHandler handler) {
+    types.values().forEach(tracedClass -> consumer.acceptType(tracedClass, handler));
+    fields.values().forEach(tracedField -> consumer.acceptField(tracedField, handler));
+    methods.values().forEach(tracedMethod -> consumer.acceptMethod(tracedMethod, handler));
+    packages.forEach(pkg -> consumer.acceptPackage(pkg, handler));
+  }
+
+  private static class TracedReferenceKey {
+
+    private final Object reference;
+    private final DefinitionContext referencedFrom;
+    private final boolean missingDefinition;
+
+    TracedReferenceKey(TracedReference<?, ?> tracedReference) {
+      this.reference = tracedReference.getReference();
+      this.referencedFrom = tracedReference.getReferencedFromContext();
+      this.missingDefinition = tracedReference.isMissingDefinition();
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(reference, System.identityHashCode(referencedFrom), missingDefinition);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof TracedReferenceKey)) {
+        return false;
+      }
+      TracedReferenceKey key = (TracedReferenceKey) other;
+      // The contexts do not define equality, but the tracer uses the same context object for all
+      // references from the code of a method.
+      return reference.equals(key.reference)
+          && referencedFrom == key.referencedFrom
+          && missingDefinition == key.missingDefinition;
+    }
+  }
+}
@@ -4,6 +4,7 @@
 package com.android.tools.r8.tracereferences;
 
 import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.StringResource;
 import com.android.tools.r8.dex.ApplicationReader;
 import com.android.tools.r8.diagnostic.DefinitionContext;
 import com.android.tools.r8.diagnostic.internal.DefinitionContextUtils;
@@ -50,10 +51,13 @@ import com.android.tools.r8.tracereferences.internal.TracedMethodImpl;
 import com.android.tools.r8.utils.AndroidApp;
 import com.android.tools.r8.utils.BooleanBox;
 import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.Timing;
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -67,12 +71,15 @@ public class Tracer {
       Set<String> targetDescriptors,
       AndroidApp inputApp,
       DiagnosticsHandler diagnostics,
-      InternalOptions options)
+      InternalOptions options,
+      ExecutorService executorService)
       throws IOException {
     this(
         AppView.createForTracer(
             AppInfoWithClassHierarchy.createInitialAppInfoWithClassHierarchy(
-                new ApplicationReader(inputApp, options, Timing.empty()).read().toDirect(),
+                new ApplicationReader(inputApp, options, Timing.empty())
+                    .read((StringResource) null, executorService)
+                    .toDirect(),
                 ClassToFeatureSplitMap.createEmptyClassToFeatureSplitMap(),
                 MainDexInfo.none(),
                 GlobalSyntheticsStrategy.forSingleOutputMode(),
@@ -90,24 +97,39 @@ public class Tracer {
     this.targetPredicate = targetPredicate;
   }
 
-  public void run(TraceReferencesConsumer consumer) {
+  public void run(TraceReferencesConsumer consumer, ExecutorService executorService)
+      throws ExecutionException {
+    // The classes are traced in parallel. The references traced from each class are collected
+    // separately and passed on to the consumer, one class at a time, once the class is traced.
+    ThreadUtils.processItems(
+        appView.appInfo().classes(),
+        clazz -> {
+          DeduplicatingTraceReferencesConsumer classConsumer =
+              new DeduplicatingTraceReferencesConsumer();
+          traceClass(clazz, classConsumer);
+          synchronized (this) {
+            classConsumer.forwardTo(consumer, diagnostics);
+          }
+        },
+        executorService);
+    consumer.finished(diagnostics);
+  }
+
+  private void traceClass(DexProgramClass clazz, TraceReferencesConsumer consumer) {
     UseCollector useCollector = new UseCollector(appView, consumer, diagnostics, targetPredicate);
-    for (DexProgramClass clazz : appView.appInfo().classes()) {
-      DefinitionContext classContext = DefinitionContextUtils.create(clazz);
-      if (clazz.superType != null) {
-        useCollector.registerSuperType(clazz, clazz.superType, classContext);
-      }
-      for (DexType implementsType : clazz.getInterfaces()) {
-        useCollector.registerSuperType(clazz, implementsType, classContext);
-      }
-      clazz.forEachProgramField(useCollector::registerField);
-      clazz.forEachProgramMethod(
-          method -> {
-            useCollector.registerMethod(method);
-            useCollector.traceCode(method);
-          });
+    DefinitionContext classContext = DefinitionContextUtils.create(clazz);
+    if (clazz.superType != null) {
+      useCollector.registerSuperType(clazz, clazz.superType, classContext);
     }
-    consumer.finished(diagnostics);
+    for (DexType implementsType : clazz.getInterfaces()) {
+      useCollector.registerSuperType(clazz, implementsType, classContext);
+    }
+    clazz.forEachProgramField(useCollector::registerField);
+    clazz.forEachProgramMethod(
+        method -> {
+          useCollector.registerMethod(method);
+          useCollector.traceCode(method);
+        });
   }
 
   // The graph lens is intentionally only made accessible to the MethodUseCollector, since the
@@ -0,0 +1,59 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import static com.android.tools.r8.utils.MapUtils.ignoreKey;
+
+import com.android.tools.r8.DesugarGraphConsumer;
+import com.android.tools.r8.origin.Origin;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Desugar graph consumer that only forwards the first report of each edge to the client consumer.
+ *
+ * <p>The desugaring reports an edge each time it looks up a dependency, so the same edge is
+ * typically reported many times. The edges are identified by the equality of their origins, since
+ * class path providers may create a new origin each time a class is looked up.
+ */
+public class DeduplicatingDesugarGraphConsumer implements DesugarGraphConsumer {
+
+  private final DesugarGraphConsumer consumer;
+  private final Map<Origin, Set<Origin>> dependenciesPerDependent = new HashMap<>();
+
+  private DeduplicatingDesugarGraphConsumer(DesugarGraphConsumer consumer) {
+    this.consumer = consumer;
+  }
+
+  public static DesugarGraphConsumer wrap(DesugarGraphConsumer consumer) {
+    if (consumer == null || consumer instanceof DeduplicatingDesugarGraphConsumer) {
+      return consumer;
+    }
+    return new DeduplicatingDesugarGraphConsumer(consumer);
+  }
+
+  @Override
+  public void acceptProgramNode(Origin node) {
+    consumer.acceptProgramNode(node);
+  }
+
+  @Override
+  public void accept(Origin dependent, Origin dependency) {
+    synchronized (this) {
+      if (!dependenciesPerDependent
+          .computeIfAbsent(dependent, ignoreKey(HashSet::new))
+          .add(dependency)) {
+        return;
+      }
+    }
+    consumer.accept(dependent, dependency);
+  }
+
+  @Override
+  public void finished() {
+    consumer.finished();
+  }
+}
@@ -41,6 +41,7 @@ import com.android.tools.r8.experimental.startup.StartupOptions;
 import com.android.tools.r8.features.FeatureSplitConfiguration;
 import com.android.tools.r8.graph.AppInfoWithClassHierarchy;
 import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.ClassKind;
 import com.android.tools.r8.graph.DexApplication;
 import com.android.tools.r8.graph.DexClass;
 import com.android.tools.r8.graph.DexClasspathClass;
@@ -52,6 +53,7 @@ import com.android.tools.r8.graph.DexMethod;
 import com.android.tools.r8.graph.DexProgramClass;
 import com.android.tools.r8.graph.DexReference;
 import com.android.tools.r8.graph.DexType;
+import com.android.tools.r8.graph.LazyCfCodeParsingStatistics;
 import com.android.tools.r8.graph.ProgramMethod;
 import com.android.tools.r8.graph.classmerging.VerticallyMergedClasses;
 import com.android.tools.r8.horizontalclassmerging.HorizontalClassMerger;
@@ -60,6 +62,7 @@ import com.android.tools.r8.horizontalclassmerging.Policy;
 import com.android.tools.r8.inspector.internal.InspectorImpl;
 import com.android.tools.r8.ir.analysis.type.TypeElement;
 import com.android.tools.r8.ir.code.IRCode;
+import com.android.tools.r8.ir.conversion.MethodProcessingProfile;
 import com.android.tools.r8.ir.desugar.TypeRewriter;
 import com.android.tools.r8.ir.desugar.TypeRewriter.MachineDesugarPrefixRewritingMapper;
 import com.android.tools.r8.ir.desugar.desugaredlibrary.DesugaredLibrarySpecification;
@@ -70,6 +73,7 @@ import com.android.tools.r8.ir.optimize.enums.EnumDataMap;
 import com.android.tools.r8.naming.MapVersion;
 import com.android.tools.r8.optimize.argumentpropagation.ArgumentPropagatorEventConsumer;
 import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.origin.PathOrigin;
 import com.android.tools.r8.position.Position;
 import com.android.tools.r8.references.ClassReference;
 import com.android.tools.r8.references.FieldReference;
@@ -93,8 +97,10 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -106,6 +112,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
@@ -281,6 +288,16 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
   // Flag to toggle if DEX code objects should pass-through without IR processing.
   public boolean passthroughDexCode = false;
 
+  // Flag to toggle if pass-through DEX code objects should be written by copying the instructions
+  // from the input and patching the item indices, instead of writing each parsed instruction.
+  public boolean enableRawDexCodePassthrough =
+      System.getProperty("com.android.tools.r8.rawDexCodePassthrough") != null;
+
+  // Flag to toggle if CF code should be translated directly to DEX code in debug builds, without
+  // building IR, when possible.
+  public boolean enableDirectCfToDexTranslation =
+      System.getProperty("com.android.tools.r8.directCfToDexTranslation") != null;
+
   public static class NeverMergeGroup<T> {
     private final List<T> prefixes;
     private final List<T> exceptionPrefixes;
@@ -797,8 +814,13 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
   private final CallSiteOptimizationOptions callSiteOptimizationOptions =
       new CallSiteOptimizationOptions();
   private final CfCodeAnalysisOptions cfCodeAnalysisOptions = new CfCodeAnalysisOptions();
+  private final CfCodeParsingOptions cfCodeParsingOptions = new CfCodeParsingOptions();
   private final ClassInlinerOptions classInlinerOptions = new ClassInlinerOptions();
   private final InlinerOptions inlinerOptions = new InlinerOptions();
+  private final MethodProcessingProfilingOptions methodProcessingProfilingOptions =
+      new MethodProcessingProfilingOptions();
+  private final OptimizationInfoCacheOptions optimizationInfoCacheOptions =
+      new OptimizationInfoCacheOptions();
   private final HorizontalClassMergerOptions horizontalClassMergerOptions =
       new HorizontalClassMergerOptions();
   private final OpenClosedInterfacesOptions openClosedInterfacesOptions =
@@ -822,6 +844,14 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
    */
   public boolean enableInheritanceClassInDexDistributor = true;
 
+  /**
+   * Account for the methods and fields of the classes that are distributed into dex files using
+   * integer ids, instead of collecting all indexed items of each class when it is added to a file.
+   * The distribution is the same in both cases.
+   */
+  public boolean enableClassReferenceIdsInDexDistribution =
+      System.getProperty("com.android.tools.r8.disableClassReferenceIdsInDexDistribution") == null;
+
   public LineNumberOptimization lineNumberOptimization = LineNumberOptimization.ON;
 
   public CallSiteOptimizationOptions callSiteOptimizationOptions() {
@@ -860,6 +890,18 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
     return cfCodeAnalysisOptions;
   }
 
+  public CfCodeParsingOptions getCfCodeParsingOptions() {
+    return cfCodeParsingOptions;
+  }
+
+  public MethodProcessingProfilingOptions getMethodProcessingProfilingOptions() {
+    return methodProcessingProfilingOptions;
+  }
+
+  public OptimizationInfoCacheOptions getOptimizationInfoCacheOptions() {
+    return optimizationInfoCacheOptions;
+  }
+
   public DumpInputFlags getDumpInputFlags() {
     return dumpInputFlags;
   }
@@ -1319,6 +1361,15 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
     public int maxSize = 99;
     public int threshold = 20;
     public int maxNumberOfInstructionsToBeConsidered = 100;
+    // The maximum total number of IR instructions of the methods selected for outlining that is
+    // retained between identifying the outline sites and applying the outlines.
+    public int maxNumberOfCachedIRInstructions = 1000000;
+    // When enabled, the outline sites are only identified in the instruction sequences that are
+    // repeated at least threshold times in the methods selected for outlining, as found using a
+    // suffix array over the instructions of all selected methods.
+    public boolean enableSuffixArrayCandidateDiscovery =
+        System.getProperty("com.android.tools.r8.outline.enableSuffixArrayCandidateDiscovery")
+            != null;
   }
 
   public static class KotlinOptimizationOptions {
@@ -1421,6 +1472,209 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
     }
   }
 
+  public static class CfCodeParsingOptions {
+
+    // When enabled, the class structure is read directly from the class file bytes, and ASM is only
+    // used for parsing code and for class files that use features not supported by the direct
+    // reader. Disabled by default until the direct reader has been validated on more inputs.
+    private boolean enableDirectClassFileReader =
+        System.getProperty("com.android.tools.r8.enableDirectClassFileReader") != null;
+
+    // When enabled, code parsed from class files is only softly referenced until it is requested
+    // for modification, and the class file bytes are retained such that the code can be re-parsed
+    // if it has been garbage collected. This trades CPU time for memory.
+    private boolean softlyReferenceParsedCode =
+        System.getProperty("com.android.tools.r8.softlyReferenceParsedCfCode") != null;
+
+    private LazyCfCodeParsingStatistics statistics =
+        System.getProperty("com.android.tools.r8.printCfCodeParsingStatistics") != null
+            ? new LazyCfCodeParsingStatistics()
+            : null;
+
+    public boolean isDirectClassFileReaderEnabled() {
+      return enableDirectClassFileReader;
+    }
+
+    public CfCodeParsingOptions setEnableDirectClassFileReader(
+        boolean enableDirectClassFileReader) {
+      this.enableDirectClassFileReader = enableDirectClassFileReader;
+      return this;
+    }
+
+    public boolean isParsedCodeSoftlyReferenced() {
+      return softlyReferenceParsedCode;
+    }
+
+    public CfCodeParsingOptions setSoftlyReferenceParsedCode(boolean softlyReferenceParsedCode) {
+      this.softlyReferenceParsedCode = softlyReferenceParsedCode;
+      return this;
+    }
+
+    public boolean hasStatistics() {
+      return statistics != null;
+    }
+
+    public LazyCfCodeParsingStatistics getStatistics() {
+      return statistics;
+    }
+
+    public CfCodeParsingOptions setEnableStatistics(boolean enableStatistics) {
+      statistics = enableStatistics ? new LazyCfCodeParsingStatistics() : null;
+      return this;
+    }
+  }
+
+  public static class MethodProcessingProfilingOptions {
+
+    // When enabled, the time, allocation and IR size of processing each method in the IR converter
+    // is recorded. The slowest methods are printed at the end of compilation, and the profile of
+    // all methods is written to the given file, if any, such that it can be compared between
+    // builds.
+    private Path profileFile =
+        System.getProperty("com.android.tools.r8.methodProcessingProfileFile") != null
+            ? Paths.get(System.getProperty("com.android.tools.r8.methodProcessingProfileFile"))
+            : null;
+
+    private MethodProcessingProfile profile =
+        System.getProperty("com.android.tools.r8.printMethodProcessingProfile") != null
+                || profileFile != null
+            ? new MethodProcessingProfile()
+            : null;
+
+    private int numberOfMethodsToPrint =
+        SystemPropertyUtils.parseSystemPropertyOrDefault(
+            "com.android.tools.r8.methodProcessingProfileNumberOfMethodsToPrint", 25);
+
+    public boolean hasProfile() {
+      return profile != null;
+    }
+
+    public MethodProcessingProfile getProfile() {
+      return profile;
+    }
+
+    public MethodProcessingProfilingOptions setEnableProfile(boolean enableProfile) {
+      profile = enableProfile ? new MethodProcessingProfile() : null;
+      return this;
+    }
+
+    public MethodProcessingProfilingOptions setNumberOfMethodsToPrint(int numberOfMethodsToPrint) {
+      this.numberOfMethodsToPrint = numberOfMethodsToPrint;
+      return this;
+    }
+
+    public MethodProcessingProfilingOptions setProfileFile(Path profileFile) {
+      this.profileFile = profileFile;
+      return this;
+    }
+
+    public void report(Reporter reporter) {
+      assert hasProfile();
+      profile.print(System.out, numberOfMethodsToPrint);
+      if (profileFile != null) {
+        try {
+          profile.write(profileFile);
+        } catch (IOException e) {
+          reporter.warning(new ExceptionDiagnostic(e, new PathOrigin(profileFile)));
+        }
+      }
+    }
+  }
+
+  public static class OptimizationInfoCacheOptions {
+
+    // When set, summaries of the optimization info computed for the kept methods that allow
+    // optimization (-keep,allowoptimization) of the program
+    // classes whose name starts with one of the given package prefixes (all program classes if no
+    // prefixes are given) are written to the export file at the end of the compilation.
+    private Path exportFile =
+        System.getProperty("com.android.tools.r8.exportOptimizationInfo") != null
+            ? Paths.get(System.getProperty("com.android.tools.r8.exportOptimizationInfo"))
+            : null;
+
+    private List<String> exportPackagePrefixes =
+        System.getProperty("com.android.tools.r8.exportOptimizationInfoPackages") != null
+            ? ImmutableList.copyOf(
+                System.getProperty("com.android.tools.r8.exportOptimizationInfoPackages")
+                    .split(","))
+            : ImmutableList.of();
+
+    // When set, the summaries in the import file are applied to the library and classpath classes
+    // that are unchanged since the summaries were exported.
+    private Path importFile =
+        System.getProperty("com.android.tools.r8.importOptimizationInfo") != null
+            ? Paths.get(System.getProperty("com.android.tools.r8.importOptimizationInfo"))
+            : null;
+
+    // The keys of the classes read from class files when export or import is enabled, separately
+    // for program classes and for library and classpath classes. The key of a class is a hash of
+    // its class file, such that any change to the class, including its code and private members,
+    // invalidates the summaries of the class. Types that are defined by different class files of
+    // the same kind have no key.
+    private final Map<DexType, String> programClassFileKeys = new ConcurrentHashMap<>();
+    private final Map<DexType, String> nonProgramClassFileKeys = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+      return hasExportFile() || hasImportFile();
+    }
+
+    public void recordClassFile(ClassKind<?> classKind, DexType type, byte[] bytes) {
+      String key = Hashing.sha256().hashBytes(bytes).toString();
+      Map<DexType, String> keys =
+          classKind == ClassKind.PROGRAM ? programClassFileKeys : nonProgramClassFileKeys;
+      keys.merge(type, key, (existing, other) -> existing.equals(other) ? existing : "");
+    }
+
+    public String getProgramClassFileKey(DexType type) {
+      return getClassFileKey(programClassFileKeys, type);
+    }
+
+    public String getNonProgramClassFileKey(DexType type) {
+      return getClassFileKey(nonProgramClassFileKeys, type);
+    }
+
+    private static String getClassFileKey(Map<DexType, String> keys, DexType type) {
+      String key = keys.get(type);
+      return key == null || key.isEmpty() ? null : key;
+    }
+
+    public boolean hasExportFile() {
+      return exportFile != null;
+    }
+
+    public Path getExportFile() {
+      return exportFile;
+    }
+
+    public List<String> getExportPackagePrefixes() {
+      return exportPackagePrefixes;
+    }
+
+    public boolean hasImportFile() {
+      return importFile != null;
+    }
+
+    public Path getImportFile() {
+      return importFile;
+    }
+
+    public OptimizationInfoCacheOptions setExportFile(Path exportFile) {
+      this.exportFile = exportFile;
+      return this;
+    }
+
+    public OptimizationInfoCacheOptions setExportPackagePrefixes(
+        List<String> exportPackagePrefixes) {
+      this.exportPackagePrefixes = exportPackagePrefixes;
+      return this;
+    }
+
+    public OptimizationInfoCacheOptions setImportFile(Path importFile) {
+      this.importFile = importFile;
+      return this;
+    }
+  }
+
   public class ClassInlinerOptions {
 
     public int classInliningInstructionAllowance = -1;
@@ -1471,6 +1725,21 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
     public boolean enableInliningOfInvokesWithNullableReceivers = true;
     public boolean disableInliningOfLibraryMethodOverrides = true;
 
+    // When enabled, the number of instructions in the inlining IR of each inlinee is cached, such
+    // that inlinees that exceed the instruction budget can be rejected without building their IR.
+    public boolean enableInlineeSizeCache =
+        System.getProperty("com.android.tools.r8.disableInlineeSizeCache") == null;
+    public boolean printInlineeSizeCacheStatistics =
+        System.getProperty("com.android.tools.r8.printInlineeSizeCacheStatistics") != null;
+
+    // When non-negative, the data that the class inliner and the multi caller inliner retain across
+    // the waves of the primary optimization pass is bounded by this many megabytes (estimated).
+    // When the budget is exceeded, data is discarded and the inliners fall back to conservative
+    // decisions for the affected methods.
+    public int retainedDataBudgetInMegabytes =
+        SystemPropertyUtils.parseSystemPropertyOrDefault(
+            "com.android.tools.r8.inlinerRetainedDataBudgetInMegabytes", -1);
+
     public int getSimpleInliningInstructionLimit() {
       // If a custom simple inlining instruction limit is set, then use that.
       if (simpleInliningInstructionLimit >= 0) {
@@ -1484,6 +1753,15 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
       assert isGeneratingDex();
       return 5;
     }
+
+    public boolean hasRetainedDataBudget() {
+      return retainedDataBudgetInMegabytes >= 0;
+    }
+
+    public long getRetainedDataBudgetInBytes() {
+      assert hasRetainedDataBudget();
+      return retainedDataBudgetInMegabytes * 1024L * 1024L;
+    }
   }
 
   public class HorizontalClassMergerOptions {
@@ -1501,6 +1779,12 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
     private boolean ignoreRuntimeTypeChecksForTesting = false;
     private boolean restrictToSynthetics = false;
 
+    // The minimum number of merge candidates for applying a parallelizable policy concurrently.
+    private int parallelPolicyApplicationThreshold = 1000;
+    private boolean printPolicyStatistics =
+        System.getProperty("com.android.tools.r8.printHorizontalClassMergerPolicyStatistics")
+            != null;
+
     public void disable() {
       enable = false;
     }
@@ -1537,6 +1821,18 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
       return enableClassInitializerDeadlockDetection;
     }
 
+    public int getParallelPolicyApplicationThreshold() {
+      return parallelPolicyApplicationThreshold;
+    }
+
+    public void setParallelPolicyApplicationThreshold(int parallelPolicyApplicationThreshold) {
+      this.parallelPolicyApplicationThreshold = parallelPolicyApplicationThreshold;
+    }
+
+    public boolean isPrintPolicyStatisticsEnabled() {
+      return printPolicyStatistics;
+    }
+
     public boolean isEnabled(HorizontalClassMerger.Mode mode) {
       if (!enable || debug || intermediate) {
         return false;
@@ -2006,6 +2302,17 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
     return getMinApiLevel().isGreaterThanOrEqualTo(level);
   }
 
+  /**
+   * The direct translation of CF code to DEX code does not apply the workarounds for runtime bugs
+   * that are applied during IR processing, so it is only used when none of them are needed.
+   */
+  public boolean canUseDirectCfToDexTranslation() {
+    return enableDirectCfToDexTranslation
+        && debug
+        && isGeneratingDex()
+        && hasMinApi(AndroidApiLevel.Q);
+  }
+
   /**
    * Predicate to guard on the support of a language feature.
    *
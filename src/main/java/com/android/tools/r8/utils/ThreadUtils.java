@@ -21,6 +21,9 @@ public class ThreadUtils {
 
   public static final int NOT_SPECIFIED = -1;
 
+  // The minimum number of items in each partition created by processPartitionsWithResults.
+  private static final int MINIMUM_PARTITION_SIZE = 1024;
+
   public static <T> Future<T> processAsynchronously(
       Action action, ExecutorService executorService) {
     return processAsynchronously(
@@ -124,6 +127,30 @@ public class ThreadUtils {
         items.entrySet(), arg -> consumer.apply(arg.getKey(), arg.getValue()), executorService);
   }
 
+  /**
+   * Splits the given items into consecutive partitions and applies the given function to each
+   * partition in parallel. The results are returned in partition order, such that merging the
+   * results in order gives the same result as a single sequential pass over the items.
+   */
+  public static <T, R, E extends Exception> Collection<R> processPartitionsWithResults(
+      List<T> items,
+      ThrowingFunction<List<T>, R, E> consumer,
+      ExecutorService executorService)
+      throws ExecutionException {
+    int numberOfThreads = getNumberOfThreads(executorService);
+    if (numberOfThreads == NOT_SPECIFIED) {
+      numberOfThreads = Runtime.getRuntime().availableProcessors();
+    }
+    int numberOfPartitions =
+        Math.max(1, Math.min(numberOfThreads, items.size() / MINIMUM_PARTITION_SIZE));
+    int partitionSize = (items.size() + numberOfPartitions - 1) / numberOfPartitions;
+    List<List<T>> partitions = new ArrayList<>(numberOfPartitions);
+    for (int start = 0; start < items.size(); start += partitionSize) {
+      partitions.add(items.subList(start, Math.min(start + partitionSize, items.size())));
+    }
+    return processItemsWithResults(partitions, consumer, executorService);
+  }
+
   public static <E extends Exception> void processMethods(
       AppView<?> appView,
       ThrowingConsumer<ProgramMethod, E> consumer,
@@ -14,6 +14,9 @@ package com.android.tools.r8.utils;
 //     t.report();
 
 import com.google.common.base.Strings;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
 import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Deque;
@@ -21,6 +24,7 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Stack;
+import java.util.function.BiConsumer;
 
 public class Timing {
 
@@ -115,12 +119,17 @@ public class Timing {
     long start_time;
     Map<String, MemInfo> startMemory;
     Map<String, MemInfo> endMemory;
+    // The peak heap usage observed while this node (or any of its children) was running.
+    long peakMemory = 0;
+    // The peak heap usage recorded by the JVM when this node was started.
+    long peakMemoryAtStart;
 
     Node(String title, boolean trackMemory) {
       this.title = title;
       this.trackMemory = trackMemory;
       if (trackMemory) {
         startMemory = computeMemoryInformation();
+        peakMemoryAtStart = computePeakMemoryUsage();
       }
       this.start_time = System.nanoTime();
     }
@@ -129,6 +138,7 @@ public class Timing {
       assert start_time == -1;
       if (trackMemory) {
         startMemory = computeMemoryInformation();
+        peakMemoryAtStart = computePeakMemoryUsage();
       }
       start_time = System.nanoTime();
     }
@@ -139,6 +149,22 @@ public class Timing {
       assert duration() >= 0;
       if (trackMemory) {
         endMemory = computeMemoryInformation();
+        updatePeakMemory();
+      }
+    }
+
+    // If the peak recorded by the JVM has increased since this node was started, then the new peak
+    // was reached while this node was running. Otherwise, the usage at the start and the end of
+    // this node is a lower bound of its peak usage. The peak usage recorded by the JVM is never
+    // reset, since that would interfere with other timings in the same JVM.
+    private void updatePeakMemory() {
+      long peakMemoryAtEnd = computePeakMemoryUsage();
+      if (peakMemoryAtEnd > peakMemoryAtStart) {
+        peakMemory = Math.max(peakMemory, peakMemoryAtEnd);
+      } else {
+        MemInfo startValue = startMemory.get("Memory");
+        MemInfo endValue = endMemory.get("Memory");
+        peakMemory = Math.max(peakMemory, Math.max(startValue.used, endValue.used));
       }
     }
 
@@ -211,7 +237,8 @@ public class Timing {
                   + ", end: "
                   + prettySize(endValue.used)
                   + ", delta: "
-                  + prettySize(endValue.usedDelta(startValue)));
+                  + prettySize(endValue.usedDelta(startValue))
+                  + (peakMemory > 0 ? ", peak: " + prettySize(peakMemory) : ""));
         }
       }
     }
@@ -384,8 +411,32 @@ public class Timing {
   }
 
   public void end() {
-    stack.peek().end();  // record time.
+    Node node = stack.peek();
+    node.end();  // record time.
     stack.pop();
+    if (trackMemory && !stack.isEmpty()) {
+      Node parent = stack.peek();
+      parent.peakMemory = Math.max(parent.peakMemory, node.peakMemory);
+    }
+  }
+
+  /**
+   * Calls the given consumer with the name and duration in nanoseconds of each step that has been
+   * recorded so far, in pre-order. The name of a nested step is its path from the outermost step,
+   * joined by the given separator.
+   */
+  public void forEachStep(String separator, BiConsumer<String, Long> consumer) {
+    forEachStep(top, null, separator, consumer);
+  }
+
+  private static void forEachStep(
+      Node node, String prefix, String separator, BiConsumer<String, Long> consumer) {
+    node.children.forEach(
+        (title, child) -> {
+          String name = prefix == null ? title : prefix + separator + title;
+          consumer.accept(name, child.duration());
+          forEachStep(child, name, separator, consumer);
+        });
   }
 
   public void report() {
@@ -397,6 +448,18 @@ public class Timing {
     top.report(0, top);
   }
 
+  // Returns the peak heap usage recorded by the JVM. The peak usage is tracked by the JVM for each
+  // heap memory pool, thus the sum is an upper bound of the actual peak usage of the heap.
+  private static long computePeakMemoryUsage() {
+    long peakMemory = 0;
+    for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (memoryPool.isValid() && memoryPool.getType() == MemoryType.HEAP) {
+        peakMemory += memoryPool.getPeakUsage().getUsed();
+      }
+    }
+    return peakMemory;
+  }
+
   private static Map<String, MemInfo> computeMemoryInformation() {
     System.gc();
     Map<String, MemInfo> info = new LinkedHashMap<>();
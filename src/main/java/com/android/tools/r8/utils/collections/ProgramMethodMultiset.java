@@ -51,6 +51,10 @@ public class ProgramMethodMultiset {
     return backing.size();
   }
 
+  public int getNumberOfDistinctElements() {
+    return backing.elementSet().size();
+  }
+
   private static Wrapper<ProgramMethod> wrap(ProgramMethod method) {
     return ProgramMethodEquivalence.get().wrap(method);
   }
@@ -6,10 +6,13 @@ package com.android.tools.r8.benchmarks;
 import static java.util.Collections.emptyList;
 
 import com.android.tools.r8.benchmarks.appdumps.TiviBenchmarks;
+import com.android.tools.r8.benchmarks.argumentpropagation.ArgumentPropagationBenchmark;
 import com.android.tools.r8.benchmarks.desugaredlib.L8Benchmark;
 import com.android.tools.r8.benchmarks.desugaredlib.LegacyDesugaredLibraryBenchmark;
+import com.android.tools.r8.benchmarks.dominators.DominatorTreeBenchmark;
 import com.android.tools.r8.benchmarks.helloworld.HelloWorldBenchmark;
 import com.android.tools.r8.benchmarks.retrace.RetraceStackTraceBenchmark;
+import com.android.tools.r8.benchmarks.synthetics.SyntheticSharingBenchmark;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -51,6 +54,9 @@ public class BenchmarkCollection {
     L8Benchmark.configs().forEach(collection::addBenchmark);
     TiviBenchmarks.configs().forEach(collection::addBenchmark);
     RetraceStackTraceBenchmark.configs().forEach(collection::addBenchmark);
+    DominatorTreeBenchmark.configs().forEach(collection::addBenchmark);
+    ArgumentPropagationBenchmark.configs().forEach(collection::addBenchmark);
+    SyntheticSharingBenchmark.configs().forEach(collection::addBenchmark);
     return collection;
   }
 
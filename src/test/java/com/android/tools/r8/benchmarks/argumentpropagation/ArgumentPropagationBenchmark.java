@@ -0,0 +1,115 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.benchmarks.argumentpropagation;
+
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.benchmarks.BenchmarkBase;
+import com.android.tools.r8.benchmarks.BenchmarkConfig;
+import com.android.tools.r8.benchmarks.BenchmarkDependency;
+import com.android.tools.r8.benchmarks.BenchmarkMethod;
+import com.android.tools.r8.benchmarks.BenchmarkMetric;
+import com.android.tools.r8.benchmarks.BenchmarkSuite;
+import com.android.tools.r8.benchmarks.BenchmarkTarget;
+import com.android.tools.r8.dump.CompilerDump;
+import com.android.tools.r8.dump.DumpOptions;
+import com.android.tools.r8.optimize.argumentpropagation.ArgumentPropagatorEventConsumer;
+import com.android.tools.r8.optimize.argumentpropagation.codescanner.MethodStateCollectionByReference;
+import com.google.common.collect.ImmutableList;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Measures the time to propagate the argument information from the call sites to the methods in
+ * R8, when compiling the Tivi app dump using a varying number of threads.
+ */
+@RunWith(Parameterized.class)
+public class ArgumentPropagationBenchmark extends BenchmarkBase {
+
+  private static final String NAME = "TiviArgumentPropagation";
+  private static final List<Integer> THREAD_COUNTS = ImmutableList.of(1, 2, 4, 8);
+
+  private static final BenchmarkDependency dump =
+      new BenchmarkDependency("appdump", "tivi", Paths.get("third_party", "opensource-apps"));
+
+  @Parameters(name = "{0}")
+  public static List<Object[]> data() {
+    return parametersFromConfigs(configs());
+  }
+
+  public ArgumentPropagationBenchmark(BenchmarkConfig config, TestParameters parameters) {
+    super(config, parameters);
+  }
+
+  public static List<BenchmarkConfig> configs() {
+    BenchmarkConfig.Builder builder =
+        BenchmarkConfig.builder()
+            .setName(NAME)
+            .setTarget(BenchmarkTarget.R8_NON_COMPAT)
+            .setSuite(BenchmarkSuite.OPENSOURCE_BENCHMARKS)
+            .setMethod(benchmarkArgumentPropagation())
+            .setFromRevision(12215)
+            .addDependency(dump)
+            .setTimeout(30, TimeUnit.MINUTES);
+    for (int threadCount : THREAD_COUNTS) {
+      builder.addSubBenchmark(nameForThreadCount(threadCount), BenchmarkMetric.RunTimeRaw);
+    }
+    return ImmutableList.of(builder.build());
+  }
+
+  private static String nameForThreadCount(int threadCount) {
+    return NAME + threadCount + "Threads";
+  }
+
+  public static BenchmarkMethod benchmarkArgumentPropagation() {
+    return environment ->
+        runner(environment.getConfig())
+            .setWarmupIterations(1)
+            .reportResultSum()
+            .run(
+                results -> {
+                  CompilerDump compilerDump =
+                      CompilerDump.fromArchive(
+                          dump.getRoot(environment).resolve("dump_app.zip"),
+                          environment.getTemp().newFolder().toPath());
+                  DumpOptions dumpProperties = compilerDump.getBuildProperties();
+                  for (int threadCount : THREAD_COUNTS) {
+                    testForR8(environment.getTemp(), Backend.DEX)
+                        .addProgramFiles(compilerDump.getProgramArchive())
+                        .addLibraryFiles(compilerDump.getLibraryArchive())
+                        .addKeepRuleFiles(compilerDump.getProguardConfigFile())
+                        .setMinApi(dumpProperties.getMinApi())
+                        .allowUnusedDontWarnPatterns()
+                        .allowUnusedProguardConfigurationRules()
+                        .allowDiagnosticMessages()
+                        .addOptionsModification(
+                            options -> {
+                              options.threadCount = threadCount;
+                              options.getOpenClosedInterfacesOptions().suppressAllOpenInterfaces();
+                              options.testing.argumentPropagatorEventConsumer =
+                                  options.testing.argumentPropagatorEventConsumer.andThen(
+                                      new ArgumentPropagatorEventConsumer() {
+                                        @Override
+                                        public void acceptCodeScannerResult(
+                                            MethodStateCollectionByReference methodStates) {
+                                          // Intentionally empty.
+                                        }
+
+                                        @Override
+                                        public void acceptOptimizationInfoPopulationTime(
+                                            long nanoTime) {
+                                          results
+                                              .getSubResults(nameForThreadCount(threadCount))
+                                              .addRuntimeResult(nanoTime);
+                                        }
+                                      });
+                            })
+                        .compile();
+                  }
+                });
+  }
+}
@@ -0,0 +1,132 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.benchmarks.dominators;
+
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.benchmarks.BenchmarkBase;
+import com.android.tools.r8.benchmarks.BenchmarkConfig;
+import com.android.tools.r8.benchmarks.BenchmarkMethod;
+import com.android.tools.r8.benchmarks.BenchmarkTarget;
+import com.android.tools.r8.ir.code.DominatorTree;
+import com.android.tools.r8.ir.code.DominatorTree.Assumption;
+import com.android.tools.r8.ir.code.IRCode;
+import com.android.tools.r8.utils.codeinspector.MethodSubject;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/** Measures the time to compute the dominator tree of a single method with a large CFG. */
+@RunWith(Parameterized.class)
+public class DominatorTreeBenchmark extends BenchmarkBase {
+
+  private static final int ITERATIONS = 1000;
+
+  @Parameters(name = "{0}")
+  public static List<Object[]> data() {
+    return parametersFromConfigs(configs());
+  }
+
+  public DominatorTreeBenchmark(BenchmarkConfig config, TestParameters parameters) {
+    super(config, parameters);
+  }
+
+  public static List<BenchmarkConfig> configs() {
+    return ImmutableList.of(
+        BenchmarkConfig.builder()
+            .setName("DominatorTreeLargeMethod")
+            .setTarget(BenchmarkTarget.R8_NON_COMPAT)
+            .measureRunTime()
+            .setMethod(benchmarkDominatorTree())
+            .setFromRevision(12215)
+            .build());
+  }
+
+  public static BenchmarkMethod benchmarkDominatorTree() {
+    return environment -> {
+      MethodSubject method =
+          testForD8(environment.getTemp(), Backend.DEX)
+              .addProgramClasses(TestClass.class)
+              .compile()
+              .inspector()
+              .clazz(TestClass.class)
+              .uniqueMethodWithName("largeMethod");
+      IRCode code = method.buildIR();
+      runner(environment.getConfig())
+          .setWarmupIterations(1)
+          .setBenchmarkIterations(10)
+          .reportResultAverage()
+          .run(
+              results -> {
+                long start = System.nanoTime();
+                for (int i = 0; i < ITERATIONS; i++) {
+                  new DominatorTree(code, Assumption.MAY_HAVE_UNREACHABLE_BLOCKS);
+                }
+                results.addRuntimeResult(System.nanoTime() - start);
+              });
+    };
+  }
+
+  static class TestClass {
+
+    public static void main(String[] args) {
+      System.out.println(largeMethod(args.length, args));
+    }
+
+    static int largeMethod(int n, String[] args) {
+      int result = 0;
+      for (int i = 0; i < n; i++) {
+        try {
+          switch (args[i].length()) {
+            case 0:
+              result += i > 2 ? 1 : 2;
+              break;
+            case 1:
+              result -= i < 4 ? 3 : args[i].hashCode();
+              break;
+            case 2:
+              while (result > 100) {
+                result /= i == 0 ? 7 : 2;
+              }
+              break;
+            case 3:
+              if (args[i].isEmpty()) {
+                continue;
+              }
+              result ^= args[i].charAt(0);
+              break;
+            case 4:
+              for (int j = 0; j < i; j++) {
+                if (j % 3 == 0) {
+                  result += j;
+                } else if (j % 5 == 0) {
+                  break;
+                }
+              }
+              break;
+            case 5:
+              result = result > 0 ? result * 2 : -result;
+              break;
+            case 6:
+              do {
+                result++;
+              } while (result % 11 != 0);
+              break;
+            default:
+              result += Integer.parseInt(args[i]);
+          }
+        } catch (NumberFormatException e) {
+          result = result < 0 ? 0 : result - 1;
+        } catch (RuntimeException e) {
+          if (result == 0) {
+            throw e;
+          }
+          result++;
+        }
+      }
+      return result;
+    }
+  }
+}
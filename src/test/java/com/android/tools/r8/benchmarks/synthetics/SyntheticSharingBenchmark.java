@@ -0,0 +1,96 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.benchmarks.synthetics;
+
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.benchmarks.BenchmarkBase;
+import com.android.tools.r8.benchmarks.BenchmarkConfig;
+import com.android.tools.r8.benchmarks.BenchmarkMethod;
+import com.android.tools.r8.benchmarks.BenchmarkTarget;
+import com.android.tools.r8.references.Reference;
+import com.android.tools.r8.utils.AndroidApiLevel;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Measures the time to compile an app with many equivalent lambdas and backports in D8, which is
+ * dominated by the sharing of the synthetics in the synthetic finalization.
+ */
+@RunWith(Parameterized.class)
+public class SyntheticSharingBenchmark extends BenchmarkBase {
+
+  private static final int CLASS_COUNT = 1000;
+
+  @Parameters(name = "{0}")
+  public static List<Object[]> data() {
+    return parametersFromConfigs(configs());
+  }
+
+  public SyntheticSharingBenchmark(BenchmarkConfig config, TestParameters parameters) {
+    super(config, parameters);
+  }
+
+  public static List<BenchmarkConfig> configs() {
+    return ImmutableList.of(
+        BenchmarkConfig.builder()
+            .setName("SyntheticSharingManyLambdas")
+            .setTarget(BenchmarkTarget.D8)
+            .measureRunTime()
+            .measureCodeSize()
+            .setMethod(benchmarkSyntheticSharing())
+            .setFromRevision(12215)
+            .build());
+  }
+
+  public static BenchmarkMethod benchmarkSyntheticSharing() {
+    return environment -> {
+      // Create many copies of the test class. The lambdas and backports of the copies are all
+      // equivalent and shared in the output.
+      List<byte[]> programClassFileData = new ArrayList<>(CLASS_COUNT);
+      for (int i = 0; i < CLASS_COUNT; i++) {
+        programClassFileData.add(
+            transformer(TestClass.class)
+                .setClassDescriptor(
+                    Reference.classFromTypeName(TestClass.class.getTypeName() + i).getDescriptor())
+                .transform());
+      }
+      runner(environment.getConfig())
+          .setWarmupIterations(1)
+          .setBenchmarkIterations(10)
+          .reportResultSum()
+          .run(
+              results ->
+                  testForD8(environment.getTemp(), Backend.DEX)
+                      .addProgramClassFileData(programClassFileData)
+                      .release()
+                      .setMinApi(AndroidApiLevel.B)
+                      .benchmarkCompile(results)
+                      .benchmarkCodeSize(results));
+    };
+  }
+
+  static class TestClass {
+
+    public static void main(String[] args) {
+      Function<Object, String> toString = String::valueOf;
+      BinaryOperator<Integer> sum = Integer::sum;
+      BinaryOperator<Integer> max = Math::max;
+      Supplier<Object> supplier = Object::new;
+      System.out.println(toString.apply(sum.apply(args.length, 1)));
+      System.out.println(max.apply(args.length, 2));
+      System.out.println(Objects.requireNonNull(supplier.get()));
+      System.out.println(Math.floorMod(args.length, 3));
+      System.out.println(Integer.compare(args.length, 4));
+      System.out.println(Long.hashCode(args.length));
+    }
+  }
+}
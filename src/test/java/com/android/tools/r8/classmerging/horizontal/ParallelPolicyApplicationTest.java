@@ -0,0 +1,103 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.classmerging.horizontal;
+
+import com.android.tools.r8.NeverClassInline;
+import com.android.tools.r8.NeverInline;
+import com.android.tools.r8.NoHorizontalClassMerging;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.utils.BooleanUtils;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runners.Parameterized;
+
+public class ParallelPolicyApplicationTest extends HorizontalClassMergingTestBase {
+
+  private final boolean parallel;
+
+  @Parameterized.Parameters(name = "{0}, parallel: {1}")
+  public static List<Object[]> data() {
+    return buildParameters(
+        getTestParameters().withAllRuntimesAndApiLevels().build(), BooleanUtils.values());
+  }
+
+  public ParallelPolicyApplicationTest(TestParameters parameters, boolean parallel) {
+    super(parameters);
+    this.parallel = parallel;
+  }
+
+  @Test
+  public void testR8() throws Exception {
+    testForR8(parameters.getBackend())
+        .addInnerClasses(getClass())
+        .addKeepMainRule(Main.class)
+        .addOptionsModification(
+            options -> {
+              options.threadCount = 4;
+              options
+                  .horizontalClassMergerOptions()
+                  .setParallelPolicyApplicationThreshold(parallel ? 0 : Integer.MAX_VALUE);
+            })
+        .enableInliningAnnotations()
+        .enableNeverClassInliningAnnotations()
+        .enableNoHorizontalClassMergingAnnotations()
+        .setMinApi(parameters.getApiLevel())
+        .addHorizontallyMergedClassesInspector(
+            inspector ->
+                inspector
+                    .assertMergedInto(B.class, A.class)
+                    .assertMergedInto(C.class, A.class)
+                    .assertClassesNotMerged(D.class))
+        .run(parameters.getRuntime(), Main.class)
+        .assertSuccessWithOutputLines("A", "B", "C", "D");
+  }
+
+  @NeverClassInline
+  public static class A {
+
+    @NeverInline
+    public void print() {
+      System.out.println("A");
+    }
+  }
+
+  @NeverClassInline
+  public static class B {
+
+    @NeverInline
+    public void print() {
+      System.out.println("B");
+    }
+  }
+
+  @NeverClassInline
+  public static class C {
+
+    @NeverInline
+    public void print() {
+      System.out.println("C");
+    }
+  }
+
+  @NeverClassInline
+  @NoHorizontalClassMerging
+  public static class D {
+
+    @NeverInline
+    public void print() {
+      System.out.println("D");
+    }
+  }
+
+  public static class Main {
+
+    public static void main(String[] args) {
+      new A().print();
+      new B().print();
+      new C().print();
+      new D().print();
+    }
+  }
+}
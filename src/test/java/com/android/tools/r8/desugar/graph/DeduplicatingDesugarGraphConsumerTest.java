@@ -0,0 +1,217 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.desugar.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import com.android.tools.r8.ClassFileResourceProvider;
+import com.android.tools.r8.D8TestBuilder;
+import com.android.tools.r8.DesugarGraphConsumer;
+import com.android.tools.r8.ProgramResource;
+import com.android.tools.r8.ProgramResource.Kind;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.ToolHelper;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.utils.AndroidApiLevel;
+import com.android.tools.r8.utils.DeduplicatingDesugarGraphConsumer;
+import com.android.tools.r8.utils.DescriptorUtils;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Tests that the desugar graph consumer given to D8 receives each edge exactly once, also when the
+ * class path provider creates a new origin each time a class is looked up.
+ */
+@RunWith(Parameterized.class)
+public class DeduplicatingDesugarGraphConsumerTest extends TestBase {
+
+  public interface I {
+    default void foo() {
+      System.out.println("I::foo");
+    }
+
+    default void bar() {
+      foo();
+    }
+  }
+
+  public interface J extends I {
+    // Empty.
+  }
+
+  public static class A implements J {
+
+    void baz() {
+      foo();
+      bar();
+    }
+  }
+
+  public static class B implements J {
+    // Empty.
+  }
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public DeduplicatingDesugarGraphConsumerTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  @Test
+  public void testProgram() throws Exception {
+    CountingConsumer consumer = new CountingConsumer();
+    D8TestBuilder builder = testForD8().setMinApi(AndroidApiLevel.B);
+    builder.getBuilder().setDesugarGraphConsumer(consumer);
+    Origin originI = DesugarGraphUtils.addClassWithOrigin(I.class, builder);
+    Origin originJ = DesugarGraphUtils.addClassWithOrigin(J.class, builder);
+    Origin originA = DesugarGraphUtils.addClassWithOrigin(A.class, builder);
+    Origin originB = DesugarGraphUtils.addClassWithOrigin(B.class, builder);
+    builder.compile();
+    assertEquals(
+        ImmutableMap.of(
+            edge(originJ, originI), 1, edge(originA, originJ), 1, edge(originB, originJ), 1),
+        consumer.edges);
+    assertEquals(
+        sorted(ImmutableList.of(originI, originJ, originA, originB)),
+        sorted(consumer.programNodes));
+    assertEquals(1, consumer.finishedCount);
+  }
+
+  @Test
+  public void testClasspath() throws Exception {
+    CountingConsumer consumer = new CountingConsumer();
+    D8TestBuilder builder = testForD8().setMinApi(AndroidApiLevel.B);
+    builder.getBuilder().setDesugarGraphConsumer(consumer);
+    Origin originA = DesugarGraphUtils.addClassWithOrigin(A.class, builder);
+    Origin originB = DesugarGraphUtils.addClassWithOrigin(B.class, builder);
+    builder.getBuilder().addClasspathResourceProvider(new FreshOriginProvider(I.class, J.class));
+    builder.compile();
+    Origin originI = new ClassOrigin(I.class);
+    Origin originJ = new ClassOrigin(J.class);
+    assertEquals(
+        ImmutableMap.of(
+            edge(originJ, originI), 1, edge(originA, originJ), 1, edge(originB, originJ), 1),
+        consumer.edges);
+    assertEquals(sorted(ImmutableList.of(originA, originB)), sorted(consumer.programNodes));
+    assertEquals(1, consumer.finishedCount);
+  }
+
+  @Test
+  public void testEqualOrigins() {
+    CountingConsumer consumer = new CountingConsumer();
+    DesugarGraphConsumer deduplicatingConsumer = DeduplicatingDesugarGraphConsumer.wrap(consumer);
+    Origin originI = new ClassOrigin(I.class);
+    Origin otherOriginI = new ClassOrigin(I.class);
+    Origin originJ = new ClassOrigin(J.class);
+    assertNotSame(originI, otherOriginI);
+    deduplicatingConsumer.acceptProgramNode(originJ);
+    deduplicatingConsumer.accept(originJ, originI);
+    deduplicatingConsumer.accept(originJ, otherOriginI);
+    deduplicatingConsumer.accept(new ClassOrigin(J.class), originI);
+    deduplicatingConsumer.accept(originI, originJ);
+    deduplicatingConsumer.finished();
+    assertEquals(
+        ImmutableMap.of(edge(originJ, originI), 1, edge(originI, originJ), 1), consumer.edges);
+    assertEquals(ImmutableList.of(originJ), consumer.programNodes);
+    assertEquals(1, consumer.finishedCount);
+  }
+
+  private static String edge(Origin dependent, Origin dependency) {
+    return dependent + " -> " + dependency;
+  }
+
+  private static List<Origin> sorted(List<Origin> origins) {
+    List<Origin> result = new ArrayList<>(origins);
+    Collections.sort(result);
+    return result;
+  }
+
+  private static class CountingConsumer implements DesugarGraphConsumer {
+
+    private final Map<String, Integer> edges = new HashMap<>();
+    private final List<Origin> programNodes = new ArrayList<>();
+    private int finishedCount = 0;
+
+    @Override
+    public synchronized void acceptProgramNode(Origin node) {
+      programNodes.add(node);
+    }
+
+    @Override
+    public synchronized void accept(Origin dependent, Origin dependency) {
+      edges.merge(edge(dependent, dependency), 1, Integer::sum);
+    }
+
+    @Override
+    public synchronized void finished() {
+      finishedCount++;
+    }
+  }
+
+  private static class ClassOrigin extends Origin {
+
+    private final String name;
+
+    ClassOrigin(Class<?> clazz) {
+      super(Origin.root());
+      this.name = clazz.getTypeName();
+    }
+
+    @Override
+    public String part() {
+      return name;
+    }
+  }
+
+  /** Class path provider that creates a new origin each time a class is looked up. */
+  private static class FreshOriginProvider implements ClassFileResourceProvider {
+
+    private final Map<String, Class<?>> classes = new HashMap<>();
+
+    FreshOriginProvider(Class<?>... classes) {
+      for (Class<?> clazz : classes) {
+        this.classes.put(DescriptorUtils.javaTypeToDescriptor(clazz.getTypeName()), clazz);
+      }
+    }
+
+    @Override
+    public Set<String> getClassDescriptors() {
+      return classes.keySet();
+    }
+
+    @Override
+    public ProgramResource getProgramResource(String descriptor) {
+      Class<?> clazz = classes.get(descriptor);
+      if (clazz == null) {
+        return null;
+      }
+      try {
+        return ProgramResource.fromBytes(
+            new ClassOrigin(clazz),
+            Kind.CF,
+            ToolHelper.getClassAsBytes(clazz),
+            Collections.singleton(descriptor));
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,70 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.desugar.nestaccesscontrol;
+
+import static com.android.tools.r8.utils.FileUtils.JAR_EXTENSION;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.ToolHelper;
+import com.android.tools.r8.utils.AndroidApiLevel;
+import com.android.tools.r8.utils.DeterminismChecker;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Checks that D8 desugaring of nests is deterministic when the nest members are converted
+ * concurrently with the members that they access.
+ */
+@RunWith(Parameterized.class)
+public class NestDesugaringDeterminismTest extends TestBase {
+
+  // Nest with private members accessed from lambdas and method references in other nest members.
+  private static final Path JDK17_JAR =
+      Paths.get(ToolHelper.TESTS_BUILD_DIR, "examplesJava17").resolve("nest" + JAR_EXTENSION);
+
+  private static final int ITERATIONS = 5;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public NestDesugaringDeterminismTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  @Test
+  public void test() throws Exception {
+    Path logDirectory = temp.newFolder().toPath();
+    Path ref = compile(logDirectory);
+    for (int i = 1; i < ITERATIONS; i++) {
+      assertProgramsEqual(ref, compile(logDirectory));
+    }
+    // Check that setting the determinism checker wrote a log file.
+    assertTrue(Files.exists(logDirectory.resolve("0.log")));
+  }
+
+  private Path compile(Path logDirectory) throws Exception {
+    return testForD8()
+        .addProgramFiles(NestAccessControlTestUtils.JAR, JDK17_JAR)
+        .setMinApi(AndroidApiLevel.B)
+        .addOptionsModification(
+            options -> {
+              options.threadCount = 4;
+              options.testing.setDeterminismChecker(
+                  DeterminismChecker.createWithFileBacking(logDirectory));
+            })
+        .allowStdoutMessages()
+        .compile()
+        .writeToZip();
+  }
+}
@@ -0,0 +1,208 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.dex;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.ArchiveProgramResourceProvider;
+import com.android.tools.r8.ByteDataView;
+import com.android.tools.r8.ClassFileConsumer;
+import com.android.tools.r8.DexIndexedConsumer.ArchiveConsumer;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.utils.AndroidApiLevel;
+import com.android.tools.r8.utils.ZipUtils;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Tests that the distribution of classes into dex files using class reference ids gives the same
+ * dex files as the distribution that collects the indexed items of each class in a transaction,
+ * when the dex files are filled up to the method and field limits.
+ */
+@RunWith(Parameterized.class)
+public class ClassReferenceIdsDistributionTest extends TestBase {
+
+  private static final int CLASS_COUNT = 140;
+  private static final int MANY_MEMBERS = 600;
+  private static final int FEW_MEMBERS = 20;
+
+  // Adding a class to a file adds at most the members of the class and the members of the next
+  // class, which the members of the class reference.
+  private static final int MAX_UNUSED_ENTRIES = 2 * (MANY_MEMBERS + FEW_MEMBERS);
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public ClassReferenceIdsDistributionTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  @Test
+  public void testD8() throws Exception {
+    Path program = temp.newFolder().toPath().resolve("program.jar");
+    ClassFileConsumer consumer = new ClassFileConsumer.ArchiveConsumer(program);
+    generateClasses(consumer, "a", MANY_MEMBERS, FEW_MEMBERS);
+    generateClasses(consumer, "b", FEW_MEMBERS, MANY_MEMBERS);
+    consumer.finished(null);
+
+    Map<String, byte[]> expected = readDexFiles(compileWithD8(program, false));
+    Map<String, byte[]> actual = readDexFiles(compileWithD8(program, true));
+    assertSameDexFiles(expected, actual);
+
+    // The methods of package a fill up a file, and the fields of package b fill up another file.
+    assertTrue(expected.keySet().toString(), expected.size() >= 3);
+    assertHasFullDexFile(expected, Constants.METHOD_IDS_SIZE_OFFSET);
+    assertHasFullDexFile(expected, Constants.FIELD_IDS_SIZE_OFFSET);
+  }
+
+  @Test
+  public void testR8FeatureSplit() throws Exception {
+    Path base = temp.newFolder().toPath().resolve("base.jar");
+    ClassFileConsumer baseConsumer = new ClassFileConsumer.ArchiveConsumer(base);
+    generateClasses(baseConsumer, "a", MANY_MEMBERS, FEW_MEMBERS);
+    baseConsumer.finished(null);
+    Path feature = temp.newFolder().toPath().resolve("feature.jar");
+    ClassFileConsumer featureConsumer = new ClassFileConsumer.ArchiveConsumer(feature);
+    generateClasses(featureConsumer, "b", FEW_MEMBERS, MANY_MEMBERS);
+    featureConsumer.finished(null);
+
+    Path[] expected = compileWithR8(base, feature, false);
+    Path[] actual = compileWithR8(base, feature, true);
+    Map<String, byte[]> expectedBase = readDexFiles(expected[0]);
+    Map<String, byte[]> expectedFeature = readDexFiles(expected[1]);
+    assertSameDexFiles(expectedBase, readDexFiles(actual[0]));
+    assertSameDexFiles(expectedFeature, readDexFiles(actual[1]));
+
+    assertEquals(expectedBase.keySet().toString(), 2, expectedBase.size());
+    assertHasFullDexFile(expectedBase, Constants.METHOD_IDS_SIZE_OFFSET);
+    assertEquals(expectedFeature.keySet().toString(), 2, expectedFeature.size());
+    assertHasFullDexFile(expectedFeature, Constants.FIELD_IDS_SIZE_OFFSET);
+  }
+
+  private Path compileWithD8(Path program, boolean enableClassReferenceIds) throws Exception {
+    return testForD8()
+        .addProgramFiles(program)
+        .addOptionsModification(
+            options ->
+                options.enableClassReferenceIdsInDexDistribution = enableClassReferenceIds)
+        .setMinApi(AndroidApiLevel.L)
+        .compile()
+        .writeToZip();
+  }
+
+  private Path[] compileWithR8(Path base, Path feature, boolean enableClassReferenceIds)
+      throws Exception {
+    Path featureOutput = temp.newFolder().toPath().resolve("feature.zip");
+    Path baseOutput =
+        testForR8(Backend.DEX)
+            .addProgramFiles(base)
+            .addKeepRules("-keep class * { *; }")
+            .addFeatureSplit(
+                builder ->
+                    builder
+                        .addProgramResourceProvider(
+                            ArchiveProgramResourceProvider.fromArchive(feature))
+                        .setProgramConsumer(new ArchiveConsumer(featureOutput))
+                        .build())
+            .addOptionsModification(
+                options ->
+                    options.enableClassReferenceIdsInDexDistribution = enableClassReferenceIds)
+            .addDontOptimize()
+            .noMinification()
+            .setMinApi(AndroidApiLevel.L)
+            .compile()
+            .writeToZip();
+    return new Path[] {baseOutput, featureOutput};
+  }
+
+  private static void assertSameDexFiles(Map<String, byte[]> expected, Map<String, byte[]> actual) {
+    assertEquals(expected.keySet(), actual.keySet());
+    expected.forEach((name, bytes) -> assertArrayEquals(name, bytes, actual.get(name)));
+  }
+
+  private static void assertHasFullDexFile(Map<String, byte[]> dexFiles, int sizeOffset) {
+    List<Integer> sizes = new ArrayList<>();
+    for (byte[] dexFile : dexFiles.values()) {
+      int size = ByteBuffer.wrap(dexFile).order(ByteOrder.LITTLE_ENDIAN).getInt(sizeOffset);
+      assertTrue(String.valueOf(size), size <= VirtualFile.MAX_ENTRIES);
+      sizes.add(size);
+    }
+    assertTrue(
+        sizes.toString(),
+        sizes.stream().anyMatch(size -> size > VirtualFile.MAX_ENTRIES - MAX_UNUSED_ENTRIES));
+  }
+
+  private static Map<String, byte[]> readDexFiles(Path archive) throws IOException {
+    Map<String, byte[]> dexFiles = new TreeMap<>();
+    ZipUtils.iter(
+        archive,
+        (entry, input) -> {
+          if (entry.getName().endsWith(".dex")) {
+            dexFiles.put(entry.getName(), ByteStreams.toByteArray(input));
+          }
+        });
+    return dexFiles;
+  }
+
+  /**
+   * Generate classes with the given number of static methods and fields. The methods of each class
+   * reference all the methods and fields of the next class in the package, such that the classes
+   * share most of their indexed items with their neighbours.
+   */
+  private static void generateClasses(
+      ClassFileConsumer consumer, String pkg, int methodCount, int fieldCount) {
+    for (int i = 0; i < CLASS_COUNT; i++) {
+      String name = pkg + "/C" + i;
+      String next = pkg + "/C" + ((i + 1) % CLASS_COUNT);
+      ClassWriter cw = new ClassWriter(0);
+      cw.visit(
+          Opcodes.V1_8,
+          Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER,
+          name,
+          null,
+          "java/lang/Object",
+          null);
+      for (int j = 0; j < fieldCount; j++) {
+        cw.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "f" + j, "I", null, null)
+            .visitEnd();
+      }
+      for (int j = 0; j < methodCount; j++) {
+        MethodVisitor mv =
+            cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "m" + j, "()V", null, null);
+        mv.visitCode();
+        for (int k = j; k < fieldCount; k += methodCount) {
+          mv.visitFieldInsn(Opcodes.GETSTATIC, next, "f" + k, "I");
+          mv.visitInsn(Opcodes.POP);
+        }
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, next, "m" + j, "()V", false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(1, 0);
+        mv.visitEnd();
+      }
+      cw.visitEnd();
+      String descriptor = "L" + name + ";";
+      consumer.accept(ByteDataView.of(cw.toByteArray()), descriptor, null);
+    }
+  }
+}
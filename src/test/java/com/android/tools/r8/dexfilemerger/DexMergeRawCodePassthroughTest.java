@@ -0,0 +1,118 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.dexfilemerger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.D8TestCompileResult;
+import com.android.tools.r8.ProgramResource;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.google.common.io.ByteStreams;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+/**
+ * Tests that merging dex files by copying the instructions of the input code items and patching the
+ * item indices gives the same output as writing the parsed instructions.
+ */
+@RunWith(Parameterized.class)
+public class DexMergeRawCodePassthroughTest extends TestBase {
+
+  private final TestParameters parameters;
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withDexRuntimes().withAllApiLevels().build();
+  }
+
+  public DexMergeRawCodePassthroughTest(TestParameters parameters) {
+    this.parameters = parameters;
+  }
+
+  @Test
+  public void test() throws Exception {
+    Path dexArchive1 =
+        testForD8()
+            .addProgramClasses(Main.class)
+            .setMinApi(parameters.getApiLevel())
+            .compile()
+            .writeToZip();
+    Path dexArchive2 =
+        testForD8()
+            .addProgramClasses(Greeter.class)
+            .setMinApi(parameters.getApiLevel())
+            .compile()
+            .writeToZip();
+
+    D8TestCompileResult compileResult = merge(dexArchive1, dexArchive2, false);
+    D8TestCompileResult rawCompileResult = merge(dexArchive1, dexArchive2, true);
+
+    List<ProgramResource> dexResources = compileResult.app.getDexProgramResourcesForTesting();
+    List<ProgramResource> rawDexResources =
+        rawCompileResult.app.getDexProgramResourcesForTesting();
+    assertEquals(dexResources.size(), rawDexResources.size());
+    for (int i = 0; i < dexResources.size(); i++) {
+      assertArrayEquals(readResource(dexResources.get(i)), readResource(rawDexResources.get(i)));
+    }
+
+    rawCompileResult
+        .run(parameters.getRuntime(), Main.class)
+        .assertSuccessWithOutputLines("Hello, world!", "42");
+  }
+
+  private D8TestCompileResult merge(
+      Path dexArchive1, Path dexArchive2, boolean enableRawDexCodePassthrough) throws Exception {
+    return testForD8()
+        .addProgramFiles(dexArchive1, dexArchive2)
+        .addOptionsModification(
+            options -> options.enableRawDexCodePassthrough = enableRawDexCodePassthrough)
+        .setMinApi(parameters.getApiLevel())
+        .compile();
+  }
+
+  private static byte[] readResource(ProgramResource resource) throws Exception {
+    try (InputStream is = resource.getByteStream()) {
+      return ByteStreams.toByteArray(is);
+    }
+  }
+
+  static class Main {
+
+    public static void main(String[] args) {
+      Greeter greeter = new Greeter("world");
+      System.out.println(greeter.greet());
+      int[] values = new int[] {40, 2};
+      System.out.println(greeter.sum(values));
+    }
+  }
+
+  static class Greeter {
+
+    private final String name;
+
+    Greeter(String name) {
+      this.name = name;
+    }
+
+    String greet() {
+      return "Hello, " + name + "!";
+    }
+
+    int sum(int[] values) {
+      int result = 0;
+      for (int value : values) {
+        result += value;
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,170 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.graph;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.ToolHelper;
+import com.android.tools.r8.utils.FileUtils;
+import java.io.IOException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class DirectClassFileReaderTest extends TestBase {
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public DirectClassFileReaderTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  @Test
+  public void testIdenticalToAsmReader() throws Exception {
+    Path expected = compile(false);
+    Path actual = compile(true);
+    assertProgramsEqual(expected, actual);
+  }
+
+  @Test
+  public void testExistingInputsIdenticalToAsmReader() throws Exception {
+    List<Path> inputs = new ArrayList<>();
+    inputs.add(ToolHelper.DEPS);
+    for (String directory :
+        new String[] {
+          ToolHelper.EXAMPLES_BUILD_DIR,
+          ToolHelper.EXAMPLES_ANDROID_O_BUILD_DIR,
+          ToolHelper.EXAMPLES_ANDROID_P_BUILD_DIR,
+          ToolHelper.EXAMPLES_JAVA9_BUILD_DIR
+        }) {
+      try (Stream<Path> paths = Files.list(Paths.get(directory))) {
+        paths.filter(FileUtils::isJarFile).sorted().forEach(inputs::add);
+      }
+    }
+    for (Path input : inputs) {
+      assertProgramsEqual(input.toString(), compile(input, false), compile(input, true));
+    }
+  }
+
+  private Path compile(Path input, boolean enableDirectClassFileReader) throws Exception {
+    return testForD8(Backend.CF)
+        .addProgramFiles(input)
+        .disableDesugaring()
+        .addOptionsModification(
+            options ->
+                options
+                    .getCfCodeParsingOptions()
+                    .setEnableDirectClassFileReader(enableDirectClassFileReader))
+        .compile()
+        .writeToZip();
+  }
+
+  private Path compile(boolean enableDirectClassFileReader) throws Exception {
+    return testForR8(Backend.CF)
+        .addInnerClasses(DirectClassFileReaderTest.class)
+        .addKeepAllClassesRule()
+        .addKeepAllAttributes()
+        .addOptionsModification(
+            options ->
+                options
+                    .getCfCodeParsingOptions()
+                    .setEnableDirectClassFileReader(enableDirectClassFileReader))
+        .compile()
+        .writeToZip();
+  }
+
+  enum Kind {
+    A,
+    B
+  }
+
+  @Retention(RetentionPolicy.RUNTIME)
+  @interface Nested {
+    String value();
+  }
+
+  @Retention(RetentionPolicy.RUNTIME)
+  @java.lang.annotation.Target({ElementType.TYPE, ElementType.METHOD, ElementType.PARAMETER})
+  @interface Everything {
+    boolean z() default true;
+
+    byte b() default 1;
+
+    char c() default 'c';
+
+    short s() default 2;
+
+    int i() default 3;
+
+    long j() default 4L;
+
+    float f() default 5.0f;
+
+    double d() default 6.0;
+
+    String string() default "\u0000 æ 😀";
+
+    Class<?> clazz() default Object.class;
+
+    Kind kind() default Kind.A;
+
+    Nested nested() default @Nested("default");
+
+    int[] ints() default {};
+  }
+
+  @Everything(
+      z = false,
+      clazz = int[].class,
+      kind = Kind.B,
+      nested = @Nested("class"),
+      ints = {1, 2, 3})
+  static class Program<T extends Comparable<T>> implements Comparable<Program<T>> {
+
+    static final boolean Z = true;
+    static final char C = 'ሴ';
+    static final int I = 42;
+    static final long J = Long.MAX_VALUE;
+    static final float F = Float.NaN;
+    static final double D = -0.0;
+    static final String STRING = "Hello, \u0000world!";
+
+    @Deprecated List<? super T> list;
+
+    Program() {}
+
+    @Everything
+    <E extends Exception> void method(@Nested("parameter") T t, int i, long[][] arrays) throws E {}
+
+    @Override
+    public int compareTo(Program<T> other) {
+      return 0;
+    }
+
+    class Inner {
+
+      Program<T> getOuter() {
+        return Program.this;
+      }
+    }
+
+    Object getAnonymous() throws IOException {
+      return new Object() {};
+    }
+  }
+}
@@ -0,0 +1,73 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.graph;
+
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.NeverInline;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.utils.Box;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class LazyCfCodeSoftReferenceTest extends TestBase {
+
+  private final TestParameters parameters;
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withAllRuntimesAndApiLevels().build();
+  }
+
+  public LazyCfCodeSoftReferenceTest(TestParameters parameters) {
+    this.parameters = parameters;
+  }
+
+  @Test
+  public void test() throws Exception {
+    Box<LazyCfCodeParsingStatistics> statistics = new Box<>();
+    testForR8(parameters.getBackend())
+        .addInnerClasses(LazyCfCodeSoftReferenceTest.class)
+        .addKeepMainRule(Main.class)
+        .addOptionsModification(
+            options -> {
+              options
+                  .getCfCodeParsingOptions()
+                  .setSoftlyReferenceParsedCode(true)
+                  .setEnableStatistics(true);
+              statistics.set(options.getCfCodeParsingOptions().getStatistics());
+            })
+        .enableInliningAnnotations()
+        .setMinApi(parameters.getApiLevel())
+        .compile()
+        .run(parameters.getRuntime(), Main.class)
+        .assertSuccessWithOutputLines("Hello, world!");
+    // The code of main(), greeting() and target() is parsed at least once.
+    assertTrue(statistics.get().getNumberOfClassParses() > 0);
+    assertTrue(
+        statistics.get().getNumberOfMethodParses() - statistics.get().getNumberOfMethodReparses()
+            >= 3);
+  }
+
+  static class Main {
+
+    public static void main(String[] args) {
+      System.out.println(greeting() + ", " + target() + "!");
+    }
+
+    @NeverInline
+    static String greeting() {
+      return "Hello";
+    }
+
+    @NeverInline
+    static String target() {
+      return "world";
+    }
+  }
+}
@@ -0,0 +1,101 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.utils.ThreadUtils;
+import com.google.common.collect.ImmutableList;
+import java.util.AbstractList;
+import java.util.concurrent.ExecutorService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class SubtypingInfoParallelTest extends TestBase {
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public SubtypingInfoParallelTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  @Test
+  public void test() throws Exception {
+    // The library is large enough to be split into multiple partitions, and the program classes
+    // extend library classes, such that the subtypes of the library classes are merged from
+    // different partitions.
+    AppView<AppInfoWithClassHierarchy> appView =
+        computeAppViewWithClassHierarchy(
+            buildClasses(I.class, J.class, K.class, A.class, B.class, C.class, D.class, E.class)
+                .addLibraryFile(getMostRecentAndroidJar())
+                .build());
+    DexType typeI = buildType(I.class, appView.dexItemFactory());
+    DexType typeA = buildType(A.class, appView.dexItemFactory());
+    DexType typeD = buildType(D.class, appView.dexItemFactory());
+    SubtypingInfo expected = SubtypingInfo.create(appView);
+    assertEquals(
+        ImmutableList.of(buildType(J.class, appView.dexItemFactory())),
+        ImmutableList.copyOf(expected.allImmediateExtendsSubtypes(typeI)));
+    assertTrue(expected.subtypes(typeA).contains(buildType(C.class, appView.dexItemFactory())));
+    assertTrue(
+        expected.subtypes(appView.dexItemFactory().createType("Ljava/util/AbstractList;"))
+            .contains(typeD));
+    for (int threads : new int[] {1, 2, 7}) {
+      ExecutorService executorService = ThreadUtils.getExecutorService(threads);
+      try {
+        SubtypingInfo actual = SubtypingInfo.create(appView, executorService);
+        for (DexClass clazz : appView.appInfo().classes()) {
+          assertSameSubtypes(expected, actual, clazz.getType());
+        }
+        for (DexClass clazz : appView.app().asDirect().libraryClasses()) {
+          assertSameSubtypes(expected, actual, clazz.getType());
+        }
+      } finally {
+        executorService.shutdown();
+      }
+    }
+  }
+
+  private static void assertSameSubtypes(
+      SubtypingInfo expected, SubtypingInfo actual, DexType type) {
+    assertEquals(
+        ImmutableList.copyOf(expected.subtypes(type)), ImmutableList.copyOf(actual.subtypes(type)));
+    assertEquals(
+        ImmutableList.copyOf(expected.allImmediateExtendsSubtypes(type)),
+        ImmutableList.copyOf(actual.allImmediateExtendsSubtypes(type)));
+    assertEquals(
+        ImmutableList.copyOf(expected.allImmediateImplementsSubtypes(type)),
+        ImmutableList.copyOf(actual.allImmediateImplementsSubtypes(type)));
+  }
+
+  interface I {}
+
+  interface J extends I {}
+
+  interface K extends Runnable {}
+
+  static class A implements J {}
+
+  static class B extends A implements K {
+
+    @Override
+    public void run() {}
+  }
+
+  static class C extends B {}
+
+  abstract static class D extends AbstractList<Object> implements I {}
+
+  abstract static class E extends D implements K {}
+}
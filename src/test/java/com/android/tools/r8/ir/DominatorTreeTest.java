@@ -0,0 +1,169 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.ir;
+
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.ir.code.BasicBlock;
+import com.android.tools.r8.ir.code.DominatorTree;
+import com.android.tools.r8.ir.code.DominatorTree.Assumption;
+import com.android.tools.r8.ir.code.IRCode;
+import com.android.tools.r8.utils.codeinspector.CodeInspector;
+import com.android.tools.r8.utils.codeinspector.MethodSubject;
+import com.google.common.collect.Sets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class DominatorTreeTest extends TestBase {
+
+  @Parameter(0)
+  public TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  private MethodSubject getMethod() throws Exception {
+    CodeInspector inspector =
+        testForD8(Backend.DEX).addProgramClasses(TestClass.class).compile().inspector();
+    return inspector.clazz(TestClass.class).uniqueMethodWithName("method");
+  }
+
+  @Test
+  public void testDominators() throws Exception {
+    IRCode code = getMethod().buildIR();
+    checkDominatorTree(code, new DominatorTree(code));
+  }
+
+  @Test
+  public void testRemoveEdge() throws Exception {
+    MethodSubject method = getMethod();
+    int numberOfBlocks = method.buildIR().blocks.size();
+    for (int blockIndex = 0; blockIndex < numberOfBlocks; blockIndex++) {
+      IRCode code = method.buildIR();
+      BasicBlock block = code.blocks.get(blockIndex);
+      if (block.getSuccessors().isEmpty()) {
+        continue;
+      }
+      DominatorTree dominatorTree = new DominatorTree(code, Assumption.MAY_HAVE_UNREACHABLE_BLOCKS);
+      BasicBlock successor = block.getSuccessors().get(0);
+      block.getMutableSuccessors().remove(successor);
+      successor.getMutablePredecessors().remove(block);
+      dominatorTree.removeEdge(block, successor);
+      checkDominatorTree(code, dominatorTree);
+    }
+  }
+
+  @Test
+  public void testAddEdge() throws Exception {
+    MethodSubject method = getMethod();
+    int numberOfBlocks = method.buildIR().blocks.size();
+    for (int blockIndex = 0; blockIndex < numberOfBlocks; blockIndex++) {
+      IRCode code = method.buildIR();
+      BasicBlock block = code.blocks.get(blockIndex);
+      BasicBlock target = code.blocks.get((blockIndex * 7 + 3) % numberOfBlocks);
+      if (target == code.entryBlock() || block.getSuccessors().contains(target)) {
+        continue;
+      }
+      DominatorTree dominatorTree = new DominatorTree(code, Assumption.MAY_HAVE_UNREACHABLE_BLOCKS);
+      block.getMutableSuccessors().add(target);
+      target.getMutablePredecessors().add(block);
+      dominatorTree.addEdge(block, target);
+      checkDominatorTree(code, dominatorTree);
+    }
+  }
+
+  @Test
+  public void testRemoveEdgesIncrementally() throws Exception {
+    IRCode code = getMethod().buildIR();
+    DominatorTree dominatorTree = new DominatorTree(code, Assumption.MAY_HAVE_UNREACHABLE_BLOCKS);
+    for (BasicBlock block : code.blocks) {
+      if (block.getSuccessors().size() < 2) {
+        continue;
+      }
+      BasicBlock successor = block.getSuccessors().get(block.getSuccessors().size() - 1);
+      block.getMutableSuccessors().remove(successor);
+      successor.getMutablePredecessors().remove(block);
+      dominatorTree.removeEdge(block, successor);
+      checkDominatorTree(code, dominatorTree);
+    }
+  }
+
+  private static void checkDominatorTree(IRCode code, DominatorTree dominatorTree) {
+    Set<BasicBlock> reachable = computeReachableBlocks(code, null);
+    for (BasicBlock dominator : reachable) {
+      Set<BasicBlock> reachableWithoutDominator = computeReachableBlocks(code, dominator);
+      for (BasicBlock block : reachable) {
+        assertEquals(
+            block == dominator || !reachableWithoutDominator.contains(block),
+            dominatorTree.dominatedBy(block, dominator));
+      }
+    }
+  }
+
+  private static Set<BasicBlock> computeReachableBlocks(IRCode code, BasicBlock excluded) {
+    Set<BasicBlock> reachable = Sets.newIdentityHashSet();
+    if (code.entryBlock() == excluded) {
+      return reachable;
+    }
+    Deque<BasicBlock> worklist = new ArrayDeque<>();
+    worklist.add(code.entryBlock());
+    reachable.add(code.entryBlock());
+    while (!worklist.isEmpty()) {
+      for (BasicBlock successor : worklist.removeFirst().getSuccessors()) {
+        if (successor != excluded && reachable.add(successor)) {
+          worklist.addLast(successor);
+        }
+      }
+    }
+    return reachable;
+  }
+
+  static class TestClass {
+
+    static int method(int n, String[] args) {
+      int result = 0;
+      for (int i = 0; i < n; i++) {
+        try {
+          switch (args[i].length()) {
+            case 0:
+              result += i > 2 ? 1 : 2;
+              break;
+            case 1:
+              while (result > 100) {
+                result /= i == 0 ? 7 : 2;
+              }
+              break;
+            case 2:
+              for (int j = 0; j < i; j++) {
+                if (j % 3 == 0) {
+                  result += j;
+                } else if (j % 5 == 0) {
+                  break;
+                }
+              }
+              break;
+            default:
+              result += Integer.parseInt(args[i]);
+          }
+        } catch (NumberFormatException e) {
+          result = result < 0 ? 0 : result - 1;
+        }
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,363 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.ir.conversion;
+
+import static com.android.tools.r8.utils.codeinspector.Matchers.isPresent;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.dex.code.DexInstruction;
+import com.android.tools.r8.dex.code.DexInvokeStaticRange;
+import com.android.tools.r8.dex.code.DexPackedSwitchPayload;
+import com.android.tools.r8.dex.code.DexSparseSwitchPayload;
+import com.android.tools.r8.graph.AppInfo;
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.DebugLocalInfo;
+import com.android.tools.r8.graph.DexCode;
+import com.android.tools.r8.graph.DexDebugEntry;
+import com.android.tools.r8.graph.DexDebugEntryBuilder;
+import com.android.tools.r8.graph.DexDebugEvent;
+import com.android.tools.r8.graph.DexDebugInfo;
+import com.android.tools.r8.graph.DexDebugInfo.EventBasedDebugInfo;
+import com.android.tools.r8.graph.DexItemFactory;
+import com.android.tools.r8.graph.DexProgramClass;
+import com.android.tools.r8.graph.DexType;
+import com.android.tools.r8.graph.ProgramMethod;
+import com.android.tools.r8.ir.code.BasicBlock;
+import com.android.tools.r8.ir.code.IRCode;
+import com.android.tools.r8.ir.code.Instruction;
+import com.android.tools.r8.ir.code.IntSwitch;
+import com.android.tools.r8.utils.AndroidApiLevel;
+import com.android.tools.r8.utils.BooleanUtils;
+import com.android.tools.r8.utils.codeinspector.MethodSubject;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Checks the DEX code produced by {@link CfToDexTranslator} without running it, by building IR
+ * from the translated code.
+ */
+@RunWith(Parameterized.class)
+public class CfToDexTranslatorIRTest extends TestBase {
+
+  private AppView<AppInfo> appView;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public CfToDexTranslatorIRTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    appView =
+        computeAppView(
+            buildClasses(Cases.class, Main.class)
+                .addLibraryFile(getMostRecentAndroidJar())
+                .build());
+  }
+
+  @Test
+  public void testD8() throws Exception {
+    for (boolean enableDirectCfToDexTranslation : BooleanUtils.values()) {
+      testForD8()
+          .addProgramClasses(Main.class)
+          .addOptionsModification(
+              options -> options.enableDirectCfToDexTranslation = enableDirectCfToDexTranslation)
+          .debug()
+          .setMinApi(AndroidApiLevel.Q)
+          .compile()
+          .inspect(
+              inspector -> {
+                MethodSubject sumMethod = inspector.clazz(Main.class).uniqueMethodWithName("sum");
+                assertThat(sumMethod, isPresent());
+                // The translated code passes the arguments of all invokes in consecutive stack
+                // registers using the range form.
+                assertEquals(
+                    enableDirectCfToDexTranslation,
+                    Arrays.stream(sumMethod.getMethod().getCode().asDexCode().instructions)
+                        .anyMatch(instruction -> instruction instanceof DexInvokeStaticRange));
+                // The line and local information are preserved.
+                assertTrue(sumMethod.hasLineNumberTable());
+                EventBasedDebugInfo debugInfo =
+                    DexDebugInfo.convertToEventBased(
+                        sumMethod.getMethod().getCode().asDexCode(), inspector.getFactory());
+                assertEquals("n", debugInfo.parameters[0].toString());
+                // Both 'result' and 'i' are started as locals.
+                assertTrue(
+                    Arrays.stream(debugInfo.events)
+                            .filter(event -> event instanceof DexDebugEvent.StartLocal)
+                            .count()
+                        >= 2);
+              });
+    }
+  }
+
+  @Test
+  public void testProgram() {
+    // Every method that can be translated must give code that builds valid IR. The methods that
+    // cannot be translated are left to the IR based conversion.
+    int translated = 0;
+    for (ProgramMethod method : getProgramClass(Main.class).programMethods()) {
+      DexCode dexCode = new CfToDexTranslator(appView).translate(method);
+      if (dexCode != null) {
+        method.setCode(dexCode, appView);
+        buildIR(method);
+        translated++;
+      }
+    }
+    assertTrue(translated > 0);
+  }
+
+  @Test
+  public void testHandlers() {
+    ProgramMethod method = translate("handlers");
+    DexCode dexCode = method.getDefinition().getCode().asDexCode();
+    assertTrue(dexCode.tries.length > 0);
+    IRCode code = buildIR(method);
+    Set<DexType> guards = new HashSet<>();
+    for (BasicBlock block : code.blocks) {
+      guards.addAll(block.getCatchHandlers().getGuards());
+    }
+    DexItemFactory factory = appView.dexItemFactory();
+    assertEquals(
+        ImmutableSet.of(
+            factory.createType("Ljava/lang/ArithmeticException;"),
+            factory.createType("Ljava/lang/IllegalStateException;"),
+            factory.throwableType),
+        guards);
+  }
+
+  @Test
+  public void testWideLocals() {
+    ProgramMethod method = translate("wideLocals");
+    List<DexDebugEntry> entries =
+        new DexDebugEntryBuilder(method.getDefinition(), appView.dexItemFactory()).build();
+    assertFalse(entries.isEmpty());
+    // All arguments and locals are live at the last entry, and the register pairs of the wide
+    // arguments and locals must not overlap with any other register.
+    Map<Integer, DebugLocalInfo> locals = entries.get(entries.size() - 1).locals;
+    assertEquals(6, locals.size());
+    Set<Integer> registers = new HashSet<>();
+    locals.forEach(
+        (register, local) -> {
+          assertTrue(local.toString(), registers.add(register));
+          if (local.type.isWideType()) {
+            assertTrue(local.toString(), registers.add(register + 1));
+          }
+        });
+    assertTrue(buildIR(method).streamInstructions().anyMatch(this::hasWideOutValue));
+  }
+
+  @Test
+  public void testPackedSwitchPayload() {
+    ProgramMethod method = translate("packedSwitch");
+    assertTrue(hasInstruction(method, DexPackedSwitchPayload.class));
+    assertArrayEquals(new int[] {0, 1, 2, 3, 4}, getSwitchKeys(method));
+  }
+
+  @Test
+  public void testSparseSwitchPayload() {
+    ProgramMethod method = translate("sparseSwitch");
+    assertTrue(hasInstruction(method, DexSparseSwitchPayload.class));
+    assertArrayEquals(new int[] {-100000, 1, 1000, 100000}, getSwitchKeys(method));
+  }
+
+  private ProgramMethod translate(String name) {
+    ProgramMethod method =
+        Iterables.find(
+            getProgramClass(Cases.class).programMethods(),
+            candidate -> candidate.getName().toString().equals(name));
+    DexCode dexCode = new CfToDexTranslator(appView).translate(method);
+    assertNotNull(name, dexCode);
+    method.setCode(dexCode, appView);
+    return method;
+  }
+
+  private DexProgramClass getProgramClass(Class<?> clazz) {
+    return appView.definitionFor(buildType(clazz, appView.dexItemFactory())).asProgramClass();
+  }
+
+  private IRCode buildIR(ProgramMethod method) {
+    IRCode code = method.buildIR(appView);
+    assertTrue(code.isConsistentSSA(appView));
+    return code;
+  }
+
+  private boolean hasWideOutValue(Instruction instruction) {
+    return instruction.hasOutValue() && instruction.outValue().getType().isWidePrimitive();
+  }
+
+  private static boolean hasInstruction(
+      ProgramMethod method, Class<? extends DexInstruction> instructionClass) {
+    return Arrays.stream(method.getDefinition().getCode().asDexCode().instructions)
+        .anyMatch(instructionClass::isInstance);
+  }
+
+  private int[] getSwitchKeys(ProgramMethod method) {
+    IntSwitch intSwitch =
+        buildIR(method)
+            .streamInstructions()
+            .filter(Instruction::isIntSwitch)
+            .map(Instruction::asIntSwitch)
+            .findFirst()
+            .orElse(null);
+    assertNotNull(intSwitch);
+    return intSwitch.getKeys();
+  }
+
+  static class Cases {
+
+    static int counter;
+
+    static int handlers(int a, int b) {
+      try {
+        try {
+          return a / b;
+        } catch (ArithmeticException e) {
+          throw new IllegalStateException(e);
+        } finally {
+          counter++;
+        }
+      } catch (IllegalStateException e) {
+        return -1;
+      }
+    }
+
+    static double wideLocals(long a, double b, int c) {
+      long sum = a + c;
+      double scaled = sum * b;
+      long rounded = (long) scaled;
+      return rounded < a ? scaled : b - scaled;
+    }
+
+    static int packedSwitch(int key) {
+      switch (key) {
+        case 0:
+          return 10;
+        case 1:
+          return 11;
+        case 2:
+          return 12;
+        case 3:
+          return 13;
+        case 4:
+          return 14;
+        default:
+          return -1;
+      }
+    }
+
+    static int sparseSwitch(int key) {
+      switch (key) {
+        case -100000:
+          return 1;
+        case 1:
+          return 2;
+        case 1000:
+          return 3;
+        case 100000:
+          return 4;
+        default:
+          return -1;
+      }
+    }
+  }
+
+  static class Main {
+
+    private int counter;
+
+    public static void main(String[] args) {
+      System.out.println(sum(10));
+      System.out.println(lookup(2));
+      System.out.println(lookup(1000));
+      System.out.println(lookup(-5));
+      System.out.println(divide(10, 0));
+      System.out.println(flags(new boolean[] {false, true})[1]);
+      System.out.println(bytes(new byte[] {3, 5}));
+      Main main = new Main();
+      System.out.println(main.increment() + main.increment() + main.increment());
+      System.out.println(Arrays.toString(new int[] {1, 2, 3}));
+      System.out.println(average(4L, 5.0));
+      System.out.println(negate(12));
+    }
+
+    static int sum(int n) {
+      int result = 0;
+      for (int i = 0; i < n; i++) {
+        result = add(result, i);
+      }
+      return result;
+    }
+
+    static int add(int a, int b) {
+      return a + b;
+    }
+
+    static int lookup(int key) {
+      switch (key) {
+        case 1:
+          return 2;
+        case 2:
+          return 3;
+        case 1000:
+          return 7;
+        default:
+          return -1;
+      }
+    }
+
+    static String divide(int a, int b) {
+      try {
+        return "result " + (a / b);
+      } catch (ArithmeticException e) {
+        return "caught " + a;
+      }
+    }
+
+    static boolean[] flags(boolean[] flags) {
+      flags[1] = flags[1] && !flags[0];
+      return flags;
+    }
+
+    static int bytes(byte[] bytes) {
+      bytes[0] += bytes[1];
+      return bytes[0];
+    }
+
+    int increment() {
+      return counter++ + 1;
+    }
+
+    static double average(long a, double b) {
+      return (a + b) / 2;
+    }
+
+    static long negate(int value) {
+      long result = -value;
+      return result;
+    }
+  }
+}
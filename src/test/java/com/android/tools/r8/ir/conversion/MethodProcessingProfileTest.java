@@ -0,0 +1,80 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.ir.conversion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.NeverInline;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.utils.Box;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class MethodProcessingProfileTest extends TestBase {
+
+  private final TestParameters parameters;
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withAllRuntimesAndApiLevels().build();
+  }
+
+  public MethodProcessingProfileTest(TestParameters parameters) {
+    this.parameters = parameters;
+  }
+
+  @Test
+  public void test() throws Exception {
+    Path profileFile = temp.newFolder().toPath().resolve("profile.tsv");
+    Box<MethodProcessingProfile> profile = new Box<>();
+    testForR8(parameters.getBackend())
+        .addInnerClasses(MethodProcessingProfileTest.class)
+        .addKeepMainRule(Main.class)
+        .addOptionsModification(
+            options -> {
+              options
+                  .getMethodProcessingProfilingOptions()
+                  .setEnableProfile(true)
+                  .setProfileFile(profileFile);
+              profile.set(options.getMethodProcessingProfilingOptions().getProfile());
+            })
+        .allowStdoutMessages()
+        .enableInliningAnnotations()
+        .setMinApi(parameters.getApiLevel())
+        .compile()
+        .run(parameters.getRuntime(), Main.class)
+        .assertSuccessWithOutputLines("Hello, world!");
+    // The code of main() and greeting() is processed at least once.
+    assertTrue(profile.get().getNumberOfProcessedMethods() >= 2);
+    List<String> lines = Files.readAllLines(profileFile);
+    assertEquals(profile.get().getNumberOfProcessedMethods() + 1, lines.size());
+    assertTrue(lines.get(0).startsWith("method\t"));
+    assertTrue(
+        lines.stream()
+            .anyMatch(
+                line ->
+                    line.contains(Main.class.getTypeName() + ".greeting()")
+                        && line.contains(MethodProcessingProfile.BUILD_IR + "=")));
+  }
+
+  static class Main {
+
+    public static void main(String[] args) {
+      System.out.println(greeting() + ", world!");
+    }
+
+    @NeverInline
+    static String greeting() {
+      return System.currentTimeMillis() > 0 ? "Hello" : "Goodbye";
+    }
+  }
+}
@@ -0,0 +1,178 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.ir.optimize.info.cache;
+
+import static com.android.tools.r8.utils.codeinspector.Matchers.isPresent;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import com.android.tools.r8.R8TestCompileResult;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.ToolHelper;
+import com.android.tools.r8.utils.BooleanUtils;
+import com.android.tools.r8.utils.codeinspector.CodeInspector;
+import com.android.tools.r8.utils.codeinspector.InstructionSubject;
+import com.android.tools.r8.utils.codeinspector.MethodSubject;
+import com.google.common.collect.ImmutableList;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+/**
+ * Tests that the optimization info exported from the compilation of a library can be used when the
+ * library is given as classpath input to the compilation of an app.
+ */
+@RunWith(Parameterized.class)
+public class OptimizationInfoCacheTest extends TestBase {
+
+  // The optimization info is only computed and exported for kept methods that allow optimization.
+  private static final String KEEP_LIB =
+      "-keep,allowoptimization class " + Lib.class.getTypeName() + " { *; }";
+
+  private final boolean enableImport;
+  private final TestParameters parameters;
+
+  @Parameterized.Parameters(name = "{1}, import: {0}")
+  public static List<Object[]> data() {
+    return buildParameters(
+        BooleanUtils.values(), getTestParameters().withAllRuntimesAndApiLevels().build());
+  }
+
+  public OptimizationInfoCacheTest(boolean enableImport, TestParameters parameters) {
+    this.enableImport = enableImport;
+    this.parameters = parameters;
+  }
+
+  @Test
+  public void test() throws Exception {
+    Path optimizationInfoFile = temp.newFile("optimization-info.bin").toPath();
+    R8TestCompileResult libraryCompileResult =
+        testForR8(parameters.getBackend())
+            .addProgramClasses(Lib.class)
+            .addKeepRules(KEEP_LIB)
+            .addOptionsModification(
+                options ->
+                    options.getOptimizationInfoCacheOptions().setExportFile(optimizationInfoFile))
+            .setMinApi(parameters.getApiLevel())
+            .compile();
+    compileMain(optimizationInfoFile, ToolHelper.getClassAsBytes(Lib.class))
+        .inspect(
+            inspector ->
+                // The null check is removed when it is known that Lib.create() never returns null.
+                assertEquals(enableImport, !hasNullCheck(inspector)))
+        .addRunClasspathFiles(libraryCompileResult.writeToZip())
+        .run(parameters.getRuntime(), Main.class)
+        .assertSuccessWithOutputLines("Non-null");
+  }
+
+  @Test
+  public void testChangedMethodBody() throws Exception {
+    assumeTrue(enableImport);
+    Path optimizationInfoFile = temp.newFile("optimization-info.bin").toPath();
+    testForR8(parameters.getBackend())
+        .addProgramClasses(Lib.class)
+        .addKeepRules(KEEP_LIB)
+        .addOptionsModification(
+            options ->
+                options.getOptimizationInfoCacheOptions().setExportFile(optimizationInfoFile))
+        .setMinApi(parameters.getApiLevel())
+        .compile();
+    // The signatures of Lib are unchanged, but Lib.create() now returns null.
+    compileMain(
+            optimizationInfoFile,
+            transformer(LibReturningNull.class).setClassDescriptor(descriptor(Lib.class)).transform())
+        .inspect(inspector -> assertTrue(hasNullCheck(inspector)));
+  }
+
+  @Test
+  public void testCodeInlinedFromOtherClass() throws Exception {
+    assumeTrue(enableImport);
+    Path optimizationInfoFile = temp.newFile("optimization-info.bin").toPath();
+    byte[] lib =
+        transformer(LibCallingHelper.class).setClassDescriptor(descriptor(Lib.class)).transform();
+    // Only Lib is exported, so the optimization info of Lib.create() must not be exported even if
+    // Helper.create() has been inlined into it, since Helper may be changed independently of Lib.
+    testForR8(parameters.getBackend())
+        .addProgramClassFileData(lib)
+        .addProgramClasses(Helper.class)
+        .addKeepRules(KEEP_LIB)
+        .addOptionsModification(
+            options ->
+                options
+                    .getOptimizationInfoCacheOptions()
+                    .setExportFile(optimizationInfoFile)
+                    .setExportPackagePrefixes(ImmutableList.of(Lib.class.getTypeName())))
+        .setMinApi(parameters.getApiLevel())
+        .compile();
+    compileMain(optimizationInfoFile, lib)
+        .inspect(inspector -> assertTrue(hasNullCheck(inspector)));
+  }
+
+  private R8TestCompileResult compileMain(Path optimizationInfoFile, byte[] lib) throws Exception {
+    return testForR8(parameters.getBackend())
+        .addProgramClasses(Main.class)
+        .addClasspathClassFileData(lib)
+        .addClasspathClasses(Helper.class)
+        .addKeepMainRule(Main.class)
+        .addOptionsModification(
+            options -> {
+              if (enableImport) {
+                options.getOptimizationInfoCacheOptions().setImportFile(optimizationInfoFile);
+              }
+            })
+        .setMinApi(parameters.getApiLevel())
+        .compile();
+  }
+
+  private static boolean hasNullCheck(CodeInspector inspector) {
+    MethodSubject mainMethodSubject = inspector.clazz(Main.class).mainMethod();
+    assertThat(mainMethodSubject, isPresent());
+    return mainMethodSubject.streamInstructions().anyMatch(InstructionSubject::isIf);
+  }
+
+  static class Main {
+
+    public static void main(String[] args) {
+      if (Lib.create() == null) {
+        System.out.println("Null");
+      } else {
+        System.out.println("Non-null");
+      }
+    }
+  }
+
+  public static final class Lib {
+
+    public static Object create() {
+      return new Object();
+    }
+  }
+
+  public static final class LibReturningNull {
+
+    public static Object create() {
+      return null;
+    }
+  }
+
+  public static final class LibCallingHelper {
+
+    public static Object create() {
+      return Helper.create();
+    }
+  }
+
+  public static final class Helper {
+
+    public static Object create() {
+      return new Object();
+    }
+  }
+}
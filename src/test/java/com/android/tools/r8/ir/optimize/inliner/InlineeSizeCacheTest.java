@@ -0,0 +1,206 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.ir.optimize.inliner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.NeverInline;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.contexts.CompilationContext.MethodProcessingContext;
+import com.android.tools.r8.graph.AppInfo;
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.ProgramMethod;
+import com.android.tools.r8.graph.ThrowNullCode;
+import com.android.tools.r8.ir.conversion.MethodProcessor;
+import com.android.tools.r8.ir.conversion.callgraph.CallSiteInformation;
+import com.android.tools.r8.utils.AndroidApiLevel;
+import com.android.tools.r8.utils.codeinspector.CodeInspector;
+import com.android.tools.r8.utils.codeinspector.InstructionSubject;
+import com.android.tools.r8.utils.codeinspector.MethodSubject;
+import com.google.common.collect.Iterables;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Tests that the inlinee size cache does not change the inlining decisions, and that its entries
+ * are not used after the inlinee has been reprocessed or by another method processor.
+ */
+@RunWith(Parameterized.class)
+public class InlineeSizeCacheTest extends TestBase {
+
+  private static final Pattern AVOIDED_IR_BUILDS =
+      Pattern.compile("Number of avoided IR builds: (\\d+)");
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public InlineeSizeCacheTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  @Test
+  public void testInliningUnchanged() throws Exception {
+    Path withoutCache = compile(false);
+    Path withCache = compile(true);
+    assertProgramsEqual(withoutCache, withCache);
+    // Each caller has the budget to inline one of its two calls to the inlinee.
+    CodeInspector inspector = new CodeInspector(withCache);
+    for (String caller : new String[] {"caller1", "caller2", "caller3"}) {
+      MethodSubject callerSubject = inspector.clazz(Main.class).uniqueMethodWithName(caller);
+      assertEquals(
+          caller,
+          1,
+          callerSubject.streamInstructions().filter(InstructionSubject::isInvokeStatic).count());
+    }
+  }
+
+  private Path compile(boolean enableInlineeSizeCache) throws Exception {
+    return testForR8(Backend.DEX)
+        .addInnerClasses(getClass())
+        .addKeepMainRule(Main.class)
+        .addOptionsModification(
+            options -> {
+              options.inlinerOptions().enableInlineeSizeCache = enableInlineeSizeCache;
+              options.inlinerOptions().printInlineeSizeCacheStatistics = true;
+              // Allow inlining the inlinee at every call site, but only give each caller the
+              // budget to inline it once, such that the size of the inlinee decides.
+              options.inlinerOptions().simpleInliningInstructionLimit = 100;
+              options.inlinerOptions().inliningInstructionAllowance = 30;
+            })
+        .enableInliningAnnotations()
+        .allowDiagnosticInfoMessages(enableInlineeSizeCache)
+        .setMinApi(AndroidApiLevel.N)
+        .compile()
+        .inspectDiagnosticMessages(
+            diagnostics -> {
+              if (enableInlineeSizeCache) {
+                // The second call in each caller is rejected using the cached size.
+                String message =
+                    Iterables.getOnlyElement(diagnostics.getInfos()).getDiagnosticMessage();
+                Matcher matcher = AVOIDED_IR_BUILDS.matcher(message);
+                assertTrue(message, matcher.find());
+                assertTrue(message, Integer.parseInt(matcher.group(1)) > 0);
+              } else {
+                diagnostics.assertNoMessages();
+              }
+            })
+        .writeToZip();
+  }
+
+  @Test
+  public void testInvalidation() throws Exception {
+    AppView<AppInfo> appView =
+        computeAppView(
+            buildClasses(Inlinee.class).addLibraryFile(getMostRecentAndroidJar()).build());
+    ProgramMethod inlinee =
+        Iterables.find(
+            appView
+                .definitionFor(buildType(Inlinee.class, appView.dexItemFactory()))
+                .asProgramClass()
+                .programMethods(),
+            method -> method.getName().toString().equals("compute"));
+    MethodProcessor primaryMethodProcessor = new TestMethodProcessor();
+    MethodProcessor postMethodProcessor = new TestMethodProcessor();
+
+    InlineeSizeCache cache = new InlineeSizeCache();
+    assertEquals(-1, cache.getNumberOfInstructions(inlinee, primaryMethodProcessor, false));
+    cache.recordNumberOfInstructions(inlinee, primaryMethodProcessor, false, 12);
+    assertEquals(12, cache.getNumberOfInstructions(inlinee, primaryMethodProcessor, false));
+
+    // The size is recorded separately for inlinees that need a receiver null check.
+    assertEquals(-1, cache.getNumberOfInstructions(inlinee, primaryMethodProcessor, true));
+
+    // The entry is not used by another method processor.
+    assertEquals(-1, cache.getNumberOfInstructions(inlinee, postMethodProcessor, false));
+
+    // Recording the size for another method processor replaces the entry.
+    cache.recordNumberOfInstructions(inlinee, postMethodProcessor, false, 10);
+    assertEquals(10, cache.getNumberOfInstructions(inlinee, postMethodProcessor, false));
+    assertEquals(-1, cache.getNumberOfInstructions(inlinee, primaryMethodProcessor, false));
+
+    // The entry is not used once the inlinee has been reprocessed, which replaces its code.
+    inlinee.setCode(ThrowNullCode.get(), appView);
+    assertEquals(-1, cache.getNumberOfInstructions(inlinee, postMethodProcessor, false));
+
+    // The entries are not used after the cache has been cleared.
+    cache.recordNumberOfInstructions(inlinee, postMethodProcessor, false, 1);
+    cache.clear();
+    assertEquals(-1, cache.getNumberOfInstructions(inlinee, postMethodProcessor, false));
+  }
+
+  private static class TestMethodProcessor extends MethodProcessor {
+
+    @Override
+    public MethodProcessingContext createMethodProcessingContext(ProgramMethod method) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isProcessedConcurrently(ProgramMethod method) {
+      return false;
+    }
+
+    @Override
+    public boolean shouldApplyCodeRewritings(ProgramMethod method) {
+      return false;
+    }
+
+    @Override
+    public void scheduleDesugaredMethodForProcessing(ProgramMethod method) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CallSiteInformation getCallSiteInformation() {
+      return CallSiteInformation.empty();
+    }
+  }
+
+  static class Main {
+
+    public static void main(String[] args) {
+      System.out.println(caller1(args.length));
+      System.out.println(caller2(args.length + 1));
+      System.out.println(caller3(args.length + 2));
+    }
+
+    @NeverInline
+    static int caller1(int x) {
+      return Inlinee.compute(x) + Inlinee.compute(x + 1);
+    }
+
+    @NeverInline
+    static int caller2(int x) {
+      return Inlinee.compute(x) - Inlinee.compute(x - 1);
+    }
+
+    @NeverInline
+    static int caller3(int x) {
+      return Inlinee.compute(x) * Inlinee.compute(x * 2);
+    }
+  }
+
+  static class Inlinee {
+
+    static int compute(int x) {
+      int y = x * 31 + 7;
+      y ^= y >>> 3;
+      y += x * x;
+      y ^= y << 5;
+      y -= x / 3 + 1;
+      return y * 17 + x;
+    }
+  }
+}
@@ -0,0 +1,91 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.ir.optimize.inliner;
+
+import static com.android.tools.r8.utils.codeinspector.Matchers.isAbsent;
+import static com.android.tools.r8.utils.codeinspector.Matchers.isPresent;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.android.tools.r8.NeverInline;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.utils.BooleanUtils;
+import com.android.tools.r8.utils.codeinspector.ClassSubject;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+/**
+ * Tests that multi caller inlining is conservatively disabled when the data retained by the
+ * inliner exceeds the configured budget.
+ */
+@RunWith(Parameterized.class)
+public class MultiCallerInliningRetainedDataBudgetTest extends TestBase {
+
+  private final boolean enableRetainedDataBudget;
+  private final TestParameters parameters;
+
+  @Parameterized.Parameters(name = "{1}, budget: {0}")
+  public static List<Object[]> data() {
+    return buildParameters(
+        BooleanUtils.values(), getTestParameters().withAllRuntimesAndApiLevels().build());
+  }
+
+  public MultiCallerInliningRetainedDataBudgetTest(
+      boolean enableRetainedDataBudget, TestParameters parameters) {
+    this.enableRetainedDataBudget = enableRetainedDataBudget;
+    this.parameters = parameters;
+  }
+
+  @Test
+  public void test() throws Exception {
+    testForR8(parameters.getBackend())
+        .addInnerClasses(getClass())
+        .addKeepMainRule(Main.class)
+        .addOptionsModification(
+            options ->
+                options.inlinerOptions().retainedDataBudgetInMegabytes =
+                    enableRetainedDataBudget ? 0 : -1)
+        .enableInliningAnnotations()
+        .setMinApi(parameters.getApiLevel())
+        .compile()
+        .inspect(
+            inspector -> {
+              ClassSubject mainClassSubject = inspector.clazz(Main.class);
+              assertThat(mainClassSubject, isPresent());
+              assertThat(
+                  mainClassSubject.uniqueMethodWithName("callee"),
+                  enableRetainedDataBudget ? isPresent() : isAbsent());
+            })
+        .run(parameters.getRuntime(), Main.class)
+        .assertSuccessWithOutputLines("Hello, world!", "Hello, world!");
+  }
+
+  static class Main {
+
+    public static void main(String[] args) {
+      caller1();
+      caller2();
+    }
+
+    @NeverInline
+    static void caller1() {
+      callee();
+    }
+
+    @NeverInline
+    static void caller2() {
+      callee();
+    }
+
+    static void callee() {
+      System.out.print("Hello");
+      System.out.print(", ");
+      System.out.print("world");
+      System.out.println("!");
+    }
+  }
+}
@@ -0,0 +1,101 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.ir.optimize.outliner;
+
+import static com.android.tools.r8.utils.codeinspector.Matchers.isPresent;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.android.tools.r8.NeverInline;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.synthesis.SyntheticItemsTestUtils;
+import com.android.tools.r8.utils.BooleanUtils;
+import com.android.tools.r8.utils.codeinspector.ClassSubject;
+import com.android.tools.r8.utils.codeinspector.CodeInspector;
+import com.android.tools.r8.utils.codeinspector.CodeMatchers;
+import com.android.tools.r8.utils.codeinspector.MethodSubject;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class OutlineIRCacheTest extends TestBase {
+
+  private final TestParameters parameters;
+  private final boolean enableIRCache;
+
+  @Parameterized.Parameters(name = "{0}, IR cache: {1}")
+  public static List<Object[]> data() {
+    return buildParameters(
+        getTestParameters().withDexRuntimes().withAllApiLevels().build(), BooleanUtils.values());
+  }
+
+  public OutlineIRCacheTest(TestParameters parameters, boolean enableIRCache) {
+    this.parameters = parameters;
+    this.enableIRCache = enableIRCache;
+  }
+
+  @Test
+  public void test() throws Exception {
+    testForR8(parameters.getBackend())
+        .addInnerClasses(OutlineIRCacheTest.class)
+        .addKeepMainRule(Main.class)
+        .addOptionsModification(
+            options -> {
+              options.outline.threshold = 2;
+              options.outline.minSize = 2;
+              options.outline.maxNumberOfCachedIRInstructions =
+                  enableIRCache ? Integer.MAX_VALUE : 0;
+            })
+        .enableInliningAnnotations()
+        .noMinification()
+        .setMinApi(parameters.getApiLevel())
+        .compile()
+        .inspect(this::inspect)
+        .run(parameters.getRuntime(), Main.class)
+        .assertSuccessWithOutputLines("Hello, world!", "Goodbye, world!");
+  }
+
+  private void inspect(CodeInspector inspector) {
+    ClassSubject outlineClass =
+        inspector.clazz(SyntheticItemsTestUtils.syntheticOutlineClass(Main.class, 0));
+    MethodSubject outlineMethod =
+        outlineClass.uniqueMethodWithName(SyntheticItemsTestUtils.syntheticMethodName());
+    assertThat(outlineMethod, isPresent());
+
+    ClassSubject mainClass = inspector.clazz(Main.class);
+    assertThat(mainClass, isPresent());
+    assertThat(
+        mainClass.uniqueMethodWithName("hello"), CodeMatchers.invokesMethod(outlineMethod));
+    assertThat(
+        mainClass.uniqueMethodWithName("goodbye"), CodeMatchers.invokesMethod(outlineMethod));
+  }
+
+  static class Main {
+
+    public static void main(String[] args) {
+      System.out.println(hello(args.length == 0 ? "world" : args[0]));
+      System.out.println(goodbye(args.length == 0 ? "world" : args[0]));
+    }
+
+    @NeverInline
+    static String hello(String name) {
+      StringBuilder builder = new StringBuilder();
+      builder.append("Hello, ");
+      builder.append(name);
+      builder.append("!");
+      return builder.toString();
+    }
+
+    @NeverInline
+    static String goodbye(String name) {
+      StringBuilder builder = new StringBuilder();
+      builder.append("Goodbye, ");
+      builder.append(name);
+      builder.append("!");
+      return builder.toString();
+    }
+  }
+}
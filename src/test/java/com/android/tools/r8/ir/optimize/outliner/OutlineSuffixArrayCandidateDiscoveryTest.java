@@ -0,0 +1,107 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.ir.optimize.outliner;
+
+import static com.android.tools.r8.utils.codeinspector.Matchers.isPresent;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.android.tools.r8.NeverInline;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.synthesis.SyntheticItemsTestUtils;
+import com.android.tools.r8.utils.codeinspector.ClassSubject;
+import com.android.tools.r8.utils.codeinspector.CodeInspector;
+import com.android.tools.r8.utils.codeinspector.CodeMatchers;
+import com.android.tools.r8.utils.codeinspector.MethodSubject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class OutlineSuffixArrayCandidateDiscoveryTest extends TestBase {
+
+  private final TestParameters parameters;
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withDexRuntimes().withAllApiLevels().build();
+  }
+
+  public OutlineSuffixArrayCandidateDiscoveryTest(TestParameters parameters) {
+    this.parameters = parameters;
+  }
+
+  @Test
+  public void test() throws Exception {
+    testForR8(parameters.getBackend())
+        .addInnerClasses(OutlineSuffixArrayCandidateDiscoveryTest.class)
+        .addKeepMainRule(Main.class)
+        .addOptionsModification(
+            options -> {
+              options.outline.threshold = 2;
+              options.outline.minSize = 2;
+              options.outline.enableSuffixArrayCandidateDiscovery = true;
+            })
+        .enableInliningAnnotations()
+        .noMinification()
+        .setMinApi(parameters.getApiLevel())
+        .compile()
+        .inspect(this::inspect)
+        .run(parameters.getRuntime(), Main.class)
+        .assertSuccessWithOutputLines("Hello, world!", "Goodbye, world!", "42");
+  }
+
+  private void inspect(CodeInspector inspector) {
+    ClassSubject outlineClass =
+        inspector.clazz(SyntheticItemsTestUtils.syntheticOutlineClass(Main.class, 0));
+    MethodSubject outlineMethod =
+        outlineClass.uniqueMethodWithName(SyntheticItemsTestUtils.syntheticMethodName());
+    assertThat(outlineMethod, isPresent());
+
+    ClassSubject mainClass = inspector.clazz(Main.class);
+    assertThat(mainClass, isPresent());
+    assertThat(
+        mainClass.uniqueMethodWithName("hello"), CodeMatchers.invokesMethod(outlineMethod));
+    assertThat(
+        mainClass.uniqueMethodWithName("goodbye"), CodeMatchers.invokesMethod(outlineMethod));
+    // The instructions of compute() are not repeated elsewhere.
+    assertThat(
+        mainClass.uniqueMethodWithName("compute"), not(CodeMatchers.invokesMethod(outlineMethod)));
+  }
+
+  static class Main {
+
+    public static void main(String[] args) {
+      String name = args.length == 0 ? "world" : args[0];
+      System.out.println(hello(name));
+      System.out.println(goodbye(name));
+      System.out.println(compute(args.length));
+    }
+
+    @NeverInline
+    static String hello(String name) {
+      StringBuilder builder = new StringBuilder();
+      builder.append("Hello, ");
+      builder.append(name);
+      builder.append("!");
+      return builder.toString();
+    }
+
+    @NeverInline
+    static String goodbye(String name) {
+      StringBuilder builder = new StringBuilder();
+      builder.append("Goodbye, ");
+      builder.append(name);
+      builder.append("!");
+      return builder.toString();
+    }
+
+    @NeverInline
+    static int compute(int value) {
+      return Integer.parseInt(Integer.toString(value * 7 + 42));
+    }
+  }
+}
@@ -0,0 +1,78 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.ir.optimize.outliner;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.ir.optimize.outliner.RepeatedSequenceFinder.RepeatedSequence;
+import com.android.tools.r8.utils.ThreadUtils;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class RepeatedSequenceFinderTest extends TestBase {
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public RepeatedSequenceFinderTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  private List<RepeatedSequence> run(
+      int[] tokens, int numberOfDistinctTokens, int minLength, int maxLength, int minOccurrences)
+      throws Exception {
+    ExecutorService executorService = ThreadUtils.getExecutorService(2);
+    try {
+      return new RepeatedSequenceFinder(
+              tokens, numberOfDistinctTokens, minLength, maxLength, minOccurrences)
+          .run(executorService);
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  @Test
+  public void testSeparatedSequences() throws Exception {
+    int[] tokens = {0, 1, 2, -1, 0, 1, 2, -2, 3, 0, 1, 2, -3, 4};
+    List<RepeatedSequence> sequences = run(tokens, 5, 3, 10, 3);
+    assertEquals(1, sequences.size());
+    assertEquals(3, sequences.get(0).getLength());
+    assertArrayEquals(new int[] {0, 4, 9}, sequences.get(0).getStarts());
+  }
+
+  @Test
+  public void testOverlappingOccurrences() throws Exception {
+    int[] tokens = {0, 0, 0, 0, 0, 0};
+    List<RepeatedSequence> sequences = run(tokens, 1, 2, 2, 2);
+    assertEquals(1, sequences.size());
+    assertEquals(2, sequences.get(0).getLength());
+    assertArrayEquals(new int[] {0, 2, 4}, sequences.get(0).getStarts());
+  }
+
+  @Test
+  public void testMaxLength() throws Exception {
+    int[] tokens = {0, 1, 2, 3, -1, 0, 1, 2, 3};
+    List<RepeatedSequence> sequences = run(tokens, 4, 2, 3, 2);
+    assertEquals(1, sequences.size());
+    assertEquals(3, sequences.get(0).getLength());
+    assertArrayEquals(new int[] {0, 5}, sequences.get(0).getStarts());
+  }
+
+  @Test
+  public void testTooFewOccurrences() throws Exception {
+    int[] tokens = {0, 1, 2, -1, 0, 1, 2};
+    assertTrue(run(tokens, 3, 2, 10, 3).isEmpty());
+  }
+}
@@ -0,0 +1,128 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.optimize.argumentpropagation;
+
+import static com.android.tools.r8.utils.codeinspector.Matchers.isAbsent;
+import static com.android.tools.r8.utils.codeinspector.Matchers.isPresent;
+import static junit.framework.TestCase.assertTrue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.NeverInline;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.utils.codeinspector.ClassSubject;
+import com.android.tools.r8.utils.codeinspector.InstructionSubject;
+import com.android.tools.r8.utils.codeinspector.MethodSubject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Tests that the argument information is propagated to a parameter that receives the arguments of
+ * several other methods (i.e., a parameter with multiple in-parameters).
+ */
+@RunWith(Parameterized.class)
+public class StaticMethodWithConstantArgumentThroughMultipleCallersTest extends TestBase {
+
+  @Parameter(0)
+  public TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection parameters() {
+    return getTestParameters().withAllRuntimesAndApiLevels().build();
+  }
+
+  @Test
+  public void test() throws Exception {
+    testForR8(parameters.getBackend())
+        .addInnerClasses(getClass())
+        .addKeepMainRule(Main.class)
+        .enableInliningAnnotations()
+        // TODO(b/173398086): uniqueMethodWithName() does not work with argument removal.
+        .noMinification()
+        .setMinApi(parameters.getApiLevel())
+        .compile()
+        .inspect(
+            inspector -> {
+              ClassSubject mainClassSubject = inspector.clazz(Main.class);
+              assertThat(mainClassSubject, isPresent());
+
+              // The callers and the callee have been optimized.
+              for (String name : new String[] {"caller1", "caller2", "caller3", "callee"}) {
+                MethodSubject methodSubject = mainClassSubject.uniqueMethodWithName(name);
+                assertThat(methodSubject, isPresent());
+                assertEquals(0, methodSubject.getProgramMethod().getParameters().size());
+                assertTrue(methodSubject.streamInstructions().noneMatch(InstructionSubject::isIf));
+              }
+
+              assertThat(mainClassSubject.uniqueMethodWithName("dead"), isAbsent());
+            })
+        .run(parameters.getRuntime(), Main.class)
+        .assertSuccessWithOutputLines(
+            "Hello from caller1()",
+            "Hello from callee()",
+            "Hello from caller2()",
+            "Hello from callee()",
+            "Hello from caller3()",
+            "Hello from callee()");
+  }
+
+  static class Main {
+
+    public static void main(String[] args) {
+      caller1(42);
+      caller2(42);
+      caller3(42);
+    }
+
+    @NeverInline
+    static void caller1(int x) {
+      if (x == 42) {
+        System.out.println("Hello from caller1()");
+      } else {
+        dead();
+      }
+      callee(x);
+    }
+
+    @NeverInline
+    static void caller2(int x) {
+      if (x == 42) {
+        System.out.println("Hello from caller2()");
+      } else {
+        dead();
+      }
+      callee(x);
+    }
+
+    @NeverInline
+    static void caller3(int x) {
+      if (x == 42) {
+        System.out.println("Hello from caller3()");
+      } else {
+        dead();
+      }
+      callee(x);
+    }
+
+    @NeverInline
+    static void callee(int x) {
+      if (x == 42) {
+        System.out.println("Hello from callee()");
+      } else {
+        dead();
+      }
+    }
+
+    @NeverInline
+    static void dead() {
+      System.out.println("Unreachable");
+    }
+  }
+}
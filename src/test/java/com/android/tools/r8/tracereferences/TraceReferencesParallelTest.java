@@ -0,0 +1,278 @@
+// Copyright (c) 2022, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.tracereferences;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.ToolHelper;
+import com.android.tools.r8.diagnostic.DefinitionContext;
+import com.android.tools.r8.tracereferences.TraceReferencesConsumer.TracedReference;
+import com.android.tools.r8.utils.AndroidApiLevel;
+import com.android.tools.r8.utils.InternalOptions;
+import com.google.common.collect.ImmutableList;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class TraceReferencesParallelTest extends TestBase {
+
+  private static final List<Class<?>> SOURCE_CLASSES =
+      ImmutableList.of(
+          Source0.class,
+          Source1.class,
+          Source2.class,
+          Source3.class,
+          Source4.class,
+          Source5.class,
+          Source6.class,
+          Source7.class);
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public TraceReferencesParallelTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  static class CheckingConsumer extends TraceReferencesConsumer.ForwardingConsumer {
+
+    private final AtomicInteger activeCalls = new AtomicInteger();
+    private final AtomicBoolean seenConcurrentCall = new AtomicBoolean();
+    // The references paired with the source of the context they are referenced from.
+    private final Set<String> seenReferences = new HashSet<>();
+    private final List<String> duplicateReferences = new ArrayList<>();
+    private int callCount = 0;
+
+    CheckingConsumer(TraceReferencesConsumer consumer) {
+      super(consumer);
+    }
+
+    private void enter(TracedReference<?, ?> tracedReference) {
+      if (activeCalls.incrementAndGet() != 1) {
+        seenConcurrentCall.set(true);
+      }
+      // Give other threads a chance to call the consumer while this call is active.
+      Thread.yield();
+      callCount++;
+      String key =
+          tracedReference.getReference()
+              + " from "
+              + toString(tracedReference.getReferencedFromContext());
+      if (!seenReferences.add(key)) {
+        duplicateReferences.add(key);
+      }
+    }
+
+    private void exit() {
+      activeCalls.decrementAndGet();
+    }
+
+    private static String toString(DefinitionContext context) {
+      if (context.isMethodContext()) {
+        return context.asMethodContext().getMethodReference().toString();
+      }
+      if (context.isFieldContext()) {
+        return context.asFieldContext().getFieldReference().toString();
+      }
+      return context.asClassContext().getClassReference().toString();
+    }
+
+    @Override
+    public void acceptType(TracedClass tracedClass, DiagnosticsHandler handler) {
+      enter(tracedClass);
+      super.acceptType(tracedClass, handler);
+      exit();
+    }
+
+    @Override
+    public void acceptField(TracedField tracedField, DiagnosticsHandler handler) {
+      enter(tracedField);
+      super.acceptField(tracedField, handler);
+      exit();
+    }
+
+    @Override
+    public void acceptMethod(TracedMethod tracedMethod, DiagnosticsHandler handler) {
+      enter(tracedMethod);
+      super.acceptMethod(tracedMethod, handler);
+      exit();
+    }
+  }
+
+  private String runTraceReferences(int threadCount) throws Exception {
+    StringBuilder keepRules = new StringBuilder();
+    CheckingConsumer consumer =
+        new CheckingConsumer(
+            TraceReferencesKeepRules.builder()
+                .setOutputConsumer((string, handler) -> keepRules.append(string))
+                .build());
+    List<Path> sourceFiles = new ArrayList<>();
+    for (Class<?> sourceClass : SOURCE_CLASSES) {
+      sourceFiles.add(ToolHelper.getClassFileForTestClass(sourceClass));
+    }
+    InternalOptions options = new InternalOptions();
+    options.loadAllClassDefinitions = true;
+    options.threadCount = threadCount;
+    TraceReferences.runForTesting(
+        TraceReferencesCommand.builder()
+            .addLibraryFiles(ToolHelper.getAndroidJar(AndroidApiLevel.P))
+            .addSourceFiles(sourceFiles)
+            .addTargetFiles(ToolHelper.getClassFileForTestClass(Target.class))
+            .setConsumer(consumer)
+            .build(),
+        options);
+    assertFalse(consumer.seenConcurrentCall.get());
+    assertEquals(ImmutableList.of(), consumer.duplicateReferences);
+    // Each source class references the type, the field and the method of the target from each
+    // of its two methods.
+    assertEquals(3 * 2 * SOURCE_CLASSES.size(), consumer.callCount);
+    return keepRules.toString();
+  }
+
+  @Test
+  public void test() throws Exception {
+    String expected = runTraceReferences(1);
+    assertTrue(expected.contains("Target"));
+    for (int threadCount : new int[] {2, 4, 8}) {
+      assertEquals(expected, runTraceReferences(threadCount));
+    }
+  }
+
+  static class Target {
+    public static int field;
+
+    public static void method() {}
+  }
+
+  // Each method references each target member several times, which must be reported once for the
+  // method.
+  static class Source0 {
+    static void m1() {
+      Target.method();
+      Target.field = Target.field + 1;
+      Target.method();
+    }
+
+    static void m2() {
+      Target.field++;
+      Target.method();
+      Target.method();
+    }
+  }
+
+  static class Source1 {
+    static void m1() {
+      Target.method();
+      Target.field = Target.field + 1;
+      Target.method();
+    }
+
+    static void m2() {
+      Target.field++;
+      Target.method();
+      Target.method();
+    }
+  }
+
+  static class Source2 {
+    static void m1() {
+      Target.method();
+      Target.field = Target.field + 1;
+      Target.method();
+    }
+
+    static void m2() {
+      Target.field++;
+      Target.method();
+      Target.method();
+    }
+  }
+
+  static class Source3 {
+    static void m1() {
+      Target.method();
+      Target.field = Target.field + 1;
+      Target.method();
+    }
+
+    static void m2() {
+      Target.field++;
+      Target.method();
+      Target.method();
+    }
+  }
+
+  static class Source4 {
+    static void m1() {
+      Target.method();
+      Target.field = Target.field + 1;
+      Target.method();
+    }
+
+    static void m2() {
+      Target.field++;
+      Target.method();
+      Target.method();
+    }
+  }
+
+  static class Source5 {
+    static void m1() {
+      Target.method();
+      Target.field = Target.field + 1;
+      Target.method();
+    }
+
+    static void m2() {
+      Target.field++;
+      Target.method();
+      Target.method();
+    }
+  }
+
+  static class Source6 {
+    static void m1() {
+      Target.method();
+      Target.field = Target.field + 1;
+      Target.method();
+    }
+
+    static void m2() {
+      Target.field++;
+      Target.method();
+      Target.method();
+    }
+  }
+
+  static class Source7 {
+    static void m1() {
+      Target.method();
+      Target.field = Target.field + 1;
+      Target.method();
+    }
+
+    static void m2() {
+      Target.field++;
+      Target.method();
+      Target.method();
+    }
+  }
+}